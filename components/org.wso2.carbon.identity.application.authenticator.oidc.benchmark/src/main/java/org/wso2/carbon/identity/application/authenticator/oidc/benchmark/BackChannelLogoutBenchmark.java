@@ -0,0 +1,271 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.benchmark;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import net.minidev.json.JSONObject;
+import org.mockito.ArgumentMatchers;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.identity.application.authentication.framework.ServerSessionManagementService;
+import org.wso2.carbon.identity.application.authentication.framework.UserSessionManagementService;
+import org.wso2.carbon.identity.application.authentication.framework.config.model.AuthenticatorConfig;
+import org.wso2.carbon.identity.application.authentication.framework.inbound.IdentityRequest;
+import org.wso2.carbon.identity.application.authentication.framework.inbound.IdentityResponse;
+import org.wso2.carbon.identity.application.authenticator.oidc.OIDCAuthenticatorConstants;
+import org.wso2.carbon.identity.application.authenticator.oidc.internal.OpenIDConnectAuthenticatorDataHolder;
+import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.exception.LogoutClientException;
+import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.exception.LogoutException;
+import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.model.LogoutRequest;
+import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.processor.FederatedIdpInitLogoutProcessor;
+import org.wso2.carbon.identity.application.common.model.FederatedAuthenticatorConfig;
+import org.wso2.carbon.identity.application.common.model.IdentityProvider;
+import org.wso2.carbon.identity.application.common.model.Property;
+import org.wso2.carbon.identity.application.common.util.IdentityApplicationConstants;
+import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
+import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
+import org.wso2.carbon.idp.mgt.IdentityProviderManager;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.wso2.carbon.identity.application.authenticator.oidc.util.OIDCErrorConstants.ErrorMessages;
+
+/**
+ * Benchmarks the back-channel logout requests of a federated IdP end to end, i.e. parsing and validating the logout
+ * token and terminating the sessions of the embedded H2 session store. The logout tokens are signed with RS256,
+ * PS256 or ES256 and identify the sessions either by the sid claim or by the sub claim.
+ * <p>
+ * An iteration is a logout storm of {@value #LOGOUTS_PER_ITERATION} logout requests per thread, each terminating a
+ * different session, hence the throughput is the number of logout requests divided by the reported time. Run with
+ * more threads (-t) to measure concurrent storms, e.g. when an IdP revokes the sessions of a whole tenant.
+ * <p>
+ * The signature is verified with the nimbus verifier of the generated key, since the signature validation of the
+ * server resolves the IdP certificate from the registry. The server session management services are no-op mocks,
+ * while the federated session mappings and the federated users are read from and removed from the session store.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, batchSize = BackChannelLogoutBenchmark.LOGOUTS_PER_ITERATION)
+@Measurement(iterations = 10, batchSize = BackChannelLogoutBenchmark.LOGOUTS_PER_ITERATION)
+@Fork(1)
+public class BackChannelLogoutBenchmark {
+
+    static final int LOGOUTS_PER_ITERATION = 1000;
+
+    private static final String ISSUER = "https://idp.example.com/oauth2/token";
+    private static final String CLIENT_ID = "benchmark-client-id";
+    private static final long TOKEN_VALIDITY_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    @Param({"RS256", "PS256", "ES256"})
+    public String algorithm;
+
+    @Param({"sid", "sub"})
+    public String sessionClaim;
+
+    private final BenchmarkLogoutProcessor logoutProcessor = new BenchmarkLogoutProcessor();
+    private final IdentityRequest[] logoutRequests = new IdentityRequest[LOGOUTS_PER_ITERATION];
+    private int nextRequest;
+    private MockedStatic<IdentityDatabaseUtil> identityDatabaseUtil;
+    private MockedStatic<IdentityTenantUtil> identityTenantUtil;
+    private MockedStatic<IdentityProviderManager> identityProviderManager;
+
+    @Setup(Level.Trial)
+    public void setUp(FederatedSessionStore sessionStore) throws Exception {
+
+        // Static mocks are thread local, hence they are registered by every benchmark thread.
+        identityDatabaseUtil = Mockito.mockStatic(IdentityDatabaseUtil.class, Mockito.CALLS_REAL_METHODS);
+        identityDatabaseUtil.when(IdentityDatabaseUtil::getDataSource).thenReturn(sessionStore.getDataSource());
+        identityDatabaseUtil.when(() -> IdentityDatabaseUtil.getDBConnection(ArgumentMatchers.anyBoolean()))
+                .thenAnswer(invocation -> sessionStore.getConnection(invocation.getArgument(0)));
+        identityDatabaseUtil.when(() -> IdentityDatabaseUtil.getSessionDBConnection(ArgumentMatchers.anyBoolean()))
+                .thenAnswer(invocation -> sessionStore.getConnection(invocation.getArgument(0)));
+        identityTenantUtil = Mockito.mockStatic(IdentityTenantUtil.class);
+        identityTenantUtil.when(() -> IdentityTenantUtil.getTenantId(ArgumentMatchers.anyString()))
+                .thenReturn(FederatedSessionStore.TENANT_ID);
+
+        IdentityProviderManager idpManager = Mockito.mock(IdentityProviderManager.class);
+        Mockito.when(idpManager.getIdPByMetadataProperty(IdentityApplicationConstants.IDP_ISSUER_NAME, ISSUER,
+                BenchmarkSupport.TENANT_DOMAIN, false)).thenReturn(buildIdentityProvider());
+        identityProviderManager = Mockito.mockStatic(IdentityProviderManager.class);
+        identityProviderManager.when(IdentityProviderManager::getInstance).thenReturn(idpManager);
+
+        OpenIDConnectAuthenticatorDataHolder dataHolder = OpenIDConnectAuthenticatorDataHolder.getInstance();
+        dataHolder.setServerSessionManagementService(Mockito.mock(ServerSessionManagementService.class));
+        dataHolder.setUserSessionManagementService(Mockito.mock(UserSessionManagementService.class));
+
+        JWSAlgorithm jwsAlgorithm = JWSAlgorithm.parse(algorithm);
+        JWSSigner signer;
+        if (JWSAlgorithm.ES256.equals(jwsAlgorithm)) {
+            KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("EC");
+            keyPairGenerator.initialize(new ECGenParameterSpec("secp256r1"));
+            KeyPair keyPair = keyPairGenerator.generateKeyPair();
+            signer = new ECDSASigner((ECPrivateKey) keyPair.getPrivate());
+            logoutProcessor.verifier = new ECDSAVerifier((ECPublicKey) keyPair.getPublic());
+        } else {
+            KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+            keyPairGenerator.initialize(2048);
+            KeyPair keyPair = keyPairGenerator.generateKeyPair();
+            signer = new RSASSASigner(keyPair.getPrivate());
+            logoutProcessor.verifier = new RSASSAVerifier((RSAPublicKey) keyPair.getPublic());
+        }
+
+        int firstSession = sessionStore.reserveSessions(LOGOUTS_PER_ITERATION);
+        for (int i = 0; i < LOGOUTS_PER_ITERATION; i++) {
+            int sessionIndex = (firstSession + i) % sessionStore.sessionCount;
+            SignedJWT logoutToken = new SignedJWT(new JWSHeader(jwsAlgorithm), buildClaims(sessionIndex));
+            logoutToken.sign(signer);
+            LogoutRequest.LogoutRequestBuilder builder = new LogoutRequest.LogoutRequestBuilder(null, null);
+            builder.addParameter(OIDCAuthenticatorConstants.LOGOUT_TOKEN, new String[]{logoutToken.serialize()});
+            builder.setTenantDomain(BenchmarkSupport.TENANT_DOMAIN);
+            logoutRequests[i] = builder.build();
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void resetRequests() {
+
+        nextRequest = 0;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+
+        identityProviderManager.close();
+        identityTenantUtil.close();
+        identityDatabaseUtil.close();
+    }
+
+    @Benchmark
+    public IdentityResponse.IdentityResponseBuilder logout() throws LogoutException {
+
+        return logoutProcessor.handleOIDCFederatedLogoutRequest(
+                logoutRequests[nextRequest++ % LOGOUTS_PER_ITERATION]);
+    }
+
+    private JWTClaimsSet buildClaims(int sessionIndex) {
+
+        long now = System.currentTimeMillis();
+        JWTClaimsSet.Builder claims = new JWTClaimsSet.Builder()
+                .issuer(ISSUER)
+                .subject(FederatedSessionStore.userName(sessionIndex))
+                .audience(CLIENT_ID)
+                .issueTime(new Date(now))
+                .expirationTime(new Date(now + TOKEN_VALIDITY_MILLIS))
+                .jwtID(UUID.randomUUID().toString())
+                .claim(OIDCAuthenticatorConstants.Claim.EVENTS, new JSONObject().appendField(
+                        OIDCAuthenticatorConstants.Claim.BACKCHANNEL_LOGOUT_EVENT, new JSONObject()));
+        if (OIDCAuthenticatorConstants.Claim.SID.equals(sessionClaim)) {
+            claims.claim(OIDCAuthenticatorConstants.Claim.SID, FederatedSessionStore.sid(sessionIndex));
+        }
+        return claims.build();
+    }
+
+    private static IdentityProvider buildIdentityProvider() {
+
+        Property clientId = new Property();
+        clientId.setName(OIDCAuthenticatorConstants.IdPConfParams.CLIENT_ID);
+        clientId.setValue(CLIENT_ID);
+        FederatedAuthenticatorConfig authenticatorConfig = new FederatedAuthenticatorConfig();
+        authenticatorConfig.setName(OIDCAuthenticatorConstants.AUTHENTICATOR_NAME);
+        authenticatorConfig.setProperties(new Property[]{clientId});
+
+        IdentityProvider identityProvider = new IdentityProvider();
+        identityProvider.setIdentityProviderName(BenchmarkSupport.IDP_NAME);
+        identityProvider.setId(String.valueOf(FederatedSessionStore.IDP_ID));
+        identityProvider.setDefaultAuthenticatorConfig(authenticatorConfig);
+        return identityProvider;
+    }
+
+    /**
+     * Logout processor which verifies the signature with the generated key and reads the authenticator config from
+     * memory.
+     */
+    private static class BenchmarkLogoutProcessor extends FederatedIdpInitLogoutProcessor {
+
+        private final AuthenticatorConfig authenticatorConfig = new AuthenticatorConfig();
+        private JWSVerifier verifier;
+
+        BenchmarkLogoutProcessor() {
+
+            Map<String, String> parameters = new HashMap<>();
+            parameters.put(OIDCAuthenticatorConstants.BackchannelLogout.ENABLE_IAT_VALIDATION, "true");
+            parameters.put(OIDCAuthenticatorConstants.BackchannelLogout.IAT_VALIDITY_PERIOD,
+                    String.valueOf(TimeUnit.MILLISECONDS.toSeconds(TOKEN_VALIDITY_MILLIS)));
+            authenticatorConfig.setParameterMap(Collections.unmodifiableMap(parameters));
+        }
+
+        @Override
+        public IdentityResponse.IdentityResponseBuilder handleOIDCFederatedLogoutRequest(
+                IdentityRequest logoutRequest) throws LogoutException {
+
+            return super.handleOIDCFederatedLogoutRequest(logoutRequest);
+        }
+
+        @Override
+        protected void validateSignature(SignedJWT signedJWT, IdentityProvider identityProvider)
+                throws JOSEException, LogoutClientException {
+
+            if (!signedJWT.verify(verifier)) {
+                throw new LogoutClientException(ErrorMessages.LOGOUT_TOKEN_SIGNATURE_VALIDATION_FAILED.getCode(),
+                        ErrorMessages.LOGOUT_TOKEN_SIGNATURE_VALIDATION_FAILED.getMessage());
+            }
+        }
+
+        @Override
+        protected AuthenticatorConfig getAuthenticatorConfig() {
+
+            return authenticatorConfig;
+        }
+    }
+}
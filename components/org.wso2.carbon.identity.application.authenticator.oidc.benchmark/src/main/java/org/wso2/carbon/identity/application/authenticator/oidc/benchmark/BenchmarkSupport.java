@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.benchmark;
+
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+import org.wso2.carbon.identity.application.authentication.framework.config.model.ExternalIdPConfig;
+import org.wso2.carbon.identity.application.authentication.framework.context.AuthenticationContext;
+import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticationRequest;
+import org.wso2.carbon.identity.application.authenticator.oidc.OpenIDConnectAuthenticator;
+import org.wso2.carbon.identity.application.authenticator.oidc.metrics.PhaseLatencyMetrics;
+import org.wso2.carbon.identity.application.authenticator.oidc.metrics.ResourceUsageMetrics;
+import org.wso2.carbon.identity.application.authenticator.oidc.metrics.SLOTracker;
+import org.wso2.carbon.identity.application.authenticator.oidc.util.ScopeDictionary;
+import org.wso2.carbon.identity.application.common.model.IdentityProvider;
+import org.wso2.carbon.identity.central.log.mgt.utils.LoggerUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+
+/**
+ * Fixtures shared by the authenticator benchmarks.
+ */
+final class BenchmarkSupport {
+
+    static final String IDP_NAME = "BenchmarkIdP";
+    static final String TENANT_DOMAIN = "carbon.super";
+    static final String CONTEXT_IDENTIFIER = "4952b467-86b2-31df-b63c-0bf25cec4f86";
+
+    private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+
+    private BenchmarkSupport() {
+
+    }
+
+    /**
+     * Build an ID token with the given number of group claim values. The tokens are about 0.9 KB without groups and
+     * about 8 KB with 120 groups. The signature is random, since the benchmarked code does not validate it.
+     *
+     * @param groupCount Number of values of the groups claim.
+     * @return Serialized ID token.
+     */
+    static String buildIdToken(int groupCount) {
+
+        StringBuilder payload = new StringBuilder(256 + groupCount * 48);
+        long now = System.currentTimeMillis() / 1000;
+        payload.append("{\"iss\":\"https://idp.example.com/oauth2/token\",")
+                .append("\"sub\":\"8f6a1c7e-4b2d-4f0a-9c3e-5d7b2a1e6f90\",")
+                .append("\"aud\":[\"benchmark-client-id\"],")
+                .append("\"azp\":\"benchmark-client-id\",")
+                .append("\"exp\":").append(now + 3600).append(",")
+                .append("\"iat\":").append(now).append(",")
+                .append("\"auth_time\":").append(now).append(",")
+                .append("\"nonce\":\"7c4f2d1e-9a8b-4c3d-8e7f-6a5b4c3d2e1f\",")
+                .append("\"sid\":\"2b1e6f90-8f6a-4c7e-b2d4-f0a9c3e5d7b2\",")
+                .append("\"email\":\"alice@example.com\",")
+                .append("\"given_name\":\"Alice\",")
+                .append("\"family_name\":\"Smith\",")
+                .append("\"groups\":[");
+        for (int i = 0; i < groupCount; i++) {
+            if (i > 0) {
+                payload.append(',');
+            }
+            payload.append("\"cn=group-").append(String.format("%05d", i)).append(",ou=groups,dc=example,dc=com\"");
+        }
+        payload.append("]}");
+
+        return toJwt(payload.toString());
+    }
+
+    /**
+     * Serialize the given claims as an RS256 JWT. The signature is random, since the benchmarked code does not
+     * validate it.
+     *
+     * @param payload JSON of the claims.
+     * @return Serialized JWT.
+     */
+    static String toJwt(String payload) {
+
+        byte[] signature = new byte[256];
+        new Random(payload.hashCode()).nextBytes(signature);
+        return encode("{\"alg\":\"RS256\",\"typ\":\"JWT\",\"kid\":\"benchmark\"}") + "." +
+                encode(payload) + "." + BASE64_URL.encodeToString(signature);
+    }
+
+    /**
+     * Clear the per IdP and per tenant state the authenticator keeps across logins, i.e. the scope dictionaries
+     * and the metrics collectors.
+     */
+    static void clearAuthenticatorCaches() {
+
+        SLOTracker.getInstance().reset();
+        PhaseLatencyMetrics.getInstance().reset();
+        ResourceUsageMetrics.getInstance().reset();
+        try {
+            Field dictionaries = ScopeDictionary.class.getDeclaredField("DICTIONARIES");
+            dictionaries.setAccessible(true);
+            ((Map<?, ?>) dictionaries.get(null)).clear();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot clear the scope dictionaries.", e);
+        }
+    }
+
+    /**
+     * Build the authentication context of a login to the benchmark IdP.
+     *
+     * @param authenticatorProperties Authenticator properties.
+     * @param queryParams             Query params of the authentication request.
+     * @return Authentication context.
+     */
+    static AuthenticationContext newContext(Map<String, String> authenticatorProperties,
+                                            Map<String, String[]> queryParams) {
+
+        AuthenticationContext context = new AuthenticationContext();
+        context.setContextIdentifier(CONTEXT_IDENTIFIER);
+        context.setTenantDomain(TENANT_DOMAIN);
+        context.setCurrentStep(1);
+        context.setAuthenticatorProperties(authenticatorProperties);
+        IdentityProvider identityProvider = new IdentityProvider();
+        identityProvider.setIdentityProviderName(IDP_NAME);
+        context.setExternalIdP(new ExternalIdPConfig(identityProvider));
+        if (!queryParams.isEmpty()) {
+            AuthenticationRequest authenticationRequest = new AuthenticationRequest();
+            for (Map.Entry<String, String[]> queryParam : queryParams.entrySet()) {
+                authenticationRequest.addRequestQueryParam(queryParam.getKey(), queryParam.getValue());
+            }
+            context.setAuthenticationRequest(authenticationRequest);
+        }
+        return context;
+    }
+
+    /**
+     * Build a servlet request with the given params. The params are served by a wrapper rather than by the mock,
+     * hence the mock invocation cost does not show up in the measurements.
+     *
+     * @param params Request params.
+     * @return Servlet request.
+     */
+    static HttpServletRequest newRequest(Map<String, String[]> params) {
+
+        Map<String, String[]> parameterMap = Collections.unmodifiableMap(new HashMap<>(params));
+        return new HttpServletRequestWrapper(Mockito.mock(HttpServletRequest.class,
+                Mockito.withSettings().stubOnly())) {
+
+            @Override
+            public String getParameter(String name) {
+
+                String[] values = parameterMap.get(name);
+                return values == null || values.length == 0 ? null : values[0];
+            }
+
+            @Override
+            public Map<String, String[]> getParameterMap() {
+
+                return parameterMap;
+            }
+
+            @Override
+            public Object getAttribute(String name) {
+
+                return null;
+            }
+        };
+    }
+
+    /**
+     * Disable the diagnostic logs, which need a running server. The returned mock is bound to the calling thread,
+     * hence it should be opened in a trial level setup of a thread scoped state.
+     *
+     * @return Static mock to be closed at the tear down.
+     */
+    static MockedStatic<LoggerUtils> disableDiagnosticLogs() {
+
+        MockedStatic<LoggerUtils> loggerUtils = Mockito.mockStatic(LoggerUtils.class);
+        loggerUtils.when(LoggerUtils::isDiagnosticLogsEnabled).thenReturn(false);
+        return loggerUtils;
+    }
+
+    /**
+     * Get a handle of a private method of the authenticator.
+     *
+     * @param name           Method name.
+     * @param parameterTypes Parameter types of the method.
+     * @return Method handle.
+     */
+    static MethodHandle authenticatorMethod(String name, Class<?>... parameterTypes) {
+
+        try {
+            Method method = OpenIDConnectAuthenticator.class.getDeclaredMethod(name, parameterTypes);
+            method.setAccessible(true);
+            return MethodHandles.lookup().unreflect(method);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot access the authenticator method: " + name, e);
+        }
+    }
+
+    private static String encode(String value) {
+
+        return BASE64_URL.encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
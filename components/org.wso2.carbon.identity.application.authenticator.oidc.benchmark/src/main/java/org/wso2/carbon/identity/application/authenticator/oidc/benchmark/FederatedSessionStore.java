@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.benchmark;
+
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+/**
+ * Embedded H2 session store shared by the logout benchmark threads, seeded with the given number of federated
+ * sessions and federated users. The sessions terminated during an iteration are restored before the next iteration,
+ * hence every iteration starts with the same store.
+ */
+@State(Scope.Benchmark)
+public class FederatedSessionStore {
+
+    static final int TENANT_ID = -1234;
+    static final int IDP_ID = 1;
+
+    private static final String DB_URL = "jdbc:h2:mem:oidc-logout-benchmark;DB_CLOSE_DELAY=-1";
+    private static final String SCHEMA = "RUNSCRIPT FROM 'classpath:dbscripts/h2.sql'";
+    private static final String FEDERATED_USER_DOMAIN = "FEDERATED";
+    private static final String AUTHENTICATOR_ID = "OpenIDConnectAuthenticator";
+    private static final String PROTOCOL_TYPE = "oidc";
+    private static final int MAX_CONNECTIONS = 64;
+    private static final int SEED_BATCH_SIZE = 10000;
+
+    private static final String INSERT_SESSION = "INSERT INTO IDN_FED_AUTH_SESSION_MAPPING " +
+            "(IDP_SESSION_ID, SESSION_ID, IDP_NAME, AUTHENTICATOR_ID, PROTOCOL_TYPE) VALUES (?, ?, ?, ?, ?)";
+    private static final String MERGE_SESSION = "MERGE INTO IDN_FED_AUTH_SESSION_MAPPING " +
+            "(IDP_SESSION_ID, SESSION_ID, IDP_NAME, AUTHENTICATOR_ID, PROTOCOL_TYPE) KEY (IDP_SESSION_ID) " +
+            "VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_USER = "INSERT INTO IDN_AUTH_USER " +
+            "(USER_ID, USER_NAME, TENANT_ID, DOMAIN_NAME, IDP_ID) VALUES (?, ?, ?, ?, ?)";
+
+    @Param({"1", "1000", "100000", "1000000"})
+    public int sessionCount;
+
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private final AtomicInteger usedSessionCount = new AtomicInteger();
+    private JdbcConnectionPool connectionPool;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+
+        connectionPool = JdbcConnectionPool.create(DB_URL, "sa", "");
+        connectionPool.setMaxConnections(MAX_CONNECTIONS);
+        try (Connection connection = connectionPool.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(SCHEMA);
+            statement.execute("TRUNCATE TABLE IDN_FED_AUTH_SESSION_MAPPING");
+            statement.execute("TRUNCATE TABLE IDN_AUTH_USER");
+        }
+        seed(INSERT_SESSION, sessionCount, this::setSession);
+        seed(INSERT_USER, sessionCount, this::setUser);
+    }
+
+    /**
+     * Restore the sessions terminated by the previous iteration.
+     */
+    @Setup(Level.Iteration)
+    public void restoreSessions() throws SQLException {
+
+        seed(MERGE_SESSION, Math.min(usedSessionCount.get(), sessionCount), this::setSession);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+
+        try (Connection connection = connectionPool.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        connectionPool.dispose();
+    }
+
+    DataSource getDataSource() {
+
+        return connectionPool;
+    }
+
+    /**
+     * Get a connection in the mode used by the identity database utils, i.e. auto commit is disabled if the caller
+     * applies a transaction.
+     */
+    Connection getConnection(boolean shouldApplyTransaction) throws SQLException {
+
+        Connection connection = connectionPool.getConnection();
+        connection.setAutoCommit(!shouldApplyTransaction);
+        return connection;
+    }
+
+    /**
+     * Reserve the indexes of the sessions terminated by a benchmark thread. The threads are given disjoint ranges,
+     * which wrap around when the store has fewer sessions than the logout requests of an iteration.
+     *
+     * @param logoutCount Number of logout requests of the thread per iteration.
+     * @return First session index of the thread.
+     */
+    int reserveSessions(int logoutCount) {
+
+        int first = threadCount.getAndIncrement() * logoutCount;
+        usedSessionCount.accumulateAndGet(first + logoutCount, Math::max);
+        return first;
+    }
+
+    static String sid(int index) {
+
+        return String.format("sid-%08d", index);
+    }
+
+    static String sessionId(int index) {
+
+        return String.format("session-%08d", index);
+    }
+
+    static String userName(int index) {
+
+        return String.format("user-%08d", index);
+    }
+
+    static String userId(int index) {
+
+        return String.format("user-id-%08d", index);
+    }
+
+    private void setSession(PreparedStatement statement, int index) throws SQLException {
+
+        statement.setString(1, sid(index));
+        statement.setString(2, sessionId(index));
+        statement.setString(3, BenchmarkSupport.IDP_NAME);
+        statement.setString(4, AUTHENTICATOR_ID);
+        statement.setString(5, PROTOCOL_TYPE);
+    }
+
+    private void setUser(PreparedStatement statement, int index) throws SQLException {
+
+        statement.setString(1, userId(index));
+        statement.setString(2, userName(index));
+        statement.setInt(3, TENANT_ID);
+        statement.setString(4, FEDERATED_USER_DOMAIN);
+        statement.setInt(5, IDP_ID);
+    }
+
+    private void seed(String sql, int rowCount, RowBinder binder) throws SQLException {
+
+        try (Connection connection = getConnection(true);
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < rowCount; i++) {
+                binder.bind(statement, i);
+                statement.addBatch();
+                if ((i + 1) % SEED_BATCH_SIZE == 0) {
+                    statement.executeBatch();
+                }
+            }
+            statement.executeBatch();
+            connection.commit();
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowBinder {
+
+        void bind(PreparedStatement statement, int index) throws SQLException;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.identity.application.authentication.framework.context.AuthenticationContext;
+import org.wso2.carbon.identity.application.authenticator.oidc.OpenIDConnectAuthenticator;
+import org.wso2.carbon.identity.application.common.model.ClaimMapping;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks decoding the ID token claims and mapping them to the federated user claims, for ID tokens from about
+ * 0.9 KB up to about 8 KB with many group claim values.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class IdTokenBenchmark {
+
+    private static final MethodHandle GET_ID_TOKEN_CLAIMS = BenchmarkSupport.authenticatorMethod(
+            "getIdTokenClaims", AuthenticationContext.class, String.class);
+
+    private static final String MULTI_ATTRIBUTE_SEPARATOR = ",";
+
+    @Param({"0", "20", "120"})
+    public int groupCount;
+
+    private final ExposedAuthenticator authenticator = new ExposedAuthenticator();
+    private String idToken;
+    private Map<String, Object> idTokenClaims;
+    private AuthenticationContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+
+        idToken = BenchmarkSupport.buildIdToken(groupCount);
+        context = BenchmarkSupport.newContext(new HashMap<>(), Collections.emptyMap());
+        idTokenClaims = getIdTokenClaims();
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> getIdTokenClaims() throws Throwable {
+
+        return (Map<String, Object>) GET_ID_TOKEN_CLAIMS.invoke(authenticator, context, idToken);
+    }
+
+    @Benchmark
+    public Map<ClaimMapping, String> buildClaimMappings() {
+
+        Map<ClaimMapping, String> claims = new HashMap<>();
+        for (Map.Entry<String, Object> entry : idTokenClaims.entrySet()) {
+            authenticator.buildClaimMappings(claims, entry, MULTI_ATTRIBUTE_SEPARATOR);
+        }
+        return claims;
+    }
+
+    /**
+     * Exposes the protected methods of the authenticator to the benchmarks.
+     */
+    static class ExposedAuthenticator extends OpenIDConnectAuthenticator {
+
+        @Override
+        public void buildClaimMappings(Map<ClaimMapping, String> claims, Map.Entry<String, Object> entry,
+                                       String separator) {
+
+            super.buildClaimMappings(claims, entry, separator);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.benchmark;
+
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.wso2.carbon.identity.application.authentication.framework.config.model.ExternalIdPConfig;
+import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkConstants;
+import org.wso2.carbon.identity.application.authenticator.oidc.OIDCAuthenticatorConstants;
+import org.wso2.carbon.identity.application.authenticator.oidc.internal.OpenIDConnectAuthenticatorDataHolder;
+import org.wso2.carbon.identity.application.common.model.ClaimConfig;
+import org.wso2.carbon.identity.application.common.model.ClaimMapping;
+import org.wso2.carbon.identity.application.common.model.IdentityProvider;
+import org.wso2.carbon.identity.application.common.util.IdentityApplicationConstants;
+import org.wso2.carbon.identity.core.util.IdentityCoreConstants;
+import org.wso2.carbon.user.api.RealmConfiguration;
+import org.wso2.carbon.user.core.UserRealm;
+import org.wso2.carbon.user.core.UserStoreManager;
+import org.wso2.carbon.user.core.service.RealmService;
+import org.wso2.carbon.user.core.tenant.TenantManager;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configurations of many federated IdPs spread across tenants, i.e. the IdPs a multi-tenant deployment serves. IdP n
+ * belongs to tenant n % tenantCount and has its own client, endpoints, scopes, query param template and claim
+ * mappings, hence every IdP hits its own entries of the per IdP and per tenant state of the authenticator.
+ */
+@State(Scope.Benchmark)
+public class IdentityProviderFleet {
+
+    private static final int CLAIM_MAPPINGS_PER_IDP = 12;
+    private static final int GROUPS_PER_USER = 8;
+
+    @Param({"100", "10000"})
+    public int idpCount;
+
+    @Param({"10", "1000"})
+    public int tenantCount;
+
+    private FleetIdP[] idps;
+    private RealmService previousRealmService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+
+        idps = new FleetIdP[idpCount];
+        for (int i = 0; i < idpCount; i++) {
+            idps[i] = new FleetIdP(i, "tenant-" + (i % tenantCount) + ".example.com");
+        }
+        OpenIDConnectAuthenticatorDataHolder dataHolder = OpenIDConnectAuthenticatorDataHolder.getInstance();
+        previousRealmService = dataHolder.getRealmService();
+        dataHolder.setRealmService(mockRealmService());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+
+        OpenIDConnectAuthenticatorDataHolder.getInstance().setRealmService(previousRealmService);
+    }
+
+    FleetIdP get(int index) {
+
+        return idps[index];
+    }
+
+    int size() {
+
+        return idps.length;
+    }
+
+    private static RealmService mockRealmService() throws Exception {
+
+        RealmConfiguration realmConfiguration = Mockito.mock(RealmConfiguration.class,
+                Mockito.withSettings().stubOnly());
+        Mockito.when(realmConfiguration.getUserStoreProperty(IdentityCoreConstants.MULTI_ATTRIBUTE_SEPARATOR))
+                .thenReturn(",");
+        UserStoreManager userStoreManager = Mockito.mock(UserStoreManager.class, Mockito.withSettings().stubOnly());
+        Mockito.when(userStoreManager.getRealmConfiguration()).thenReturn(realmConfiguration);
+        UserRealm userRealm = Mockito.mock(UserRealm.class, Mockito.withSettings().stubOnly());
+        Mockito.when(userRealm.getUserStoreManager()).thenReturn(userStoreManager);
+        TenantManager tenantManager = Mockito.mock(TenantManager.class, Mockito.withSettings().stubOnly());
+        Mockito.when(tenantManager.getTenantId(ArgumentMatchers.anyString()))
+                .thenAnswer(invocation -> invocation.getArgument(0).hashCode() & Integer.MAX_VALUE);
+        RealmService realmService = Mockito.mock(RealmService.class, Mockito.withSettings().stubOnly());
+        Mockito.when(realmService.getTenantManager()).thenReturn(tenantManager);
+        Mockito.when(realmService.getTenantUserRealm(ArgumentMatchers.anyInt())).thenReturn(userRealm);
+        return realmService;
+    }
+
+    /**
+     * A federated IdP of the fleet, with the ID token and the user info its token and user info endpoints return.
+     */
+    static final class FleetIdP {
+
+        private final String tenantDomain;
+        private final ExternalIdPConfig externalIdPConfig;
+        private final Map<String, String> authenticatorProperties;
+        private final String idToken;
+        private final String userInfo;
+
+        private FleetIdP(int index, String tenantDomain) {
+
+            this.tenantDomain = tenantDomain;
+            String idpName = "idp-" + index;
+            String idpUrl = "https://" + idpName + "." + tenantDomain;
+
+            Map<String, String> properties = new HashMap<>();
+            properties.put(OIDCAuthenticatorConstants.CLIENT_ID, "client-" + index);
+            properties.put(OIDCAuthenticatorConstants.CLIENT_SECRET, "secret-" + index);
+            properties.put(OIDCAuthenticatorConstants.OAUTH2_AUTHZ_URL, idpUrl + "/oauth2/authorize");
+            properties.put(OIDCAuthenticatorConstants.OAUTH2_TOKEN_URL, idpUrl + "/oauth2/token");
+            properties.put(IdentityApplicationConstants.Authenticator.OIDC.USER_INFO_URL, idpUrl + "/oauth2/userinfo");
+            properties.put(IdentityApplicationConstants.OAuth2.CALLBACK_URL,
+                    "https://localhost:9443/t/" + tenantDomain + "/commonauth");
+            properties.put(IdentityApplicationConstants.Authenticator.OIDC.SCOPES,
+                    "openid email profile " + idpName + ".read");
+            properties.put(FrameworkConstants.QUERY_PARAMS,
+                    "login_hint=${login_hint}&ui_locales=${ui_locales}&idp_hint=" + idpName);
+            properties.put(OIDCAuthenticatorConstants.IS_PKCE_ENABLED, String.valueOf(index % 2 == 0));
+            this.authenticatorProperties = Collections.unmodifiableMap(properties);
+
+            ClaimMapping[] claimMappings = new ClaimMapping[CLAIM_MAPPINGS_PER_IDP];
+            for (int i = 0; i < CLAIM_MAPPINGS_PER_IDP; i++) {
+                claimMappings[i] = ClaimMapping.build("http://wso2.org/claims/claim" + i,
+                        idpUrl + "/claims/claim" + i, null, false);
+            }
+            ClaimConfig claimConfig = new ClaimConfig();
+            claimConfig.setClaimMappings(claimMappings);
+            IdentityProvider identityProvider = new IdentityProvider();
+            identityProvider.setIdentityProviderName(idpName);
+            identityProvider.setClaimConfig(claimConfig);
+            this.externalIdPConfig = new ExternalIdPConfig(identityProvider);
+
+            long now = System.currentTimeMillis() / 1000;
+            StringBuilder idTokenClaims = new StringBuilder(512)
+                    .append("{\"iss\":\"").append(idpUrl).append("\",")
+                    .append("\"sub\":\"user-").append(index).append("\",")
+                    .append("\"aud\":[\"client-").append(index).append("\"],")
+                    .append("\"exp\":").append(now + 86400).append(",")
+                    .append("\"iat\":").append(now).append(",")
+                    .append("\"sid\":\"sid-").append(index).append("\",")
+                    .append("\"email\":\"user-").append(index).append('@').append(tenantDomain).append("\",")
+                    .append("\"groups\":[");
+            for (int i = 0; i < GROUPS_PER_USER; i++) {
+                idTokenClaims.append(i > 0 ? "," : "").append("\"").append(idpName).append("-group-").append(i)
+                        .append('"');
+            }
+            this.idToken = BenchmarkSupport.toJwt(idTokenClaims.append("]}").toString());
+            this.userInfo = "{\"sub\":\"user-" + index + "\",\"given_name\":\"User\",\"family_name\":\"" +
+                    index + "\",\"locale\":\"en-US\"}";
+        }
+
+        String getTenantDomain() {
+
+            return tenantDomain;
+        }
+
+        ExternalIdPConfig getExternalIdPConfig() {
+
+            return externalIdPConfig;
+        }
+
+        Map<String, String> getAuthenticatorProperties() {
+
+            return authenticatorProperties;
+        }
+
+        String getIdToken() {
+
+            return idToken;
+        }
+
+        String getUserInfo() {
+
+            return userInfo;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.benchmark;
+
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.identity.application.authenticator.oidc.OIDCAuthenticatorConstants;
+import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.factory.LogoutRequestFactory;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Benchmarks matching the request URIs of the back-channel logout endpoint, which the identity servlet does for
+ * every request it receives. The endpoint regex is compared with the single scan matcher used by
+ * LogoutRequestFactory.canHandle. Run with the gc profiler (-prof gc) to compare the allocation rates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class LogoutRequestMatchingBenchmark {
+
+    @Param({"/identity/oidc/slo", "/t/wso2.com/identity/oidc/slo",
+            "/oauth2/authorize?response_type=code&client_id=benchmark-client-id&scope=openid"})
+    public String requestUri;
+
+    private final LogoutRequestFactory logoutRequestFactory = new LogoutRequestFactory();
+    private final HttpServletResponse response = Mockito.mock(HttpServletResponse.class,
+            Mockito.withSettings().stubOnly());
+    private HttpServletRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        request = new HttpServletRequestWrapper(Mockito.mock(HttpServletRequest.class,
+                Mockito.withSettings().stubOnly())) {
+
+            @Override
+            public String getRequestURI() {
+
+                return requestUri;
+            }
+        };
+    }
+
+    @Benchmark
+    public boolean regexMatch() {
+
+        return OIDCAuthenticatorConstants.OIDC_BACKCHANNEL_LOGOUT_ENDPOINT_URL_PATTERN.matcher(requestUri).matches();
+    }
+
+    @Benchmark
+    public boolean endpointUriMatch() {
+
+        return OIDCAuthenticatorConstants.OIDC_BACKCHANNEL_LOGOUT_ENDPOINT_URL_MATCHER.matches(requestUri);
+    }
+
+    @Benchmark
+    public boolean canHandle() {
+
+        return logoutRequestFactory.canHandle(request, response);
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.benchmark;
+
+import org.apache.oltu.oauth2.client.OAuthClient;
+import org.apache.oltu.oauth2.client.request.OAuthClientRequest;
+import org.apache.oltu.oauth2.client.response.OAuthClientResponse;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.identity.application.authentication.framework.AuthenticatorFlowStatus;
+import org.wso2.carbon.identity.application.authentication.framework.context.AuthenticationContext;
+import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticationRequest;
+import org.wso2.carbon.identity.application.authenticator.oidc.NativeSDKBasedFederatedOAuthClientResponse;
+import org.wso2.carbon.identity.application.authenticator.oidc.OIDCAuthenticatorConstants;
+import org.wso2.carbon.identity.application.authenticator.oidc.OpenIDConnectAuthenticator;
+import org.wso2.carbon.identity.central.log.mgt.utils.LoggerUtils;
+import org.wso2.carbon.identity.core.ServiceURL;
+import org.wso2.carbon.identity.core.ServiceURLBuilder;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Benchmarks federated logins of a multi-tenant deployment, with the IdPs of an {@link IdentityProviderFleet}.
+ * A login is the initial request, which redirects to the IdP, followed by the callback request, which exchanges the
+ * code and builds the subject from the ID token and the user info. The token and user info endpoints are stubbed
+ * at the authenticator, hence only the authenticator cost is measured.
+ * <ul>
+ * <li>steadyStateLogin: logins to uniformly random IdPs of the fleet, i.e. the per login cost once the per IdP and
+ * per tenant caches are warm (as warm as their bounds allow for the fleet size).</li>
+ * <li>coldLogin: batches of {@value #COLD_LOGINS_PER_ITERATION} logins to distinct IdPs right after clearing the
+ * caches, i.e. the cost of the cache misses after a restart or an eviction storm.</li>
+ * </ul>
+ * The heap retained by the caches after a login to every IdP of the fleet is reported as the cacheFootprintBytes
+ * counter of steadyStateLogin. It is measured with the used heap after full GCs, hence run with a single thread
+ * (-t 1) and read it as an estimate.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+public class MultiTenantScalingBenchmark {
+
+    static final int COLD_LOGINS_PER_ITERATION = 100;
+
+    private static final int RANDOM_SEQUENCE_LENGTH = 1 << 16;
+    private static final String AUTHORIZATION_CODE = "benchmark-authorization-code";
+    private static final String ACCESS_TOKEN = "benchmark-access-token";
+
+    private final FleetAuthenticator authenticator = new FleetAuthenticator();
+    private final HttpServletResponse response = Mockito.mock(HttpServletResponse.class,
+            Mockito.withSettings().stubOnly());
+    private HttpServletRequest initialRequest;
+    private int[] randomSequence;
+    private int nextRandom;
+    private int[] coldSequence;
+    private int nextCold;
+    private long loginCount;
+    private long cacheFootprintBytes;
+    private MockedStatic<LoggerUtils> loggerUtils;
+    private MockedStatic<ServiceURLBuilder> serviceURLBuilder;
+
+    @Setup(Level.Trial)
+    public void setUp(IdentityProviderFleet fleet) throws Exception {
+
+        // Static mocks are thread local, hence they are registered by every benchmark thread.
+        loggerUtils = BenchmarkSupport.disableDiagnosticLogs();
+        ServiceURL serviceURL = Mockito.mock(ServiceURL.class, Mockito.withSettings().stubOnly());
+        Mockito.when(serviceURL.getAbsolutePublicURL()).thenReturn("https://localhost:9443");
+        ServiceURLBuilder builder = Mockito.mock(ServiceURLBuilder.class, Mockito.withSettings().stubOnly());
+        Mockito.when(builder.build()).thenReturn(serviceURL);
+        serviceURLBuilder = Mockito.mockStatic(ServiceURLBuilder.class);
+        serviceURLBuilder.when(ServiceURLBuilder::create).thenReturn(builder);
+
+        initialRequest = BenchmarkSupport.newRequest(Collections.singletonMap("login_hint",
+                new String[]{"alice@example.com"}));
+        Random random = new Random(Thread.currentThread().getId());
+        randomSequence = new int[RANDOM_SEQUENCE_LENGTH];
+        for (int i = 0; i < RANDOM_SEQUENCE_LENGTH; i++) {
+            randomSequence[i] = random.nextInt(fleet.size());
+        }
+        coldSequence = new int[fleet.size()];
+        for (int i = 0; i < coldSequence.length; i++) {
+            coldSequence[i] = i;
+        }
+        for (int i = coldSequence.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = coldSequence[i];
+            coldSequence[i] = coldSequence[j];
+            coldSequence[j] = swap;
+        }
+        cacheFootprintBytes = measureCacheFootprint(fleet);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+
+        serviceURLBuilder.close();
+        loggerUtils.close();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 5, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public AuthenticationContext steadyStateLogin(IdentityProviderFleet fleet, CacheFootprint footprint)
+            throws Exception {
+
+        footprint.cacheFootprintBytes = cacheFootprintBytes;
+        return login(fleet.get(randomSequence[nextRandom++ & (RANDOM_SEQUENCE_LENGTH - 1)]));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 5, batchSize = COLD_LOGINS_PER_ITERATION)
+    @Measurement(iterations = 20, batchSize = COLD_LOGINS_PER_ITERATION)
+    public AuthenticationContext coldLogin(IdentityProviderFleet fleet, ColdCaches coldCaches) throws Exception {
+
+        AuthenticationContext context = login(fleet.get(coldSequence[nextCold]));
+        nextCold = (nextCold + 1) % coldSequence.length;
+        return context;
+    }
+
+    /**
+     * Estimate the heap retained by the caches, as the used heap growth over a login to every IdP of the fleet. The
+     * logins also warm up the caches for the steady state logins.
+     */
+    private long measureCacheFootprint(IdentityProviderFleet fleet) throws Exception {
+
+        BenchmarkSupport.clearAuthenticatorCaches();
+        long usedHeap = usedHeapAfterGC();
+        for (int i = 0; i < fleet.size(); i++) {
+            login(fleet.get(i));
+        }
+        return Math.max(0, usedHeapAfterGC() - usedHeap);
+    }
+
+    private static long usedHeapAfterGC() {
+
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private AuthenticationContext login(IdentityProviderFleet.FleetIdP idp) throws Exception {
+
+        authenticator.idp = idp;
+        AuthenticationContext context = new AuthenticationContext();
+        context.setContextIdentifier(Long.toHexString(Thread.currentThread().getId()) + '-' + loginCount++);
+        context.setTenantDomain(idp.getTenantDomain());
+        context.setCurrentStep(1);
+        context.setAuthenticatorProperties(new HashMap<>(idp.getAuthenticatorProperties()));
+        context.setExternalIdP(idp.getExternalIdPConfig());
+        context.setAuthenticationRequest(new AuthenticationRequest());
+
+        AuthenticatorFlowStatus status = authenticator.process(initialRequest, response, context);
+        if (status != AuthenticatorFlowStatus.INCOMPLETE) {
+            throw new IllegalStateException("Initial request did not redirect to the IdP. Status: " + status);
+        }
+        Map<String, String[]> callbackParams = new HashMap<>();
+        callbackParams.put(OIDCAuthenticatorConstants.OAUTH2_GRANT_TYPE_CODE, new String[]{AUTHORIZATION_CODE});
+        callbackParams.put(OIDCAuthenticatorConstants.OAUTH2_PARAM_STATE,
+                new String[]{context.getContextIdentifier() + ",OIDC"});
+        status = authenticator.process(BenchmarkSupport.newRequest(callbackParams), response, context);
+        if (status != AuthenticatorFlowStatus.SUCCESS_COMPLETED) {
+            throw new IllegalStateException("Callback request did not complete the login. Status: " + status);
+        }
+        return context;
+    }
+
+    /**
+     * Reports the heap retained by the authenticator caches after a login to every IdP of the fleet.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class CacheFootprint {
+
+        public long cacheFootprintBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+
+            cacheFootprintBytes = 0;
+        }
+    }
+
+    /**
+     * Clears the authenticator caches before every iteration of the cold logins.
+     */
+    @State(Scope.Thread)
+    public static class ColdCaches {
+
+        @Setup(Level.Iteration)
+        public void clear() {
+
+            BenchmarkSupport.clearAuthenticatorCaches();
+        }
+    }
+
+    /**
+     * Authenticator which serves the token and user info responses of the current IdP without network calls.
+     */
+    static class FleetAuthenticator extends OpenIDConnectAuthenticator {
+
+        private IdentityProviderFleet.FleetIdP idp;
+
+        @Override
+        protected OAuthClientResponse getOauthResponse(OAuthClient oAuthClient, OAuthClientRequest accessRequest) {
+
+            NativeSDKBasedFederatedOAuthClientResponse oAuthResponse = new NativeSDKBasedFederatedOAuthClientResponse();
+            oAuthResponse.setAccessToken(ACCESS_TOKEN);
+            oAuthResponse.setIdToken(idp.getIdToken());
+            return oAuthResponse;
+        }
+
+        @Override
+        protected String sendRequest(String url, String accessToken) {
+
+            return idp.getUserInfo();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.benchmark;
+
+import org.mockito.MockedStatic;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.identity.application.authentication.framework.context.AuthenticationContext;
+import org.wso2.carbon.identity.application.authentication.framework.exception.AuthenticationFailedException;
+import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkConstants;
+import org.wso2.carbon.identity.application.authenticator.oidc.OIDCAuthenticatorConstants;
+import org.wso2.carbon.identity.application.authenticator.oidc.OpenIDConnectAuthenticator;
+import org.wso2.carbon.identity.application.common.util.IdentityApplicationConstants;
+import org.wso2.carbon.identity.central.log.mgt.utils.LoggerUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Benchmarks building the authorization request of the IdP, with and without PKCE, federated token scopes and
+ * query param templates. A new authentication context is used per login, as in the server.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class PrepareLoginPageBenchmark {
+
+    @Param({"false", "true"})
+    public boolean pkce;
+
+    @Param({"false", "true"})
+    public boolean federatedTokenScopes;
+
+    @Param({"false", "true"})
+    public boolean queryTemplate;
+
+    private final ExposedAuthenticator authenticator = new ExposedAuthenticator();
+    private final Map<String, String> authenticatorProperties = new HashMap<>();
+    private final Map<String, String[]> queryParams = new HashMap<>();
+    private HttpServletRequest request;
+    private MockedStatic<LoggerUtils> loggerUtils;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        loggerUtils = BenchmarkSupport.disableDiagnosticLogs();
+        authenticatorProperties.put(OIDCAuthenticatorConstants.CLIENT_ID, "benchmark-client-id");
+        authenticatorProperties.put(OIDCAuthenticatorConstants.OAUTH2_AUTHZ_URL,
+                "https://idp.example.com/oauth2/authorize");
+        authenticatorProperties.put(IdentityApplicationConstants.OAuth2.CALLBACK_URL,
+                "https://localhost:9443/commonauth");
+        authenticatorProperties.put(IdentityApplicationConstants.Authenticator.OIDC.SCOPES, "openid email profile");
+        authenticatorProperties.put(OIDCAuthenticatorConstants.IS_PKCE_ENABLED, String.valueOf(pkce));
+        if (queryTemplate) {
+            authenticatorProperties.put(FrameworkConstants.QUERY_PARAMS,
+                    "login_hint=${login_hint}&ui_locales=${ui_locales}&prompt=login");
+        } else {
+            authenticatorProperties.put(FrameworkConstants.QUERY_PARAMS, "prompt=login");
+        }
+        if (federatedTokenScopes) {
+            authenticatorProperties.put(OIDCAuthenticatorConstants.SHARE_FEDERATED_TOKEN_CONFIG, "true");
+            authenticatorProperties.put(OIDCAuthenticatorConstants.FEDERATED_TOKEN_ALLOWED_SCOPE,
+                    "calendar.read calendar.write drive.read");
+            queryParams.put(OIDCAuthenticatorConstants.SHARE_FEDERATED_TOKEN_PARAM, new String[]{"true"});
+            queryParams.put(OIDCAuthenticatorConstants.FEDERATED_TOKEN_SCOPE, new String[]{
+                    BenchmarkSupport.IDP_NAME + ";calendar.read drive.read,OtherIdP;calendar.write"});
+        }
+
+        Map<String, String[]> params = new HashMap<>();
+        params.put("login_hint", new String[]{"alice@example.com"});
+        params.put("ui_locales", new String[]{"en-US"});
+        request = BenchmarkSupport.newRequest(params);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+
+        loggerUtils.close();
+    }
+
+    @Benchmark
+    public String prepareLoginPage() throws AuthenticationFailedException {
+
+        AuthenticationContext context = BenchmarkSupport.newContext(authenticatorProperties, queryParams);
+        return authenticator.prepareLoginPage(request, context);
+    }
+
+    /**
+     * Exposes the protected methods of the authenticator to the benchmarks.
+     */
+    static class ExposedAuthenticator extends OpenIDConnectAuthenticator {
+
+        @Override
+        public String prepareLoginPage(HttpServletRequest request, AuthenticationContext context)
+                throws AuthenticationFailedException {
+
+            return super.prepareLoginPage(request, context);
+        }
+    }
+}
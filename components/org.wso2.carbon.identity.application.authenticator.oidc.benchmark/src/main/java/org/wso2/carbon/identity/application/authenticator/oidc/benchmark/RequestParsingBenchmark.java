@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.identity.application.authentication.framework.context.AuthenticationContext;
+import org.wso2.carbon.identity.application.authenticator.oidc.OIDCAuthenticatorConstants;
+import org.wso2.carbon.identity.application.authenticator.oidc.OpenIDConnectAuthenticator;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Benchmarks the request parsing helpers of the authenticator, i.e. resolving the query param template, deriving
+ * the PKCE code challenge and resolving the context identifier from the state param of the callback.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class RequestParsingBenchmark {
+
+    private static final MethodHandle INTERPRET_QUERY_STRING = BenchmarkSupport.authenticatorMethod(
+            "interpretQueryString", AuthenticationContext.class, String.class, Map.class);
+    private static final MethodHandle GENERATE_CODE_CHALLENGE = BenchmarkSupport.authenticatorMethod(
+            "generateCodeChallenge", String.class);
+
+    private static final String QUERY_TEMPLATE =
+            "login_hint=${login_hint}&ui_locales=${ui_locales}&acr_values=${acr_values}&prompt=login";
+    private static final String CODE_VERIFIER = "dBjftJeZ4CVP-mB92K27uhbUJU1p1r_wW1gFWFOEjXk";
+
+    private final OpenIDConnectAuthenticator authenticator = new OpenIDConnectAuthenticator();
+    private final Map<String, String[]> parameters = new HashMap<>();
+    private AuthenticationContext context;
+    private HttpServletRequest callbackRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        parameters.put("login_hint", new String[]{"alice@example.com"});
+        parameters.put("ui_locales", new String[]{"en-US"});
+        parameters.put("acr_values", new String[]{"urn:mace:incommon:iap:silver"});
+        context = BenchmarkSupport.newContext(new HashMap<>(), Collections.emptyMap());
+
+        Map<String, String[]> callbackParams = new HashMap<>();
+        callbackParams.put(OIDCAuthenticatorConstants.OAUTH2_PARAM_STATE,
+                new String[]{BenchmarkSupport.CONTEXT_IDENTIFIER + ",OIDC"});
+        callbackParams.put(OIDCAuthenticatorConstants.OAUTH2_GRANT_TYPE_CODE, new String[]{"benchmark-code"});
+        callbackRequest = BenchmarkSupport.newRequest(callbackParams);
+    }
+
+    @Benchmark
+    public String interpretQueryString() throws Throwable {
+
+        return (String) INTERPRET_QUERY_STRING.invoke(authenticator, context, QUERY_TEMPLATE, parameters);
+    }
+
+    @Benchmark
+    public String generateCodeChallenge() throws Throwable {
+
+        return (String) GENERATE_CODE_CHALLENGE.invoke(authenticator, CODE_VERIFIER);
+    }
+
+    @Benchmark
+    public String getContextIdentifier() {
+
+        return authenticator.getContextIdentifier(callbackRequest);
+    }
+}
@@ -0,0 +1,22 @@
+CREATE TABLE IF NOT EXISTS IDN_FED_AUTH_SESSION_MAPPING (
+	IDP_SESSION_ID VARCHAR(255) NOT NULL,
+	SESSION_ID VARCHAR(255) NOT NULL,
+	IDP_NAME VARCHAR(255) NOT NULL,
+	AUTHENTICATOR_ID VARCHAR(255),
+	PROTOCOL_TYPE VARCHAR(255),
+	TIME_CREATED TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+	PRIMARY KEY(IDP_SESSION_ID)
+);
+
+CREATE TABLE IF NOT EXISTS IDN_AUTH_USER (
+    USER_ID VARCHAR(255),
+    USER_NAME VARCHAR(255),
+    TENANT_ID INTEGER,
+    DOMAIN_NAME VARCHAR(255) ,
+    IDP_ID 	INTEGER,
+    PRIMARY KEY(USER_ID)
+);
+
+-- Indexes of the product DB scripts, since the tables are seeded with up to 1M rows.
+CREATE INDEX IF NOT EXISTS IDX_FEDERATED_AUTH_SESSION_ID ON IDN_FED_AUTH_SESSION_MAPPING (SESSION_ID);
+CREATE INDEX IF NOT EXISTS IDX_AUTH_USER_UN_TID_DN ON IDN_AUTH_USER (USER_NAME, TENANT_ID, DOMAIN_NAME);
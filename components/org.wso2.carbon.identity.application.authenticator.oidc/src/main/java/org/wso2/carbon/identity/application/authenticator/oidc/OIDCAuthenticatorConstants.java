@@ -18,6 +18,8 @@
 
 package org.wso2.carbon.identity.application.authenticator.oidc;
 
+import org.wso2.carbon.identity.application.authenticator.oidc.util.EndpointUriMatcher;
+
 import java.util.regex.Pattern;
 
 /**
@@ -37,6 +39,7 @@ public class OIDCAuthenticatorConstants {
     public static final String SHARE_FEDERATED_TOKEN_PARAM = "share_federated_token";
     public static final String FEDERATED_TOKEN_ALLOWED_SCOPE = "FederatedTokenAllowedScope";
     public static final String FEDERATED_TOKEN_SCOPE = "federated_token_scope";
+    public static final String FEDERATED_TOKEN_SHARING_PARAMS_PROPERTY_KEY = "oidc:federated.token.sharing.params";
 
     private OIDCAuthenticatorConstants() {
 
@@ -62,6 +65,7 @@ public class OIDCAuthenticatorConstants {
     public static final String IS_BASIC_AUTH_ENABLED = "IsBasicAuthEnabled";
 
     public static final String OIDC_QUERY_PARAM_MAP_PROPERTY_KEY = "oidc:param.map";
+    public static final String APPLICATION_DETAILS_PROPERTY_KEY = "oidc:application.details";
 
     public static final String HTTP_ORIGIN_HEADER = "Origin";
 
@@ -74,6 +78,9 @@ public class OIDCAuthenticatorConstants {
     public static final String LOGOUT_TOKEN = "logout_token";
     public static final Pattern OIDC_BACKCHANNEL_LOGOUT_ENDPOINT_URL_PATTERN = Pattern.compile("(.*)/identity/oidc" +
             "/slo(.*)");
+    // Matches the same URIs as OIDC_BACKCHANNEL_LOGOUT_ENDPOINT_URL_PATTERN, without allocating.
+    public static final EndpointUriMatcher OIDC_BACKCHANNEL_LOGOUT_ENDPOINT_URL_MATCHER =
+            new EndpointUriMatcher("/identity/oidc/slo");
     public static final String OIDC_FEDERATION_NONCE = "oidc_federation_nonce";
     public static final String AUTHENTICATOR_OIDC = "authenticator.oidc";
     public static final String REDIRECT_URL_SUFFIX = "_redirect_url";
@@ -128,6 +135,7 @@ public class OIDCAuthenticatorConstants {
         }
 
         public static final String SUB = "sub";
+        public static final String ISS = "iss";
         public static final String NAME = "name";
         public static final String GIVEN_NAME = "given_name";
         public static final String FAMILY_NAME = "family_name";
@@ -177,6 +185,253 @@ public class OIDCAuthenticatorConstants {
         public static final long DEFAULT_IAT_VALIDITY_PERIOD = 15000;
     }
 
+    /**
+     * This class holds the constants related to storing the ID token sent as the id_token_hint at logout.
+     */
+    public static class IdTokenHint {
+
+        private IdTokenHint() {
+
+        }
+
+        /*
+         * Supported values: "session" keeps the ID token in the session (default), "memory" keeps the ID token in
+         * the in-memory store and "none" keeps only the sid and iss of the ID token.
+         */
+        public static final String STORAGE = "IdTokenHintStorage";
+        public static final String STORE_MAX_ENTRIES = "IdTokenHintStoreMaxEntries";
+        public static final String STORE_TTL = "IdTokenHintStoreTimeToLive";
+
+        public static final String STORAGE_SESSION = "session";
+        public static final String STORAGE_MEMORY = "memory";
+        public static final String STORAGE_NONE = "none";
+
+        public static final int DEFAULT_STORE_MAX_ENTRIES = 100000;
+        // Time to live in seconds. Defaults to the remember me period of the SSO session.
+        public static final long DEFAULT_STORE_TTL = 1209600;
+    }
+
+    /**
+     * This class holds the constants related to the asynchronous emission of diagnostic log events.
+     */
+    public static class AsyncDiagnosticLogs {
+
+        private AsyncDiagnosticLogs() {
+
+        }
+
+        public static final String ENABLE = "EnableAsyncDiagnosticLogs";
+        public static final String QUEUE_SIZE = "AsyncDiagnosticLogQueueSize";
+        public static final String BATCH_SIZE = "AsyncDiagnosticLogBatchSize";
+        // Supported values: "drop" and "block".
+        public static final String OVERFLOW_POLICY = "AsyncDiagnosticLogOverflowPolicy";
+        // Maximum time in milliseconds a login thread is blocked with the "block" overflow policy.
+        public static final String BLOCK_TIMEOUT = "AsyncDiagnosticLogBlockTimeout";
+
+        public static final int DEFAULT_QUEUE_SIZE = 10000;
+        public static final int DEFAULT_BATCH_SIZE = 100;
+        public static final long DEFAULT_BLOCK_TIMEOUT = 100;
+    }
+
+    /**
+     * This class holds the constants related to tracing the authenticator phases.
+     */
+    public static class Tracing {
+
+        private Tracing() {
+
+        }
+
+        public static final String ENABLE = "EnableTracing";
+        public static final String IN_MEMORY_SPAN_CAPACITY = "TracingInMemorySpanCapacity";
+        public static final String TRACEPARENT_HEADER = "traceparent";
+
+        public static final int DEFAULT_IN_MEMORY_SPAN_CAPACITY = 1000;
+    }
+
+    /**
+     * This class holds the constants related to recording the phase timelines of slow federated logins.
+     */
+    public static class SlowLogins {
+
+        private SlowLogins() {
+
+        }
+
+        public static final String ENABLE = "EnableSlowLoginRecording";
+        // Duration in milliseconds above which a login callback is recorded. A non positive value disables recording.
+        public static final String THRESHOLD = "SlowLoginThreshold";
+        public static final String BUFFER_SIZE = "SlowLoginBufferSize";
+
+        public static final long DEFAULT_THRESHOLD = 5000;
+        public static final int DEFAULT_BUFFER_SIZE = 100;
+    }
+
+    /**
+     * This class holds the constants related to the per IdP latency histograms of the authenticator phases.
+     */
+    public static class PhaseLatency {
+
+        private PhaseLatency() {
+
+        }
+
+        public static final String ENABLE = "EnablePhaseLatencyMetrics";
+    }
+
+    /**
+     * This class holds the constants related to tracking the outcomes of the federated logins and logouts.
+     */
+    public static class SLOTracking {
+
+        private SLOTracking() {
+
+        }
+
+        public static final String ENABLE = "EnableSLOTracking";
+    }
+
+    /**
+     * This class holds the constants related to metering the resource usage of the federated logins and logouts.
+     */
+    public static class ResourceAccounting {
+
+        private ResourceAccounting() {
+
+        }
+
+        public static final String ENABLE = "EnableResourceAccounting";
+    }
+
+    /**
+     * This class holds the constants related to capturing the shape of the federated logins and logouts.
+     */
+    public static class TrafficCapture {
+
+        private TrafficCapture() {
+
+        }
+
+        public static final String ENABLE = "EnableTrafficCapture";
+        public static final String BUFFER_SIZE = "TrafficCaptureBufferSize";
+
+        public static final int DEFAULT_BUFFER_SIZE = 10000;
+    }
+
+    /**
+     * This class holds the constants related to terminating the sessions of back-channel logouts asynchronously.
+     */
+    public static class AsyncBackChannelLogout {
+
+        private AsyncBackChannelLogout() {
+
+        }
+
+        public static final String ENABLE = "EnableAsyncBackChannelLogout";
+        public static final String WORKER_THREADS = "AsyncBackChannelLogoutWorkerThreads";
+        public static final String QUEUE_SIZE = "AsyncBackChannelLogoutQueueSize";
+        public static final String MAX_ATTEMPTS = "AsyncBackChannelLogoutMaxAttempts";
+        // Delay in milliseconds before the first retry of a failed logout, doubled for every further retry.
+        public static final String RETRY_BACKOFF = "AsyncBackChannelLogoutRetryBackoff";
+        // Maximum time in milliseconds to wait for the queued logouts at shutdown.
+        public static final String DRAIN_TIMEOUT = "AsyncBackChannelLogoutDrainTimeout";
+        // Defaults to <CARBON_HOME>/repository/data/oidc-backchannel-logout.journal
+        public static final String JOURNAL_PATH = "AsyncBackChannelLogoutJournalPath";
+        // Flush every accepted logout to the disk before acknowledging the logout request.
+        public static final String SYNC_WRITES = "AsyncBackChannelLogoutSyncWrites";
+        // Time in milliseconds the accepted logouts are collected for, before they are flushed to the disk together.
+        public static final String SYNC_INTERVAL = "AsyncBackChannelLogoutSyncInterval";
+
+        public static final String DEFAULT_JOURNAL_FILE = "oidc-backchannel-logout.journal";
+        public static final int DEFAULT_WORKER_THREADS = 4;
+        public static final int DEFAULT_QUEUE_SIZE = 10000;
+        public static final int DEFAULT_MAX_ATTEMPTS = 5;
+        public static final long DEFAULT_RETRY_BACKOFF = 1000;
+        public static final long DEFAULT_DRAIN_TIMEOUT = 10000;
+        public static final long DEFAULT_SYNC_INTERVAL = 2;
+        public static final int JOURNAL_COMPACTION_THRESHOLD = 10000;
+    }
+
+    /**
+     * This class holds the constants related to deduplicating redelivered back-channel logout tokens.
+     */
+    public static class LogoutTokenDedup {
+
+        private LogoutTokenDedup() {
+
+        }
+
+        public static final String ENABLE = "EnableLogoutTokenDedup";
+        public static final String MAX_ENTRIES = "LogoutTokenDedupMaxEntries";
+        // Time window in seconds the outcome of a logout token is kept for.
+        public static final String WINDOW = "LogoutTokenDedupWindow";
+
+        public static final int DEFAULT_MAX_ENTRIES = 10000;
+        public static final long DEFAULT_WINDOW = 300;
+    }
+
+    /**
+     * This class holds the constants related to the index of the federated IdP session ids.
+     */
+    public static class FederatedSidIndex {
+
+        private FederatedSidIndex() {
+
+        }
+
+        public static final String ENABLE = "EnableFederatedSidIndex";
+        // Number of sids the index is sized for. The index is resized once it holds more sids.
+        public static final String EXPECTED_SIDS = "FederatedSidIndexExpectedSids";
+        // Interval in seconds of the refresh which adds the sids recorded by the other nodes. A logout for a login of
+        // another node may be rejected until the next refresh.
+        public static final String REFRESH_INTERVAL = "FederatedSidIndexRefreshInterval";
+
+        public static final long DEFAULT_EXPECTED_SIDS = 1000000;
+        public static final long DEFAULT_REFRESH_INTERVAL = 60;
+    }
+
+    /**
+     * This class holds the constants related to caching the user ids of the federated users.
+     */
+    public static class FederatedUserIdCache {
+
+        private FederatedUserIdCache() {
+
+        }
+
+        public static final String ENABLE = "EnableFederatedUserIdCache";
+        public static final String MAX_ENTRIES = "FederatedUserIdCacheMaxEntries";
+        /* Time to live in seconds of a cached user id. A deleted user is only invalidated on the local node, hence
+        the other nodes of a cluster may resolve the stale user id for up to this time. */
+        public static final String TTL = "FederatedUserIdCacheTTL";
+
+        public static final int DEFAULT_MAX_ENTRIES = 10000;
+        public static final long DEFAULT_TTL = 60;
+        public static final long MAX_TTL = 300;
+    }
+
+    /**
+     * This class holds the constants related to the admission control of the back-channel logout requests.
+     */
+    public static class LogoutAdmission {
+
+        private LogoutAdmission() {
+
+        }
+
+        public static final String ENABLE = "EnableLogoutAdmissionControl";
+        // Number of verified logout requests admitted per second for an IdP.
+        public static final String ISSUER_RATE = "LogoutAdmissionIssuerRate";
+        public static final String ISSUER_BURST = "LogoutAdmissionIssuerBurst";
+        public static final String MAX_CONCURRENCY = "LogoutAdmissionMaxConcurrency";
+        public static final String MAX_TRACKED_ISSUERS = "LogoutAdmissionMaxTrackedIssuers";
+
+        public static final long DEFAULT_ISSUER_RATE = 50;
+        public static final int DEFAULT_ISSUER_BURST = 100;
+        public static final int DEFAULT_MAX_CONCURRENCY = 64;
+        public static final int DEFAULT_MAX_TRACKED_ISSUERS = 1000;
+    }
+
     /**
      * Constants related to log management.
      */
@@ -23,7 +23,6 @@ import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.SignedJWT;
 import net.minidev.json.JSONArray;
 import org.apache.commons.codec.binary.Base64;
-import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.StringUtils;
@@ -56,9 +55,23 @@ import org.wso2.carbon.identity.application.authentication.framework.model.Feder
 import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkConstants;
 import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkUtils;
 import org.wso2.carbon.identity.application.authenticator.oidc.internal.OpenIDConnectAuthenticatorDataHolder;
+import org.wso2.carbon.identity.application.authenticator.oidc.logout.hint.IdTokenHintStore;
+import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.cache.FederatedSidIndex;
+import org.wso2.carbon.identity.application.authenticator.oidc.metrics.AuthenticatorPhase;
+import org.wso2.carbon.identity.application.authenticator.oidc.metrics.PhaseTimer;
+import org.wso2.carbon.identity.application.authenticator.oidc.metrics.LoginTimeline;
+import org.wso2.carbon.identity.application.authenticator.oidc.metrics.ResourceMeter;
+import org.wso2.carbon.identity.application.authenticator.oidc.metrics.ResourceUsageMetrics;
+import org.wso2.carbon.identity.application.authenticator.oidc.metrics.SLOTracker;
+import org.wso2.carbon.identity.application.authenticator.oidc.metrics.SlowLoginRecorder;
+import org.wso2.carbon.identity.application.authenticator.oidc.metrics.TrafficCapture;
+import org.wso2.carbon.identity.application.authenticator.oidc.metrics.TrafficRecorder;
+import org.wso2.carbon.identity.application.authenticator.oidc.model.FederatedTokenSharingParams;
 import org.wso2.carbon.identity.application.authenticator.oidc.model.OIDCStateInfo;
 import org.wso2.carbon.identity.application.authenticator.oidc.util.OIDCErrorConstants.ErrorMessages;
+import org.wso2.carbon.identity.application.authenticator.oidc.util.LazyDiagnosticLogBuilder;
 import org.wso2.carbon.identity.application.authenticator.oidc.util.OIDCTokenValidationUtil;
+import org.wso2.carbon.identity.application.authenticator.oidc.util.ScopeDictionary;
 import org.wso2.carbon.identity.application.common.model.ClaimMapping;
 import org.wso2.carbon.identity.application.common.model.FederatedAuthenticatorConfig;
 import org.wso2.carbon.identity.application.common.model.IdentityProvider;
@@ -101,7 +114,7 @@ import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.text.ParseException;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -146,10 +159,7 @@ public class OpenIDConnectAuthenticator extends AbstractApplicationAuthenticator
     private static final String DYNAMIC_PARAMETER_LOOKUP_REGEX = "\\$\\{(\\w+)\\}";
     private static final String IS_API_BASED = "IS_API_BASED";
     private static final String REDIRECT_URL = "REDIRECT_URL";
-    private static final String SPACE_REGEX = "\\s+";
-    private static final String SPACE = " ";
     private static final String SEMI_COLON_DELIMITER = ";";
-    private static final String COMMA_DELIMITER = ",";
     private static Pattern pattern = Pattern.compile(DYNAMIC_PARAMETER_LOOKUP_REGEX);
     private static final String[] NON_USER_ATTRIBUTES = new String[]{"at_hash", "iss", "iat", "exp", "aud", "azp"};
     private static final String AUTHENTICATOR_MESSAGE = "authenticatorMessage";
@@ -158,6 +168,11 @@ public class OpenIDConnectAuthenticator extends AbstractApplicationAuthenticator
     private static final String IS_PKCE_ENABLED_DISPLAY_NAME = "Enable PKCE";
     private static final String IS_PKCE_ENABLED_DESCRIPTION = "Specifies that PKCE should be used for client authentication";
     private static final String TYPE_BOOLEAN = "boolean";
+    /*
+     The authentication context of the callback fetching the user info on the current thread. The user info request
+     is timed within getSubjectAttributes, which does not receive the context.
+     */
+    private static final ThreadLocal<AuthenticationContext> USER_INFO_CONTEXT = new ThreadLocal<>();
 
     @Override
     public AuthenticatorFlowStatus process(HttpServletRequest request, HttpServletResponse response,
@@ -210,7 +225,7 @@ public class OpenIDConnectAuthenticator extends AbstractApplicationAuthenticator
                         " in tenant domain " + request.getParameter("tenantDomain"));
             }
         }
-
+        removeIdTokenHint(context);
     }
 
     @Override
@@ -227,12 +242,11 @@ public class OpenIDConnectAuthenticator extends AbstractApplicationAuthenticator
             canHandle = OIDCAuthenticatorConstants.LOGIN_TYPE.equals(getLoginType(request));
         }
         if (canHandle && LoggerUtils.isDiagnosticLogsEnabled()) {
-            DiagnosticLog.DiagnosticLogBuilder diagnosticLogBuilder = new DiagnosticLog.DiagnosticLogBuilder(
-                    getComponentId(), FrameworkConstants.LogConstants.ActionIDs.HANDLE_AUTH_STEP);
-            diagnosticLogBuilder.resultStatus(DiagnosticLog.ResultStatus.SUCCESS)
+            new LazyDiagnosticLogBuilder(getComponentId(), FrameworkConstants.LogConstants.ActionIDs.HANDLE_AUTH_STEP)
+                    .resultStatus(DiagnosticLog.ResultStatus.SUCCESS)
                     .logDetailLevel(DiagnosticLog.LogDetailLevel.INTERNAL_SYSTEM)
-                    .resultMessage("Outbound OIDC authenticator handling the authentication.");
-            LoggerUtils.triggerDiagnosticLogEvent(diagnosticLogBuilder);
+                    .resultMessage("Outbound OIDC authenticator handling the authentication.")
+                    .emit();
         }
         return canHandle;
         // TODO : What if IdP failed?
@@ -449,7 +463,21 @@ public class OpenIDConnectAuthenticator extends AbstractApplicationAuthenticator
         try {
             String accessToken = token.getParam(OIDCAuthenticatorConstants.ACCESS_TOKEN);
             String url = getUserInfoEndpoint(token, authenticatorProperties);
-            String json = sendRequest(url, accessToken);
+            // No request is sent without a user info endpoint, hence the phase is only timed if there is one.
+            PhaseTimer phaseTimer = url != null ?
+                    startPhase(USER_INFO_CONTEXT.get(), AuthenticatorPhase.SEND_REQUEST) : null;
+            String json;
+            try {
+                json = sendRequest(url, accessToken);
+                if (phaseTimer != null) {
+                    phaseTimer.addBytes(StringUtils.length(json)).succeeded();
+                }
+            } finally {
+                if (phaseTimer != null) {
+                    // The phase is recorded as failed if the request throws.
+                    phaseTimer.stop();
+                }
+            }
 
             if (StringUtils.isBlank(json)) {
                 if (LOG.isDebugEnabled()) {
@@ -460,6 +488,7 @@ public class OpenIDConnectAuthenticator extends AbstractApplicationAuthenticator
             }
 
             Map<String, Object> jsonObject = JSONUtils.parseJSON(json);
+            TrafficCapture.recordUserInfo(json.length(), jsonObject.size());
 
             for (Map.Entry<String, Object> data : jsonObject.entrySet()) {
                 String key = data.getKey();
@@ -493,27 +522,26 @@ public class OpenIDConnectAuthenticator extends AbstractApplicationAuthenticator
                                                  AuthenticationContext context) throws AuthenticationFailedException {
 
         try {
-            DiagnosticLog.DiagnosticLogBuilder diagnosticLogBuilder = null;
-            if (LoggerUtils.isDiagnosticLogsEnabled() && context.getAuthenticatorProperties() != null) {
-                diagnosticLogBuilder = new DiagnosticLog.DiagnosticLogBuilder(
-                        getComponentId(), INITIATE_OUTBOUND_AUTH_REQUEST);
-                diagnosticLogBuilder.logDetailLevel(DiagnosticLog.LogDetailLevel.APPLICATION)
-                        .resultStatus(DiagnosticLog.ResultStatus.SUCCESS)
-                        .inputParam(LogConstants.InputKeys.STEP, context.getCurrentStep())
-                        .inputParam("authenticator properties", context.getAuthenticatorProperties().keySet())
-                        .inputParam(LogConstants.InputKeys.IDP, context.getExternalIdP().getIdPName())
-                        .inputParams(getApplicationDetails(context));
+            String loginPage;
+            PhaseTimer phaseTimer = startPhase(context, AuthenticatorPhase.PREPARE_LOGIN_PAGE);
+            try {
+                loginPage = prepareLoginPage(request, context);
+                phaseTimer.addBytes(StringUtils.length(loginPage)).succeeded();
+            } finally {
+                phaseTimer.stop();
             }
-
-            String loginPage = prepareLoginPage(request, context);
             response.sendRedirect(loginPage);
-            if (LoggerUtils.isDiagnosticLogsEnabled() && diagnosticLogBuilder != null) {
-                String scopes = extractScopesFromURL(loginPage);
-                if (StringUtils.isNotEmpty(scopes)) {
-                    diagnosticLogBuilder.inputParam("scopes", scopes);
-                }
-                diagnosticLogBuilder.resultMessage("Redirecting to the federated IDP login page.");
-                LoggerUtils.triggerDiagnosticLogEvent(diagnosticLogBuilder);
+            if (LoggerUtils.isDiagnosticLogsEnabled() && context.getAuthenticatorProperties() != null) {
+                new LazyDiagnosticLogBuilder(getComponentId(), INITIATE_OUTBOUND_AUTH_REQUEST)
+                        .logDetailLevel(DiagnosticLog.LogDetailLevel.APPLICATION)
+                        .resultStatus(DiagnosticLog.ResultStatus.SUCCESS)
+                        .inputParam(LogConstants.InputKeys.STEP, context::getCurrentStep)
+                        .inputParam("authenticator properties", () -> context.getAuthenticatorProperties().keySet())
+                        .inputParam(LogConstants.InputKeys.IDP, () -> context.getExternalIdP().getIdPName())
+                        .inputParams(() -> getCachedApplicationDetails(context))
+                        .inputParam("scopes", () -> getScopesForDiagnosticLog(context, loginPage))
+                        .resultMessage("Redirecting to the federated IDP login page.")
+                        .emit();
             }
         } catch (IOException e) {
             throw new AuthenticationFailedException(ErrorMessages.IO_ERROR.getCode(), e.getMessage(), e);
@@ -532,16 +560,14 @@ public class OpenIDConnectAuthenticator extends AbstractApplicationAuthenticator
 
         try {
             if (LoggerUtils.isDiagnosticLogsEnabled()) {
-                DiagnosticLog.DiagnosticLogBuilder diagnosticLogBuilder =
-                        new DiagnosticLog.DiagnosticLogBuilder(
-                        getComponentId(), INITIATE_OUTBOUND_AUTH_REQUEST);
-                diagnosticLogBuilder.resultMessage("Initiate outbound OIDC authentication request.")
+                new LazyDiagnosticLogBuilder(getComponentId(), INITIATE_OUTBOUND_AUTH_REQUEST)
+                        .resultMessage("Initiate outbound OIDC authentication request.")
                         .logDetailLevel(DiagnosticLog.LogDetailLevel.APPLICATION)
                         .resultStatus(DiagnosticLog.ResultStatus.SUCCESS)
-                        .inputParam(LogConstants.InputKeys.STEP, context.getCurrentStep())
-                        .inputParam(LogConstants.InputKeys.IDP, context.getExternalIdP().getIdPName())
-                        .inputParams(getApplicationDetails(context));
-                LoggerUtils.triggerDiagnosticLogEvent(diagnosticLogBuilder);
+                        .inputParam(LogConstants.InputKeys.STEP, context::getCurrentStep)
+                        .inputParam(LogConstants.InputKeys.IDP, () -> context.getExternalIdP().getIdPName())
+                        .inputParams(() -> getCachedApplicationDetails(context))
+                        .emit();
             }
             Map<String, String> authenticatorProperties = context.getAuthenticatorProperties();
             if (authenticatorProperties != null) {
@@ -714,11 +740,10 @@ public class OpenIDConnectAuthenticator extends AbstractApplicationAuthenticator
         String requestedScopesForTokenSharing = getRequestedScopesForTokenSharing(context);
 
         // Validating the application requested scopes by the authenticator allowed scopes for federated token sharing.
-        Set<String> validScopesForTokenSharing = validateScopeForTokenSharing(
-                authenticatorProperties.get(OIDCAuthenticatorConstants.FEDERATED_TOKEN_ALLOWED_SCOPE),
-                requestedScopesForTokenSharing);
-
-        if (CollectionUtils.isEmpty(validScopesForTokenSharing)) {
+        ScopeDictionary scopeDictionary = ScopeDictionary.getInstance(scopes,
+                authenticatorProperties.get(OIDCAuthenticatorConstants.FEDERATED_TOKEN_ALLOWED_SCOPE));
+        BitSet validScopesForTokenSharing = scopeDictionary.getValidScopes(requestedScopesForTokenSharing);
+        if (validScopesForTokenSharing.isEmpty()) {
             if (LOG.isDebugEnabled()) {
                 LOG.debug("No matching scopes found for federated token sharing.");
             }
@@ -727,13 +752,13 @@ public class OpenIDConnectAuthenticator extends AbstractApplicationAuthenticator
 
         if (LOG.isDebugEnabled()) {
             LOG.debug("Valid scopes found for the IDP" + getFederatedAuthenticatorName(context) +
-                    " in federated token sharing: " + validScopesForTokenSharing);
+                    " in federated token sharing: " + scopeDictionary.toScopeString(validScopesForTokenSharing));
         }
         /*
-        Remove the duplicate scopes among the validated scopes for federated token sharing and the existing scopes
-        of the authenticators.
+        Merge the validated scopes for federated token sharing with the existing scopes of the authenticator,
+        without duplicates.
          */
-        scopes = removeDuplicateScopes(scopes, validScopesForTokenSharing);
+        scopes = scopeDictionary.resolveScopes(requestedScopesForTokenSharing);
         if (LOG.isDebugEnabled()) {
             LOG.debug("The scopes for the IDP: " + getFederatedAuthenticatorName(context) + " : " + scopes +
                     " after considering federated token sharing.");
@@ -741,27 +766,6 @@ public class OpenIDConnectAuthenticator extends AbstractApplicationAuthenticator
         return scopes;
     }
 
-    /**
-     * This method is used to remove the duplicate scopes.
-     *
-     * @param scopes                     The scopes defined in the authenticator. i.e. "openid email profile"
-     * @param validScopesForTokenSharing The validated scopes requested by the application and the allowed scopes
-     *                                   for the token sharing.
-     * @return The scopes after removing the duplicate scopes.
-     */
-    private String removeDuplicateScopes(String scopes, Set<String> validScopesForTokenSharing) {
-
-        if (StringUtils.isBlank(scopes)) {
-            scopes = StringUtils.join(validScopesForTokenSharing, SPACE);
-        }
-
-        Set<String> scopeSet = new HashSet<>(Arrays.asList(scopes.split(SPACE_REGEX)));
-        scopeSet.addAll(validScopesForTokenSharing);
-
-        scopes = StringUtils.join(scopeSet, SPACE);
-        return scopes;
-    }
-
     /**
      * This method returns the scopes requested by the application for the federated tokens.
      *
@@ -770,6 +774,13 @@ public class OpenIDConnectAuthenticator extends AbstractApplicationAuthenticator
      */
     private String getRequestedScopesForTokenSharing(AuthenticationContext context) {
 
+        FederatedTokenSharingParams federatedTokenSharingParams = getFederatedTokenSharingParams(context);
+        String stepKey = getFederatedTokenSharingStepKey(context);
+        if (federatedTokenSharingParams.isRequestedScopesResolved(stepKey)) {
+            return federatedTokenSharingParams.getResolvedRequestedScopes(stepKey);
+        }
+
+        String requestedScopes;
         // The first priority is given to the parameters passed from the adaptive script. Then the query parameters.
         String requestedScopesViaAdaptiveScript =
                 getAdaptiveScriptValues(context, OIDCAuthenticatorConstants.FEDERATED_TOKEN_SCOPE);
@@ -779,17 +790,20 @@ public class OpenIDConnectAuthenticator extends AbstractApplicationAuthenticator
                 LOG.debug("Adaptive script parameter found for " + OIDCAuthenticatorConstants.FEDERATED_TOKEN_SCOPE
                         + " in federated token sharing, IDP: " + getFederatedAuthenticatorName(context));
             }
-            return requestedScopesViaAdaptiveScript;
+            requestedScopes = requestedScopesViaAdaptiveScript;
         } else {
-            String requestedScopesViaQueryParams = getRequestedScopesViaQueryParams(context);
+            String requestedScopesViaQueryParams =
+                    getRequestedScopesViaQueryParams(context, federatedTokenSharingParams);
             if (LOG.isDebugEnabled() && StringUtils.isNotBlank(requestedScopesViaQueryParams)) {
                 LOG.debug("No adaptive script parameter: " + OIDCAuthenticatorConstants.FEDERATED_TOKEN_SCOPE +
                         " found. Query parameter: " + OIDCAuthenticatorConstants.FEDERATED_TOKEN_SCOPE +
                         " value: " + requestedScopesViaQueryParams + " found for federated token sharing, IDP: "
                         + getFederatedAuthenticatorName(context));
             }
-            return requestedScopesViaQueryParams;
+            requestedScopes = requestedScopesViaQueryParams;
         }
+        federatedTokenSharingParams.setResolvedRequestedScopes(stepKey, requestedScopes);
+        return requestedScopes;
     }
 
     /**
@@ -818,10 +832,12 @@ public class OpenIDConnectAuthenticator extends AbstractApplicationAuthenticator
      * A valid string:
      * federated_token_scope=Google Calender;read https://googleapis.calender.read
      *
-     * @param context The authentication context with authentication request having the query parameters.
+     * @param context                     The authentication context.
+     * @param federatedTokenSharingParams The federated token sharing parameters parsed from the query parameters.
      * @return  The scopes requested by the application via the query parameters for federated token sharing.
      */
-    private String getRequestedScopesViaQueryParams(AuthenticationContext context) {
+    private String getRequestedScopesViaQueryParams(AuthenticationContext context,
+                                                    FederatedTokenSharingParams federatedTokenSharingParams) {
 
         String authenticatorName = getFederatedAuthenticatorName(context);
         if (StringUtils.isBlank(authenticatorName)) {
@@ -832,7 +848,7 @@ public class OpenIDConnectAuthenticator extends AbstractApplicationAuthenticator
             return null;
         }
 
-        String scopeString = getQueryParameter(context, OIDCAuthenticatorConstants.FEDERATED_TOKEN_SCOPE);
+        String scopeString = federatedTokenSharingParams.getFederatedTokenScope();
         if (StringUtils.isBlank(scopeString)) {
             if (LOG.isDebugEnabled()) {
                 LOG.debug("No query parameter " + OIDCAuthenticatorConstants.FEDERATED_TOKEN_SCOPE +
@@ -857,18 +873,7 @@ public class OpenIDConnectAuthenticator extends AbstractApplicationAuthenticator
             return null;
         }
 
-        String[] scopeSegments = StringUtils.split(scopeString, COMMA_DELIMITER);
-        StringBuilder filteredScopes = new StringBuilder();
-
-        for (String scopesFollowedByAuthenticator : scopeSegments) {
-            String[] scopes = StringUtils.split(scopesFollowedByAuthenticator, SEMI_COLON_DELIMITER);
-            if (ArrayUtils.getLength(scopes) == 2 &&
-                    StringUtils.equals(authenticatorName, StringUtils.trim(scopes[0]))) {
-                filteredScopes.append(StringUtils.trim(scopes[1])).append(SPACE);
-            }
-        }
-
-        String requestedScopes = filteredScopes.toString();
+        String requestedScopes = federatedTokenSharingParams.getRequestedScopes(authenticatorName);
         if (LOG.isDebugEnabled() && StringUtils.isBlank(requestedScopes)) {
             LOG.debug("No valid values found for the IDP: " + authenticatorName + " in the query parameter " +
                     OIDCAuthenticatorConstants.FEDERATED_TOKEN_SCOPE + " for federated token sharing");
@@ -886,6 +891,13 @@ public class OpenIDConnectAuthenticator extends AbstractApplicationAuthenticator
      */
     private boolean requestedToShareFederatedToken(AuthenticationContext context) {
 
+        FederatedTokenSharingParams federatedTokenSharingParams = getFederatedTokenSharingParams(context);
+        String stepKey = getFederatedTokenSharingStepKey(context);
+        Boolean resolvedShareFederatedToken = federatedTokenSharingParams.getResolvedShareFederatedToken(stepKey);
+        if (resolvedShareFederatedToken != null) {
+            return resolvedShareFederatedToken;
+        }
+
         // The first priority is given to the parameters setup at the adaptive script. Then the query parameters.
         String shareFederatedToken =
                 getAdaptiveScriptValues(context, OIDCAuthenticatorConstants.SHARE_FEDERATED_TOKEN_PARAM);
@@ -897,7 +909,7 @@ public class OpenIDConnectAuthenticator extends AbstractApplicationAuthenticator
 
         if (StringUtils.isBlank(shareFederatedToken)) {
             // Checks if the token sharing is requested via authorize request query parameters.
-            shareFederatedToken = getQueryParameter(context, OIDCAuthenticatorConstants.SHARE_FEDERATED_TOKEN_PARAM);
+            shareFederatedToken = federatedTokenSharingParams.getShareFederatedToken();
             if (LOG.isDebugEnabled()) {
                 LOG.debug("No adaptive script parameter: " + OIDCAuthenticatorConstants.SHARE_FEDERATED_TOKEN_PARAM +
                         " found. Query parameter: " + OIDCAuthenticatorConstants.SHARE_FEDERATED_TOKEN_PARAM +
@@ -905,7 +917,39 @@ public class OpenIDConnectAuthenticator extends AbstractApplicationAuthenticator
                         + getFederatedAuthenticatorName(context));
             }
         }
-        return Boolean.parseBoolean(shareFederatedToken);
+        boolean requestedToShareFederatedToken = Boolean.parseBoolean(shareFederatedToken);
+        federatedTokenSharingParams.setResolvedShareFederatedToken(stepKey, requestedToShareFederatedToken);
+        return requestedToShareFederatedToken;
+    }
+
+    /**
+     * Get the federated token sharing parameters of the authentication request. The query parameters are parsed
+     * only once per authentication request and kept in the authentication context.
+     *
+     * @param context The authentication context with authentication request.
+     * @return The federated token sharing parameters.
+     */
+    private FederatedTokenSharingParams getFederatedTokenSharingParams(AuthenticationContext context) {
+
+        Object federatedTokenSharingParams =
+                context.getProperty(OIDCAuthenticatorConstants.FEDERATED_TOKEN_SHARING_PARAMS_PROPERTY_KEY);
+        if (federatedTokenSharingParams instanceof FederatedTokenSharingParams) {
+            return (FederatedTokenSharingParams) federatedTokenSharingParams;
+        }
+        FederatedTokenSharingParams parsedParams = new FederatedTokenSharingParams(
+                getQueryParameter(context, OIDCAuthenticatorConstants.SHARE_FEDERATED_TOKEN_PARAM),
+                getQueryParameter(context, OIDCAuthenticatorConstants.FEDERATED_TOKEN_SCOPE));
+        context.setProperty(OIDCAuthenticatorConstants.FEDERATED_TOKEN_SHARING_PARAMS_PROPERTY_KEY, parsedParams);
+        return parsedParams;
+    }
+
+    /**
+     * The adaptive script parameters are defined per step and per IdP. Hence the resolved values are kept against
+     * the current step and the IdP name.
+     */
+    private String getFederatedTokenSharingStepKey(AuthenticationContext context) {
+
+        return context.getCurrentStep() + ":" + getFederatedAuthenticatorName(context);
     }
 
     /**
@@ -966,19 +1010,69 @@ public class OpenIDConnectAuthenticator extends AbstractApplicationAuthenticator
     protected void processAuthenticationResponse(HttpServletRequest request, HttpServletResponse response,
                                                  AuthenticationContext context) throws AuthenticationFailedException {
 
+        long startTime = System.nanoTime();
+        String idpName = context.getExternalIdP() != null ? context.getExternalIdP().getIdPName() : null;
+        LoginTimeline loginTimeline = SlowLoginRecorder.getInstance().begin(idpName, context.getTenantDomain());
+        ResourceMeter resourceMeter = ResourceUsageMetrics.getInstance().begin(SLOTracker.Flow.FEDERATED_LOGIN,
+                idpName, context.getTenantDomain());
+        TrafficCapture trafficCapture = TrafficRecorder.getInstance().begin(SLOTracker.Flow.FEDERATED_LOGIN,
+                idpName, context.getTenantDomain());
+        boolean succeeded = false;
+        String errorCode = null;
+        try {
+            processOIDCAuthenticationResponse(request, response, context);
+            succeeded = true;
+            SLOTracker.getInstance().recordSuccess(context.getTenantDomain(), idpName,
+                    SLOTracker.Flow.FEDERATED_LOGIN, startTime);
+        } catch (AuthenticationFailedException e) {
+            errorCode = e.getErrorCode();
+            SLOTracker.getInstance().recordFailure(context.getTenantDomain(), idpName,
+                    SLOTracker.Flow.FEDERATED_LOGIN, errorCode, startTime);
+            throw e;
+        } catch (RuntimeException e) {
+            SLOTracker.getInstance().recordFailure(context.getTenantDomain(), idpName,
+                    SLOTracker.Flow.FEDERATED_LOGIN, null, startTime);
+            throw e;
+        } finally {
+            SlowLoginRecorder.getInstance().end(loginTimeline, succeeded, errorCode);
+            ResourceUsageMetrics.getInstance().end(resourceMeter, null);
+            TrafficRecorder.getInstance().end(trafficCapture, null, succeeded, errorCode);
+        }
+    }
+
+    private void processOIDCAuthenticationResponse(HttpServletRequest request, HttpServletResponse response,
+                                                   AuthenticationContext context)
+            throws AuthenticationFailedException {
+
         if (LoggerUtils.isDiagnosticLogsEnabled()) {
-            DiagnosticLog.DiagnosticLogBuilder diagnosticLogBuilder = new DiagnosticLog.DiagnosticLogBuilder(
-                    getComponentId(), PROCESS_AUTHENTICATION_RESPONSE);
-            diagnosticLogBuilder.resultMessage("Processing outbound OIDC authentication response.")
+            new LazyDiagnosticLogBuilder(getComponentId(), PROCESS_AUTHENTICATION_RESPONSE)
+                    .resultMessage("Processing outbound OIDC authentication response.")
                     .logDetailLevel(DiagnosticLog.LogDetailLevel.APPLICATION)
                     .resultStatus(DiagnosticLog.ResultStatus.SUCCESS)
-                    .inputParam(LogConstants.InputKeys.STEP, context.getCurrentStep())
-                    .inputParam(LogConstants.InputKeys.IDP, context.getExternalIdP().getIdPName())
-                    .inputParams(getApplicationDetails(context));
-            LoggerUtils.triggerDiagnosticLogEvent(diagnosticLogBuilder);
+                    .inputParam(LogConstants.InputKeys.STEP, context::getCurrentStep)
+                    .inputParam(LogConstants.InputKeys.IDP, () -> context.getExternalIdP().getIdPName())
+                    .inputParams(() -> getCachedApplicationDetails(context))
+                    .emit();
         }
         // oAuthResponse can be null in some authentication flows. i.e Google One Tap.
-        OAuthClientResponse oAuthResponse = requestAccessToken(request, context);
+        OAuthClientResponse oAuthResponse;
+        PhaseTimer phaseTimer = startPhase(context, AuthenticatorPhase.REQUEST_ACCESS_TOKEN);
+        try {
+            oAuthResponse = requestAccessToken(request, context);
+            if (oAuthResponse != null) {
+                String federatedAccessToken = oAuthResponse.getParam(OIDCAuthenticatorConstants.ACCESS_TOKEN);
+                String federatedIdToken = oAuthResponse.getParam(OIDCAuthenticatorConstants.ID_TOKEN);
+                int tokenBytes = StringUtils.length(federatedAccessToken) + StringUtils.length(federatedIdToken);
+                phaseTimer.addBytes(tokenBytes);
+                // The token response body is consumed by the OAuth client, hence the received tokens are counted.
+                ResourceMeter.addBytesReceived(tokenBytes);
+                TrafficCapture.recordTokens(StringUtils.length(federatedAccessToken),
+                        StringUtils.length(federatedIdToken));
+            }
+            phaseTimer.succeeded();
+        } finally {
+            phaseTimer.stop();
+        }
         // TODO : return access token and id token to framework
         mapAccessToken(request, context, oAuthResponse);
 
@@ -1007,24 +1101,30 @@ public class OpenIDConnectAuthenticator extends AbstractApplicationAuthenticator
         }
 
         OIDCStateInfo stateInfoOIDC = new OIDCStateInfo();
-        stateInfoOIDC.setIdTokenHint(idToken);
+        setIdTokenHint(stateInfoOIDC, idToken);
         context.setStateInfo(stateInfoOIDC);
 
         AuthenticatedUser authenticatedUser;
         Map<ClaimMapping, String> claimsMap = new HashMap<>();
         Map<String, Object> jwtAttributeMap = new HashMap<>();
 
-        DiagnosticLog.DiagnosticLogBuilder diagnosticLogBuilder = null;
+        LazyDiagnosticLogBuilder diagnosticLogBuilder = null;
         if (LoggerUtils.isDiagnosticLogsEnabled()) {
-            diagnosticLogBuilder = new DiagnosticLog.DiagnosticLogBuilder(
-                    getComponentId(), PROCESS_AUTHENTICATION_RESPONSE);
-            diagnosticLogBuilder.inputParam(LogConstants.InputKeys.STEP, context.getCurrentStep())
-                    .inputParams(getApplicationDetails(context))
-                    .inputParam(LogConstants.InputKeys.IDP, context.getExternalIdP().getIdPName())
+            diagnosticLogBuilder = new LazyDiagnosticLogBuilder(getComponentId(), PROCESS_AUTHENTICATION_RESPONSE);
+            diagnosticLogBuilder.inputParam(LogConstants.InputKeys.STEP, context::getCurrentStep)
+                    .inputParams(() -> getCachedApplicationDetails(context))
+                    .inputParam(LogConstants.InputKeys.IDP, () -> context.getExternalIdP().getIdPName())
                     .logDetailLevel(DiagnosticLog.LogDetailLevel.APPLICATION);
         }
         if (StringUtils.isNotBlank(idToken)) {
-            jwtAttributeMap = getIdTokenClaims(context, idToken);
+            phaseTimer = startPhase(context, AuthenticatorPhase.GET_ID_TOKEN_CLAIMS);
+            try {
+                jwtAttributeMap = getIdTokenClaims(context, idToken);
+                phaseTimer.addBytes(idToken.length()).succeeded();
+                TrafficCapture.recordIdTokenClaims(jwtAttributeMap.size());
+            } finally {
+                phaseTimer.stop();
+            }
             if (jwtAttributeMap.isEmpty()) {
                 String errorMessage = ErrorMessages.DECODED_JSON_OBJECT_IS_NULL.getMessage();
                 if (LOG.isDebugEnabled()) {
@@ -1036,17 +1136,21 @@ public class OpenIDConnectAuthenticator extends AbstractApplicationAuthenticator
                         errorMessage);
             }
             if (LoggerUtils.isDiagnosticLogsEnabled() && diagnosticLogBuilder != null) {
-                diagnosticLogBuilder.inputParam("id token claims", jwtAttributeMap.keySet());
+                Set<String> idTokenClaimNames = jwtAttributeMap.keySet();
+                diagnosticLogBuilder.inputParam("id token claims", () -> idTokenClaimNames);
             }
             String idpName = context.getExternalIdP().getIdPName();
             String sidClaim = (String) jwtAttributeMap.get(OIDCAuthenticatorConstants.Claim.SID);
             if (StringUtils.isNotBlank(sidClaim) && StringUtils.isNotBlank(idpName)) {
                 if (LoggerUtils.isDiagnosticLogsEnabled() && diagnosticLogBuilder != null) {
-                    diagnosticLogBuilder.inputParam("federated idp name", idpName);
+                    diagnosticLogBuilder.inputParam("federated idp name", () -> idpName);
                 }
                 // Add 'sid' claim into authentication context, to be stored in the UserSessionStore for single logout.
                 context.setProperty(FEDERATED_IDP_SESSION_ID + idpName, sidClaim);
+                FederatedSidIndex.getInstance().record(sidClaim);
             }
+            stateInfoOIDC.setSid(sidClaim);
+            stateInfoOIDC.setIssuer((String) jwtAttributeMap.get(OIDCAuthenticatorConstants.Claim.ISS));
 
             if (LOG.isDebugEnabled() && IdentityUtil
                     .isTokenLoggable(IdentityConstants.IdentityTokens.USER_ID_TOKEN)) {
@@ -1067,11 +1171,24 @@ public class OpenIDConnectAuthenticator extends AbstractApplicationAuthenticator
                 }
             }
             String authenticatedUserId = getAuthenticatedUserId(context, oAuthResponse, jwtAttributeMap);
-            String attributeSeparator = getMultiAttributeSeparator(context, authenticatedUserId);
+            String attributeSeparator;
+            phaseTimer = startPhase(context, AuthenticatorPhase.GET_MULTI_ATTRIBUTE_SEPARATOR);
+            try {
+                attributeSeparator = getMultiAttributeSeparator(context, authenticatedUserId);
+                phaseTimer.succeeded();
+            } finally {
+                phaseTimer.stop();
+            }
 
-            jwtAttributeMap.entrySet().stream()
-                    .filter(entry -> !ArrayUtils.contains(NON_USER_ATTRIBUTES, entry.getKey()))
-                    .forEach(entry -> buildClaimMappings(claimsMap, entry, attributeSeparator));
+            phaseTimer = startPhase(context, AuthenticatorPhase.BUILD_CLAIM_MAPPINGS);
+            try {
+                jwtAttributeMap.entrySet().stream()
+                        .filter(entry -> !ArrayUtils.contains(NON_USER_ATTRIBUTES, entry.getKey()))
+                        .forEach(entry -> buildClaimMappings(claimsMap, entry, attributeSeparator));
+                phaseTimer.succeeded();
+            } finally {
+                phaseTimer.stop();
+            }
 
             authenticatedUser = AuthenticatedUser
                     .createFederateAuthenticatedUserFromSubjectIdentifier(authenticatedUserId);
@@ -1082,15 +1199,21 @@ public class OpenIDConnectAuthenticator extends AbstractApplicationAuthenticator
             authenticatedUser = AuthenticatedUser.createFederateAuthenticatedUserFromSubjectIdentifier(
                     getAuthenticateUser(context, jwtAttributeMap, oAuthResponse));
         }
-        claimsMap.putAll(getSubjectAttributes(oAuthResponse, authenticatorProperties));
+        USER_INFO_CONTEXT.set(context);
+        try {
+            claimsMap.putAll(getSubjectAttributes(oAuthResponse, authenticatorProperties));
+        } finally {
+            USER_INFO_CONTEXT.remove();
+        }
         authenticatedUser.setUserAttributes(claimsMap);
         context.setSubject(authenticatedUser);
         if (LoggerUtils.isDiagnosticLogsEnabled() && diagnosticLogBuilder != null) {
+            AuthenticatedUser subject = authenticatedUser;
             diagnosticLogBuilder.resultMessage("Outbound OIDC authentication response processed successfully.")
                     .resultStatus(DiagnosticLog.ResultStatus.SUCCESS);
             diagnosticLogBuilder.inputParam("user attributes (local claim : remote claim)",
-                    getUserAttributeClaimMappingList(authenticatedUser));
-            LoggerUtils.triggerDiagnosticLogEvent(diagnosticLogBuilder);
+                    () -> getUserAttributeClaimMappingList(subject));
+            diagnosticLogBuilder.emit();
         }
     }
 
@@ -1176,37 +1299,6 @@ public class OpenIDConnectAuthenticator extends AbstractApplicationAuthenticator
         }
     }
 
-    /**
-     * This returns the intersection of the allowed scopes defined at the IDP configuration and the requested scopes
-     * from the application side for federated token sharing.
-     *
-     * @param allowedScope   The administrator defined scopes in the IDP configuration for federated token sharing.
-     * @param requestedScope The application side requested scopes for federated token sharing.
-     * @return The intersection of the allowed and the requested scopes for federated token sharing as a set of list.
-     */
-    private Set<String> validateScopeForTokenSharing(String allowedScope, String requestedScope) {
-
-        if (StringUtils.isBlank(allowedScope)) {
-            if (LOG.isDebugEnabled()) {
-                LOG.debug("No scopes are allowed for federated token sharing.");
-            }
-            return null;
-        }
-        if (StringUtils.isBlank(requestedScope)) {
-            if (LOG.isDebugEnabled()) {
-                LOG.debug("No scopes are requested for federated token sharing.");
-            }
-            return null;
-        }
-        Set<String> allowedScopesSet = new HashSet<>(Arrays.asList(allowedScope.split(SPACE_REGEX)));
-        Set<String> requestedScopesSet = new HashSet<>(Arrays.asList(requestedScope.split(SPACE_REGEX)));
-
-        Set<String> subset = new HashSet<>(requestedScopesSet);
-        subset.retainAll(allowedScopesSet);
-
-        return subset;
-    }
-
     /**
      * Generates OAuth client and returns the oAuthResponse according to the flow supported by the authenticator.
      * Overridden in Google Authenticator for Google one tap.
@@ -1246,7 +1338,18 @@ public class OpenIDConnectAuthenticator extends AbstractApplicationAuthenticator
 
             // Create OAuth client that uses custom http client under the hood.
             OAuthClient oAuthClient = new OAuthClient(new URLConnectionClient());
-            oAuthResponse = getOauthResponse(oAuthClient, accessTokenRequest);
+            PhaseTimer phaseTimer = startPhase(context, AuthenticatorPhase.GET_OAUTH_RESPONSE);
+            try {
+                String traceparent = PhaseTimer.currentTraceparent();
+                if (traceparent != null) {
+                    accessTokenRequest.setHeader(OIDCAuthenticatorConstants.Tracing.TRACEPARENT_HEADER, traceparent);
+                }
+                ResourceMeter.addBytesSent(StringUtils.length(accessTokenRequest.getBody()));
+                oAuthResponse = getOauthResponse(oAuthClient, accessTokenRequest);
+                phaseTimer.succeeded();
+            } finally {
+                phaseTimer.stop();
+            }
             if (oAuthResponse != null) {
                 processAuthenticatedUserScopes(context, oAuthResponse.getParam(OAuthConstants.OAuth20Params.SCOPE));
             }
@@ -1356,6 +1459,13 @@ public class OpenIDConnectAuthenticator extends AbstractApplicationAuthenticator
             String idTokenHint = getIdTokenHint(context);
             if (StringUtils.isNotBlank(idTokenHint)) {
                 paramMap.put(OIDCAuthenticatorConstants.ID_TOKEN_HINT, idTokenHint);
+            } else if (isIdTokenHintStoredByReference(context)) {
+                /*
+                 The ID token is no longer available in the hint store. Hence the client_id is sent to let the IdP
+                 validate the post_logout_redirect_uri.
+                 */
+                paramMap.put(OAuthConstants.OAuth20Params.CLIENT_ID,
+                        context.getAuthenticatorProperties().get(OIDCAuthenticatorConstants.CLIENT_ID));
             }
 
             String callback = getCallbackUrl(context.getAuthenticatorProperties(), context);
@@ -1387,11 +1497,62 @@ public class OpenIDConnectAuthenticator extends AbstractApplicationAuthenticator
     private String getIdTokenHint(AuthenticationContext context) {
 
         if (context.getStateInfo() instanceof OIDCStateInfo) {
-            return ((OIDCStateInfo) context.getStateInfo()).getIdTokenHint();
+            OIDCStateInfo stateInfo = (OIDCStateInfo) context.getStateInfo();
+            if (StringUtils.isNotBlank(stateInfo.getIdTokenHint())) {
+                return stateInfo.getIdTokenHint();
+            }
+            IdTokenHintStore idTokenHintStore =
+                    OpenIDConnectAuthenticatorDataHolder.getInstance().getIdTokenHintStore();
+            if (StringUtils.isNotBlank(stateInfo.getIdTokenHintReference()) && idTokenHintStore != null) {
+                // The ID token is kept until the logout completes, hence a retried logout request still has it.
+                return idTokenHintStore.retrieve(stateInfo.getIdTokenHintReference());
+            }
         }
         return null;
     }
 
+    /**
+     * Remove the stored ID token once the IdP has responded to the logout request. The ID tokens of the logouts
+     * which never complete are removed by the store once they expire.
+     *
+     * @param context Authentication context of the logout.
+     */
+    private void removeIdTokenHint(AuthenticationContext context) {
+
+        if (!isIdTokenHintStoredByReference(context)) {
+            return;
+        }
+        IdTokenHintStore idTokenHintStore = OpenIDConnectAuthenticatorDataHolder.getInstance().getIdTokenHintStore();
+        if (idTokenHintStore != null) {
+            idTokenHintStore.remove(((OIDCStateInfo) context.getStateInfo()).getIdTokenHintReference());
+        }
+    }
+
+    private boolean isIdTokenHintStoredByReference(AuthenticationContext context) {
+
+        return context.getStateInfo() instanceof OIDCStateInfo &&
+                StringUtils.isNotBlank(((OIDCStateInfo) context.getStateInfo()).getIdTokenHintReference());
+    }
+
+    /**
+     * Keep the ID token to be sent as the id_token_hint at logout. If an ID token hint store is in use, only a
+     * reference to the stored ID token is kept in the session resident state.
+     *
+     * @param stateInfo OIDC state info of the authenticator.
+     * @param idToken   ID token received from the federated IdP.
+     */
+    private void setIdTokenHint(OIDCStateInfo stateInfo, String idToken) {
+
+        IdTokenHintStore idTokenHintStore = OpenIDConnectAuthenticatorDataHolder.getInstance().getIdTokenHintStore();
+        if (idTokenHintStore == null || StringUtils.isBlank(idToken)) {
+            stateInfo.setIdTokenHint(idToken);
+            return;
+        }
+        String idTokenHintReference = UUID.randomUUID().toString();
+        idTokenHintStore.store(idTokenHintReference, idToken);
+        stateInfo.setIdTokenHintReference(idTokenHintReference);
+    }
+
     private Map<String, Object> getIdTokenClaims(AuthenticationContext context, String idToken) {
 
         context.setProperty(OIDCAuthenticatorConstants.ID_TOKEN, idToken);
@@ -1890,7 +2051,8 @@ public class OpenIDConnectAuthenticator extends AbstractApplicationAuthenticator
                 if (StringUtils.isNotBlank(userIdClaimUri)) {
                     // User ID is defined in local claim dialect at the IDP.
                     // Find the corresponding OIDC claim and retrieve from idTokenClaims.
-                    userIdClaimUriInOIDCDialect = getUserIdClaimUriInOIDCDialect(userIdClaimUri, spTenantDomain);
+                    userIdClaimUriInOIDCDialect = getUserIdClaimUriInOIDCDialect(context, userIdClaimUri,
+                            spTenantDomain);
                 } else {
                     if (LOG.isDebugEnabled()) {
                         String idpName = context.getExternalIdP().getIdPName();
@@ -1911,7 +2073,8 @@ public class OpenIDConnectAuthenticator extends AbstractApplicationAuthenticator
                             // Get the subject claim in OIDC dialect.
                             String userIdClaimUriInLocalDialect = claimMapping.getLocalClaim().getClaimUri();
                             userIdClaimUriInOIDCDialect =
-                                    getUserIdClaimUriInOIDCDialect(userIdClaimUriInLocalDialect, spTenantDomain);
+                                    getUserIdClaimUriInOIDCDialect(context, userIdClaimUriInLocalDialect,
+                                            spTenantDomain);
                             break;
                         }
                     }
@@ -1942,6 +2105,20 @@ public class OpenIDConnectAuthenticator extends AbstractApplicationAuthenticator
         return null;
     }
 
+    private String getUserIdClaimUriInOIDCDialect(AuthenticationContext context, String userIdClaimInLocalDialect,
+                                                  String spTenantDomain) throws ClaimMetadataException {
+
+        PhaseTimer phaseTimer = startPhase(context, AuthenticatorPhase.GET_USER_ID_CLAIM_URI_IN_OIDC_DIALECT);
+        try {
+            String userIdClaimUriInOIDCDialect =
+                    getUserIdClaimUriInOIDCDialect(userIdClaimInLocalDialect, spTenantDomain);
+            phaseTimer.succeeded();
+            return userIdClaimUriInOIDCDialect;
+        } finally {
+            phaseTimer.stop();
+        }
+    }
+
     private String getUserIdClaimUriInOIDCDialect(String userIdClaimInLocalDialect, String spTenantDomain)
             throws ClaimMetadataException {
 
@@ -1993,7 +2170,12 @@ public class OpenIDConnectAuthenticator extends AbstractApplicationAuthenticator
             HttpURLConnection urlConnection = (HttpURLConnection) obj.openConnection();
             urlConnection.setRequestMethod("GET");
             urlConnection.setRequestProperty("Authorization", "Bearer " + accessToken);
-            reader = new BufferedReader(new InputStreamReader(urlConnection.getInputStream()));
+            String traceparent = PhaseTimer.currentTraceparent();
+            if (traceparent != null) {
+                urlConnection.setRequestProperty(OIDCAuthenticatorConstants.Tracing.TRACEPARENT_HEADER, traceparent);
+            }
+            reader = new BufferedReader(new InputStreamReader(
+                    ResourceMeter.countBytesReceived(urlConnection.getInputStream())));
             String inputLine = reader.readLine();
 
             while (inputLine != null) {
@@ -2154,6 +2336,52 @@ public class OpenIDConnectAuthenticator extends AbstractApplicationAuthenticator
         return applicationDetailsMap;
     }
 
+    /**
+     * Get the application details from the authentication context. The application details are resolved only once
+     * per authentication context.
+     *
+     * @param context Authentication context.
+     * @return Map of application details.
+     */
+    private Map<String, String> getCachedApplicationDetails(AuthenticationContext context) {
+
+        Object applicationDetails = context.getProperty(OIDCAuthenticatorConstants.APPLICATION_DETAILS_PROPERTY_KEY);
+        if (applicationDetails instanceof Map) {
+            // The property is only set by this method, with the map of the application details.
+            @SuppressWarnings("unchecked")
+            Map<String, String> cachedApplicationDetails = (Map<String, String>) applicationDetails;
+            return cachedApplicationDetails;
+        }
+        Map<String, String> applicationDetailsMap = getApplicationDetails(context);
+        context.setProperty(OIDCAuthenticatorConstants.APPLICATION_DETAILS_PROPERTY_KEY, applicationDetailsMap);
+        return applicationDetailsMap;
+    }
+
+    /**
+     * Get the scopes sent in the authorization request. The scopes computed while preparing the login page are
+     * used if available, instead of parsing the login page url.
+     *
+     * @param context   Authentication context.
+     * @param loginPage Login page url.
+     * @return Scopes or null if no scopes are sent.
+     */
+    private String getScopesForDiagnosticLog(AuthenticationContext context, String loginPage) {
+
+        Object scopes = context.getProperty(getName() + SCOPE_PARAM_SUFFIX);
+        if (scopes instanceof String && StringUtils.isNotEmpty((String) scopes)) {
+            return (String) scopes;
+        }
+        try {
+            String extractedScopes = extractScopesFromURL(loginPage);
+            return StringUtils.isNotEmpty(extractedScopes) ? extractedScopes : null;
+        } catch (UnsupportedEncodingException e) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Error while extracting the scopes from the login page url.", e);
+            }
+            return null;
+        }
+    }
+
     /**
      * Extract query param scopes from a given url.
      *
@@ -2216,6 +2444,20 @@ public class OpenIDConnectAuthenticator extends AbstractApplicationAuthenticator
         return request.getParameter(ACCESS_TOKEN_PARAM) != null && request.getParameter(ID_TOKEN_PARAM) != null;
     }
 
+    /**
+     * Start timing an authenticator phase against the IdP of the current step.
+     *
+     * @param context Authentication context.
+     * @param phase   Timed phase.
+     * @return Started phase timer.
+     */
+    private PhaseTimer startPhase(AuthenticationContext context, AuthenticatorPhase phase) {
+
+        String idpName = context != null && context.getExternalIdP() != null ?
+                context.getExternalIdP().getIdPName() : null;
+        return PhaseTimer.start(phase, idpName, context != null ? context.getTenantDomain() : null);
+    }
+
     /**
      * This method returns the current federated authenticator name. If there is no external IdP, then the current
      * authenticator name is returned.
@@ -18,6 +18,7 @@ package org.wso2.carbon.identity.application.authenticator.oidc.internal;
 
 import org.wso2.carbon.identity.application.authentication.framework.ServerSessionManagementService;
 import org.wso2.carbon.identity.application.authentication.framework.UserSessionManagementService;
+import org.wso2.carbon.identity.application.authenticator.oidc.logout.hint.IdTokenHintStore;
 import org.wso2.carbon.identity.claim.metadata.mgt.ClaimMetadataManagementService;
 import org.wso2.carbon.user.core.service.RealmService;
 
@@ -33,6 +34,8 @@ public class OpenIDConnectAuthenticatorDataHolder {
 
     private UserSessionManagementService userSessionManagementService;
 
+    private IdTokenHintStore idTokenHintStore;
+
     private OpenIDConnectAuthenticatorDataHolder() {
 
     }
@@ -83,4 +86,19 @@ public class OpenIDConnectAuthenticatorDataHolder {
 
         this.userSessionManagementService = userSessionManagementService;
     }
+
+    /**
+     * Get the store used to keep the ID tokens sent as the id_token_hint at logout.
+     *
+     * @return ID token hint store or null if the ID tokens are kept in the session.
+     */
+    public IdTokenHintStore getIdTokenHintStore() {
+
+        return idTokenHintStore;
+    }
+
+    public void setIdTokenHintStore(IdTokenHintStore idTokenHintStore) {
+
+        this.idTokenHintStore = idTokenHintStore;
+    }
 }
@@ -17,6 +17,7 @@
  */
 package org.wso2.carbon.identity.application.authenticator.oidc.internal;
 
+import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.osgi.service.component.ComponentContext;
@@ -26,12 +27,35 @@ import org.wso2.carbon.identity.application.authentication.framework.UserSession
 import org.wso2.carbon.identity.application.authentication.framework.inbound.HttpIdentityRequestFactory;
 import org.wso2.carbon.identity.application.authentication.framework.inbound.HttpIdentityResponseFactory;
 import org.wso2.carbon.identity.application.authentication.framework.inbound.IdentityProcessor;
+import org.wso2.carbon.identity.application.authenticator.oidc.OIDCAuthenticatorConstants;
 import org.wso2.carbon.identity.application.authenticator.oidc.OpenIDConnectAuthenticator;
+import org.wso2.carbon.identity.application.authenticator.oidc.logout.hint.IdTokenHintStore;
+import org.wso2.carbon.identity.application.authenticator.oidc.logout.hint.InMemoryIdTokenHintStore;
+import org.wso2.carbon.identity.application.authenticator.oidc.logout.hint.NoOpIdTokenHintStore;
+import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.async.AsyncLogoutExecutor;
+import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.async.LogoutTaskJournal;
+import org.wso2.carbon.identity.application.authenticator.oidc.listener.FederatedUserIdCacheListener;
+import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.admission.LogoutAdmissionController;
+import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.cache.FederatedSidIndex;
+import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.cache.FederatedUserIdCache;
+import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.cache.LogoutTokenDedupCache;
 import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.factory.LogoutRequestFactory;
 import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.factory.LogoutResponseFactory;
 import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.processor.FederatedIdpInitLogoutProcessor;
+import org.wso2.carbon.identity.application.authenticator.oidc.metrics.PhaseLatencyMetrics;
+import org.wso2.carbon.identity.application.authenticator.oidc.metrics.ResourceUsageMetrics;
+import org.wso2.carbon.identity.application.authenticator.oidc.metrics.SLOTracker;
+import org.wso2.carbon.identity.application.authenticator.oidc.metrics.SlowLoginRecorder;
+import org.wso2.carbon.identity.application.authenticator.oidc.metrics.TrafficRecorder;
+import org.wso2.carbon.identity.application.authenticator.oidc.tracing.InMemorySpanExporter;
+import org.wso2.carbon.identity.application.authenticator.oidc.tracing.OIDCTracer;
+import org.wso2.carbon.identity.application.authenticator.oidc.tracing.SpanExporter;
+import org.wso2.carbon.identity.application.authenticator.oidc.util.AsyncDiagnosticLogEmitter;
+import org.wso2.carbon.identity.application.authenticator.oidc.util.OIDCAuthenticatorConfigUtil;
 import org.wso2.carbon.identity.claim.metadata.mgt.ClaimMetadataManagementService;
+import org.wso2.carbon.user.core.listener.UserOperationEventListener;
 import org.wso2.carbon.user.core.service.RealmService;
+import org.wso2.carbon.utils.CarbonUtils;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
@@ -39,6 +63,15 @@ import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.osgi.service.component.annotations.ReferencePolicy;
 
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
 @Component(
         name = "identity.application.authenticator.oidc.component",
         immediate = true
@@ -59,6 +92,50 @@ public class OpenIDConnectAuthenticatorServiceComponent {
                     new FederatedIdpInitLogoutProcessor(), null);
             ctxt.getBundleContext().registerService(HttpIdentityResponseFactory.class.getName(),
                     new LogoutResponseFactory(), null);
+            ctxt.getBundleContext().registerService(UserOperationEventListener.class.getName(),
+                    new FederatedUserIdCacheListener(), null);
+            if (OpenIDConnectAuthenticatorDataHolder.getInstance().getIdTokenHintStore() == null) {
+                OpenIDConnectAuthenticatorDataHolder.getInstance().setIdTokenHintStore(buildIdTokenHintStore());
+            }
+            if (OIDCAuthenticatorConfigUtil.getBooleanParameter(
+                    OIDCAuthenticatorConstants.AsyncDiagnosticLogs.ENABLE, false)) {
+                startAsyncDiagnosticLogEmitter();
+            }
+            if (OIDCAuthenticatorConfigUtil.getBooleanParameter(OIDCAuthenticatorConstants.Tracing.ENABLE, false)) {
+                // Keep the span exporter registered as a service, if any.
+                if (OIDCTracer.getSpanExporter() instanceof InMemorySpanExporter) {
+                    OIDCTracer.setSpanExporter(buildInMemorySpanExporter());
+                }
+                OIDCTracer.setEnabled(true);
+            }
+            PhaseLatencyMetrics.getInstance().setEnabled(OIDCAuthenticatorConfigUtil.getBooleanParameter(
+                    OIDCAuthenticatorConstants.PhaseLatency.ENABLE, false));
+            registerMBean(PhaseLatencyMetrics.getInstance(), PhaseLatencyMetrics.OBJECT_NAME);
+            SLOTracker.getInstance().setEnabled(OIDCAuthenticatorConfigUtil.getBooleanParameter(
+                    OIDCAuthenticatorConstants.SLOTracking.ENABLE, false));
+            registerMBean(SLOTracker.getInstance(), SLOTracker.OBJECT_NAME);
+            configureSlowLoginRecorder();
+            registerMBean(SlowLoginRecorder.getInstance(), SlowLoginRecorder.OBJECT_NAME);
+            ResourceUsageMetrics.getInstance().setEnabled(OIDCAuthenticatorConfigUtil.getBooleanParameter(
+                    OIDCAuthenticatorConstants.ResourceAccounting.ENABLE, false));
+            registerMBean(ResourceUsageMetrics.getInstance(), ResourceUsageMetrics.OBJECT_NAME);
+            configureTrafficRecorder();
+            registerMBean(TrafficRecorder.getInstance(), TrafficRecorder.OBJECT_NAME);
+            configureLogoutTokenDedupCache();
+            registerMBean(LogoutTokenDedupCache.getInstance(), LogoutTokenDedupCache.OBJECT_NAME);
+            if (OIDCAuthenticatorConfigUtil.getBooleanParameter(
+                    OIDCAuthenticatorConstants.FederatedSidIndex.ENABLE, false)) {
+                startFederatedSidIndex();
+            }
+            registerMBean(FederatedSidIndex.getInstance(), FederatedSidIndex.OBJECT_NAME);
+            configureFederatedUserIdCache();
+            registerMBean(FederatedUserIdCache.getInstance(), FederatedUserIdCache.OBJECT_NAME);
+            configureLogoutAdmissionController();
+            registerMBean(LogoutAdmissionController.getInstance(), LogoutAdmissionController.OBJECT_NAME);
+            if (OIDCAuthenticatorConfigUtil.getBooleanParameter(
+                    OIDCAuthenticatorConstants.AsyncBackChannelLogout.ENABLE, false)) {
+                startAsyncLogoutExecutor();
+            }
             if (log.isDebugEnabled()) {
                 log.debug("OpenID Connect Authenticator bundle is activated");
             }
@@ -70,6 +147,34 @@ public class OpenIDConnectAuthenticatorServiceComponent {
     @Deactivate
     protected void deactivate(ComponentContext ctxt) {
 
+        if (AsyncLogoutExecutor.getInstance() != null) {
+            unregisterMBean(AsyncLogoutExecutor.OBJECT_NAME);
+            AsyncLogoutExecutor.stop(OIDCAuthenticatorConfigUtil.getLongParameter(
+                    OIDCAuthenticatorConstants.AsyncBackChannelLogout.DRAIN_TIMEOUT,
+                    OIDCAuthenticatorConstants.AsyncBackChannelLogout.DEFAULT_DRAIN_TIMEOUT));
+        }
+        if (AsyncDiagnosticLogEmitter.getInstance() != null) {
+            unregisterMBean(AsyncDiagnosticLogEmitter.OBJECT_NAME);
+            AsyncDiagnosticLogEmitter.stop();
+        }
+        LogoutTokenDedupCache.getInstance().clear();
+        FederatedSidIndex.getInstance().stop();
+        unregisterMBean(FederatedSidIndex.OBJECT_NAME);
+        FederatedUserIdCache.getInstance().clear();
+        unregisterMBean(FederatedUserIdCache.OBJECT_NAME);
+        unregisterMBean(LogoutAdmissionController.OBJECT_NAME);
+        unregisterMBean(LogoutTokenDedupCache.OBJECT_NAME);
+        OIDCTracer.setEnabled(false);
+        PhaseLatencyMetrics.getInstance().setEnabled(false);
+        unregisterMBean(PhaseLatencyMetrics.OBJECT_NAME);
+        SLOTracker.getInstance().setEnabled(false);
+        unregisterMBean(SLOTracker.OBJECT_NAME);
+        SlowLoginRecorder.getInstance().setEnabled(false);
+        unregisterMBean(SlowLoginRecorder.OBJECT_NAME);
+        ResourceUsageMetrics.getInstance().setEnabled(false);
+        unregisterMBean(ResourceUsageMetrics.OBJECT_NAME);
+        TrafficRecorder.getInstance().setEnabled(false);
+        unregisterMBean(TrafficRecorder.OBJECT_NAME);
         if (log.isDebugEnabled()) {
             log.debug("OpenID Connect Authenticator bundle is deactivated");
         }
@@ -167,4 +272,316 @@ public class OpenIDConnectAuthenticatorServiceComponent {
         }
         OpenIDConnectAuthenticatorDataHolder.getInstance().setUserSessionManagementService(null);
     }
+
+    @Reference(
+            name = "id.token.hint.store",
+            service = IdTokenHintStore.class,
+            cardinality = ReferenceCardinality.OPTIONAL,
+            policy = ReferencePolicy.DYNAMIC,
+            unbind = "unsetIdTokenHintStore"
+    )
+    protected void setIdTokenHintStore(IdTokenHintStore idTokenHintStore) {
+
+        if (log.isDebugEnabled()) {
+            log.debug("ID token hint store: " + idTokenHintStore.getClass().getName() +
+                    " is set in the OpenID Connect Authenticator");
+        }
+        OpenIDConnectAuthenticatorDataHolder.getInstance().setIdTokenHintStore(idTokenHintStore);
+    }
+
+    protected void unsetIdTokenHintStore(IdTokenHintStore idTokenHintStore) {
+
+        if (log.isDebugEnabled()) {
+            log.debug("ID token hint store: " + idTokenHintStore.getClass().getName() +
+                    " is unset in the OpenID Connect Authenticator");
+        }
+        OpenIDConnectAuthenticatorDataHolder.getInstance().setIdTokenHintStore(buildIdTokenHintStore());
+    }
+
+    @Reference(
+            name = "span.exporter",
+            service = SpanExporter.class,
+            cardinality = ReferenceCardinality.OPTIONAL,
+            policy = ReferencePolicy.DYNAMIC,
+            unbind = "unsetSpanExporter"
+    )
+    protected void setSpanExporter(SpanExporter spanExporter) {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Span exporter: " + spanExporter.getClass().getName() +
+                    " is set in the OpenID Connect Authenticator");
+        }
+        OIDCTracer.setSpanExporter(spanExporter);
+    }
+
+    protected void unsetSpanExporter(SpanExporter spanExporter) {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Span exporter: " + spanExporter.getClass().getName() +
+                    " is unset in the OpenID Connect Authenticator");
+        }
+        OIDCTracer.setSpanExporter(buildInMemorySpanExporter());
+    }
+
+    private SpanExporter buildInMemorySpanExporter() {
+
+        long capacity = OIDCAuthenticatorConfigUtil.getLongParameter(
+                OIDCAuthenticatorConstants.Tracing.IN_MEMORY_SPAN_CAPACITY,
+                OIDCAuthenticatorConstants.Tracing.DEFAULT_IN_MEMORY_SPAN_CAPACITY);
+        if (capacity <= 0 || capacity > Integer.MAX_VALUE) {
+            log.warn("Invalid in-memory span capacity: " + capacity + " is configured. Hence using the default " +
+                    "capacity: " + OIDCAuthenticatorConstants.Tracing.DEFAULT_IN_MEMORY_SPAN_CAPACITY);
+            capacity = OIDCAuthenticatorConstants.Tracing.DEFAULT_IN_MEMORY_SPAN_CAPACITY;
+        }
+        return new InMemorySpanExporter((int) capacity);
+    }
+
+    /**
+     * Build the ID token hint store configured for the authenticator.
+     *
+     * @return ID token hint store or null if the ID tokens should be kept in the session.
+     */
+    private IdTokenHintStore buildIdTokenHintStore() {
+
+        String storage = OIDCAuthenticatorConfigUtil.getParameter(OIDCAuthenticatorConstants.IdTokenHint.STORAGE,
+                OIDCAuthenticatorConstants.IdTokenHint.STORAGE_SESSION);
+        if (OIDCAuthenticatorConstants.IdTokenHint.STORAGE_MEMORY.equalsIgnoreCase(storage)) {
+            int maxEntries = (int) OIDCAuthenticatorConfigUtil.getLongParameter(
+                    OIDCAuthenticatorConstants.IdTokenHint.STORE_MAX_ENTRIES,
+                    OIDCAuthenticatorConstants.IdTokenHint.DEFAULT_STORE_MAX_ENTRIES);
+            if (maxEntries <= 0) {
+                maxEntries = OIDCAuthenticatorConstants.IdTokenHint.DEFAULT_STORE_MAX_ENTRIES;
+            }
+            long timeToLive = OIDCAuthenticatorConfigUtil.getLongParameter(
+                    OIDCAuthenticatorConstants.IdTokenHint.STORE_TTL,
+                    OIDCAuthenticatorConstants.IdTokenHint.DEFAULT_STORE_TTL);
+            return new InMemoryIdTokenHintStore(maxEntries, timeToLive * 1000);
+        }
+        if (OIDCAuthenticatorConstants.IdTokenHint.STORAGE_NONE.equalsIgnoreCase(storage)) {
+            return new NoOpIdTokenHintStore();
+        }
+        return null;
+    }
+
+    private void startAsyncDiagnosticLogEmitter() {
+
+        int queueSize = (int) OIDCAuthenticatorConfigUtil.getLongParameter(
+                OIDCAuthenticatorConstants.AsyncDiagnosticLogs.QUEUE_SIZE,
+                OIDCAuthenticatorConstants.AsyncDiagnosticLogs.DEFAULT_QUEUE_SIZE);
+        int batchSize = (int) OIDCAuthenticatorConfigUtil.getLongParameter(
+                OIDCAuthenticatorConstants.AsyncDiagnosticLogs.BATCH_SIZE,
+                OIDCAuthenticatorConstants.AsyncDiagnosticLogs.DEFAULT_BATCH_SIZE);
+        long blockTimeout = OIDCAuthenticatorConfigUtil.getLongParameter(
+                OIDCAuthenticatorConstants.AsyncDiagnosticLogs.BLOCK_TIMEOUT,
+                OIDCAuthenticatorConstants.AsyncDiagnosticLogs.DEFAULT_BLOCK_TIMEOUT);
+        AsyncDiagnosticLogEmitter.OverflowPolicy overflowPolicy = AsyncDiagnosticLogEmitter.OverflowPolicy.DROP;
+        if (AsyncDiagnosticLogEmitter.OverflowPolicy.BLOCK.name().equalsIgnoreCase(OIDCAuthenticatorConfigUtil
+                .getParameter(OIDCAuthenticatorConstants.AsyncDiagnosticLogs.OVERFLOW_POLICY, null))) {
+            overflowPolicy = AsyncDiagnosticLogEmitter.OverflowPolicy.BLOCK;
+        }
+        if (queueSize <= 0 || batchSize <= 0) {
+            log.warn("Invalid queue size or batch size is configured for the asynchronous diagnostic logs. " +
+                    "Hence using the default values.");
+            queueSize = OIDCAuthenticatorConstants.AsyncDiagnosticLogs.DEFAULT_QUEUE_SIZE;
+            batchSize = OIDCAuthenticatorConstants.AsyncDiagnosticLogs.DEFAULT_BATCH_SIZE;
+        }
+        AsyncDiagnosticLogEmitter.start(queueSize, batchSize, overflowPolicy, blockTimeout);
+        registerMBean(AsyncDiagnosticLogEmitter.getInstance(), AsyncDiagnosticLogEmitter.OBJECT_NAME);
+        if (log.isDebugEnabled()) {
+            log.debug("Asynchronous diagnostic log emitter is started with the queue size: " + queueSize +
+                    ", batch size: " + batchSize + " and overflow policy: " + overflowPolicy);
+        }
+    }
+
+    private void startAsyncLogoutExecutor() throws IOException {
+
+        long workerThreads = OIDCAuthenticatorConfigUtil.getLongParameter(
+                OIDCAuthenticatorConstants.AsyncBackChannelLogout.WORKER_THREADS,
+                OIDCAuthenticatorConstants.AsyncBackChannelLogout.DEFAULT_WORKER_THREADS);
+        long queueSize = OIDCAuthenticatorConfigUtil.getLongParameter(
+                OIDCAuthenticatorConstants.AsyncBackChannelLogout.QUEUE_SIZE,
+                OIDCAuthenticatorConstants.AsyncBackChannelLogout.DEFAULT_QUEUE_SIZE);
+        long maxAttempts = OIDCAuthenticatorConfigUtil.getLongParameter(
+                OIDCAuthenticatorConstants.AsyncBackChannelLogout.MAX_ATTEMPTS,
+                OIDCAuthenticatorConstants.AsyncBackChannelLogout.DEFAULT_MAX_ATTEMPTS);
+        long retryBackoff = OIDCAuthenticatorConfigUtil.getLongParameter(
+                OIDCAuthenticatorConstants.AsyncBackChannelLogout.RETRY_BACKOFF,
+                OIDCAuthenticatorConstants.AsyncBackChannelLogout.DEFAULT_RETRY_BACKOFF);
+        if (workerThreads <= 0 || workerThreads > Integer.MAX_VALUE || queueSize <= 0 ||
+                queueSize > Integer.MAX_VALUE || maxAttempts <= 0 || maxAttempts > Integer.MAX_VALUE) {
+            log.warn("Invalid worker threads, queue size or max attempts is configured for the asynchronous " +
+                    "back-channel logouts. Hence using the default values.");
+            workerThreads = OIDCAuthenticatorConstants.AsyncBackChannelLogout.DEFAULT_WORKER_THREADS;
+            queueSize = OIDCAuthenticatorConstants.AsyncBackChannelLogout.DEFAULT_QUEUE_SIZE;
+            maxAttempts = OIDCAuthenticatorConstants.AsyncBackChannelLogout.DEFAULT_MAX_ATTEMPTS;
+        }
+        String journalPath = OIDCAuthenticatorConfigUtil.getParameter(
+                OIDCAuthenticatorConstants.AsyncBackChannelLogout.JOURNAL_PATH, null);
+        Path journalFile = StringUtils.isNotBlank(journalPath) ? Paths.get(journalPath) :
+                Paths.get(CarbonUtils.getCarbonHome(), "repository", "data",
+                        OIDCAuthenticatorConstants.AsyncBackChannelLogout.DEFAULT_JOURNAL_FILE);
+        boolean syncWrites = OIDCAuthenticatorConfigUtil.getBooleanParameter(
+                OIDCAuthenticatorConstants.AsyncBackChannelLogout.SYNC_WRITES, true);
+        long syncInterval = OIDCAuthenticatorConfigUtil.getLongParameter(
+                OIDCAuthenticatorConstants.AsyncBackChannelLogout.SYNC_INTERVAL,
+                OIDCAuthenticatorConstants.AsyncBackChannelLogout.DEFAULT_SYNC_INTERVAL);
+        LogoutTaskJournal journal = new LogoutTaskJournal(journalFile, syncWrites,
+                OIDCAuthenticatorConstants.AsyncBackChannelLogout.JOURNAL_COMPACTION_THRESHOLD, syncInterval);
+        AsyncLogoutExecutor.start((int) workerThreads, (int) queueSize, (int) maxAttempts, retryBackoff, journal,
+                new FederatedIdpInitLogoutProcessor()::executeLogoutTask);
+        registerMBean(AsyncLogoutExecutor.getInstance(), AsyncLogoutExecutor.OBJECT_NAME);
+        if (log.isDebugEnabled()) {
+            log.debug("Asynchronous back-channel logout executor is started with " + workerThreads +
+                    " worker threads, the queue size: " + queueSize + " and the journal: " + journalFile);
+        }
+    }
+
+    private void configureLogoutTokenDedupCache() {
+
+        long maxEntries = OIDCAuthenticatorConfigUtil.getLongParameter(
+                OIDCAuthenticatorConstants.LogoutTokenDedup.MAX_ENTRIES,
+                OIDCAuthenticatorConstants.LogoutTokenDedup.DEFAULT_MAX_ENTRIES);
+        if (maxEntries <= 0 || maxEntries > Integer.MAX_VALUE) {
+            log.warn("Invalid logout token dedup max entries: " + maxEntries + " is configured. Hence using the " +
+                    "default max entries: " + OIDCAuthenticatorConstants.LogoutTokenDedup.DEFAULT_MAX_ENTRIES);
+            maxEntries = OIDCAuthenticatorConstants.LogoutTokenDedup.DEFAULT_MAX_ENTRIES;
+        }
+        long window = OIDCAuthenticatorConfigUtil.getLongParameter(
+                OIDCAuthenticatorConstants.LogoutTokenDedup.WINDOW,
+                OIDCAuthenticatorConstants.LogoutTokenDedup.DEFAULT_WINDOW);
+        LogoutTokenDedupCache.getInstance().configure(OIDCAuthenticatorConfigUtil.getBooleanParameter(
+                OIDCAuthenticatorConstants.LogoutTokenDedup.ENABLE, false) && window > 0, (int) maxEntries,
+                window * 1000);
+    }
+
+    private void startFederatedSidIndex() {
+
+        long expectedSids = OIDCAuthenticatorConfigUtil.getLongParameter(
+                OIDCAuthenticatorConstants.FederatedSidIndex.EXPECTED_SIDS,
+                OIDCAuthenticatorConstants.FederatedSidIndex.DEFAULT_EXPECTED_SIDS);
+        long refreshInterval = OIDCAuthenticatorConfigUtil.getLongParameter(
+                OIDCAuthenticatorConstants.FederatedSidIndex.REFRESH_INTERVAL,
+                OIDCAuthenticatorConstants.FederatedSidIndex.DEFAULT_REFRESH_INTERVAL);
+        if (expectedSids <= 0 || refreshInterval <= 0) {
+            log.warn("Invalid expected sids or refresh interval is configured for the federated sid index. " +
+                    "Hence using the default values.");
+            expectedSids = OIDCAuthenticatorConstants.FederatedSidIndex.DEFAULT_EXPECTED_SIDS;
+            refreshInterval = OIDCAuthenticatorConstants.FederatedSidIndex.DEFAULT_REFRESH_INTERVAL;
+        }
+        FederatedSidIndex.getInstance().start(expectedSids, refreshInterval * 1000);
+        if (log.isDebugEnabled()) {
+            log.debug("Federated sid index is started for " + expectedSids + " sids with the refresh interval: " +
+                    refreshInterval + "s");
+        }
+    }
+
+    private void configureLogoutAdmissionController() {
+
+        long issuerRate = OIDCAuthenticatorConfigUtil.getLongParameter(
+                OIDCAuthenticatorConstants.LogoutAdmission.ISSUER_RATE,
+                OIDCAuthenticatorConstants.LogoutAdmission.DEFAULT_ISSUER_RATE);
+        long issuerBurst = OIDCAuthenticatorConfigUtil.getLongParameter(
+                OIDCAuthenticatorConstants.LogoutAdmission.ISSUER_BURST,
+                OIDCAuthenticatorConstants.LogoutAdmission.DEFAULT_ISSUER_BURST);
+        long maxConcurrency = OIDCAuthenticatorConfigUtil.getLongParameter(
+                OIDCAuthenticatorConstants.LogoutAdmission.MAX_CONCURRENCY,
+                OIDCAuthenticatorConstants.LogoutAdmission.DEFAULT_MAX_CONCURRENCY);
+        long maxTrackedIssuers = OIDCAuthenticatorConfigUtil.getLongParameter(
+                OIDCAuthenticatorConstants.LogoutAdmission.MAX_TRACKED_ISSUERS,
+                OIDCAuthenticatorConstants.LogoutAdmission.DEFAULT_MAX_TRACKED_ISSUERS);
+        if (issuerRate <= 0 || issuerBurst <= 0 || issuerBurst > Integer.MAX_VALUE || maxConcurrency <= 0 ||
+                maxConcurrency > Integer.MAX_VALUE || maxTrackedIssuers <= 0 ||
+                maxTrackedIssuers > Integer.MAX_VALUE) {
+            log.warn("Invalid rate, burst, concurrency or tracked issuers is configured for the logout admission " +
+                    "control. Hence using the default values.");
+            issuerRate = OIDCAuthenticatorConstants.LogoutAdmission.DEFAULT_ISSUER_RATE;
+            issuerBurst = OIDCAuthenticatorConstants.LogoutAdmission.DEFAULT_ISSUER_BURST;
+            maxConcurrency = OIDCAuthenticatorConstants.LogoutAdmission.DEFAULT_MAX_CONCURRENCY;
+            maxTrackedIssuers = OIDCAuthenticatorConstants.LogoutAdmission.DEFAULT_MAX_TRACKED_ISSUERS;
+        }
+        LogoutAdmissionController.getInstance().configure(OIDCAuthenticatorConfigUtil.getBooleanParameter(
+                OIDCAuthenticatorConstants.LogoutAdmission.ENABLE, false), issuerRate, (int) issuerBurst,
+                (int) maxConcurrency, (int) maxTrackedIssuers);
+    }
+
+    private void configureFederatedUserIdCache() {
+
+        long maxEntries = OIDCAuthenticatorConfigUtil.getLongParameter(
+                OIDCAuthenticatorConstants.FederatedUserIdCache.MAX_ENTRIES,
+                OIDCAuthenticatorConstants.FederatedUserIdCache.DEFAULT_MAX_ENTRIES);
+        if (maxEntries <= 0 || maxEntries > Integer.MAX_VALUE) {
+            log.warn("Invalid federated user id cache max entries: " + maxEntries + " is configured. Hence using " +
+                    "the default max entries: " + OIDCAuthenticatorConstants.FederatedUserIdCache.DEFAULT_MAX_ENTRIES);
+            maxEntries = OIDCAuthenticatorConstants.FederatedUserIdCache.DEFAULT_MAX_ENTRIES;
+        }
+        long timeToLive = OIDCAuthenticatorConfigUtil.getLongParameter(
+                OIDCAuthenticatorConstants.FederatedUserIdCache.TTL,
+                OIDCAuthenticatorConstants.FederatedUserIdCache.DEFAULT_TTL);
+        if (timeToLive > OIDCAuthenticatorConstants.FederatedUserIdCache.MAX_TTL) {
+            log.warn("Federated user id cache TTL: " + timeToLive + " is above the maximum TTL. Hence using the " +
+                    "maximum TTL: " + OIDCAuthenticatorConstants.FederatedUserIdCache.MAX_TTL);
+            timeToLive = OIDCAuthenticatorConstants.FederatedUserIdCache.MAX_TTL;
+        }
+        FederatedUserIdCache.getInstance().configure(OIDCAuthenticatorConfigUtil.getBooleanParameter(
+                OIDCAuthenticatorConstants.FederatedUserIdCache.ENABLE, false) && timeToLive > 0, (int) maxEntries,
+                timeToLive * 1000);
+    }
+
+    private void configureSlowLoginRecorder() {
+
+        long threshold = OIDCAuthenticatorConfigUtil.getLongParameter(
+                OIDCAuthenticatorConstants.SlowLogins.THRESHOLD,
+                OIDCAuthenticatorConstants.SlowLogins.DEFAULT_THRESHOLD);
+        long bufferSize = OIDCAuthenticatorConfigUtil.getLongParameter(
+                OIDCAuthenticatorConstants.SlowLogins.BUFFER_SIZE,
+                OIDCAuthenticatorConstants.SlowLogins.DEFAULT_BUFFER_SIZE);
+        if (bufferSize <= 0 || bufferSize > Integer.MAX_VALUE) {
+            log.warn("Invalid slow login buffer size: " + bufferSize + " is configured. Hence using the default " +
+                    "buffer size: " + OIDCAuthenticatorConstants.SlowLogins.DEFAULT_BUFFER_SIZE);
+            bufferSize = OIDCAuthenticatorConstants.SlowLogins.DEFAULT_BUFFER_SIZE;
+        }
+        SlowLoginRecorder.getInstance().configure(threshold, (int) bufferSize);
+        SlowLoginRecorder.getInstance().setEnabled(OIDCAuthenticatorConfigUtil.getBooleanParameter(
+                OIDCAuthenticatorConstants.SlowLogins.ENABLE, false));
+    }
+
+    private void configureTrafficRecorder() {
+
+        long bufferSize = OIDCAuthenticatorConfigUtil.getLongParameter(
+                OIDCAuthenticatorConstants.TrafficCapture.BUFFER_SIZE,
+                OIDCAuthenticatorConstants.TrafficCapture.DEFAULT_BUFFER_SIZE);
+        if (bufferSize <= 0 || bufferSize > Integer.MAX_VALUE) {
+            log.warn("Invalid traffic capture buffer size: " + bufferSize + " is configured. Hence using the " +
+                    "default buffer size: " + OIDCAuthenticatorConstants.TrafficCapture.DEFAULT_BUFFER_SIZE);
+            bufferSize = OIDCAuthenticatorConstants.TrafficCapture.DEFAULT_BUFFER_SIZE;
+        }
+        TrafficRecorder.getInstance().configure(OIDCAuthenticatorConfigUtil.getBooleanParameter(
+                OIDCAuthenticatorConstants.TrafficCapture.ENABLE, false), (int) bufferSize);
+    }
+
+    private void registerMBean(Object mBean, String objectName) {
+
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(objectName);
+            if (!mBeanServer.isRegistered(name)) {
+                mBeanServer.registerMBean(mBean, name);
+            }
+        } catch (JMException e) {
+            log.error("Error while registering the MBean: " + objectName, e);
+        }
+    }
+
+    private void unregisterMBean(String objectName) {
+
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(objectName);
+            if (mBeanServer.isRegistered(name)) {
+                mBeanServer.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            log.error("Error while unregistering the MBean: " + objectName, e);
+        }
+    }
 }
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.wso2.carbon.identity.application.authenticator.oidc.metrics.AuthenticatorPhase;
+
+/**
+ * JFR event types of the authenticator phases. The events can be enabled, disabled and thresholded per event name in
+ * the JFR settings, e.g. with
+ * {@code jfr configure +org.wso2.carbon.identity.application.authenticator.oidc.TokenExchange#threshold=100ms}.
+ * This class is only loaded if JFR is available.
+ */
+final class JfrPhaseEvents {
+
+    private static final String EVENT_NAME_PREFIX = "org.wso2.carbon.identity.application.authenticator.oidc.";
+    private static final String SUCCESS = "SUCCESS";
+    private static final String FAILED = "FAILED";
+
+    private JfrPhaseEvents() {
+
+    }
+
+    static PhaseEvent begin(AuthenticatorPhase phase) {
+
+        OIDCPhaseEvent event;
+        switch (phase) {
+            case PREPARE_LOGIN_PAGE:
+                event = new AuthorizationRedirectEvent();
+                break;
+            case REQUEST_ACCESS_TOKEN:
+                event = new TokenExchangeEvent();
+                break;
+            case SEND_REQUEST:
+                event = new UserInfoFetchEvent();
+                break;
+            case GET_ID_TOKEN_CLAIMS:
+                event = new IdTokenValidationEvent();
+                break;
+            case BUILD_CLAIM_MAPPINGS:
+                event = new ClaimMappingEvent();
+                break;
+            case LOGOUT_TOKEN_VALIDATION:
+                event = new LogoutTokenValidationEvent();
+                break;
+            case LOGOUT_SESSION_TERMINATION:
+                event = new LogoutSessionTerminationEvent();
+                break;
+            default:
+                return null;
+        }
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    @Category({"WSO2", "OIDC Authenticator"})
+    @StackTrace(false)
+    abstract static class OIDCPhaseEvent extends Event implements PhaseEvent {
+
+        @Label("IdP")
+        String idpName;
+
+        @Label("Tenant")
+        String tenantDomain;
+
+        @Label("Size")
+        @DataAmount
+        long bytes;
+
+        @Label("Outcome")
+        String outcome;
+
+        @Override
+        public void complete(String idpName, String tenantDomain, long bytes, boolean succeeded) {
+
+            end();
+            if (shouldCommit()) {
+                this.idpName = idpName;
+                this.tenantDomain = tenantDomain;
+                this.bytes = bytes;
+                this.outcome = succeeded ? SUCCESS : FAILED;
+                commit();
+            }
+        }
+    }
+
+    @Name(EVENT_NAME_PREFIX + "AuthorizationRedirect")
+    @Label("OIDC Authorization Redirect")
+    @Description("Building the authorization request redirect to the federated IdP.")
+    static class AuthorizationRedirectEvent extends OIDCPhaseEvent {
+
+    }
+
+    @Name(EVENT_NAME_PREFIX + "TokenExchange")
+    @Label("OIDC Token Exchange")
+    @Description("Exchanging the authorization code for tokens at the token endpoint of the federated IdP.")
+    static class TokenExchangeEvent extends OIDCPhaseEvent {
+
+    }
+
+    @Name(EVENT_NAME_PREFIX + "UserInfoFetch")
+    @Label("OIDC User Info Fetch")
+    @Description("Fetching the user claims from the user info endpoint of the federated IdP.")
+    static class UserInfoFetchEvent extends OIDCPhaseEvent {
+
+    }
+
+    @Name(EVENT_NAME_PREFIX + "IdTokenValidation")
+    @Label("OIDC ID Token Decode and Validation")
+    @Description("Decoding the ID token returned by the federated IdP.")
+    static class IdTokenValidationEvent extends OIDCPhaseEvent {
+
+    }
+
+    @Name(EVENT_NAME_PREFIX + "ClaimMapping")
+    @Label("OIDC Claim Mapping")
+    @Description("Mapping the ID token claims to the claims of the authenticated user.")
+    static class ClaimMappingEvent extends OIDCPhaseEvent {
+
+    }
+
+    @Name(EVENT_NAME_PREFIX + "LogoutTokenValidation")
+    @Label("OIDC Back-Channel Logout Validation")
+    @Description("Validating the logout token of a back-channel logout request.")
+    static class LogoutTokenValidationEvent extends OIDCPhaseEvent {
+
+    }
+
+    @Name(EVENT_NAME_PREFIX + "LogoutSessionTermination")
+    @Label("OIDC Back-Channel Session Termination")
+    @Description("Terminating the sessions of a back-channel logout request.")
+    static class LogoutSessionTerminationEvent extends OIDCPhaseEvent {
+
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.jfr;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.application.authenticator.oidc.metrics.AuthenticatorPhase;
+
+/**
+ * Entry point to the Java Flight Recorder events of the authenticator. The JFR API is only touched if it is
+ * available to the bundle, otherwise no events are created.
+ * <p>
+ * The bundle imports jdk.jfr optionally, hence the import is only wired if the OSGi framework exports the package.
+ * Add jdk.jfr to the org.osgi.framework.system.packages.extra property, or to the org.osgi.framework.bootdelegation
+ * property, of the framework launch configuration to enable the events.
+ */
+public class OIDCFlightRecorder {
+
+    private static final Log LOG = LogFactory.getLog(OIDCFlightRecorder.class);
+    private static final boolean JFR_AVAILABLE = isJfrAvailable();
+
+    private OIDCFlightRecorder() {
+
+    }
+
+    /**
+     * Begin the flight recorder event of the given phase.
+     *
+     * @param phase Authenticator phase.
+     * @return Begun event or null if the phase has no event, JFR is not available or the event is disabled.
+     */
+    public static PhaseEvent begin(AuthenticatorPhase phase) {
+
+        if (!JFR_AVAILABLE) {
+            return null;
+        }
+        return JfrPhaseEvents.begin(phase);
+    }
+
+    private static boolean isJfrAvailable() {
+
+        try {
+            Class.forName("jdk.jfr.Event", false, OIDCFlightRecorder.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            if (isJfrInJvm()) {
+                LOG.info("JFR is available in the JVM but the jdk.jfr package is not exported to the bundle. " +
+                        "Authenticator flight recorder events are disabled. Add jdk.jfr to the " +
+                        "org.osgi.framework.system.packages.extra property to enable them.");
+            } else if (LOG.isDebugEnabled()) {
+                LOG.debug("JFR is not available. Authenticator flight recorder events are disabled.");
+            }
+            return false;
+        }
+    }
+
+    private static boolean isJfrInJvm() {
+
+        try {
+            Class.forName("jdk.jfr.Event", false, ClassLoader.getSystemClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError | SecurityException e) {
+            return false;
+        }
+    }
+}
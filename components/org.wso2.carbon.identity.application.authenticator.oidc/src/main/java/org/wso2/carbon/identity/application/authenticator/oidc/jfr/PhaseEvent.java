@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.jfr;
+
+/**
+ * Flight recorder event of an authenticator phase. This interface does not depend on the JFR API, hence it can be
+ * referenced on JVMs without JFR.
+ */
+public interface PhaseEvent {
+
+    /**
+     * End the event and commit it if it matches the recording settings.
+     *
+     * @param idpName      Name of the IdP.
+     * @param tenantDomain Tenant domain of the request.
+     * @param bytes        Byte size handled in the phase.
+     * @param succeeded    Whether the phase succeeded.
+     */
+    void complete(String idpName, String tenantDomain, long bytes, boolean succeeded);
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.listener;
+
+import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.cache.FederatedUserIdCache;
+import org.wso2.carbon.identity.core.AbstractIdentityUserOperationEventListener;
+import org.wso2.carbon.identity.core.util.IdentityCoreConstants;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.user.core.UserStoreException;
+import org.wso2.carbon.user.core.UserStoreManager;
+import org.wso2.carbon.user.core.common.AbstractUserStoreManager;
+
+/**
+ * Invalidates the cached federated user ids of a deleted user, hence a later logout does not resolve the sub claim
+ * to the user id of the deleted user.
+ */
+public class FederatedUserIdCacheListener extends AbstractIdentityUserOperationEventListener {
+
+    private static final int DEFAULT_EXECUTION_ORDER_ID = 120;
+    private static final String DELETED_USER_ID = "FederatedUserIdCacheListener.DeletedUserId";
+
+    @Override
+    public int getExecutionOrderId() {
+
+        int orderId = getOrderId();
+        if (orderId != IdentityCoreConstants.EVENT_LISTENER_ORDER_ID) {
+            return orderId;
+        }
+        return DEFAULT_EXECUTION_ORDER_ID;
+    }
+
+    @Override
+    public boolean doPostDeleteUserWithID(String userID, UserStoreManager userStoreManager)
+            throws UserStoreException {
+
+        if (isEnable()) {
+            FederatedUserIdCache.getInstance().invalidateUserId(userID);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean doPreDeleteUser(String userName, UserStoreManager userStoreManager) throws UserStoreException {
+
+        // The user id can not be resolved once the user is deleted.
+        if (isEnable() && FederatedUserIdCache.getInstance().isEnabled() &&
+                userStoreManager instanceof AbstractUserStoreManager) {
+            String userId = ((AbstractUserStoreManager) userStoreManager).getUserIDFromUserName(userName);
+            if (userId != null) {
+                IdentityUtil.threadLocalProperties.get().put(DELETED_USER_ID, userId);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean doPostDeleteUser(String userName, UserStoreManager userStoreManager) throws UserStoreException {
+
+        Object userId = IdentityUtil.threadLocalProperties.get().remove(DELETED_USER_ID);
+        if (isEnable() && userId != null) {
+            FederatedUserIdCache.getInstance().invalidateUserId((String) userId);
+        }
+        return true;
+    }
+}
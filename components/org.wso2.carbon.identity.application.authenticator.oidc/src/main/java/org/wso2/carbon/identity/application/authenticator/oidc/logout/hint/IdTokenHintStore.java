@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.logout.hint;
+
+/**
+ * Side store for the ID tokens sent as the id_token_hint of RP-initiated logout requests.
+ * When a store is in use, the session resident OIDCStateInfo only keeps a reference to the stored ID token.
+ * Custom implementations (e.g. a shared store for clustered deployments) can be registered as an OSGi service.
+ */
+public interface IdTokenHintStore {
+
+    /**
+     * Store the ID token against the given reference.
+     *
+     * @param reference Reference kept in the authenticator state.
+     * @param idToken   Raw ID token received from the federated IdP.
+     */
+    void store(String reference, String idToken);
+
+    /**
+     * Retrieve the ID token stored against the given reference.
+     *
+     * @param reference Reference kept in the authenticator state.
+     * @return ID token or null if the ID token is not available.
+     */
+    String retrieve(String reference);
+
+    /**
+     * Remove the ID token stored against the given reference.
+     *
+     * @param reference Reference kept in the authenticator state.
+     */
+    void remove(String reference);
+}
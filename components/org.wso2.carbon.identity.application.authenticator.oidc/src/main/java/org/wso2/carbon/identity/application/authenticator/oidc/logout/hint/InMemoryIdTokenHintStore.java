@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.logout.hint;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Node local, bounded ID token hint store. The least recently used entries are evicted once the store is full and
+ * the entries expire after the configured time to live. A miss only drops the id_token_hint from the logout request,
+ * hence this store is also usable in clustered deployments without sticky logout requests.
+ */
+public class InMemoryIdTokenHintStore implements IdTokenHintStore {
+
+    private final int maxEntries;
+    private final long timeToLiveMillis;
+    private final Map<String, Entry> entries;
+
+    /**
+     * Create an in-memory ID token hint store.
+     *
+     * @param maxEntries       Maximum number of ID tokens kept in the store.
+     * @param timeToLiveMillis Time to live of a stored ID token in milliseconds.
+     */
+    public InMemoryIdTokenHintStore(int maxEntries, long timeToLiveMillis) {
+
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Maximum number of entries should be a positive value.");
+        }
+        this.maxEntries = maxEntries;
+        this.timeToLiveMillis = timeToLiveMillis;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+
+                return size() > InMemoryIdTokenHintStore.this.maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public void store(String reference, String idToken) {
+
+        if (StringUtils.isBlank(reference) || StringUtils.isBlank(idToken)) {
+            return;
+        }
+        Entry entry = new Entry(idToken, System.currentTimeMillis() + timeToLiveMillis);
+        synchronized (entries) {
+            entries.put(reference, entry);
+        }
+    }
+
+    @Override
+    public String retrieve(String reference) {
+
+        if (StringUtils.isBlank(reference)) {
+            return null;
+        }
+        synchronized (entries) {
+            Entry entry = entries.get(reference);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiryTime < System.currentTimeMillis()) {
+                entries.remove(reference);
+                return null;
+            }
+            return entry.idToken;
+        }
+    }
+
+    @Override
+    public void remove(String reference) {
+
+        if (StringUtils.isBlank(reference)) {
+            return;
+        }
+        synchronized (entries) {
+            entries.remove(reference);
+        }
+    }
+
+    /**
+     * Get the number of ID tokens kept in the store.
+     *
+     * @return Number of entries.
+     */
+    public int size() {
+
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static class Entry {
+
+        private final String idToken;
+        private final long expiryTime;
+
+        private Entry(String idToken, long expiryTime) {
+
+            this.idToken = idToken;
+            this.expiryTime = expiryTime;
+        }
+    }
+}
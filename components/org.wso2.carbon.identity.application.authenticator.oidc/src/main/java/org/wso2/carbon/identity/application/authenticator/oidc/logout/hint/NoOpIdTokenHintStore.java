@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.logout.hint;
+
+/**
+ * ID token hint store which does not keep the ID tokens. Only the sid and iss of the ID token are kept in the
+ * authenticator state and the logout requests are sent with the client_id instead of the id_token_hint.
+ */
+public class NoOpIdTokenHintStore implements IdTokenHintStore {
+
+    @Override
+    public void store(String reference, String idToken) {
+
+    }
+
+    @Override
+    public String retrieve(String reference) {
+
+        return null;
+    }
+
+    @Override
+    public void remove(String reference) {
+
+    }
+}
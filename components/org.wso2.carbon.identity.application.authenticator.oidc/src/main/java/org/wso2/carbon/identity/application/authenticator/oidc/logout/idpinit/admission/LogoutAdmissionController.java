@@ -0,0 +1,370 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.admission;
+
+import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.exception.LogoutRejectedException;
+import org.wso2.carbon.identity.application.authenticator.oidc.util.OIDCErrorConstants.ErrorMessages;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Admission control of the back-channel logout requests. The number of logout requests processed concurrently is
+ * capped and the requests of an IdP are rate limited with a token bucket, hence a misbehaving or compromised IdP
+ * cannot exhaust the server by flooding the logout endpoint. A request is admitted to the concurrency cap once the
+ * logout token is parsed, before the IdP lookup and the signature verification, hence a rejected request costs
+ * neither. A request is only charged to the rate limit of the IdP resolved for the tenant once the signature of the
+ * logout token is verified, hence unsigned or forged tokens carrying the issuer of an IdP cannot use up the rate
+ * limit of that IdP. The rate limit is checked without charging it before the verification, hence the requests of
+ * an IdP whose rate limit is used up do not cost a signature verification either. The number of tracked IdPs is
+ * bounded and the IdPs beyond the bound share a single bucket. A rejected request is answered with 429 or 503 along
+ * with a Retry-After time.
+ */
+public class LogoutAdmissionController implements LogoutAdmissionControllerMBean {
+
+    public static final String OBJECT_NAME =
+            "org.wso2.carbon.identity.application.authenticator.oidc:type=LogoutAdmissionController";
+
+    // HttpServletResponse of the servlet API in use does not define the status code of too many requests.
+    private static final int SC_TOO_MANY_REQUESTS = 429;
+    private static final char KEY_SEPARATOR = '\u0000';
+    private static final long BUSY_RETRY_AFTER_SECONDS = 1;
+    private static final long IDLE_SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final Permit NO_OP_PERMIT = new Permit(null);
+
+    private static final LogoutAdmissionController instance = new LogoutAdmissionController();
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong lastIdleSweep = new AtomicLong(System.nanoTime());
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder concurrencyRejected = new LongAdder();
+    private volatile boolean enabled;
+    private volatile double issuerRate;
+    private volatile int issuerBurst;
+    private volatile int maxConcurrency;
+    private volatile int maxTrackedIssuers;
+    private volatile Semaphore concurrencyLimit;
+    private volatile TokenBucket overflowBucket;
+
+    LogoutAdmissionController() {
+
+    }
+
+    public static LogoutAdmissionController getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Configure the admission control. The rate limits of the issuers are reset.
+     *
+     * @param enabled           Whether the logout requests are subjected to admission control.
+     * @param issuerRate        Number of logout requests admitted per second for an IdP.
+     * @param issuerBurst       Maximum number of logout requests of an IdP admitted at once.
+     * @param maxConcurrency    Maximum number of logout requests processed concurrently.
+     * @param maxTrackedIssuers Maximum number of IdPs rate limited individually.
+     */
+    public void configure(boolean enabled, double issuerRate, int issuerBurst, int maxConcurrency,
+                          int maxTrackedIssuers) {
+
+        if (issuerRate <= 0 || issuerBurst <= 0 || maxConcurrency <= 0 || maxTrackedIssuers <= 0) {
+            throw new IllegalArgumentException("Rate, burst, concurrency and tracked issuers should be positive " +
+                    "values.");
+        }
+        this.enabled = false;
+        this.issuerRate = issuerRate;
+        this.issuerBurst = issuerBurst;
+        this.maxConcurrency = maxConcurrency;
+        this.maxTrackedIssuers = maxTrackedIssuers;
+        // The permits of the in-flight requests are released to the semaphore they were acquired from.
+        this.concurrencyLimit = new Semaphore(maxConcurrency);
+        this.overflowBucket = new TokenBucket(issuerRate, issuerBurst);
+        buckets.clear();
+        this.enabled = enabled;
+    }
+
+    /**
+     * Admit a logout request to the concurrency cap. The returned permit should be closed once the request is
+     * processed.
+     *
+     * @return Permit of the admitted request.
+     * @throws LogoutRejectedException If the request is not admitted.
+     */
+    public Permit admit() throws LogoutRejectedException {
+
+        if (!enabled) {
+            return NO_OP_PERMIT;
+        }
+        Semaphore semaphore = concurrencyLimit;
+        if (!semaphore.tryAcquire()) {
+            concurrencyRejected.increment();
+            throw new LogoutRejectedException(ErrorMessages.LOGOUT_SERVER_BUSY.getCode(),
+                    ErrorMessages.LOGOUT_SERVER_BUSY.getMessage(), HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+                    BUSY_RETRY_AFTER_SECONDS);
+        }
+        admitted.increment();
+        return new Permit(semaphore);
+    }
+
+    /**
+     * Check the rate limit of an IdP without charging it. Should be called before the signature of the logout token
+     * is verified.
+     *
+     * @param tenantDomain Tenant domain of the logout request.
+     * @param idpName      Name of the IdP resolved for the tenant.
+     * @throws LogoutRejectedException If the rate limit of the IdP is used up.
+     */
+    public void check(String tenantDomain, String idpName) throws LogoutRejectedException {
+
+        if (!enabled) {
+            return;
+        }
+        TokenBucket bucket = buckets.get(getKey(tenantDomain, idpName));
+        if (bucket == null) {
+            if (buckets.size() < maxTrackedIssuers) {
+                // A new bucket is full, hence the request would not be rate limited.
+                return;
+            }
+            bucket = overflowBucket;
+        }
+        long waitNanos = bucket.getWaitNanos(System.nanoTime());
+        if (waitNanos > 0) {
+            throw handleRateLimited(waitNanos);
+        }
+    }
+
+    /**
+     * Charge a logout request to the rate limit of an IdP. Should only be called once the signature of the logout
+     * token is verified.
+     *
+     * @param tenantDomain Tenant domain of the logout request.
+     * @param idpName      Name of the IdP resolved for the tenant.
+     * @throws LogoutRejectedException If the rate limit of the IdP is exceeded.
+     */
+    public void charge(String tenantDomain, String idpName) throws LogoutRejectedException {
+
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        long waitNanos = getBucket(tenantDomain, idpName, now).tryAcquire(now);
+        if (waitNanos > 0) {
+            throw handleRateLimited(waitNanos);
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+
+        return enabled;
+    }
+
+    @Override
+    public double getIssuerRate() {
+
+        return issuerRate;
+    }
+
+    @Override
+    public int getIssuerBurst() {
+
+        return issuerBurst;
+    }
+
+    @Override
+    public int getMaxConcurrency() {
+
+        return maxConcurrency;
+    }
+
+    @Override
+    public int getInFlightCount() {
+
+        Semaphore semaphore = concurrencyLimit;
+        return semaphore == null ? 0 : maxConcurrency - semaphore.availablePermits();
+    }
+
+    @Override
+    public int getTrackedIssuerCount() {
+
+        return buckets.size();
+    }
+
+    @Override
+    public long getAdmittedCount() {
+
+        return admitted.sum();
+    }
+
+    @Override
+    public long getRateLimitedCount() {
+
+        return rateLimited.sum();
+    }
+
+    @Override
+    public long getConcurrencyRejectedCount() {
+
+        return concurrencyRejected.sum();
+    }
+
+    private LogoutRejectedException handleRateLimited(long waitNanos) {
+
+        rateLimited.increment();
+        return new LogoutRejectedException(ErrorMessages.LOGOUT_RATE_LIMITED.getCode(),
+                ErrorMessages.LOGOUT_RATE_LIMITED.getMessage(), SC_TOO_MANY_REQUESTS,
+                Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1)));
+    }
+
+    private static String getKey(String tenantDomain, String idpName) {
+
+        return tenantDomain + KEY_SEPARATOR + idpName;
+    }
+
+    private TokenBucket getBucket(String tenantDomain, String idpName, long now) {
+
+        String key = getKey(tenantDomain, idpName);
+        TokenBucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxTrackedIssuers) {
+            evictIdleBuckets(now);
+            if (buckets.size() >= maxTrackedIssuers) {
+                return overflowBucket;
+            }
+        }
+        return buckets.computeIfAbsent(key, k -> new TokenBucket(issuerRate, issuerBurst));
+    }
+
+    /**
+     * Remove the buckets which are full again, since such a bucket admits the same requests as a new bucket. The
+     * buckets are swept at most once per second.
+     */
+    private void evictIdleBuckets(long now) {
+
+        long lastSweep = lastIdleSweep.get();
+        if (now - lastSweep < IDLE_SWEEP_INTERVAL_NANOS || !lastIdleSweep.compareAndSet(lastSweep, now)) {
+            return;
+        }
+        Iterator<TokenBucket> iterator = buckets.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().isFull(now)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Permit of an admitted logout request.
+     */
+    public static final class Permit implements AutoCloseable {
+
+        private final Semaphore semaphore;
+        private boolean released;
+
+        private Permit(Semaphore semaphore) {
+
+            this.semaphore = semaphore;
+        }
+
+        /**
+         * Release the permit. Releasing a permit more than once has no effect.
+         */
+        @Override
+        public void close() {
+
+            if (semaphore != null && !released) {
+                released = true;
+                semaphore.release();
+            }
+        }
+    }
+
+    /**
+     * Token bucket refilled at a constant rate, up to the burst size.
+     */
+    static final class TokenBucket {
+
+        private final double tokensPerNano;
+        private final double capacity;
+        private double tokens;
+        private long lastRefill;
+
+        TokenBucket(double tokensPerSecond, int capacity) {
+
+            this.tokensPerNano = tokensPerSecond / TimeUnit.SECONDS.toNanos(1);
+            this.capacity = capacity;
+            this.tokens = capacity;
+            this.lastRefill = System.nanoTime();
+        }
+
+        /**
+         * Take a token from the bucket.
+         *
+         * @param now Current time in nanoseconds.
+         * @return 0 if a token is taken, otherwise the time in nanoseconds until a token is available.
+         */
+        synchronized long tryAcquire(long now) {
+
+            long waitNanos = getWaitNanos(now);
+            if (waitNanos == 0) {
+                tokens -= 1;
+            }
+            return waitNanos;
+        }
+
+        /**
+         * Get the time until a token is available, without taking it.
+         *
+         * @param now Current time in nanoseconds.
+         * @return 0 if a token is available, otherwise the time in nanoseconds until a token is available.
+         */
+        synchronized long getWaitNanos(long now) {
+
+            refill(now);
+            if (tokens >= 1) {
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) / tokensPerNano);
+        }
+
+        synchronized boolean isFull(long now) {
+
+            refill(now);
+            return tokens >= capacity;
+        }
+
+        private void refill(long now) {
+
+            if (now > lastRefill) {
+                tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+                lastRefill = now;
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.admission;
+
+/**
+ * JMX interface of the admission control of the back-channel logout requests.
+ */
+public interface LogoutAdmissionControllerMBean {
+
+    boolean isEnabled();
+
+    /**
+     * Get the number of logout requests admitted per second for an IdP.
+     *
+     * @return Requests per second.
+     */
+    double getIssuerRate();
+
+    int getIssuerBurst();
+
+    int getMaxConcurrency();
+
+    int getInFlightCount();
+
+    int getTrackedIssuerCount();
+
+    long getAdmittedCount();
+
+    long getRateLimitedCount();
+
+    long getConcurrencyRejectedCount();
+}
@@ -0,0 +1,397 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.async;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.exception.LogoutClientException;
+import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.exception.LogoutException;
+import org.wso2.carbon.identity.application.authenticator.oidc.metrics.SLOTracker;
+import org.wso2.carbon.identity.application.authenticator.oidc.metrics.TrafficRecorder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Terminates the sessions of validated back-channel logout tokens after the logout requests are acknowledged, hence
+ * bursts of logout requests do not run into the timeouts of the IdPs. The accepted tasks are recorded in a durable
+ * journal and processed by a bounded worker pool. Tasks failing with a server error are retried with an exponential
+ * backoff. Tasks which are pending when the executor is stopped are resumed from the journal at the next start.
+ * The outcome of a task is recorded to the {@link SLOTracker} and the {@link TrafficRecorder} once the sessions are
+ * terminated or the task fails, rather than when the logout request is acknowledged.
+ */
+public class AsyncLogoutExecutor implements AsyncLogoutExecutorMBean {
+
+    public static final String OBJECT_NAME =
+            "org.wso2.carbon.identity.application.authenticator.oidc:type=AsyncLogoutExecutor";
+
+    private static final Log LOG = LogFactory.getLog(AsyncLogoutExecutor.class);
+    private static final long MAX_RETRY_BACKOFF_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private static volatile AsyncLogoutExecutor instance;
+
+    private final ThreadPoolExecutor workers;
+    private final ScheduledExecutorService retryScheduler;
+    private final int queueCapacity;
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+    private final LogoutTaskJournal journal;
+    private final LogoutTaskHandler handler;
+    private final AtomicInteger scheduledRetries = new AtomicInteger();
+    private final LongAdder acceptedTasks = new LongAdder();
+    private final LongAdder completedTasks = new LongAdder();
+    private final LongAdder retriedTasks = new LongAdder();
+    private final LongAdder failedTasks = new LongAdder();
+    private final LongAdder rejectedTasks = new LongAdder();
+    private volatile boolean running = true;
+
+    /**
+     * Create an executor. The tasks pending in the journal are resumed.
+     *
+     * @param workerThreads      Number of worker threads.
+     * @param queueCapacity      Maximum number of tasks waiting for a worker.
+     * @param maxAttempts        Maximum number of attempts of a task.
+     * @param retryBackoffMillis Delay before the first retry of a task, doubled for every further retry.
+     * @param journal            Journal of the accepted tasks.
+     * @param handler            Handler which terminates the sessions of a task.
+     * @throws IOException If the journal could not be opened.
+     */
+    public AsyncLogoutExecutor(int workerThreads, int queueCapacity, int maxAttempts, long retryBackoffMillis,
+                               LogoutTaskJournal journal, LogoutTaskHandler handler) throws IOException {
+
+        if (workerThreads <= 0 || queueCapacity <= 0 || maxAttempts <= 0) {
+            throw new IllegalArgumentException("Worker threads, queue capacity and max attempts should be positive " +
+                    "values.");
+        }
+        this.queueCapacity = queueCapacity;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoffMillis = Math.max(retryBackoffMillis, 0);
+        this.journal = journal;
+        this.handler = handler;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerThreads, workerThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "oidc-backchannel-logout-worker-" +
+                            threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "oidc-backchannel-logout-retry-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<LogoutTask> pendingTasks = journal.open();
+        if (!pendingTasks.isEmpty()) {
+            LOG.info("Resuming " + pendingTasks.size() + " pending back-channel logout tasks.");
+        }
+        for (LogoutTask logoutTask : pendingTasks) {
+            execute(logoutTask);
+        }
+    }
+
+    /**
+     * Start the executor used for the back-channel logouts of the authenticator.
+     *
+     * @param workerThreads      Number of worker threads.
+     * @param queueCapacity      Maximum number of tasks waiting for a worker.
+     * @param maxAttempts        Maximum number of attempts of a task.
+     * @param retryBackoffMillis Delay before the first retry of a task.
+     * @param journal            Journal of the accepted tasks.
+     * @param handler            Handler which terminates the sessions of a task.
+     * @throws IOException If the journal could not be opened.
+     */
+    public static synchronized void start(int workerThreads, int queueCapacity, int maxAttempts,
+                                          long retryBackoffMillis, LogoutTaskJournal journal,
+                                          LogoutTaskHandler handler) throws IOException {
+
+        if (instance == null) {
+            instance = new AsyncLogoutExecutor(workerThreads, queueCapacity, maxAttempts, retryBackoffMillis, journal,
+                    handler);
+        }
+    }
+
+    /**
+     * Stop the executor used for the back-channel logouts of the authenticator, after draining the queued tasks.
+     *
+     * @param drainTimeoutMillis Maximum time to wait for the queued tasks.
+     */
+    public static synchronized void stop(long drainTimeoutMillis) {
+
+        if (instance != null) {
+            instance.shutdown(drainTimeoutMillis);
+            instance = null;
+        }
+    }
+
+    /**
+     * Get the executor used for the back-channel logouts of the authenticator.
+     *
+     * @return Executor or null if the sessions are terminated synchronously.
+     */
+    public static AsyncLogoutExecutor getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Accept a task. The task is recorded in the journal before it is queued, hence the logout request can be
+     * acknowledged once the task is accepted.
+     *
+     * @param logoutTask Logout task.
+     * @return True if the task is accepted, false if the sessions should be terminated synchronously.
+     */
+    public boolean submit(LogoutTask logoutTask) {
+
+        if (!running || workers.getQueue().remainingCapacity() == 0) {
+            rejectedTasks.increment();
+            return false;
+        }
+        try {
+            journal.accepted(logoutTask);
+        } catch (IOException e) {
+            LOG.error("Error while recording the back-channel logout task: " + logoutTask.getId() +
+                    ". Hence the sessions are terminated synchronously.", e);
+            rejectedTasks.increment();
+            return false;
+        }
+        try {
+            workers.execute(() -> run(logoutTask));
+        } catch (RejectedExecutionException e) {
+            // The queue was filled concurrently. The caller terminates the sessions instead.
+            finish(logoutTask);
+            rejectedTasks.increment();
+            return false;
+        }
+        acceptedTasks.increment();
+        return true;
+    }
+
+    /**
+     * Stop accepting tasks and wait for the workers to process the queued tasks. The tasks which are scheduled for a
+     * retry or not processed within the timeout are kept in the journal.
+     *
+     * @param drainTimeoutMillis Maximum time to wait for the queued tasks.
+     */
+    public void shutdown(long drainTimeoutMillis) {
+
+        running = false;
+        retryScheduler.shutdownNow();
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(drainTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            LOG.error("Error while closing the back-channel logout journal.", e);
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Back-channel logout executor stopped. Completed tasks: " + getCompletedCount() +
+                    ", failed tasks: " + getFailedCount() + ", pending tasks: " + getPendingCount());
+        }
+    }
+
+    @Override
+    public int getQueueDepth() {
+
+        return workers.getQueue().size();
+    }
+
+    @Override
+    public int getQueueCapacity() {
+
+        return queueCapacity;
+    }
+
+    @Override
+    public int getActiveCount() {
+
+        return workers.getActiveCount();
+    }
+
+    @Override
+    public int getScheduledRetryCount() {
+
+        return scheduledRetries.get();
+    }
+
+    @Override
+    public int getPendingCount() {
+
+        return journal.getPendingCount();
+    }
+
+    @Override
+    public long getAcceptedCount() {
+
+        return acceptedTasks.sum();
+    }
+
+    @Override
+    public long getCompletedCount() {
+
+        return completedTasks.sum();
+    }
+
+    @Override
+    public long getRetriedCount() {
+
+        return retriedTasks.sum();
+    }
+
+    @Override
+    public long getFailedCount() {
+
+        return failedTasks.sum();
+    }
+
+    @Override
+    public long getRejectedCount() {
+
+        return rejectedTasks.sum();
+    }
+
+    /**
+     * Queue a task which is already in the journal, i.e. a resumed task or a retry. The task is retried later if the
+     * queue is full.
+     */
+    private void execute(LogoutTask logoutTask) {
+
+        try {
+            workers.execute(() -> run(logoutTask));
+        } catch (RejectedExecutionException e) {
+            scheduleRetry(logoutTask);
+        }
+    }
+
+    private void run(LogoutTask logoutTask) {
+
+        try {
+            PrivilegedCarbonContext.startTenantFlow();
+            if (logoutTask.getTenantDomain() != null) {
+                PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(logoutTask.getTenantDomain(),
+                        true);
+            }
+            handler.handle(logoutTask);
+            completedTasks.increment();
+            recordOutcome(logoutTask, null);
+            finish(logoutTask);
+        } catch (LogoutClientException e) {
+            // Retrying does not help with client errors.
+            fail(logoutTask, e);
+        } catch (LogoutException | RuntimeException e) {
+            if (logoutTask.getAttempt() + 1 < maxAttempts) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Attempt " + (logoutTask.getAttempt() + 1) + " of the back-channel logout task: " +
+                            logoutTask.getId() + " failed. Hence retrying the task.", e);
+                }
+                LogoutTask nextAttempt = logoutTask.nextAttempt();
+                retried(nextAttempt);
+                scheduleRetry(nextAttempt);
+            } else if (running) {
+                fail(logoutTask, e);
+            }
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
+    private void scheduleRetry(LogoutTask logoutTask) {
+
+        if (!running) {
+            // The task is kept in the journal and resumed at the next start.
+            return;
+        }
+        long delay = Math.min(retryBackoffMillis << Math.min(Math.max(logoutTask.getAttempt() - 1, 0), 20),
+                MAX_RETRY_BACKOFF_MILLIS);
+        scheduledRetries.incrementAndGet();
+        try {
+            retryScheduler.schedule(() -> {
+                scheduledRetries.decrementAndGet();
+                retriedTasks.increment();
+                execute(logoutTask);
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // The executor is stopping. The task is kept in the journal and resumed at the next start.
+            scheduledRetries.decrementAndGet();
+        }
+    }
+
+    private void fail(LogoutTask logoutTask, Exception e) {
+
+        failedTasks.increment();
+        LOG.error("Back-channel logout task: " + logoutTask.getId() + " of the IdP: " + logoutTask.getIdpName() +
+                " failed after " + (logoutTask.getAttempt() + 1) + " attempts.", e);
+        recordOutcome(logoutTask, e);
+        finish(logoutTask);
+    }
+
+    /**
+     * Record the outcome of a task against the logout request it was accepted for.
+     *
+     * @param logoutTask Logout task.
+     * @param failure    Failure of the task, or null if the sessions are terminated.
+     */
+    private void recordOutcome(LogoutTask logoutTask, Exception failure) {
+
+        String errorCode = failure instanceof LogoutException ? ((LogoutException) failure).getErrorCode() : null;
+        if (failure == null) {
+            SLOTracker.getInstance().recordSuccess(logoutTask.getTenantDomain(), logoutTask.getIdpName(),
+                    SLOTracker.Flow.BACK_CHANNEL_LOGOUT, logoutTask.getStartNanos());
+        } else {
+            SLOTracker.getInstance().recordFailure(logoutTask.getTenantDomain(), logoutTask.getIdpName(),
+                    SLOTracker.Flow.BACK_CHANNEL_LOGOUT, errorCode, logoutTask.getStartNanos());
+        }
+        TrafficRecorder.getInstance().end(logoutTask.getTrafficCapture(), logoutTask.getIdpName(), failure == null,
+                errorCode);
+    }
+
+    private void retried(LogoutTask logoutTask) {
+
+        try {
+            journal.retried(logoutTask);
+        } catch (IOException e) {
+            LOG.error("Error while recording the retried back-channel logout task: " + logoutTask.getId(), e);
+        }
+    }
+
+    private void finish(LogoutTask logoutTask) {
+
+        try {
+            journal.finished(logoutTask.getId());
+        } catch (IOException e) {
+            LOG.error("Error while recording the finished back-channel logout task: " + logoutTask.getId(), e);
+        }
+    }
+}
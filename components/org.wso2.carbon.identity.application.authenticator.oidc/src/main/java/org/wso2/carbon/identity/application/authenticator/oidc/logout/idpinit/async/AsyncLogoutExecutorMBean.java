@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.async;
+
+/**
+ * JMX interface of the asynchronous back-channel logout executor.
+ */
+public interface AsyncLogoutExecutorMBean {
+
+    /**
+     * Get the number of tasks waiting for a worker.
+     *
+     * @return Queue depth.
+     */
+    int getQueueDepth();
+
+    int getQueueCapacity();
+
+    /**
+     * Get the number of tasks being processed by the workers.
+     *
+     * @return Active task count.
+     */
+    int getActiveCount();
+
+    /**
+     * Get the number of failed tasks waiting for their next attempt.
+     *
+     * @return Scheduled retry count.
+     */
+    int getScheduledRetryCount();
+
+    /**
+     * Get the number of tasks kept in the journal, i.e. queued, active and scheduled for a retry.
+     *
+     * @return Pending task count.
+     */
+    int getPendingCount();
+
+    long getAcceptedCount();
+
+    long getCompletedCount();
+
+    long getRetriedCount();
+
+    /**
+     * Get the number of tasks which failed all their attempts.
+     *
+     * @return Failed task count.
+     */
+    long getFailedCount();
+
+    /**
+     * Get the number of tasks which were not accepted since the queue was full or the journal could not be written.
+     * The sessions of those tasks are terminated synchronously.
+     *
+     * @return Rejected task count.
+     */
+    long getRejectedCount();
+}
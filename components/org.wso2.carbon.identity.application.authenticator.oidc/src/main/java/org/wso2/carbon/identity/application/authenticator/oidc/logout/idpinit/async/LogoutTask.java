@@ -0,0 +1,254 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.async;
+
+import net.minidev.json.JSONObject;
+import net.minidev.json.JSONValue;
+import org.wso2.carbon.identity.application.authenticator.oidc.metrics.TrafficCapture;
+import org.wso2.carbon.identity.application.common.model.IdentityProvider;
+
+import java.util.UUID;
+
+/**
+ * Session termination of a validated back-channel logout token, which is done after the logout request is
+ * acknowledged. The sessions are identified either by the sid claim or by the sub claim of the logout token.
+ */
+public class LogoutTask {
+
+    private static final String ID = "id";
+    private static final String TYPE = "type";
+    private static final String TENANT_DOMAIN = "tenantDomain";
+    private static final String CLAIM_VALUE = "claimValue";
+    private static final String IDP_ID = "idpId";
+    private static final String IDP_NAME = "idpName";
+    private static final String ATTEMPT = "attempt";
+
+    /**
+     * Claim the sessions are identified by.
+     */
+    public enum Type {
+        SID,
+        SUB
+    }
+
+    private final String id;
+    private final Type type;
+    private final String tenantDomain;
+    private final String claimValue;
+    private final String idpId;
+    private final String idpName;
+    private final int attempt;
+    // The start time and the traffic capture of the logout request are not serialized.
+    private long startNanos = System.nanoTime();
+    private TrafficCapture trafficCapture;
+
+    private LogoutTask(String id, Type type, String tenantDomain, String claimValue, String idpId, String idpName,
+                       int attempt) {
+
+        this.id = id;
+        this.type = type;
+        this.tenantDomain = tenantDomain;
+        this.claimValue = claimValue;
+        this.idpId = idpId;
+        this.idpName = idpName;
+        this.attempt = attempt;
+    }
+
+    /**
+     * Create a task which terminates the sessions of a sid.
+     *
+     * @param tenantDomain Tenant domain of the logout request.
+     * @param sid          sid claim of the logout token.
+     * @param idpName      Name of the IdP which sent the logout token.
+     * @return Logout task.
+     */
+    public static LogoutTask forSid(String tenantDomain, String sid, String idpName) {
+
+        return new LogoutTask(UUID.randomUUID().toString(), Type.SID, tenantDomain, sid, null, idpName, 0);
+    }
+
+    /**
+     * Create a task which terminates all the sessions of a federated user.
+     *
+     * @param tenantDomain     Tenant domain of the logout request.
+     * @param sub              sub claim of the logout token.
+     * @param identityProvider IdP which sent the logout token.
+     * @return Logout task.
+     */
+    public static LogoutTask forSub(String tenantDomain, String sub, IdentityProvider identityProvider) {
+
+        return new LogoutTask(UUID.randomUUID().toString(), Type.SUB, tenantDomain, sub, identityProvider.getId(),
+                identityProvider.getIdentityProviderName(), 0);
+    }
+
+    /**
+     * Get the task of the next attempt, after a failed attempt.
+     *
+     * @return Logout task.
+     */
+    public LogoutTask nextAttempt() {
+
+        LogoutTask logoutTask = new LogoutTask(id, type, tenantDomain, claimValue, idpId, idpName, attempt + 1);
+        logoutTask.startNanos = startNanos;
+        logoutTask.trafficCapture = trafficCapture;
+        return logoutTask;
+    }
+
+    /**
+     * Track the outcome of the task against the logout request it was accepted for. The outcome is recorded once the
+     * sessions are terminated or the task fails.
+     *
+     * @param startNanos     Start time of the logout request, taken with {@link System#nanoTime()}.
+     * @param trafficCapture Traffic capture of the logout request, can be null.
+     */
+    public void trackRequest(long startNanos, TrafficCapture trafficCapture) {
+
+        this.startNanos = startNanos;
+        this.trafficCapture = trafficCapture;
+    }
+
+    public String getId() {
+
+        return id;
+    }
+
+    public Type getType() {
+
+        return type;
+    }
+
+    public String getTenantDomain() {
+
+        return tenantDomain;
+    }
+
+    /**
+     * Get the value of the claim the sessions are identified by.
+     *
+     * @return sid or sub claim value.
+     */
+    public String getClaimValue() {
+
+        return claimValue;
+    }
+
+    public String getIdpId() {
+
+        return idpId;
+    }
+
+    public String getIdpName() {
+
+        return idpName;
+    }
+
+    /**
+     * Get the number of failed attempts of the task.
+     *
+     * @return Attempt number, starting from 0.
+     */
+    public int getAttempt() {
+
+        return attempt;
+    }
+
+    /**
+     * Get the start time of the logout request, or the time the task was resumed from the journal.
+     *
+     * @return Start time, taken with {@link System#nanoTime()}.
+     */
+    public long getStartNanos() {
+
+        return startNanos;
+    }
+
+    /**
+     * Get the traffic capture of the logout request.
+     *
+     * @return Traffic capture or null if the traffic is not captured or the task was resumed from the journal.
+     */
+    public TrafficCapture getTrafficCapture() {
+
+        return trafficCapture;
+    }
+
+    /**
+     * Build the identity provider the sessions of a sub claim are looked up with.
+     *
+     * @return Identity provider.
+     */
+    public IdentityProvider toIdentityProvider() {
+
+        IdentityProvider identityProvider = new IdentityProvider();
+        identityProvider.setId(idpId);
+        identityProvider.setIdentityProviderName(idpName);
+        return identityProvider;
+    }
+
+    /**
+     * Serialize the task as a single line JSON object. The attempt number is serialized, hence a task resumed from
+     * the journal does not get all its attempts again.
+     *
+     * @return JSON object.
+     */
+    public String toJson() {
+
+        JSONObject json = new JSONObject();
+        json.put(ID, id);
+        json.put(TYPE, type.name());
+        json.put(TENANT_DOMAIN, tenantDomain);
+        json.put(CLAIM_VALUE, claimValue);
+        if (idpId != null) {
+            json.put(IDP_ID, idpId);
+        }
+        if (idpName != null) {
+            json.put(IDP_NAME, idpName);
+        }
+        if (attempt > 0) {
+            json.put(ATTEMPT, attempt);
+        }
+        return json.toJSONString();
+    }
+
+    /**
+     * Parse a task serialized with {@link #toJson()}.
+     *
+     * @param json JSON object.
+     * @return Logout task.
+     * @throws IllegalArgumentException If the JSON is not a serialized task.
+     */
+    public static LogoutTask fromJson(String json) {
+
+        Object parsed = JSONValue.parse(json);
+        if (!(parsed instanceof JSONObject)) {
+            throw new IllegalArgumentException("Logout task should be a JSON object.");
+        }
+        JSONObject object = (JSONObject) parsed;
+        Object id = object.get(ID);
+        Object type = object.get(TYPE);
+        Object claimValue = object.get(CLAIM_VALUE);
+        if (id == null || type == null || claimValue == null) {
+            throw new IllegalArgumentException("Logout task should have an id, a type and a claim value.");
+        }
+        Object attempt = object.get(ATTEMPT);
+        return new LogoutTask(id.toString(), Type.valueOf(type.toString()), (String) object.get(TENANT_DOMAIN),
+                claimValue.toString(), (String) object.get(IDP_ID), (String) object.get(IDP_NAME),
+                attempt instanceof Number ? Math.max(((Number) attempt).intValue(), 0) : 0);
+    }
+}
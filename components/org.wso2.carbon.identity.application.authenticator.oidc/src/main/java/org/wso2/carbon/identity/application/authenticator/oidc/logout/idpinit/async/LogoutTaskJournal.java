@@ -0,0 +1,332 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.async;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Durable local journal of the accepted logout tasks, hence the tasks which are acknowledged to the IdP survive a
+ * restart of the node. The journal is an append-only file with a line per accepted task and a line per finished
+ * task. It is compacted to the pending tasks when it is opened, whenever the number of lines written since the
+ * last compaction exceeds the given threshold and whenever no task is pending.
+ * <p>
+ * Only the accepted tasks are forced to the storage device, since a finished or retried task which is lost at a crash
+ * is merely executed again. The accepted tasks are forced in groups: the first writer waiting for its task to be
+ * forced collects the tasks written during the sync interval and forces all of them at once, while the other writers
+ * wait for it. Hence concurrent logout requests share a single force of the journal.
+ */
+public class LogoutTaskJournal implements Closeable {
+
+    private static final Log LOG = LogFactory.getLog(LogoutTaskJournal.class);
+    private static final char ACCEPTED = '+';
+    private static final char FINISHED = '-';
+
+    private final Path path;
+    private final boolean syncWrites;
+    private final int compactionThreshold;
+    private final long syncIntervalMillis;
+    private final Map<String, LogoutTask> pendingTasks = new LinkedHashMap<>();
+    // Guards the group commit state. Acquired after the lock of the journal, never before it.
+    private final Object syncLock = new Object();
+    private volatile FileChannel channel;
+    private int linesSinceCompaction;
+    // Number of lines written and number of lines known to be forced to the storage device.
+    private volatile long writtenLines;
+    private long syncedLines;
+    private boolean syncing;
+
+    /**
+     * Create a journal.
+     *
+     * @param path                Journal file.
+     * @param syncWrites          Whether every write is forced to the storage device before it returns.
+     * @param compactionThreshold Number of lines written before the journal is compacted.
+     */
+    public LogoutTaskJournal(Path path, boolean syncWrites, int compactionThreshold) {
+
+        this(path, syncWrites, compactionThreshold, 0);
+    }
+
+    /**
+     * Create a journal.
+     *
+     * @param path                Journal file.
+     * @param syncWrites          Whether the accepted tasks are forced to the storage device before they return.
+     * @param compactionThreshold Number of lines written before the journal is compacted.
+     * @param syncIntervalMillis  Time to collect the accepted tasks which are forced together.
+     */
+    public LogoutTaskJournal(Path path, boolean syncWrites, int compactionThreshold, long syncIntervalMillis) {
+
+        this.path = path;
+        this.syncWrites = syncWrites;
+        this.compactionThreshold = compactionThreshold;
+        this.syncIntervalMillis = Math.max(syncIntervalMillis, 0);
+    }
+
+    /**
+     * Open the journal and get the tasks which were accepted but not finished before the journal was closed.
+     *
+     * @return Pending tasks, in the order they were accepted.
+     * @throws IOException If the journal could not be read or written.
+     */
+    public synchronized List<LogoutTask> open() throws IOException {
+
+        if (Files.exists(path)) {
+            try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    readLine(line);
+                }
+            }
+        } else if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        compact();
+        return new ArrayList<>(pendingTasks.values());
+    }
+
+    /**
+     * Record an accepted task. The task is forced to the storage device before this returns, if the writes are
+     * synced.
+     *
+     * @param logoutTask Logout task.
+     * @throws IOException If the task could not be written.
+     */
+    public void accepted(LogoutTask logoutTask) throws IOException {
+
+        long line;
+        synchronized (this) {
+            line = write(ACCEPTED + logoutTask.toJson());
+            pendingTasks.put(logoutTask.getId(), logoutTask);
+        }
+        if (!syncWrites) {
+            return;
+        }
+        try {
+            awaitSync(line);
+        } catch (IOException e) {
+            // The caller terminates the sessions instead. A task resumed from the journal is merely executed again.
+            synchronized (this) {
+                pendingTasks.remove(logoutTask.getId());
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Record a task which is retried, hence the attempts of the task are kept when it is resumed from the journal.
+     *
+     * @param logoutTask Logout task of the next attempt.
+     * @throws IOException If the task could not be written.
+     */
+    public synchronized void retried(LogoutTask logoutTask) throws IOException {
+
+        if (pendingTasks.replace(logoutTask.getId(), logoutTask) != null) {
+            write(ACCEPTED + logoutTask.toJson());
+        }
+    }
+
+    /**
+     * Record a finished task, i.e. a task which succeeded or exhausted its attempts.
+     *
+     * @param taskId Id of the task.
+     * @throws IOException If the task could not be written.
+     */
+    public synchronized void finished(String taskId) throws IOException {
+
+        if (pendingTasks.remove(taskId) == null) {
+            return;
+        }
+        if (pendingTasks.isEmpty() && channel != null) {
+            // Nothing is pending, hence the journal can simply be emptied.
+            channel.truncate(0);
+            linesSinceCompaction = 0;
+        } else if (linesSinceCompaction >= compactionThreshold) {
+            compact();
+        } else {
+            write(FINISHED + taskId);
+        }
+    }
+
+    /**
+     * Get the number of tasks which are accepted but not finished.
+     *
+     * @return Pending task count.
+     */
+    public synchronized int getPendingCount() {
+
+        return pendingTasks.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * Wait until the given line is forced to the storage device. The first waiter forces the journal on behalf of the
+     * other waiters.
+     */
+    private void awaitSync(long line) throws IOException {
+
+        while (true) {
+            synchronized (syncLock) {
+                while (syncing && syncedLines < line) {
+                    try {
+                        syncLock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted while syncing the back-channel logout journal.");
+                    }
+                }
+                if (syncedLines >= line) {
+                    return;
+                }
+                syncing = true;
+            }
+            long synced = 0;
+            try {
+                synced = sync();
+            } finally {
+                synchronized (syncLock) {
+                    syncedLines = Math.max(syncedLines, synced);
+                    syncing = false;
+                    syncLock.notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Force the journal after the sync interval.
+     *
+     * @return Number of lines forced.
+     */
+    private long sync() throws IOException {
+
+        if (syncIntervalMillis > 0) {
+            try {
+                Thread.sleep(syncIntervalMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while syncing the back-channel logout journal.");
+            }
+        }
+        long lines = writtenLines;
+        FileChannel fileChannel = channel;
+        if (fileChannel != null) {
+            try {
+                fileChannel.force(false);
+                return lines;
+            } catch (ClosedChannelException e) {
+                // The journal was compacted concurrently.
+            }
+        }
+        // The journal is being compacted, which forces the pending tasks. Hence wait for the compaction.
+        synchronized (this) {
+            if (channel == null) {
+                throw new IOException("Back-channel logout journal is not open: " + path);
+            }
+        }
+        return lines;
+    }
+
+    private void readLine(String line) {
+
+        if (line.length() < 2) {
+            return;
+        }
+        try {
+            if (line.charAt(0) == ACCEPTED) {
+                LogoutTask logoutTask = LogoutTask.fromJson(line.substring(1));
+                pendingTasks.put(logoutTask.getId(), logoutTask);
+            } else if (line.charAt(0) == FINISHED) {
+                pendingTasks.remove(line.substring(1));
+            }
+        } catch (IllegalArgumentException e) {
+            // A line may be partially written if the node stopped while writing it.
+            LOG.warn("Skipping an invalid line of the back-channel logout journal: " + path);
+        }
+    }
+
+    /**
+     * Rewrite the journal with the pending tasks only. The journal is replaced atomically, hence a failure while
+     * compacting keeps the previous journal.
+     */
+    private void compact() throws IOException {
+
+        close();
+        Path compactedPath = path.resolveSibling(path.getFileName() + ".compact");
+        try (FileChannel compacted = FileChannel.open(compactedPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (LogoutTask logoutTask : pendingTasks.values()) {
+                writeFully(compacted, ACCEPTED + logoutTask.toJson());
+            }
+            compacted.force(true);
+        }
+        Files.move(compactedPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        linesSinceCompaction = 0;
+    }
+
+    /**
+     * Write a line. Called with the lock of the journal.
+     *
+     * @return Number of lines written, including this line.
+     */
+    private long write(String line) throws IOException {
+
+        if (channel == null) {
+            throw new IOException("Back-channel logout journal is not open: " + path);
+        }
+        writeFully(channel, line);
+        linesSinceCompaction++;
+        return ++writtenLines;
+    }
+
+    private static void writeFully(FileChannel fileChannel, String line) throws IOException {
+
+        ByteBuffer buffer = ByteBuffer.wrap((line + '\n').getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            fileChannel.write(buffer);
+        }
+    }
+}
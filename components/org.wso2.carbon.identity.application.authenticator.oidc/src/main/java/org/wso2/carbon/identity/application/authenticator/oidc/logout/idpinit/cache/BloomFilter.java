@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free Bloom filter of strings. A negative answer is exact while a positive answer is wrong with the expected
+ * false positive rate, as long as no more than the expected number of values are added.
+ */
+class BloomFilter {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    // The bit indexes are derived from 31-bit hashes.
+    private static final int MAX_WORDS = 1 << 25;
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private final long expectedInsertions;
+    private final LongAdder insertions = new LongAdder();
+
+    /**
+     * Create a Bloom filter sized for the given number of values and false positive rate.
+     *
+     * @param expectedInsertions Expected number of values.
+     * @param falsePositiveRate  Expected false positive rate, between 0 and 1.
+     */
+    BloomFilter(long expectedInsertions, double falsePositiveRate) {
+
+        if (expectedInsertions <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Expected insertions should be a positive value and the false " +
+                    "positive rate should be between 0 and 1.");
+        }
+        long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) /
+                (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min((optimalBits + 63) / 64, MAX_WORDS);
+        this.bits = new AtomicLongArray(Math.max(words, 1));
+        this.bitCount = (long) bits.length() * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+        this.expectedInsertions = expectedInsertions;
+    }
+
+    /**
+     * Add a value. A value which is already added is not counted again, hence values can be added repeatedly.
+     *
+     * @param value Value.
+     * @return True if a bit of the filter changed.
+     */
+    boolean add(String value) {
+
+        long hash = hash(value);
+        int hash1 = (int) hash;
+        int hash2 = (int) (hash >>> 32);
+        boolean changed = false;
+        for (int i = 1; i <= hashCount; i++) {
+            long index = bitIndex(hash1 + i * hash2);
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            long current = bits.get(word);
+            while ((current & mask) == 0) {
+                if (bits.compareAndSet(word, current, current | mask)) {
+                    changed = true;
+                    break;
+                }
+                current = bits.get(word);
+            }
+        }
+        if (changed) {
+            insertions.increment();
+        }
+        return changed;
+    }
+
+    boolean mightContain(String value) {
+
+        long hash = hash(value);
+        int hash1 = (int) hash;
+        int hash2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long index = bitIndex(hash1 + i * hash2);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the approximate number of distinct values added.
+     *
+     * @return Insertion count.
+     */
+    long getInsertions() {
+
+        return insertions.sum();
+    }
+
+    long getExpectedInsertions() {
+
+        return expectedInsertions;
+    }
+
+    long getBitCount() {
+
+        return bitCount;
+    }
+
+    int getHashCount() {
+
+        return hashCount;
+    }
+
+    /**
+     * Get the expected false positive rate for the number of values added so far.
+     *
+     * @return False positive rate.
+     */
+    double getFalsePositiveRate() {
+
+        return Math.pow(1 - Math.exp(-hashCount * (double) getInsertions() / bitCount), hashCount);
+    }
+
+    private long bitIndex(int combinedHash) {
+
+        // Flip the bits of a negative hash rather than taking the absolute value of Integer.MIN_VALUE.
+        return (combinedHash < 0 ? ~combinedHash : combinedHash) % bitCount;
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the UTF-16 chars of the value, followed by a final avalanche step.
+     */
+    private static long hash(String value) {
+
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            hash ^= c & 0xff;
+            hash *= FNV_PRIME;
+            hash ^= c >>> 8;
+            hash *= FNV_PRIME;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
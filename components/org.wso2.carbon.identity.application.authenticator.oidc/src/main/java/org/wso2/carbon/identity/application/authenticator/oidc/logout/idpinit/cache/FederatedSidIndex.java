@@ -0,0 +1,313 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.cache;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.application.authentication.framework.exception.UserSessionException;
+import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.dao.FederatedSessionMappingDAO;
+
+import java.sql.Timestamp;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Index of the federated IdP session ids (sid claims) known to the deployment, kept as a Bloom filter. IdPs broadcast
+ * back-channel logouts for sessions of other relying parties as well, hence a sid which is not in the index is
+ * answered without looking up its sessions in the database.
+ * <p>
+ * The index is loaded from the federated IdP session mappings (IDN_FED_AUTH_SESSION_MAPPING) at startup, and the
+ * sids of the logins of this node are added as their ID tokens are processed. The mappings created by the other
+ * nodes of a cluster are added by an incremental refresh, which runs periodically in the background. Logout requests
+ * never read the mappings themselves, hence a logout for a login of another node is rejected if it arrives before the
+ * next refresh, i.e. within the refresh interval of the login. Terminated sessions are not removed from the filter,
+ * which only adds false positives, and the index is rebuilt once it holds more sids than it was sized for.
+ * <p>
+ * Every sid is looked up in the database while the index is not loaded or after a refresh failed. A rebuild which
+ * reads no mapping does not load the index either, since an empty index cannot tell a deployment without federated
+ * sessions from mappings which are not visible to it, and would reject every sid.
+ */
+public class FederatedSidIndex implements FederatedSidIndexMBean {
+
+    public static final String OBJECT_NAME =
+            "org.wso2.carbon.identity.application.authenticator.oidc:type=FederatedSidIndex";
+
+    private static final Log LOG = LogFactory.getLog(FederatedSidIndex.class);
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    // Margin for the clock skew of the nodes, which set the creation time of the mappings.
+    private static final long REFRESH_OVERLAP_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private static final FederatedSidIndex instance = new FederatedSidIndex(new FederatedSessionMappingDAO());
+
+    private final FederatedSessionMappingDAO federatedSessionMappingDAO;
+    private final LongAdder rejectedSids = new LongAdder();
+    private final LongAdder passedSids = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private volatile boolean enabled;
+    private volatile BloomFilter filter;
+    // Filter being rebuilt, which receives the sids of the logins of this node as well.
+    private volatile BloomFilter rebuildingFilter;
+    private volatile long lastRefreshTime;
+    private volatile long expectedSidCount;
+    private ScheduledExecutorService refresher;
+
+    FederatedSidIndex(FederatedSessionMappingDAO federatedSessionMappingDAO) {
+
+        this.federatedSessionMappingDAO = federatedSessionMappingDAO;
+    }
+
+    public static FederatedSidIndex getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Enable the index. The index is loaded and refreshed in the background.
+     *
+     * @param expectedSidCount      Number of sids the index is sized for.
+     * @param refreshIntervalMillis Interval of the periodic incremental refresh, which bounds the time a logout for a
+     *                              login of another node may be rejected.
+     */
+    public synchronized void start(long expectedSidCount, long refreshIntervalMillis) {
+
+        if (expectedSidCount <= 0 || refreshIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Expected sid count and refresh interval should be positive values.");
+        }
+        stop();
+        this.expectedSidCount = expectedSidCount;
+        this.enabled = true;
+        refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "oidc-federated-sid-index-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(this::refreshQuietly, 0, refreshIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Disable the index and drop the loaded sids.
+     */
+    public synchronized void stop() {
+
+        enabled = false;
+        if (refresher != null) {
+            refresher.shutdownNow();
+            refresher = null;
+        }
+        filter = null;
+        rebuildingFilter = null;
+    }
+
+    /**
+     * Add the sid of a login of this node.
+     *
+     * @param sid sid claim of the ID token.
+     */
+    public void record(String sid) {
+
+        if (!enabled || StringUtils.isBlank(sid)) {
+            return;
+        }
+        BloomFilter currentFilter = filter;
+        if (currentFilter != null) {
+            currentFilter.add(sid);
+        }
+        BloomFilter nextFilter = rebuildingFilter;
+        if (nextFilter != null) {
+            nextFilter.add(sid);
+        }
+    }
+
+    /**
+     * Check whether the sessions of a sid may exist. A false answer is exact as of the last refresh, hence the
+     * sessions of the sid need not be looked up. The index is not refreshed on the calling thread.
+     *
+     * @param sid sid claim of the logout token.
+     * @return False if the sid is not known to the deployment.
+     */
+    public boolean mightContain(String sid) {
+
+        BloomFilter currentFilter = filter;
+        if (!enabled || currentFilter == null || currentFilter.mightContain(sid)) {
+            passedSids.increment();
+            return true;
+        }
+        rejectedSids.increment();
+        return false;
+    }
+
+    @Override
+    public boolean isEnabled() {
+
+        return enabled;
+    }
+
+    @Override
+    public boolean isReady() {
+
+        return enabled && filter != null;
+    }
+
+    @Override
+    public long getSidCount() {
+
+        BloomFilter currentFilter = filter;
+        return currentFilter == null ? 0 : currentFilter.getInsertions();
+    }
+
+    @Override
+    public long getExpectedSidCount() {
+
+        BloomFilter currentFilter = filter;
+        return currentFilter == null ? expectedSidCount : currentFilter.getExpectedInsertions();
+    }
+
+    @Override
+    public double getFalsePositiveRate() {
+
+        BloomFilter currentFilter = filter;
+        return currentFilter == null ? 0 : currentFilter.getFalsePositiveRate();
+    }
+
+    @Override
+    public long getBitCount() {
+
+        BloomFilter currentFilter = filter;
+        return currentFilter == null ? 0 : currentFilter.getBitCount();
+    }
+
+    @Override
+    public long getRejectedCount() {
+
+        return rejectedSids.sum();
+    }
+
+    @Override
+    public long getPassedCount() {
+
+        return passedSids.sum();
+    }
+
+    @Override
+    public long getRefreshCount() {
+
+        return refreshes.sum();
+    }
+
+    @Override
+    public void rebuild() {
+
+        refreshLock.lock();
+        try {
+            if (enabled) {
+                rebuildIndex();
+            }
+        } catch (UserSessionException e) {
+            LOG.error("Error while rebuilding the federated IdP session id index.", e);
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Refresh the index, i.e. rebuild it if it is not loaded or full, otherwise add the mappings created since the
+     * last refresh.
+     *
+     * @throws UserSessionException If the mappings could not be read. Every sid is looked up in the database until
+     *                              the next successful refresh.
+     */
+    void refresh() throws UserSessionException {
+
+        refreshLock.lock();
+        try {
+            if (!enabled) {
+                return;
+            }
+            BloomFilter currentFilter = filter;
+            if (currentFilter == null || currentFilter.getInsertions() > currentFilter.getExpectedInsertions()) {
+                rebuildIndex();
+                return;
+            }
+            long refreshTime = System.currentTimeMillis();
+            try {
+                federatedSessionMappingDAO.forEachIdpSessionId(
+                        new Timestamp(lastRefreshTime - REFRESH_OVERLAP_MILLIS), currentFilter::add);
+            } catch (UserSessionException e) {
+                filter = null;
+                throw e;
+            }
+            lastRefreshTime = refreshTime;
+            refreshes.increment();
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private void refreshQuietly() {
+
+        try {
+            refresh();
+        } catch (UserSessionException | RuntimeException e) {
+            LOG.error("Error while refreshing the federated IdP session id index. Hence the sessions of every sid " +
+                    "are looked up until the next refresh.", e);
+        }
+    }
+
+    private void rebuildIndex() throws UserSessionException {
+
+        long previousCount = getSidCount();
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedSidCount, previousCount * 2), FALSE_POSITIVE_RATE);
+        long refreshTime = System.currentTimeMillis();
+        rebuildingFilter = rebuilt;
+        try {
+            federatedSessionMappingDAO.forEachIdpSessionId(null, rebuilt::add);
+        } catch (UserSessionException e) {
+            filter = null;
+            throw e;
+        } finally {
+            rebuildingFilter = null;
+        }
+        if (!enabled) {
+            return;
+        }
+        refreshes.increment();
+        if (rebuilt.getInsertions() == 0) {
+            // Fail open until a rebuild reads a mapping.
+            filter = null;
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("No federated IdP session mapping is found. Hence the sessions of every sid are looked up " +
+                        "until the next refresh.");
+            }
+            return;
+        }
+        filter = rebuilt;
+        lastRefreshTime = refreshTime;
+        if (rebuilt.getInsertions() > rebuilt.getExpectedInsertions()) {
+            LOG.warn("Federated IdP session id index holds " + rebuilt.getInsertions() + " sids, more than the " +
+                    rebuilt.getExpectedInsertions() + " it is sized for. Consider increasing the expected sid count.");
+        } else if (LOG.isDebugEnabled()) {
+            LOG.debug("Federated IdP session id index is rebuilt with " + rebuilt.getInsertions() + " sids.");
+        }
+    }
+}
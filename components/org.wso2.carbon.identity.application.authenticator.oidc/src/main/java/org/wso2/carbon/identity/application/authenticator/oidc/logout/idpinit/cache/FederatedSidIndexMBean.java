@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.cache;
+
+/**
+ * JMX interface of the index of the federated IdP session ids.
+ */
+public interface FederatedSidIndexMBean {
+
+    boolean isEnabled();
+
+    /**
+     * Check whether the index is loaded. Every sid is looked up in the database until the index is loaded.
+     *
+     * @return True if the index is loaded.
+     */
+    boolean isReady();
+
+    /**
+     * Get the approximate number of distinct sids in the index.
+     *
+     * @return Sid count.
+     */
+    long getSidCount();
+
+    long getExpectedSidCount();
+
+    /**
+     * Get the expected false positive rate of the index for its current sid count.
+     *
+     * @return False positive rate.
+     */
+    double getFalsePositiveRate();
+
+    long getBitCount();
+
+    /**
+     * Get the number of logout sids rejected without a database lookup.
+     *
+     * @return Rejected sid count.
+     */
+    long getRejectedCount();
+
+    long getPassedCount();
+
+    long getRefreshCount();
+
+    /**
+     * Rebuild the index from the federated IdP session mappings in the database.
+     */
+    void rebuild();
+}
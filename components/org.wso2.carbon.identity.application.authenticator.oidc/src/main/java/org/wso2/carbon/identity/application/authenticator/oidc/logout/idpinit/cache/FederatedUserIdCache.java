@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.cache;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of the user ids of the federated users, keyed by the tenant, the IdP and the federated subject
+ * identifier. Logout tokens carrying only the sub claim are resolved to the user whose sessions are terminated
+ * without reading the federated user id from the database. The framework assigns the user id of a federated user
+ * once the login completes, hence a user id is cached when it is first resolved and serves the logouts of the later
+ * sessions of the user. The least recently used entries are evicted once the cache is full, the entries expire after
+ * the configured time to live and the entries of a deleted user are invalidated.
+ * <p>
+ * The entries are only invalidated on the node the user is deleted on. In a cluster, or once a federated user is
+ * provisioned again with a new user id, the other nodes may resolve the sub claim to the stale user id until the
+ * entry expires. Hence the cache is disabled by default and the time to live should be kept short.
+ */
+public class FederatedUserIdCache implements FederatedUserIdCacheMBean {
+
+    public static final String OBJECT_NAME =
+            "org.wso2.carbon.identity.application.authenticator.oidc:type=FederatedUserIdCache";
+
+    private static final char KEY_SEPARATOR = '\u0000';
+    private static final int DEFAULT_MAX_ENTRIES = 10000;
+    private static final long DEFAULT_TIME_TO_LIVE_MILLIS = 60000;
+
+    private static final FederatedUserIdCache instance = new FederatedUserIdCache();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final Map<String, Entry> entries;
+    // Keys of the cached entries of each user id, guarded by the lock of the entries.
+    private final Map<String, Set<String>> keysByUserId = new HashMap<>();
+    private volatile boolean enabled;
+    private volatile int maxEntries = DEFAULT_MAX_ENTRIES;
+    private volatile long timeToLiveMillis = DEFAULT_TIME_TO_LIVE_MILLIS;
+
+    FederatedUserIdCache() {
+
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+
+                if (size() > maxEntries) {
+                    removeKey(eldest.getValue().userId, eldest.getKey());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public static FederatedUserIdCache getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Configure the cache. The cached user ids are cleared.
+     *
+     * @param enabled          Whether the user ids are cached.
+     * @param maxEntries       Maximum number of user ids kept.
+     * @param timeToLiveMillis Time to live of a cached user id in milliseconds.
+     */
+    public void configure(boolean enabled, int maxEntries, long timeToLiveMillis) {
+
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Maximum number of entries should be a positive value.");
+        }
+        this.maxEntries = maxEntries;
+        this.timeToLiveMillis = timeToLiveMillis;
+        this.enabled = enabled;
+        clear();
+    }
+
+    /**
+     * Get the cached user id of a federated user.
+     *
+     * @param tenantId Tenant id.
+     * @param idpId    Id of the IdP.
+     * @param sub      Federated subject identifier.
+     * @return User id or null if the user id is not cached.
+     */
+    public String get(int tenantId, String idpId, String sub) {
+
+        if (!enabled || StringUtils.isBlank(sub)) {
+            return null;
+        }
+        String key = getKey(tenantId, idpId, sub);
+        String userId = null;
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expiryTime < System.currentTimeMillis()) {
+                    entries.remove(key);
+                    removeKey(entry.userId, key);
+                } else {
+                    userId = entry.userId;
+                }
+            }
+        }
+        if (userId == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return userId;
+    }
+
+    /**
+     * Cache the user id of a federated user.
+     *
+     * @param tenantId Tenant id.
+     * @param idpId    Id of the IdP.
+     * @param sub      Federated subject identifier.
+     * @param userId   User id.
+     */
+    public void put(int tenantId, String idpId, String sub, String userId) {
+
+        if (!enabled || StringUtils.isBlank(sub) || StringUtils.isBlank(userId)) {
+            return;
+        }
+        String key = getKey(tenantId, idpId, sub);
+        Entry entry = new Entry(userId, System.currentTimeMillis() + timeToLiveMillis);
+        synchronized (entries) {
+            Entry previous = entries.put(key, entry);
+            if (previous != null) {
+                removeKey(previous.userId, key);
+            }
+            keysByUserId.computeIfAbsent(userId, k -> new HashSet<>()).add(key);
+        }
+    }
+
+    /**
+     * Invalidate the cached entries of a user, e.g. once the user is deleted.
+     *
+     * @param userId User id.
+     */
+    public void invalidateUserId(String userId) {
+
+        if (!enabled || StringUtils.isBlank(userId)) {
+            return;
+        }
+        synchronized (entries) {
+            Set<String> keys = keysByUserId.remove(userId);
+            if (keys != null) {
+                entries.keySet().removeAll(keys);
+            }
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+
+        return enabled;
+    }
+
+    @Override
+    public int getMaxEntries() {
+
+        return maxEntries;
+    }
+
+    @Override
+    public long getTimeToLive() {
+
+        return timeToLiveMillis;
+    }
+
+    @Override
+    public int getSize() {
+
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @Override
+    public long getHitCount() {
+
+        return hits.sum();
+    }
+
+    @Override
+    public long getMissCount() {
+
+        return misses.sum();
+    }
+
+    @Override
+    public void clear() {
+
+        synchronized (entries) {
+            entries.clear();
+            keysByUserId.clear();
+        }
+    }
+
+    private void removeKey(String userId, String key) {
+
+        Set<String> keys = keysByUserId.get(userId);
+        if (keys != null && keys.remove(key) && keys.isEmpty()) {
+            keysByUserId.remove(userId);
+        }
+    }
+
+    private static String getKey(int tenantId, String idpId, String sub) {
+
+        return Integer.toString(tenantId) + KEY_SEPARATOR + idpId + KEY_SEPARATOR + sub;
+    }
+
+    private static class Entry {
+
+        private final String userId;
+        private final long expiryTime;
+
+        private Entry(String userId, long expiryTime) {
+
+            this.userId = userId;
+            this.expiryTime = expiryTime;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.cache;
+
+/**
+ * JMX interface of the cache of the federated user ids.
+ */
+public interface FederatedUserIdCacheMBean {
+
+    boolean isEnabled();
+
+    int getMaxEntries();
+
+    /**
+     * Get the time to live of a cached user id in milliseconds.
+     *
+     * @return Time to live in milliseconds.
+     */
+    long getTimeToLive();
+
+    int getSize();
+
+    long getHitCount();
+
+    long getMissCount();
+
+    /**
+     * Clear the cached user ids.
+     */
+    void clear();
+}
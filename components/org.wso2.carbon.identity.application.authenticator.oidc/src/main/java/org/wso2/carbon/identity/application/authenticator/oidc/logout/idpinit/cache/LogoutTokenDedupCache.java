@@ -0,0 +1,307 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.cache;
+
+import org.apache.commons.lang.StringUtils;
+import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.exception.LogoutClientException;
+import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.model.LogoutResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Bounded, time-windowed cache of the outcomes of the back-channel logout tokens. IdPs redeliver a logout token when
+ * the response is slow, hence a redelivered token is answered with the cached outcome without parsing the token,
+ * looking up the IdP, verifying the signature or querying the sessions again.
+ * <p>
+ * Outcomes are keyed by the tenant and a hash of the raw logout token, which is checked before the token is parsed.
+ * Successful outcomes are also keyed by the tenant, the issuer and the jti claim, hence a replay of a processed jti
+ * is answered without terminating the sessions again. Failed outcomes are only keyed by the token hash, since a
+ * token with a forged signature could otherwise block the genuine token with the same jti. Server errors are not
+ * cached, hence the IdP can retry them.
+ * <p>
+ * The outcomes are kept in a concurrent map, hence concurrent logouts do not serialize on the cache. The keys are
+ * queued in insertion order, which is also the expiry order, and the eldest outcomes are evicted once the cache is
+ * full. The cache is disabled by default.
+ */
+public class LogoutTokenDedupCache implements LogoutTokenDedupCacheMBean {
+
+    public static final String OBJECT_NAME =
+            "org.wso2.carbon.identity.application.authenticator.oidc:type=LogoutTokenDedupCache";
+
+    private static final String TOKEN_KEY_PREFIX = "t:";
+    private static final String JTI_KEY_PREFIX = "j:";
+    private static final char KEY_SEPARATOR = '\u0000';
+    private static final int DEFAULT_MAX_ENTRIES = 10000;
+    private static final long DEFAULT_WINDOW_MILLIS = 300000;
+
+    private static final LogoutTokenDedupCache instance = new LogoutTokenDedupCache();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final Map<String, Outcome> outcomes = new ConcurrentHashMap<>();
+    // Keys in insertion order. A queued key is stale once its outcome is replaced or removed.
+    private final Queue<QueuedKey> insertionOrder = new ConcurrentLinkedQueue<>();
+    private volatile boolean enabled;
+    private volatile int maxEntries = DEFAULT_MAX_ENTRIES;
+    private volatile long windowMillis = DEFAULT_WINDOW_MILLIS;
+
+    LogoutTokenDedupCache() {
+
+    }
+
+    public static LogoutTokenDedupCache getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Configure the cache. The cached outcomes are cleared.
+     *
+     * @param enabled      Whether the outcomes are cached.
+     * @param maxEntries   Maximum number of outcomes kept.
+     * @param windowMillis Time window in milliseconds an outcome is kept for.
+     */
+    public void configure(boolean enabled, int maxEntries, long windowMillis) {
+
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Maximum number of entries should be a positive value.");
+        }
+        this.maxEntries = maxEntries;
+        this.windowMillis = windowMillis;
+        this.enabled = enabled;
+        clear();
+    }
+
+    /**
+     * Get the cache key of a raw logout token.
+     *
+     * @param tenantDomain Tenant domain of the logout request.
+     * @param logoutToken  Raw logout token.
+     * @return Cache key.
+     */
+    public static String getTokenKey(String tenantDomain, String logoutToken) {
+
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(logoutToken.getBytes(StandardCharsets.UTF_8));
+            return TOKEN_KEY_PREFIX + StringUtils.defaultString(tenantDomain) + KEY_SEPARATOR +
+                    Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is available in every JRE.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Get the cache key of the jti claim of a logout token.
+     *
+     * @param tenantDomain Tenant domain of the logout request.
+     * @param issuer       Issuer of the logout token.
+     * @param jti          jti claim of the logout token.
+     * @return Cache key or null if the token has no jti claim.
+     */
+    public static String getJtiKey(String tenantDomain, String issuer, String jti) {
+
+        if (StringUtils.isBlank(jti)) {
+            return null;
+        }
+        return JTI_KEY_PREFIX + StringUtils.defaultString(tenantDomain) + KEY_SEPARATOR +
+                StringUtils.defaultString(issuer) + KEY_SEPARATOR + jti;
+    }
+
+    /**
+     * Get the cached outcome of a logout token.
+     *
+     * @param key Token key or jti key.
+     * @return Cached outcome or null if the cache is disabled or the outcome is not cached within the window.
+     */
+    public Outcome get(String key) {
+
+        if (!enabled || key == null) {
+            return null;
+        }
+        Outcome outcome = outcomes.get(key);
+        if (outcome != null && outcome.expiryTime < System.currentTimeMillis()) {
+            outcomes.remove(key, outcome);
+            outcome = null;
+        }
+        if (outcome == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return outcome;
+    }
+
+    /**
+     * Cache the successful outcome of a logout token. Non successful responses are not cached.
+     *
+     * @param tokenKey       Token key.
+     * @param jtiKey         jti key or null if the token has no jti claim.
+     * @param logoutResponse Logout response.
+     */
+    public void putSuccess(String tokenKey, String jtiKey, LogoutResponse logoutResponse) {
+
+        if (!enabled || logoutResponse.getStatusCode() != HttpServletResponse.SC_OK) {
+            return;
+        }
+        Outcome outcome = new Outcome(logoutResponse.getStatusCode(), logoutResponse.getMessage(), null,
+                System.currentTimeMillis() + windowMillis);
+        put(tokenKey, outcome);
+        if (jtiKey != null) {
+            put(jtiKey, outcome);
+        }
+    }
+
+    /**
+     * Cache the client error of a logout token.
+     *
+     * @param tokenKey Token key.
+     * @param e        Client error.
+     */
+    public void putFailure(String tokenKey, LogoutClientException e) {
+
+        if (!enabled) {
+            return;
+        }
+        Outcome outcome = new Outcome(0, e.getMessage(), e.getErrorCode(), System.currentTimeMillis() + windowMillis);
+        put(tokenKey, outcome);
+    }
+
+    @Override
+    public boolean isEnabled() {
+
+        return enabled;
+    }
+
+    @Override
+    public int getMaxEntries() {
+
+        return maxEntries;
+    }
+
+    @Override
+    public long getWindow() {
+
+        return windowMillis;
+    }
+
+    @Override
+    public int getSize() {
+
+        return outcomes.size();
+    }
+
+    @Override
+    public long getHitCount() {
+
+        return hits.sum();
+    }
+
+    @Override
+    public long getMissCount() {
+
+        return misses.sum();
+    }
+
+    @Override
+    public void clear() {
+
+        outcomes.clear();
+        insertionOrder.clear();
+    }
+
+    private void put(String key, Outcome outcome) {
+
+        outcomes.put(key, outcome);
+        insertionOrder.offer(new QueuedKey(key, outcome));
+        evict(System.currentTimeMillis());
+    }
+
+    /**
+     * Remove the eldest outcomes while the cache is full, and the expired or stale keys at the head of the queue.
+     */
+    private void evict(long now) {
+
+        QueuedKey eldest;
+        while ((eldest = insertionOrder.peek()) != null) {
+            boolean stale = outcomes.get(eldest.key) != eldest.outcome;
+            if (!stale && eldest.outcome.expiryTime >= now && outcomes.size() <= maxEntries) {
+                return;
+            }
+            if (insertionOrder.remove(eldest)) {
+                outcomes.remove(eldest.key, eldest.outcome);
+            }
+        }
+    }
+
+    private static class QueuedKey {
+
+        private final String key;
+        private final Outcome outcome;
+
+        private QueuedKey(String key, Outcome outcome) {
+
+            this.key = key;
+            this.outcome = outcome;
+        }
+    }
+
+    /**
+     * Cached outcome of a logout token.
+     */
+    public static class Outcome {
+
+        private final int statusCode;
+        private final String message;
+        private final String errorCode;
+        private final long expiryTime;
+
+        private Outcome(int statusCode, String message, String errorCode, long expiryTime) {
+
+            this.statusCode = statusCode;
+            this.message = message;
+            this.errorCode = errorCode;
+            this.expiryTime = expiryTime;
+        }
+
+        /**
+         * Replay the outcome.
+         *
+         * @return Logout response builder of a successful outcome.
+         * @throws LogoutClientException The client error of a failed outcome.
+         */
+        public LogoutResponse.LogoutResponseBuilder replay() throws LogoutClientException {
+
+            if (errorCode != null) {
+                throw new LogoutClientException(errorCode, message);
+            }
+            return new LogoutResponse.LogoutResponseBuilder(statusCode, message);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.cache;
+
+/**
+ * JMX interface of the deduplication cache of the back-channel logout tokens.
+ */
+public interface LogoutTokenDedupCacheMBean {
+
+    boolean isEnabled();
+
+    int getMaxEntries();
+
+    /**
+     * Get the time window in milliseconds an outcome is kept for.
+     *
+     * @return Window in milliseconds.
+     */
+    long getWindow();
+
+    int getSize();
+
+    /**
+     * Get the number of redelivered logout tokens answered with a cached outcome.
+     *
+     * @return Hit count.
+     */
+    long getHitCount();
+
+    long getMissCount();
+
+    /**
+     * Clear the cached outcomes.
+     */
+    void clear();
+}
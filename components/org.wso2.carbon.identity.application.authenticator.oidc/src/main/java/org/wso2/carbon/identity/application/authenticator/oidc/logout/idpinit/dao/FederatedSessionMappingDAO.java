@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.dao;
+
+import org.wso2.carbon.identity.application.authentication.framework.exception.UserSessionException;
+import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.TimeZone;
+import java.util.function.Consumer;
+
+/**
+ * Bulk operations on the federated IdP session mappings (IDN_FED_AUTH_SESSION_MAPPING), which the user session store
+ * of the framework only offers per session. The mappings are kept in the session database, as in the user session
+ * store.
+ */
+public class FederatedSessionMappingDAO {
+
+    private static final String DELETE_SESSION_MAPPING_SQL =
+            "DELETE FROM IDN_FED_AUTH_SESSION_MAPPING WHERE SESSION_ID = ?";
+    private static final String GET_IDP_SESSION_IDS_SQL = "SELECT IDP_SESSION_ID FROM IDN_FED_AUTH_SESSION_MAPPING";
+    private static final String GET_IDP_SESSION_IDS_CREATED_AFTER_SQL =
+            GET_IDP_SESSION_IDS_SQL + " WHERE TIME_CREATED >= ?";
+    private static final int FETCH_SIZE = 1000;
+
+    /**
+     * Remove the federated IdP session mappings of the given sessions as a single batch in one transaction.
+     *
+     * @param sessionIds Session context keys of the sessions.
+     * @throws UserSessionException If an error occurs while removing the mappings. No mapping is removed then.
+     */
+    public void removeFederatedAuthSessionInfo(Collection<String> sessionIds) throws UserSessionException {
+
+        if (sessionIds.isEmpty()) {
+            return;
+        }
+        try (Connection connection = IdentityDatabaseUtil.getSessionDBConnection(true)) {
+            try (PreparedStatement statement = connection.prepareStatement(DELETE_SESSION_MAPPING_SQL)) {
+                for (String sessionId : sessionIds) {
+                    statement.setString(1, sessionId);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                IdentityDatabaseUtil.commitTransaction(connection);
+            } catch (SQLException e) {
+                IdentityDatabaseUtil.rollbackTransaction(connection);
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new UserSessionException("Error while removing the federated IdP session mappings of " +
+                    sessionIds.size() + " sessions.", e);
+        }
+    }
+
+    /**
+     * Stream the federated IdP session ids (the sid claims) of the stored session mappings.
+     *
+     * @param createdAfter Only stream the mappings created at or after this time, or null to stream all mappings.
+     * @param consumer     Consumer of the IdP session ids.
+     * @throws UserSessionException If an error occurs while reading the mappings.
+     */
+    public void forEachIdpSessionId(Timestamp createdAfter, Consumer<String> consumer) throws UserSessionException {
+
+        try (Connection connection = IdentityDatabaseUtil.getSessionDBConnection(false);
+             PreparedStatement statement = connection.prepareStatement(createdAfter == null ?
+                     GET_IDP_SESSION_IDS_SQL : GET_IDP_SESSION_IDS_CREATED_AFTER_SQL)) {
+            if (createdAfter != null) {
+                // The framework stores the creation time in UTC.
+                statement.setTimestamp(1, createdAfter, Calendar.getInstance(TimeZone.getTimeZone("UTC")));
+            }
+            statement.setFetchSize(FETCH_SIZE);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    String idpSessionId = resultSet.getString(1);
+                    if (idpSessionId != null) {
+                        consumer.accept(idpSessionId);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new UserSessionException("Error while reading the federated IdP session ids.", e);
+        }
+    }
+}
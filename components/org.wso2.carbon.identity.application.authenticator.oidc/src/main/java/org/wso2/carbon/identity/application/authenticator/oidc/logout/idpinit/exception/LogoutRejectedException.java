@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.exception;
+
+/**
+ * Thrown when a logout request is not admitted, since the issuer exceeded its rate limit or the server is handling
+ * the maximum number of concurrent logout requests. The request was not processed, hence the sender may retry it
+ * after the given time.
+ */
+public class LogoutRejectedException extends LogoutException {
+
+    private final int statusCode;
+    private final long retryAfterSeconds;
+
+    public LogoutRejectedException(String errorCode, String message, int statusCode, long retryAfterSeconds) {
+
+        super(errorCode, message);
+        this.statusCode = statusCode;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Get the HTTP status code of the response, i.e. 429 or 503.
+     *
+     * @return HTTP status code.
+     */
+    public int getStatusCode() {
+
+        return statusCode;
+    }
+
+    /**
+     * Get the time in seconds after which the sender may retry the request.
+     *
+     * @return Retry after time in seconds.
+     */
+    public long getRetryAfterSeconds() {
+
+        return retryAfterSeconds;
+    }
+}
@@ -28,6 +28,7 @@ import org.wso2.carbon.identity.application.authentication.framework.inbound.Ide
 import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkUtils;
 import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.exception.LogoutClientException;
 import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.exception.LogoutException;
+import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.exception.LogoutRejectedException;
 import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.model.LogoutResponse;
 import org.wso2.carbon.identity.oauth.common.OAuthConstants;
 
@@ -44,6 +45,7 @@ import static org.wso2.carbon.identity.application.authenticator.oidc.util.OIDCE
 public class LogoutResponseFactory extends HttpIdentityResponseFactory {
 
     private static final Log log = LogFactory.getLog(LogoutResponseFactory.class);
+    private static final String RETRY_AFTER = "Retry-After";
 
     @Override
     public boolean canHandle(IdentityResponse identityResponse) {
@@ -82,7 +84,18 @@ public class LogoutResponseFactory extends HttpIdentityResponseFactory {
     public HttpIdentityResponse.HttpIdentityResponseBuilder handleException(FrameworkException frameworkException) {
 
         HttpIdentityResponse.HttpIdentityResponseBuilder builder;
-        if (frameworkException instanceof LogoutClientException) {
+        if (frameworkException instanceof LogoutRejectedException) {
+            // The request was not processed, hence it is answered without logging the error.
+            LogoutRejectedException rejectedException = (LogoutRejectedException) frameworkException;
+            if (log.isDebugEnabled()) {
+                log.debug("Logout request is rejected: " + rejectedException.getMessage());
+            }
+            builder = buildResponse(rejectedException.getStatusCode() == HttpServletResponse.SC_SERVICE_UNAVAILABLE ?
+                            "Service unavailable." : "Too many requests.", rejectedException.getStatusCode(),
+                    rejectedException.getMessage());
+            builder.setStatusCode(rejectedException.getStatusCode());
+            builder.addHeader(RETRY_AFTER, Long.toString(rejectedException.getRetryAfterSeconds()));
+        } else if (frameworkException instanceof LogoutClientException) {
             if (log.isDebugEnabled()) {
                 log.debug("Client error when handling the request: " + frameworkException.getMessage(),
                         frameworkException);
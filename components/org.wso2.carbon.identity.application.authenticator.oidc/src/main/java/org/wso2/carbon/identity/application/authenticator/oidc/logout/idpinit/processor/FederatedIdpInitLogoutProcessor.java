@@ -43,10 +43,25 @@ import org.wso2.carbon.identity.application.authentication.framework.model.Feder
 import org.wso2.carbon.identity.application.authentication.framework.store.UserSessionStore;
 import org.wso2.carbon.identity.application.authenticator.oidc.OIDCAuthenticatorConstants;
 import org.wso2.carbon.identity.application.authenticator.oidc.internal.OpenIDConnectAuthenticatorDataHolder;
+import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.admission.LogoutAdmissionController;
+import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.async.AsyncLogoutExecutor;
+import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.async.LogoutTask;
+import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.cache.FederatedSidIndex;
+import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.cache.FederatedUserIdCache;
+import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.cache.LogoutTokenDedupCache;
+import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.dao.FederatedSessionMappingDAO;
 import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.exception.LogoutClientException;
 import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.exception.LogoutException;
+import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.exception.LogoutRejectedException;
 import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.exception.LogoutServerException;
 import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.model.LogoutResponse;
+import org.wso2.carbon.identity.application.authenticator.oidc.metrics.AuthenticatorPhase;
+import org.wso2.carbon.identity.application.authenticator.oidc.metrics.PhaseTimer;
+import org.wso2.carbon.identity.application.authenticator.oidc.metrics.ResourceMeter;
+import org.wso2.carbon.identity.application.authenticator.oidc.metrics.ResourceUsageMetrics;
+import org.wso2.carbon.identity.application.authenticator.oidc.metrics.SLOTracker;
+import org.wso2.carbon.identity.application.authenticator.oidc.metrics.TrafficCapture;
+import org.wso2.carbon.identity.application.authenticator.oidc.metrics.TrafficRecorder;
 import org.wso2.carbon.identity.application.common.model.FederatedAuthenticatorConfig;
 import org.wso2.carbon.identity.application.common.model.IdentityProvider;
 import org.wso2.carbon.identity.application.common.model.Property;
@@ -61,14 +76,15 @@ import org.wso2.carbon.idp.mgt.IdentityProviderManager;
 import java.text.ParseException;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.regex.Matcher;
+import java.util.Set;
 
 import javax.servlet.http.HttpServletResponse;
 
 import static org.wso2.carbon.identity.application.authenticator.oidc.OIDCAuthenticatorConstants.AUTHENTICATOR_NAME;
 import static org.wso2.carbon.identity.application.authenticator.oidc.OIDCAuthenticatorConstants.BackchannelLogout.DEFAULT_IAT_VALIDITY_PERIOD;
-import static org.wso2.carbon.identity.application.authenticator.oidc.OIDCAuthenticatorConstants.OIDC_BACKCHANNEL_LOGOUT_ENDPOINT_URL_PATTERN;
+import static org.wso2.carbon.identity.application.authenticator.oidc.OIDCAuthenticatorConstants.OIDC_BACKCHANNEL_LOGOUT_ENDPOINT_URL_MATCHER;
 import static org.wso2.carbon.identity.application.authenticator.oidc.util.OIDCErrorConstants.ErrorMessages;
 import static org.wso2.carbon.identity.application.common.util.IdentityApplicationConstants.RESIDENT_IDP_RESERVED_NAME;
 
@@ -78,6 +94,9 @@ import static org.wso2.carbon.identity.application.common.util.IdentityApplicati
 public class FederatedIdpInitLogoutProcessor extends IdentityProcessor {
 
     private static final Log log = LogFactory.getLog(FederatedIdpInitLogoutProcessor.class);
+    // The DAOs are stateless, hence shared by the logout requests.
+    private static final UserSessionDAO USER_SESSION_DAO = new UserSessionDAOImpl();
+    private static final FederatedSessionMappingDAO FEDERATED_SESSION_MAPPING_DAO = new FederatedSessionMappingDAO();
 
     @Override
     public IdentityResponse.IdentityResponseBuilder process(IdentityRequest identityRequest) throws FrameworkException {
@@ -99,12 +118,24 @@ public class FederatedIdpInitLogoutProcessor extends IdentityProcessor {
     protected IdentityResponse.IdentityResponseBuilder handleOIDCFederatedLogoutRequest(
             IdentityRequest logoutRequest) throws LogoutException {
 
-        try {
-            String logoutToken = logoutRequest.getParameter(OIDCAuthenticatorConstants.LOGOUT_TOKEN);
-            if (StringUtils.isBlank(logoutToken)) {
-                throw handleLogoutClientException(ErrorMessages.LOGOUT_TOKEN_EMPTY_OR_NULL);
+        String logoutToken = logoutRequest.getParameter(OIDCAuthenticatorConstants.LOGOUT_TOKEN);
+        if (StringUtils.isBlank(logoutToken)) {
+            throw handleLogoutClientException(ErrorMessages.LOGOUT_TOKEN_EMPTY_OR_NULL);
+        }
+        LogoutTokenDedupCache dedupCache = LogoutTokenDedupCache.getInstance();
+        String tokenKey = null;
+        if (dedupCache.isEnabled()) {
+            // A redelivered token is answered before any parsing, IdP lookup or signature verification.
+            tokenKey = LogoutTokenDedupCache.getTokenKey(logoutRequest.getTenantDomain(), logoutToken);
+            LogoutTokenDedupCache.Outcome outcome = dedupCache.get(tokenKey);
+            if (outcome != null) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Answering a redelivered logout token with the cached outcome.");
+                }
+                return outcome.replay();
             }
-
+        }
+        try {
             if (log.isDebugEnabled()) {
                 log.debug("Handling the OIDC federated IdP Initiated logout request for the obtained logout token: " +
                         logoutToken);
@@ -114,11 +145,41 @@ public class FederatedIdpInitLogoutProcessor extends IdentityProcessor {
             JWTClaimsSet claimsSet = signedJWT.getJWTClaimsSet();
             // Check for the iss value in claim set.
             validateIssuerClaim(claimsSet);
-            // Get the identity provider for the issuer of the logout token.
-
-            return doBackChannelLogout(logoutRequest, signedJWT);
+            String jtiKey = null;
+            if (tokenKey != null) {
+                jtiKey = LogoutTokenDedupCache.getJtiKey(logoutRequest.getTenantDomain(), claimsSet.getIssuer(),
+                        claimsSet.getJWTID());
+                LogoutTokenDedupCache.Outcome outcome = dedupCache.get(jtiKey);
+                if (outcome != null) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Answering a replayed logout token with the jti: " + claimsSet.getJWTID() +
+                                " with the cached outcome.");
+                    }
+                    return outcome.replay();
+                }
+            }
+            // Admit the request before the IdP lookup and the signature verification.
+            try (LogoutAdmissionController.Permit ignored = LogoutAdmissionController.getInstance().admit()) {
+                // Get the identity provider for the issuer of the logout token.
+                LogoutResponse.LogoutResponseBuilder logoutResponseBuilder =
+                        doBackChannelLogout(logoutRequest, signedJWT);
+                if (tokenKey != null) {
+                    dedupCache.putSuccess(tokenKey, jtiKey, logoutResponseBuilder.build());
+                }
+                return logoutResponseBuilder;
+            }
         } catch (ParseException e) {
-            throw handleLogoutClientException(ErrorMessages.LOGOUT_TOKEN_PARSING_FAILURE, e);
+            LogoutClientException logoutClientException =
+                    handleLogoutClientException(ErrorMessages.LOGOUT_TOKEN_PARSING_FAILURE, e);
+            if (tokenKey != null) {
+                dedupCache.putFailure(tokenKey, logoutClientException);
+            }
+            throw logoutClientException;
+        } catch (LogoutClientException e) {
+            if (tokenKey != null) {
+                dedupCache.putFailure(tokenKey, e);
+            }
+            throw e;
         }
     }
 
@@ -130,36 +191,202 @@ public class FederatedIdpInitLogoutProcessor extends IdentityProcessor {
      * @return logout response builder.
      * @throws LogoutServerException if there is a server error while doing the logout.
      * @throws LogoutClientException if there is a client error while doing the logout.
+     * @throws LogoutRejectedException if the rate limit of the IdP is exceeded.
      * @throws ParseException if there is an issue while parsing the JWT.
      */
     protected LogoutResponse.LogoutResponseBuilder doBackChannelLogout(IdentityRequest logoutRequest,
                                                                        SignedJWT signedJWT) throws
-            LogoutServerException, LogoutClientException, ParseException {
+            LogoutServerException, LogoutClientException, LogoutRejectedException, ParseException {
 
         String tenantDomain = logoutRequest.getTenantDomain();
         JWTClaimsSet claimsSet = signedJWT.getJWTClaimsSet();
         String idpIdentifier = getIssuer(claimsSet);
 
-        IdentityProvider identityProvider = getIdentityProvider(idpIdentifier, tenantDomain);
-        validateLogoutToken(signedJWT, identityProvider);
-        String sidClaim = (String) claimsSet.getClaim(OIDCAuthenticatorConstants.Claim.SID);
-
-        if (StringUtils.isNotBlank(sidClaim)) {
-            // Find the local session corresponding to sid and terminate it.
-            return logoutUsingSid(sidClaim);
+        long logoutStartTime = System.nanoTime();
+        ResourceMeter resourceMeter = ResourceUsageMetrics.getInstance().begin(SLOTracker.Flow.BACK_CHANNEL_LOGOUT,
+                idpIdentifier, tenantDomain);
+        // The logout token is the body the IdP sends on the back-channel.
+        ResourceMeter.addBytesReceived(StringUtils.length(signedJWT.getParsedString()));
+        TrafficCapture trafficCapture = TrafficRecorder.getInstance().begin(SLOTracker.Flow.BACK_CHANNEL_LOGOUT,
+                idpIdentifier, tenantDomain);
+        if (trafficCapture != null) {
+            TrafficCapture.recordLogoutToken(StringUtils.length(signedJWT.getParsedString()),
+                    claimsSet.getClaims().size(), claimsSet.getClaim(OIDCAuthenticatorConstants.Claim.SID) != null ?
+                            OIDCAuthenticatorConstants.Claim.SID : OIDCAuthenticatorConstants.Claim.SUB);
         }
+        IdentityProvider identityProvider = null;
+        boolean succeeded = false;
+        boolean handedOver = false;
+        String errorCode = null;
+        try {
+            PhaseTimer phaseTimer = PhaseTimer.start(AuthenticatorPhase.LOGOUT_IDP_LOOKUP, idpIdentifier, tenantDomain);
+            try {
+                identityProvider = getIdentityProvider(idpIdentifier, tenantDomain);
+                phaseTimer.setIdpName(getTrackedIdPName(identityProvider, idpIdentifier));
+                phaseTimer.succeeded();
+            } finally {
+                phaseTimer.stop();
+            }
+            String idpName = getTrackedIdPName(identityProvider, idpIdentifier);
+            // The requests of an IdP whose rate limit is used up are rejected before the signature verification.
+            LogoutAdmissionController.getInstance().check(tenantDomain, idpName);
+            phaseTimer = PhaseTimer.start(AuthenticatorPhase.LOGOUT_TOKEN_VALIDATION, idpName, tenantDomain);
+            try {
+                validateLogoutToken(signedJWT, identityProvider);
+                phaseTimer.addBytes(StringUtils.length(signedJWT.getParsedString())).succeeded();
+            } finally {
+                phaseTimer.stop();
+            }
+            // Only verified logout tokens are charged to the rate limit of the IdP.
+            LogoutAdmissionController.getInstance().charge(tenantDomain, idpName);
+            String sidClaim = (String) claimsSet.getClaim(OIDCAuthenticatorConstants.Claim.SID);
+
+            LogoutResponse.LogoutResponseBuilder logoutResponseBuilder;
+            if (StringUtils.isNotBlank(sidClaim)) {
+                // Find the local session corresponding to sid and terminate it.
+                logoutResponseBuilder = submitLogoutTask(LogoutTask.forSid(tenantDomain, sidClaim, idpName),
+                        logoutStartTime, trafficCapture);
+                handedOver = logoutResponseBuilder != null;
+                if (logoutResponseBuilder == null) {
+                    phaseTimer = PhaseTimer.start(AuthenticatorPhase.LOGOUT_SESSION_TERMINATION, idpName,
+                            tenantDomain);
+                    try {
+                        logoutResponseBuilder = logoutUsingSid(sidClaim);
+                        phaseTimer.succeeded();
+                    } finally {
+                        phaseTimer.stop();
+                    }
+                }
+            } else {
+                String subClaim = claimsSet.getSubject();
+                if (StringUtils.isBlank(subClaim)) {
+                    throw handleLogoutClientException(ErrorMessages.LOGOUT_TOKEN_SUB_CLAIM_NOT_FOUND);
+                }
 
-        String subClaim = claimsSet.getSubject();
-        if (StringUtils.isBlank(subClaim)) {
-            throw handleLogoutClientException(ErrorMessages.LOGOUT_TOKEN_SUB_CLAIM_NOT_FOUND);
+                if (log.isDebugEnabled()) {
+                    log.debug("No 'sid' claim present in the logout token of the federated idp initiated logout " +
+                            "request. Using sub claim to terminate the sessions for user: " + subClaim +
+                            " tenant domain: " + tenantDomain);
+                }
+                logoutResponseBuilder = submitLogoutTask(LogoutTask.forSub(tenantDomain, subClaim,
+                        identityProvider), logoutStartTime, trafficCapture);
+                handedOver = logoutResponseBuilder != null;
+                if (logoutResponseBuilder == null) {
+                    phaseTimer = PhaseTimer.start(AuthenticatorPhase.LOGOUT_SESSION_TERMINATION, idpName,
+                            tenantDomain);
+                    try {
+                        logoutResponseBuilder = logoutUsingSub(tenantDomain, subClaim, identityProvider);
+                        phaseTimer.succeeded();
+                    } finally {
+                        phaseTimer.stop();
+                    }
+                }
+            }
+            succeeded = true;
+            // The outcome of a logout task is recorded by the asynchronous executor once the task completes.
+            if (!handedOver) {
+                SLOTracker.getInstance().recordSuccess(tenantDomain,
+                        getTrackedIdPName(identityProvider, idpIdentifier), SLOTracker.Flow.BACK_CHANNEL_LOGOUT,
+                        logoutStartTime);
+            }
+            return logoutResponseBuilder;
+        } catch (LogoutException e) {
+            errorCode = e.getErrorCode();
+            SLOTracker.getInstance().recordFailure(tenantDomain, getTrackedIdPName(identityProvider, idpIdentifier),
+                    SLOTracker.Flow.BACK_CHANNEL_LOGOUT, e.getErrorCode(), logoutStartTime);
+            throw e;
+        } catch (ParseException e) {
+            errorCode = ErrorMessages.LOGOUT_TOKEN_PARSING_FAILURE.getCode();
+            SLOTracker.getInstance().recordFailure(tenantDomain, getTrackedIdPName(identityProvider, idpIdentifier),
+                    SLOTracker.Flow.BACK_CHANNEL_LOGOUT, errorCode, logoutStartTime);
+            throw e;
+        } catch (RuntimeException e) {
+            SLOTracker.getInstance().recordFailure(tenantDomain, getTrackedIdPName(identityProvider, idpIdentifier),
+                    SLOTracker.Flow.BACK_CHANNEL_LOGOUT, null, logoutStartTime);
+            throw e;
+        } finally {
+            ResourceUsageMetrics.getInstance().end(resourceMeter, getTrackedIdPName(identityProvider, idpIdentifier));
+            if (!handedOver) {
+                TrafficRecorder.getInstance().end(trafficCapture, getTrackedIdPName(identityProvider, idpIdentifier),
+                        succeeded, errorCode);
+            }
         }
+    }
 
+    /**
+     * Hand over the session termination of a validated logout token to the asynchronous executor, if enabled.
+     *
+     * @param logoutTask      Logout task.
+     * @param logoutStartTime Start time of the logout request.
+     * @param trafficCapture  Traffic capture of the logout request, can be null.
+     * @return Logout response builder if the task is accepted, null if the sessions should be terminated
+     * synchronously.
+     */
+    private LogoutResponse.LogoutResponseBuilder submitLogoutTask(LogoutTask logoutTask, long logoutStartTime,
+                                                                  TrafficCapture trafficCapture) {
+
+        AsyncLogoutExecutor asyncLogoutExecutor = AsyncLogoutExecutor.getInstance();
+        if (asyncLogoutExecutor == null) {
+            return null;
+        }
+        // The worker stops the traffic capture, hence it is detached from this thread before the task is submitted.
+        logoutTask.trackRequest(logoutStartTime, trafficCapture);
+        if (trafficCapture != null) {
+            trafficCapture.detach();
+        }
+        if (!asyncLogoutExecutor.submit(logoutTask)) {
+            if (trafficCapture != null) {
+                trafficCapture.attach();
+            }
+            return null;
+        }
         if (log.isDebugEnabled()) {
-            log.debug("No 'sid' claim present in the logout token of the federated idp initiated logout request" +
-                    ". Using sub claim to terminate the sessions for user: " + subClaim +
-                    " tenant domain: " + tenantDomain);
+            log.debug("Back-channel logout task: " + logoutTask.getId() + " is accepted for the " +
+                    logoutTask.getType() + " claim: " + logoutTask.getClaimValue());
         }
-        return logoutUsingSub(tenantDomain, subClaim, identityProvider);
+        return new LogoutResponse.LogoutResponseBuilder(HttpServletResponse.SC_OK,
+                OIDCAuthenticatorConstants.BackchannelLogout.LOGOUT_SUCCESS);
+    }
+
+    /**
+     * Terminate the sessions of a logout task accepted by the asynchronous executor. The logout token of the task is
+     * already validated.
+     *
+     * @param logoutTask Logout task.
+     * @throws LogoutServerException If there is a server error while terminating the sessions.
+     */
+    public void executeLogoutTask(LogoutTask logoutTask) throws LogoutServerException {
+
+        PhaseTimer phaseTimer = PhaseTimer.start(AuthenticatorPhase.LOGOUT_SESSION_TERMINATION,
+                logoutTask.getIdpName(), logoutTask.getTenantDomain());
+        try {
+            LogoutResponse.LogoutResponseBuilder logoutResponseBuilder;
+            if (logoutTask.getType() == LogoutTask.Type.SID) {
+                logoutResponseBuilder = logoutUsingSid(logoutTask.getClaimValue());
+            } else {
+                logoutResponseBuilder = logoutUsingSub(logoutTask.getTenantDomain(), logoutTask.getClaimValue(),
+                        logoutTask.toIdentityProvider());
+            }
+            if (logoutResponseBuilder.build().getStatusCode() == HttpServletResponse.SC_OK) {
+                phaseTimer.succeeded();
+            } else if (log.isDebugEnabled()) {
+                log.debug("No sessions are terminated for the back-channel logout task: " + logoutTask.getId());
+            }
+        } finally {
+            phaseTimer.stop();
+        }
+    }
+
+    /**
+     * Get the IdP name the logout outcomes are tracked against. The issuer of the logout token is used if the IdP
+     * could not be resolved.
+     */
+    private String getTrackedIdPName(IdentityProvider identityProvider, String idpIdentifier) {
+
+        if (identityProvider != null && StringUtils.isNotBlank(identityProvider.getIdentityProviderName())) {
+            return identityProvider.getIdentityProviderName();
+        }
+        return idpIdentifier;
     }
 
 
@@ -176,26 +403,36 @@ public class FederatedIdpInitLogoutProcessor extends IdentityProcessor {
         if (log.isDebugEnabled()) {
             log.debug(String.format("Trying federated IdP initiated logout using sid: %s.", sid));
         }
-        List<FederatedUserSession> federatedUserSessionList = getFederatedUserSessionsFromSid(sid);
-        String sessionId = null;
-        for (FederatedUserSession federatedUserSession: federatedUserSessionList) {
-            if (federatedUserSession != null) {
-                sessionId = federatedUserSession.getSessionId();
+        if (!FederatedSidIndex.getInstance().mightContain(sid)) {
+            // The sid does not belong to this deployment, e.g. a logout the IdP broadcasts to all relying parties.
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("No session information found in the index for the sid: %s.", sid));
             }
-            if (StringUtils.isBlank(sessionId)) {
-                return new LogoutResponse.LogoutResponseBuilder(HttpServletResponse.SC_OK, StringUtils.EMPTY);
+            return new LogoutResponse.LogoutResponseBuilder(HttpServletResponse.SC_OK, StringUtils.EMPTY);
+        }
+        List<FederatedUserSession> federatedUserSessionList = getFederatedUserSessionsFromSid(sid);
+        Set<String> sessionIds = new LinkedHashSet<>();
+        if (federatedUserSessionList != null) {
+            for (FederatedUserSession federatedUserSession : federatedUserSessionList) {
+                if (federatedUserSession != null && StringUtils.isNotBlank(federatedUserSession.getSessionId())) {
+                    sessionIds.add(federatedUserSession.getSessionId());
+                }
             }
+        }
+        if (sessionIds.isEmpty()) {
+            return new LogoutResponse.LogoutResponseBuilder(HttpServletResponse.SC_OK, StringUtils.EMPTY);
+        }
 
-            ServerSessionManagementService serverSessionManagementService =
-                    OpenIDConnectAuthenticatorDataHolder.getInstance().getServerSessionManagementService();
+        // The server sessions can only be removed one by one, while the session mappings are removed in one batch.
+        ServerSessionManagementService serverSessionManagementService =
+                OpenIDConnectAuthenticatorDataHolder.getInstance().getServerSessionManagementService();
+        for (String sessionId : sessionIds) {
             serverSessionManagementService.removeSession(sessionId);
-            removeFederatedIDPSessionMapping(sessionId);
-            if (log.isDebugEnabled()) {
-                log.debug("Session terminated for session Id: " + sessionId);
-            }
         }
-
-
+        removeFederatedIDPSessionMappings(sessionIds);
+        if (log.isDebugEnabled()) {
+            log.debug("Sessions terminated for session Ids: " + sessionIds);
+        }
         return new LogoutResponse.LogoutResponseBuilder(HttpServletResponse.SC_OK,
                 OIDCAuthenticatorConstants.BackchannelLogout.LOGOUT_SUCCESS);
     }
@@ -210,8 +447,7 @@ public class FederatedIdpInitLogoutProcessor extends IdentityProcessor {
     protected FederatedUserSession getFederatedUserSessionFromSid(String sid) throws LogoutServerException {
 
         try {
-            UserSessionDAO userSessionDAO = new UserSessionDAOImpl();
-            FederatedUserSession federatedUserSession = userSessionDAO.getFederatedAuthSessionDetails(sid);
+            FederatedUserSession federatedUserSession = USER_SESSION_DAO.getFederatedAuthSessionDetails(sid);
             if (federatedUserSession == null) {
                 if (log.isDebugEnabled()) {
                     log.debug(String.format("No session information found for the sid: %s. ", sid) + "Probably the " +
@@ -228,8 +464,7 @@ public class FederatedIdpInitLogoutProcessor extends IdentityProcessor {
     protected List<FederatedUserSession> getFederatedUserSessionsFromSid(String sid) throws LogoutServerException {
 
         try {
-            UserSessionDAO userSessionDAO = new UserSessionDAOImpl();
-            List<FederatedUserSession> federatedUserSession = userSessionDAO.getFederatedAuthSessionsDetails(sid);
+            List<FederatedUserSession> federatedUserSession = USER_SESSION_DAO.getFederatedAuthSessionsDetails(sid);
             if (federatedUserSession == null) {
                 if (log.isDebugEnabled()) {
                     log.debug(String.format("No session information found for the sid: %s. ", sid) + "Probably the " +
@@ -290,7 +525,14 @@ public class FederatedIdpInitLogoutProcessor extends IdentityProcessor {
 
         try {
             JWTClaimsSet claimsSet = signedJWT.getJWTClaimsSet();
-            validateSignature(signedJWT, identityProvider);
+            PhaseTimer phaseTimer = PhaseTimer.start(AuthenticatorPhase.LOGOUT_TOKEN_SIGNATURE_VALIDATION,
+                    identityProvider != null ? identityProvider.getIdentityProviderName() : null, null);
+            try {
+                validateSignature(signedJWT, identityProvider);
+                phaseTimer.succeeded();
+            } finally {
+                phaseTimer.stop();
+            }
             validateAudience(claimsSet.getAudience(), identityProvider);
             validateIat(claimsSet.getIssueTime());
             validateEventClaim((JSONObject) claimsSet.getClaim(OIDCAuthenticatorConstants.Claim.EVENTS));
@@ -335,11 +577,17 @@ public class FederatedIdpInitLogoutProcessor extends IdentityProcessor {
 
         try {
             int tenantId = IdentityTenantUtil.getTenantId(tenantDomain);
-            String userId = UserSessionStore.getInstance()
+            FederatedUserIdCache federatedUserIdCache = FederatedUserIdCache.getInstance();
+            String userId = federatedUserIdCache.get(tenantId, identityProvider.getId(), sub);
+            if (userId != null) {
+                return userId;
+            }
+            userId = UserSessionStore.getInstance()
                     .getFederatedUserId(sub, tenantId, Integer.parseInt(identityProvider.getId()));
             if (StringUtils.isBlank(userId)) {
                 throw handleLogoutServerException(ErrorMessages.RETRIEVING_USER_ID_FAILED, sub);
             }
+            federatedUserIdCache.put(tenantId, identityProvider.getId(), sub, userId);
             return userId;
         } catch (UserSessionException e) {
             throw handleLogoutServerException(ErrorMessages.RETRIEVING_USER_ID_FAILED, e, sub);
@@ -552,9 +800,7 @@ public class FederatedIdpInitLogoutProcessor extends IdentityProcessor {
             return false;
         }
 
-        Matcher registerMatcher =
-                OIDC_BACKCHANNEL_LOGOUT_ENDPOINT_URL_PATTERN.matcher(identityRequest.getRequestURI());
-        boolean canHandle = registerMatcher.matches();
+        boolean canHandle = OIDC_BACKCHANNEL_LOGOUT_ENDPOINT_URL_MATCHER.matches(identityRequest.getRequestURI());
 
         if (log.isDebugEnabled()) {
             log.debug("Can handle: " + canHandle + " by OIDC FederatedIdpInitLogoutProcessor.");
@@ -719,10 +965,10 @@ public class FederatedIdpInitLogoutProcessor extends IdentityProcessor {
         return jwtIssuer.equals(issuer) ? residentIdentityProvider : null;
     }
 
-    private void removeFederatedIDPSessionMapping(String sessionID) throws LogoutServerException {
+    private void removeFederatedIDPSessionMappings(Set<String> sessionIds) throws LogoutServerException {
 
         try {
-            UserSessionStore.getInstance().removeFederatedAuthSessionInfo(sessionID);
+            FEDERATED_SESSION_MAPPING_DAO.removeFederatedAuthSessionInfo(sessionIds);
         } catch (UserSessionException e) {
             throw new LogoutServerException("Exception occurred while removing federated IDP session mapping.");
         }
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.metrics;
+
+/**
+ * Phases of the federated login and the back-channel logout flows which are timed per IdP.
+ */
+public enum AuthenticatorPhase {
+
+    PREPARE_LOGIN_PAGE("prepareLoginPage"),
+    REQUEST_ACCESS_TOKEN("requestAccessToken"),
+    GET_OAUTH_RESPONSE("getOauthResponse"),
+    GET_ID_TOKEN_CLAIMS("getIdTokenClaims"),
+    GET_MULTI_ATTRIBUTE_SEPARATOR("getMultiAttributeSeparator"),
+    GET_USER_ID_CLAIM_URI_IN_OIDC_DIALECT("getUserIdClaimUriInOIDCDialect"),
+    SEND_REQUEST("sendRequest"),
+    BUILD_CLAIM_MAPPINGS("buildClaimMappings"),
+    LOGOUT_TOKEN_VALIDATION("logoutTokenValidation"),
+    LOGOUT_TOKEN_SIGNATURE_VALIDATION("logoutTokenSignatureValidation"),
+    LOGOUT_IDP_LOOKUP("logoutIdPLookup"),
+    LOGOUT_SESSION_TERMINATION("logoutSessionTermination");
+
+    private final String phaseName;
+
+    AuthenticatorPhase(String phaseName) {
+
+        this.phaseName = phaseName;
+    }
+
+    public String getPhaseName() {
+
+        return phaseName;
+    }
+
+    /**
+     * Get the phase for the given phase name.
+     *
+     * @param phaseName Name of the phase.
+     * @return Phase or null if there is no phase with the given name.
+     */
+    public static AuthenticatorPhase fromPhaseName(String phaseName) {
+
+        for (AuthenticatorPhase phase : values()) {
+            if (phase.phaseName.equals(phaseName)) {
+                return phase;
+            }
+        }
+        return null;
+    }
+}
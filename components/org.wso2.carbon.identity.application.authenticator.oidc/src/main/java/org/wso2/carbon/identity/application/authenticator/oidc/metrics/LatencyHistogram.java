@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with log-linear buckets. Every power of two microseconds is split into eight linear
+ * sub buckets, hence the recorded percentiles are accurate within 12.5%. Latencies are recorded in microseconds up to
+ * about two hours, larger values are kept in the last bucket.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 32;
+    static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    /**
+     * Record a latency.
+     *
+     * @param nanos Latency in nanoseconds.
+     */
+    public void record(long nanos) {
+
+        long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+        buckets.incrementAndGet(bucketIndex(micros));
+        count.increment();
+        totalMicros.add(micros);
+        long max = maxMicros.get();
+        while (micros > max && !maxMicros.compareAndSet(max, micros)) {
+            max = maxMicros.get();
+        }
+    }
+
+    public long getCount() {
+
+        return count.sum();
+    }
+
+    public double getMeanMillis() {
+
+        long currentCount = count.sum();
+        return currentCount == 0 ? 0 : totalMicros.sum() / (currentCount * 1000.0);
+    }
+
+    public double getMaxMillis() {
+
+        return maxMicros.get() / 1000.0;
+    }
+
+    /**
+     * Get the latency below which the given percentage of the recorded latencies fall.
+     *
+     * @param percentile Percentile between 0 and 100.
+     * @return Upper bound of the percentile bucket in milliseconds, capped by the max recorded latency.
+     */
+    public double getPercentileMillis(double percentile) {
+
+        long[] snapshot = new long[BUCKETS];
+        addBucketCounts(snapshot);
+        return getPercentileMillis(snapshot, maxMicros.get(), percentile);
+    }
+
+    /**
+     * Add the bucket counts of this histogram to the given bucket counts, i.e. to merge histograms.
+     *
+     * @param bucketCounts Bucket counts with {@link #BUCKETS} entries.
+     */
+    void addBucketCounts(long[] bucketCounts) {
+
+        for (int i = 0; i < BUCKETS; i++) {
+            bucketCounts[i] += buckets.get(i);
+        }
+    }
+
+    long getMaxMicros() {
+
+        return maxMicros.get();
+    }
+
+    static double getPercentileMillis(long[] bucketCounts, long maxMicros, double percentile) {
+
+        long total = 0;
+        for (long bucketCount : bucketCounts) {
+            total += bucketCount;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += bucketCounts[i];
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), maxMicros) / 1000.0;
+            }
+        }
+        return maxMicros / 1000.0;
+    }
+
+    /**
+     * Clear the recorded latencies. Latencies recorded concurrently with the reset may be partially kept.
+     */
+    public void reset() {
+
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        totalMicros.reset();
+        maxMicros.set(0);
+    }
+
+    static int bucketIndex(long micros) {
+
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long bucketUpperBound(int index) {
+
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        if (index == BUCKETS - 1) {
+            // The last bucket keeps all the latencies beyond the max exponent.
+            return Long.MAX_VALUE;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return ((long) (SUB_BUCKETS + (index % SUB_BUCKETS)) << (exponent - SUB_BUCKET_BITS)) + width - 1;
+    }
+}
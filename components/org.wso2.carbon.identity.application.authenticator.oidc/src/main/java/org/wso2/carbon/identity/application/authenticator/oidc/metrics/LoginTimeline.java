@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.metrics;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Phase timeline of a single federated login callback. The phases are added as they are stopped, with their offset
+ * from the start of the callback, duration, byte size and outcome. A timeline is only modified by the login thread
+ * and is not modified once it is ended.
+ */
+public class LoginTimeline {
+
+    static final int MAX_PHASES = 64;
+
+    private final String idpName;
+    private final String tenantDomain;
+    private final long startEpochMillis;
+    private final long startNanos;
+    private final LoginTimeline previous;
+    private final List<PhaseEntry> phases = new ArrayList<>();
+    private int droppedPhases;
+    private long durationNanos = -1;
+    private String outcome;
+
+    LoginTimeline(String idpName, String tenantDomain, LoginTimeline previous) {
+
+        this.idpName = idpName;
+        this.tenantDomain = tenantDomain;
+        this.previous = previous;
+        this.startEpochMillis = System.currentTimeMillis();
+        this.startNanos = System.nanoTime();
+    }
+
+    void addPhase(PhaseTimer phaseTimer, long endNanos) {
+
+        if (durationNanos >= 0) {
+            return;
+        }
+        if (phases.size() >= MAX_PHASES) {
+            droppedPhases++;
+            return;
+        }
+        phases.add(new PhaseEntry(phaseTimer.getPhase().getPhaseName(), phaseTimer.getDepth(),
+                phaseTimer.getStartNanos() - startNanos, endNanos - phaseTimer.getStartNanos(),
+                phaseTimer.getBytes(), phaseTimer.isSucceeded()));
+    }
+
+    void end(String outcome) {
+
+        this.durationNanos = System.nanoTime() - startNanos;
+        this.outcome = outcome;
+    }
+
+    LoginTimeline getPrevious() {
+
+        return previous;
+    }
+
+    public String getIdpName() {
+
+        return idpName;
+    }
+
+    public String getTenantDomain() {
+
+        return tenantDomain;
+    }
+
+    public long getStartEpochMillis() {
+
+        return startEpochMillis;
+    }
+
+    /**
+     * Get the duration of the callback.
+     *
+     * @return Duration in nanoseconds or -1 if the timeline is not ended.
+     */
+    public long getDurationNanos() {
+
+        return durationNanos;
+    }
+
+    /**
+     * Get the outcome of the callback.
+     *
+     * @return "success", the error code of the failure or "failed" if the failure has no error code.
+     */
+    public String getOutcome() {
+
+        return outcome;
+    }
+
+    /**
+     * Get the phases of the callback in their start order.
+     *
+     * @return Phases.
+     */
+    public List<PhaseEntry> getPhases() {
+
+        List<PhaseEntry> orderedPhases = new ArrayList<>(phases);
+        // Phases are added when they stop, hence the nested phases come before their parents.
+        orderedPhases.sort(Comparator.comparingLong(PhaseEntry::getOffsetNanos)
+                .thenComparingInt(PhaseEntry::getDepth));
+        return Collections.unmodifiableList(orderedPhases);
+    }
+
+    /**
+     * Get a one line summary of the callback.
+     *
+     * @return Summary.
+     */
+    public String getSummary() {
+
+        return String.format("%s idp=%s tenant=%s total=%.3fms outcome=%s phases=%d",
+                Instant.ofEpochMilli(startEpochMillis), idpName, tenantDomain, toMillis(durationNanos), outcome,
+                phases.size() + droppedPhases);
+    }
+
+    /**
+     * Get the summary of the callback followed by a line per phase, indented by the nesting depth of the phase.
+     *
+     * @return Phase breakdown.
+     */
+    public String getBreakdown() {
+
+        StringBuilder breakdown = new StringBuilder(getSummary());
+        for (PhaseEntry phase : getPhases()) {
+            breakdown.append('\n');
+            for (int i = 0; i <= phase.getDepth(); i++) {
+                breakdown.append("  ");
+            }
+            breakdown.append(String.format("+%.3fms %s %.3fms bytes=%d %s", toMillis(phase.getOffsetNanos()),
+                    phase.getPhaseName(), toMillis(phase.getDurationNanos()), phase.getBytes(),
+                    phase.isSucceeded() ? "succeeded" : "failed"));
+        }
+        if (droppedPhases > 0) {
+            breakdown.append("\n  ").append(droppedPhases).append(" more phases are not recorded");
+        }
+        return breakdown.toString();
+    }
+
+    @Override
+    public String toString() {
+
+        return getBreakdown();
+    }
+
+    private static double toMillis(long nanos) {
+
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * A phase of the callback.
+     */
+    public static class PhaseEntry {
+
+        private final String phaseName;
+        private final int depth;
+        private final long offsetNanos;
+        private final long durationNanos;
+        private final long bytes;
+        private final boolean succeeded;
+
+        PhaseEntry(String phaseName, int depth, long offsetNanos, long durationNanos, long bytes,
+                   boolean succeeded) {
+
+            this.phaseName = phaseName;
+            this.depth = depth;
+            this.offsetNanos = offsetNanos;
+            this.durationNanos = durationNanos;
+            this.bytes = bytes;
+            this.succeeded = succeeded;
+        }
+
+        public String getPhaseName() {
+
+            return phaseName;
+        }
+
+        /**
+         * Get the nesting depth of the phase. Phases which are not nested in another phase have the depth 0.
+         *
+         * @return Nesting depth.
+         */
+        public int getDepth() {
+
+            return depth;
+        }
+
+        public long getOffsetNanos() {
+
+            return offsetNanos;
+        }
+
+        public long getDurationNanos() {
+
+            return durationNanos;
+        }
+
+        public long getBytes() {
+
+            return bytes;
+        }
+
+        public boolean isSucceeded() {
+
+            return succeeded;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.metrics;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Per IdP latency histograms of the authenticator phases. Latencies of the IdPs beyond the tracked IdP limit are
+ * recorded under a shared IdP name. Nothing is recorded unless enabled, and the histogram of a phase is only
+ * allocated once a latency is recorded for that phase of the IdP.
+ */
+public class PhaseLatencyMetrics implements PhaseLatencyMetricsMBean {
+
+    public static final String OBJECT_NAME =
+            "org.wso2.carbon.identity.application.authenticator.oidc:type=PhaseLatencyMetrics";
+    static final String UNKNOWN_IDP = "unknown";
+    static final String OTHER_IDPS = "other";
+    private static final int MAX_TRACKED_IDPS = 1024;
+    private static final AuthenticatorPhase[] PHASES = AuthenticatorPhase.values();
+
+    private static final PhaseLatencyMetrics instance = new PhaseLatencyMetrics();
+
+    private final Map<String, AtomicReferenceArray<LatencyHistogram>> histograms = new ConcurrentHashMap<>();
+    private volatile boolean enabled;
+
+    public static PhaseLatencyMetrics getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Record the latency of a phase, measured from the given start time until now.
+     *
+     * @param idpName    Name of the IdP.
+     * @param phase      Timed phase.
+     * @param startNanos Start time of the phase, taken with {@link System#nanoTime()}.
+     */
+    public void record(String idpName, AuthenticatorPhase phase, long startNanos) {
+
+        if (!enabled) {
+            return;
+        }
+        AtomicReferenceArray<LatencyHistogram> idpHistograms = getHistograms(idpName);
+        LatencyHistogram histogram = idpHistograms.get(phase.ordinal());
+        if (histogram == null) {
+            idpHistograms.compareAndSet(phase.ordinal(), null, new LatencyHistogram());
+            histogram = idpHistograms.get(phase.ordinal());
+        }
+        histogram.record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Get the latency histogram of a phase.
+     *
+     * @param idpName Name of the IdP.
+     * @param phase   Timed phase.
+     * @return Latency histogram or null if no latencies are recorded for the phase of the IdP.
+     */
+    public LatencyHistogram getHistogram(String idpName, AuthenticatorPhase phase) {
+
+        AtomicReferenceArray<LatencyHistogram> idpHistograms = idpName == null ? null : histograms.get(idpName);
+        return idpHistograms == null || phase == null ? null : idpHistograms.get(phase.ordinal());
+    }
+
+    @Override
+    public boolean isEnabled() {
+
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+
+        this.enabled = enabled;
+    }
+
+    @Override
+    public String[] getIdentityProviders() {
+
+        return new TreeSet<>(histograms.keySet()).toArray(new String[0]);
+    }
+
+    @Override
+    public String[] getPhases() {
+
+        String[] phaseNames = new String[PHASES.length];
+        for (int i = 0; i < PHASES.length; i++) {
+            phaseNames[i] = PHASES[i].getPhaseName();
+        }
+        return phaseNames;
+    }
+
+    @Override
+    public long getCount(String idpName, String phaseName) {
+
+        LatencyHistogram histogram = getHistogram(idpName, AuthenticatorPhase.fromPhaseName(phaseName));
+        return histogram == null ? 0 : histogram.getCount();
+    }
+
+    @Override
+    public double getMeanMillis(String idpName, String phaseName) {
+
+        LatencyHistogram histogram = getHistogram(idpName, AuthenticatorPhase.fromPhaseName(phaseName));
+        return histogram == null ? 0 : histogram.getMeanMillis();
+    }
+
+    @Override
+    public double getMaxMillis(String idpName, String phaseName) {
+
+        LatencyHistogram histogram = getHistogram(idpName, AuthenticatorPhase.fromPhaseName(phaseName));
+        return histogram == null ? 0 : histogram.getMaxMillis();
+    }
+
+    @Override
+    public double getPercentileMillis(String idpName, String phaseName, double percentile) {
+
+        LatencyHistogram histogram = getHistogram(idpName, AuthenticatorPhase.fromPhaseName(phaseName));
+        return histogram == null ? 0 : histogram.getPercentileMillis(percentile);
+    }
+
+    @Override
+    public String[] getSummary() {
+
+        List<String> summary = new ArrayList<>();
+        for (String idpName : getIdentityProviders()) {
+            for (AuthenticatorPhase phase : PHASES) {
+                LatencyHistogram histogram = getHistogram(idpName, phase);
+                if (histogram == null || histogram.getCount() == 0) {
+                    continue;
+                }
+                summary.add(String.format("idp=%s phase=%s count=%d mean=%.3fms p50=%.3fms p90=%.3fms " +
+                                "p99=%.3fms max=%.3fms", idpName, phase.getPhaseName(), histogram.getCount(),
+                        histogram.getMeanMillis(), histogram.getPercentileMillis(50),
+                        histogram.getPercentileMillis(90), histogram.getPercentileMillis(99),
+                        histogram.getMaxMillis()));
+            }
+        }
+        return summary.toArray(new String[0]);
+    }
+
+    @Override
+    public void reset() {
+
+        histograms.clear();
+    }
+
+    private AtomicReferenceArray<LatencyHistogram> getHistograms(String idpName) {
+
+        String key = StringUtils.isEmpty(idpName) ? UNKNOWN_IDP : idpName;
+        AtomicReferenceArray<LatencyHistogram> idpHistograms = histograms.get(key);
+        if (idpHistograms != null) {
+            return idpHistograms;
+        }
+        if (histograms.size() >= MAX_TRACKED_IDPS) {
+            key = OTHER_IDPS;
+        }
+        return histograms.computeIfAbsent(key, k -> new AtomicReferenceArray<>(PHASES.length));
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.metrics;
+
+/**
+ * JMX interface of the per IdP phase latencies of the OIDC authenticator.
+ */
+public interface PhaseLatencyMetricsMBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    /**
+     * Get the names of the IdPs which have recorded latencies.
+     *
+     * @return IdP names.
+     */
+    String[] getIdentityProviders();
+
+    /**
+     * Get the names of the timed phases.
+     *
+     * @return Phase names.
+     */
+    String[] getPhases();
+
+    long getCount(String idpName, String phaseName);
+
+    double getMeanMillis(String idpName, String phaseName);
+
+    double getMaxMillis(String idpName, String phaseName);
+
+    double getPercentileMillis(String idpName, String phaseName, double percentile);
+
+    /**
+     * Get a summary line per IdP and phase with the count, mean, p50, p90, p99 and max latencies.
+     *
+     * @return Summary lines.
+     */
+    String[] getSummary();
+
+    /**
+     * Clear the recorded latencies.
+     */
+    void reset();
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.metrics;
+
+import org.wso2.carbon.identity.application.authenticator.oidc.jfr.OIDCFlightRecorder;
+import org.wso2.carbon.identity.application.authenticator.oidc.jfr.PhaseEvent;
+import org.wso2.carbon.identity.application.authenticator.oidc.tracing.OIDCTracer;
+import org.wso2.carbon.identity.application.authenticator.oidc.tracing.Span;
+
+/**
+ * Times a single execution of an authenticator phase. Stopping the timer records the latency in
+ * {@link PhaseLatencyMetrics}, commits the flight recorder event of the phase, exports the span of the phase if
+ * tracing is enabled and adds the phase to the {@link SlowLoginRecorder} timeline and to the {@link TrafficRecorder}
+ * capture of the flow in progress, if any.
+ * The timer of the innermost running phase of a thread is available via {@link #current()}, hence nested code can
+ * attach the byte sizes it handles to the phase.
+ * <p>
+ * Usage:
+ * <pre>
+ * PhaseTimer phaseTimer = PhaseTimer.start(phase, idpName, tenantDomain);
+ * try {
+ *     ...
+ *     phaseTimer.succeeded();
+ * } finally {
+ *     phaseTimer.stop();
+ * }
+ * </pre>
+ */
+public class PhaseTimer {
+
+    private static final ThreadLocal<PhaseTimer> CURRENT = new ThreadLocal<>();
+
+    private final AuthenticatorPhase phase;
+    private String idpName;
+    private final String tenantDomain;
+    private final long startNanos;
+    private final PhaseEvent phaseEvent;
+    private final Span span;
+    private final PhaseTimer parent;
+    private final int depth;
+    private long bytes;
+    private boolean succeeded;
+    private boolean stopped;
+
+    private PhaseTimer(AuthenticatorPhase phase, String idpName, String tenantDomain, PhaseTimer parent) {
+
+        this.phase = phase;
+        this.idpName = idpName;
+        this.tenantDomain = tenantDomain;
+        this.parent = parent;
+        this.depth = parent != null ? parent.depth + 1 : 0;
+        this.phaseEvent = OIDCFlightRecorder.begin(phase);
+        this.span = OIDCTracer.startSpan(phase.getPhaseName(), idpName, tenantDomain,
+                parent != null ? parent.span : null);
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Start timing a phase.
+     *
+     * @param phase        Timed phase.
+     * @param idpName      Name of the IdP.
+     * @param tenantDomain Tenant domain of the request.
+     * @return Started timer.
+     */
+    public static PhaseTimer start(AuthenticatorPhase phase, String idpName, String tenantDomain) {
+
+        PhaseTimer phaseTimer = new PhaseTimer(phase, idpName, tenantDomain, CURRENT.get());
+        CURRENT.set(phaseTimer);
+        return phaseTimer;
+    }
+
+    /**
+     * Get the timer of the innermost running phase of the current thread.
+     *
+     * @return Timer or null if no phase is running.
+     */
+    public static PhaseTimer current() {
+
+        return CURRENT.get();
+    }
+
+    /**
+     * Get the W3C traceparent of the innermost running phase of the current thread, to be propagated on the outbound
+     * requests of the phase.
+     *
+     * @return Traceparent header value or null if no phase is running or tracing is disabled.
+     */
+    public static String currentTraceparent() {
+
+        PhaseTimer phaseTimer = CURRENT.get();
+        return phaseTimer != null && phaseTimer.span != null ? phaseTimer.span.getTraceparent() : null;
+    }
+
+    /**
+     * Add the given byte size to the innermost running phase of the current thread, if any.
+     *
+     * @param bytes Byte size.
+     */
+    public static void addBytesToCurrent(long bytes) {
+
+        PhaseTimer phaseTimer = CURRENT.get();
+        if (phaseTimer != null) {
+            phaseTimer.addBytes(bytes);
+        }
+    }
+
+    /**
+     * Set the IdP name, for phases which resolve the IdP.
+     *
+     * @param idpName Name of the IdP.
+     */
+    public void setIdpName(String idpName) {
+
+        this.idpName = idpName;
+    }
+
+    public PhaseTimer addBytes(long bytes) {
+
+        this.bytes += bytes;
+        return this;
+    }
+
+    /**
+     * Mark the phase as succeeded. Phases which are stopped without being marked are recorded as failed.
+     */
+    public void succeeded() {
+
+        this.succeeded = true;
+    }
+
+    /**
+     * Stop timing the phase. Stopping an already stopped timer has no effect.
+     */
+    public void stop() {
+
+        if (stopped) {
+            return;
+        }
+        stopped = true;
+        if (CURRENT.get() == this) {
+            if (parent == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(parent);
+            }
+        }
+        PhaseLatencyMetrics.getInstance().record(idpName, phase, startNanos);
+        long endNanos = System.nanoTime();
+        SlowLoginRecorder.addPhase(this, endNanos);
+        TrafficCapture.addPhase(this, endNanos);
+        if (phaseEvent != null) {
+            phaseEvent.complete(idpName, tenantDomain, bytes, succeeded);
+        }
+        OIDCTracer.endSpan(span, idpName, succeeded, bytes);
+    }
+
+    public AuthenticatorPhase getPhase() {
+
+        return phase;
+    }
+
+    public String getIdpName() {
+
+        return idpName;
+    }
+
+    public String getTenantDomain() {
+
+        return tenantDomain;
+    }
+
+    public long getStartNanos() {
+
+        return startNanos;
+    }
+
+    /**
+     * Get the nesting depth of the phase. Phases which are not nested in another phase have the depth 0.
+     *
+     * @return Nesting depth.
+     */
+    public int getDepth() {
+
+        return depth;
+    }
+
+    /**
+     * Get the span of the phase.
+     *
+     * @return Span or null if tracing is disabled.
+     */
+    public Span getSpan() {
+
+        return span;
+    }
+
+    public long getBytes() {
+
+        return bytes;
+    }
+
+    public boolean isSucceeded() {
+
+        return succeeded;
+    }
+}
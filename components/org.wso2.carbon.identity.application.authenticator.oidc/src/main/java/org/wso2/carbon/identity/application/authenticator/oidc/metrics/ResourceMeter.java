@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.metrics;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Measures the thread CPU time, the allocated bytes and the bytes exchanged with the IdP of a single federated login
+ * or back-channel logout. The meter of the flow in progress on a thread is available via the static methods, hence
+ * the code which talks to the IdP can attach the exchanged bytes to it.
+ */
+public class ResourceMeter {
+
+    private static final ThreadLocal<ResourceMeter> CURRENT = new ThreadLocal<>();
+
+    private final ResourceUsageMetrics resourceUsageMetrics;
+    private final SLOTracker.Flow flow;
+    private final String tenantDomain;
+    private final ResourceMeter previous;
+    private final long startCpuNanos;
+    private final long startAllocatedBytes;
+    private String idpName;
+    private long bytesSent;
+    private long bytesReceived;
+    private boolean stopped;
+
+    private ResourceMeter(ResourceUsageMetrics resourceUsageMetrics, SLOTracker.Flow flow, String idpName,
+                          String tenantDomain, ResourceMeter previous) {
+
+        this.resourceUsageMetrics = resourceUsageMetrics;
+        this.flow = flow;
+        this.idpName = idpName;
+        this.tenantDomain = tenantDomain;
+        this.previous = previous;
+        this.startAllocatedBytes = ThreadResources.getCurrentThreadAllocatedBytes();
+        this.startCpuNanos = ThreadResources.getCurrentThreadCpuTime();
+    }
+
+    static ResourceMeter start(ResourceUsageMetrics resourceUsageMetrics, SLOTracker.Flow flow, String idpName,
+                               String tenantDomain) {
+
+        ResourceMeter resourceMeter = new ResourceMeter(resourceUsageMetrics, flow, idpName, tenantDomain,
+                CURRENT.get());
+        CURRENT.set(resourceMeter);
+        return resourceMeter;
+    }
+
+    /**
+     * Get the meter of the flow in progress on the current thread.
+     *
+     * @return Meter or null if no flow is metered.
+     */
+    public static ResourceMeter current() {
+
+        return CURRENT.get();
+    }
+
+    /**
+     * Add the given byte size to the bytes sent to the IdP in the flow in progress on the current thread, if any.
+     *
+     * @param bytes Byte size.
+     */
+    public static void addBytesSent(long bytes) {
+
+        ResourceMeter resourceMeter = CURRENT.get();
+        if (resourceMeter != null) {
+            resourceMeter.bytesSent += bytes;
+        }
+    }
+
+    /**
+     * Add the given byte size to the bytes received from the IdP in the flow in progress on the current thread, if
+     * any.
+     *
+     * @param bytes Byte size.
+     */
+    public static void addBytesReceived(long bytes) {
+
+        ResourceMeter resourceMeter = CURRENT.get();
+        if (resourceMeter != null) {
+            resourceMeter.bytesReceived += bytes;
+        }
+    }
+
+    /**
+     * Count the bytes read from an IdP response stream against the flow in progress on the current thread. The
+     * stream is returned as it is if no flow is metered.
+     *
+     * @param inputStream Response stream.
+     * @return Counting stream.
+     */
+    public static InputStream countBytesReceived(InputStream inputStream) {
+
+        ResourceMeter resourceMeter = CURRENT.get();
+        return resourceMeter == null ? inputStream : new CountingInputStream(inputStream, resourceMeter);
+    }
+
+    void stop(String resolvedIdpName) {
+
+        if (stopped) {
+            return;
+        }
+        stopped = true;
+        long cpuNanos = startCpuNanos < 0 ? -1 : ThreadResources.getCurrentThreadCpuTime() - startCpuNanos;
+        long allocatedBytes = startAllocatedBytes < 0 ? -1 :
+                ThreadResources.getCurrentThreadAllocatedBytes() - startAllocatedBytes;
+        if (CURRENT.get() == this) {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+        if (resolvedIdpName != null) {
+            idpName = resolvedIdpName;
+        }
+        resourceUsageMetrics.record(tenantDomain, idpName, flow, cpuNanos, allocatedBytes, bytesSent,
+                bytesReceived);
+    }
+
+    public String getIdpName() {
+
+        return idpName;
+    }
+
+    public long getBytesSent() {
+
+        return bytesSent;
+    }
+
+    public long getBytesReceived() {
+
+        return bytesReceived;
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+
+        private final ResourceMeter resourceMeter;
+
+        CountingInputStream(InputStream inputStream, ResourceMeter resourceMeter) {
+
+            super(inputStream);
+            this.resourceMeter = resourceMeter;
+        }
+
+        @Override
+        public int read() throws IOException {
+
+            int value = super.read();
+            if (value >= 0) {
+                resourceMeter.bytesReceived++;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                resourceMeter.bytesReceived += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long length) throws IOException {
+
+            long skipped = super.skip(length);
+            if (skipped > 0) {
+                resourceMeter.bytesReceived += skipped;
+            }
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.metrics;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aggregates the thread CPU time, the allocated bytes and the bytes exchanged with the IdP of the federated logins
+ * and the back-channel logouts per tenant and IdP, hence the IdP configurations which drive the CPU and heap cost can
+ * be identified. Metering is disabled by default.
+ * <p>
+ * Usage:
+ * <pre>
+ * ResourceMeter resourceMeter = ResourceUsageMetrics.getInstance().begin(flow, idpName, tenantDomain);
+ * try {
+ *     ...
+ * } finally {
+ *     ResourceUsageMetrics.getInstance().end(resourceMeter, resolvedIdpName);
+ * }
+ * </pre>
+ */
+public class ResourceUsageMetrics implements ResourceUsageMetricsMBean {
+
+    public static final String OBJECT_NAME =
+            "org.wso2.carbon.identity.application.authenticator.oidc:type=ResourceUsageMetrics";
+    private static final int DEFAULT_MAX_TRACKED_IDPS = 4096;
+    private static final char KEY_SEPARATOR = '/';
+
+    private static final ResourceUsageMetrics instance = new ResourceUsageMetrics();
+
+    private final Map<String, ResourceCounters> counters = new ConcurrentHashMap<>();
+    private final int maxTrackedIdps;
+    private volatile boolean enabled;
+
+    ResourceUsageMetrics() {
+
+        this(DEFAULT_MAX_TRACKED_IDPS);
+    }
+
+    ResourceUsageMetrics(int maxTrackedIdps) {
+
+        this.maxTrackedIdps = maxTrackedIdps;
+    }
+
+    public static ResourceUsageMetrics getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Start metering a flow on the current thread.
+     *
+     * @param flow         Metered flow.
+     * @param idpName      Name of the IdP, if known.
+     * @param tenantDomain Tenant domain of the request.
+     * @return Meter or null if metering is disabled.
+     */
+    public ResourceMeter begin(SLOTracker.Flow flow, String idpName, String tenantDomain) {
+
+        return enabled ? ResourceMeter.start(this, flow, idpName, tenantDomain) : null;
+    }
+
+    /**
+     * Stop metering a flow and record its resource usage.
+     *
+     * @param resourceMeter   Meter returned by {@link #begin(SLOTracker.Flow, String, String)}, can be null.
+     * @param resolvedIdpName Name of the IdP resolved during the flow, or null to keep the name given at the start.
+     */
+    public void end(ResourceMeter resourceMeter, String resolvedIdpName) {
+
+        if (resourceMeter != null) {
+            resourceMeter.stop(resolvedIdpName);
+        }
+    }
+
+    void record(String tenantDomain, String idpName, SLOTracker.Flow flow, long cpuNanos, long allocatedBytes,
+                long bytesSent, long bytesReceived) {
+
+        getCounters(tenantDomain, idpName, flow).record(cpuNanos, allocatedBytes, bytesSent, bytesReceived);
+    }
+
+    @Override
+    public boolean isEnabled() {
+
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+
+        this.enabled = enabled;
+    }
+
+    @Override
+    public boolean isCpuTimeSupported() {
+
+        return ThreadResources.isCpuTimeSupported();
+    }
+
+    @Override
+    public boolean isAllocatedBytesSupported() {
+
+        return ThreadResources.isAllocatedBytesSupported();
+    }
+
+    @Override
+    public String[] getTrackedIdentityProviders() {
+
+        return new TreeSet<>(counters.keySet()).toArray(new String[0]);
+    }
+
+    @Override
+    public long getCount(String tenantDomain, String idpName, String flow) {
+
+        ResourceCounters resourceCounters = counters.get(getKey(tenantDomain, idpName, flow));
+        return resourceCounters == null ? 0 : resourceCounters.count.sum();
+    }
+
+    @Override
+    public double getMeanCpuMillis(String tenantDomain, String idpName, String flow) {
+
+        if (!isCpuTimeSupported()) {
+            return -1;
+        }
+        ResourceCounters resourceCounters = counters.get(getKey(tenantDomain, idpName, flow));
+        return resourceCounters == null ? 0 :
+                resourceCounters.mean(resourceCounters.cpuNanos) / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public double getMeanAllocatedBytes(String tenantDomain, String idpName, String flow) {
+
+        if (!isAllocatedBytesSupported()) {
+            return -1;
+        }
+        ResourceCounters resourceCounters = counters.get(getKey(tenantDomain, idpName, flow));
+        return resourceCounters == null ? 0 : resourceCounters.mean(resourceCounters.allocatedBytes);
+    }
+
+    @Override
+    public long getMaxAllocatedBytes(String tenantDomain, String idpName, String flow) {
+
+        if (!isAllocatedBytesSupported()) {
+            return -1;
+        }
+        ResourceCounters resourceCounters = counters.get(getKey(tenantDomain, idpName, flow));
+        return resourceCounters == null ? 0 : resourceCounters.maxAllocatedBytes.get();
+    }
+
+    @Override
+    public double getMeanBytesSent(String tenantDomain, String idpName, String flow) {
+
+        ResourceCounters resourceCounters = counters.get(getKey(tenantDomain, idpName, flow));
+        return resourceCounters == null ? 0 : resourceCounters.mean(resourceCounters.bytesSent);
+    }
+
+    @Override
+    public double getMeanBytesReceived(String tenantDomain, String idpName, String flow) {
+
+        ResourceCounters resourceCounters = counters.get(getKey(tenantDomain, idpName, flow));
+        return resourceCounters == null ? 0 : resourceCounters.mean(resourceCounters.bytesReceived);
+    }
+
+    @Override
+    public String[] getSummary() {
+
+        List<Map.Entry<String, ResourceCounters>> entries = new ArrayList<>(counters.entrySet());
+        entries.sort((a, b) -> Long.compare(b.getValue().allocatedBytes.sum(), a.getValue().allocatedBytes.sum()));
+        List<String> summary = new ArrayList<>();
+        for (Map.Entry<String, ResourceCounters> entry : entries) {
+            ResourceCounters resourceCounters = entry.getValue();
+            if (resourceCounters.count.sum() == 0) {
+                continue;
+            }
+            summary.add(String.format("%s count=%d cpu=%.3fms allocated=%.0fB maxAllocated=%dB sent=%.0fB " +
+                            "received=%.0fB", entry.getKey(), resourceCounters.count.sum(),
+                    isCpuTimeSupported() ? resourceCounters.mean(resourceCounters.cpuNanos) /
+                            TimeUnit.MILLISECONDS.toNanos(1) : -1,
+                    isAllocatedBytesSupported() ? resourceCounters.mean(resourceCounters.allocatedBytes) : -1,
+                    isAllocatedBytesSupported() ? resourceCounters.maxAllocatedBytes.get() : -1,
+                    resourceCounters.mean(resourceCounters.bytesSent),
+                    resourceCounters.mean(resourceCounters.bytesReceived)));
+        }
+        return summary.toArray(new String[0]);
+    }
+
+    @Override
+    public void reset() {
+
+        counters.clear();
+    }
+
+    private ResourceCounters getCounters(String tenantDomain, String idpName, SLOTracker.Flow flow) {
+
+        String key = getKey(tenantDomain, idpName, flow.getFlowName());
+        ResourceCounters resourceCounters = counters.get(key);
+        if (resourceCounters != null) {
+            return resourceCounters;
+        }
+        if (counters.size() >= maxTrackedIdps) {
+            // A single key per flow, hence the number of tracked keys does not grow with the tenants.
+            key = getKey(PhaseLatencyMetrics.OTHER_IDPS, PhaseLatencyMetrics.OTHER_IDPS, flow.getFlowName());
+        }
+        return counters.computeIfAbsent(key, k -> new ResourceCounters());
+    }
+
+    private static String getKey(String tenantDomain, String idpName, String flow) {
+
+        return StringUtils.defaultIfEmpty(tenantDomain, PhaseLatencyMetrics.UNKNOWN_IDP) + KEY_SEPARATOR +
+                StringUtils.defaultIfEmpty(idpName, PhaseLatencyMetrics.UNKNOWN_IDP) + KEY_SEPARATOR + flow;
+    }
+
+    /**
+     * Resource usage totals of a metered IdP.
+     */
+    private static class ResourceCounters {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder cpuNanos = new LongAdder();
+        private final LongAdder allocatedBytes = new LongAdder();
+        private final LongAccumulator maxAllocatedBytes = new LongAccumulator(Math::max, 0);
+        private final LongAdder bytesSent = new LongAdder();
+        private final LongAdder bytesReceived = new LongAdder();
+
+        private void record(long cpu, long allocated, long sent, long received) {
+
+            count.increment();
+            if (cpu > 0) {
+                cpuNanos.add(cpu);
+            }
+            if (allocated > 0) {
+                allocatedBytes.add(allocated);
+                maxAllocatedBytes.accumulate(allocated);
+            }
+            bytesSent.add(sent);
+            bytesReceived.add(received);
+        }
+
+        private double mean(LongAdder total) {
+
+            long requests = count.sum();
+            return requests == 0 ? 0 : total.sum() / (double) requests;
+        }
+    }
+}
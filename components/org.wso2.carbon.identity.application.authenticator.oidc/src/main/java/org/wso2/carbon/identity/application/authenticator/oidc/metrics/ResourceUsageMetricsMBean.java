@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.metrics;
+
+/**
+ * JMX interface of the per IdP and per tenant resource usage of the federated logins and the back-channel logouts.
+ * The flow param of the operations is either "login" or "logout".
+ */
+public interface ResourceUsageMetricsMBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    /**
+     * Check whether the JVM reports the CPU time of a thread. CPU time figures are -1 otherwise.
+     *
+     * @return True if the thread CPU time is available.
+     */
+    boolean isCpuTimeSupported();
+
+    /**
+     * Check whether the JVM reports the bytes allocated by a thread. Allocated byte figures are -1 otherwise.
+     *
+     * @return True if the thread allocated bytes are available.
+     */
+    boolean isAllocatedBytesSupported();
+
+    /**
+     * Get the metered IdPs as tenantDomain/idpName/flow entries.
+     *
+     * @return Metered IdPs.
+     */
+    String[] getTrackedIdentityProviders();
+
+    long getCount(String tenantDomain, String idpName, String flow);
+
+    double getMeanCpuMillis(String tenantDomain, String idpName, String flow);
+
+    double getMeanAllocatedBytes(String tenantDomain, String idpName, String flow);
+
+    long getMaxAllocatedBytes(String tenantDomain, String idpName, String flow);
+
+    double getMeanBytesSent(String tenantDomain, String idpName, String flow);
+
+    double getMeanBytesReceived(String tenantDomain, String idpName, String flow);
+
+    /**
+     * Get a summary line per metered IdP with the count and the mean CPU time, allocated bytes, bytes sent and bytes
+     * received, ordered by the total allocated bytes.
+     *
+     * @return Summary lines.
+     */
+    String[] getSummary();
+
+    /**
+     * Clear the recorded resource usage.
+     */
+    void reset();
+}
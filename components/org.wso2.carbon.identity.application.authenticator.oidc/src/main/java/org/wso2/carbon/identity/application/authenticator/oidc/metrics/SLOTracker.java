@@ -0,0 +1,451 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.metrics;
+
+import org.apache.commons.lang.StringUtils;
+import org.wso2.carbon.identity.application.authenticator.oidc.util.OIDCErrorConstants.ErrorMessages;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Tracks the outcomes of the federated logins and the back-channel logouts per tenant and IdP over a rolling window.
+ * Failures are classified by the {@link ErrorMessages} code of the error, errors without an authenticator error code
+ * are counted as unclassified. The window is split into time slots of counters and latency histograms, slots are
+ * allocated when a request is first recorded in them and slots older than the window are recycled when the time
+ * moves to them. The latency histogram of a slot has four sub buckets per power of two, hence the percentiles of a
+ * window are accurate within 25%. The IdPs beyond the tracked IdP limit are tracked under a single key per flow
+ * regardless of the tenant. Tracking is disabled by default.
+ */
+public class SLOTracker implements SLOTrackerMBean {
+
+    public static final String OBJECT_NAME = "org.wso2.carbon.identity.application.authenticator.oidc:type=SLOTracker";
+    static final String UNCLASSIFIED = "UNCLASSIFIED";
+    private static final long DEFAULT_SLOT_MILLIS = TimeUnit.SECONDS.toMillis(10);
+    private static final int DEFAULT_SLOTS = 60;
+    private static final int MAX_TRACKED_IDPS = 4096;
+    private static final char KEY_SEPARATOR = '/';
+    private static final int SLOT_SUB_BUCKET_BITS = 2;
+    private static final int SLOT_SUB_BUCKETS = 1 << SLOT_SUB_BUCKET_BITS;
+    private static final int SLOT_MAX_EXPONENT = 32;
+    private static final int SLOT_BUCKETS = (SLOT_MAX_EXPONENT - SLOT_SUB_BUCKET_BITS + 2) * SLOT_SUB_BUCKETS;
+    // Bucket of the latency histogram of a window which has the same upper bound as a bucket of a slot.
+    private static final int[] SLOT_TO_WINDOW_BUCKET = new int[SLOT_BUCKETS];
+    private static final ErrorMessages[] ERRORS = ErrorMessages.values();
+    private static final Map<String, ErrorMessages> ERRORS_BY_CODE = new HashMap<>();
+
+    static {
+        for (ErrorMessages error : ERRORS) {
+            ERRORS_BY_CODE.put(error.getCode(), error);
+        }
+        for (int i = 0; i < SLOT_BUCKETS - 1; i++) {
+            SLOT_TO_WINDOW_BUCKET[i] = LatencyHistogram.bucketIndex(slotBucketUpperBound(i));
+        }
+        SLOT_TO_WINDOW_BUCKET[SLOT_BUCKETS - 1] = LatencyHistogram.BUCKETS - 1;
+    }
+
+    private static final SLOTracker instance = new SLOTracker(DEFAULT_SLOT_MILLIS, DEFAULT_SLOTS,
+            System::currentTimeMillis);
+
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+    private final long slotMillis;
+    private final int slotCount;
+    private final int maxTrackedIdps;
+    private final LongSupplier clock;
+    private volatile boolean enabled;
+
+    /**
+     * Tracked flows.
+     */
+    public enum Flow {
+
+        FEDERATED_LOGIN("login"),
+        BACK_CHANNEL_LOGOUT("logout");
+
+        private final String flowName;
+
+        Flow(String flowName) {
+
+            this.flowName = flowName;
+        }
+
+        public String getFlowName() {
+
+            return flowName;
+        }
+    }
+
+    SLOTracker(long slotMillis, int slotCount, LongSupplier clock) {
+
+        this(slotMillis, slotCount, MAX_TRACKED_IDPS, clock);
+    }
+
+    SLOTracker(long slotMillis, int slotCount, int maxTrackedIdps, LongSupplier clock) {
+
+        this.slotMillis = slotMillis;
+        this.slotCount = slotCount;
+        this.maxTrackedIdps = maxTrackedIdps;
+        this.clock = clock;
+    }
+
+    public static SLOTracker getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Record a successful request.
+     *
+     * @param tenantDomain Tenant domain of the request.
+     * @param idpName      Name of the IdP.
+     * @param flow         Tracked flow.
+     * @param startNanos   Start time of the request, taken with {@link System#nanoTime()}.
+     */
+    public void recordSuccess(String tenantDomain, String idpName, Flow flow, long startNanos) {
+
+        if (!enabled) {
+            return;
+        }
+        getSlot(tenantDomain, idpName, flow).record(-1, System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Record a failed request.
+     *
+     * @param tenantDomain Tenant domain of the request.
+     * @param idpName      Name of the IdP.
+     * @param flow         Tracked flow.
+     * @param errorCode    Error code of the failure.
+     * @param startNanos   Start time of the request, taken with {@link System#nanoTime()}.
+     */
+    public void recordFailure(String tenantDomain, String idpName, Flow flow, String errorCode, long startNanos) {
+
+        if (!enabled) {
+            return;
+        }
+        ErrorMessages error = errorCode == null ? null : ERRORS_BY_CODE.get(errorCode);
+        getSlot(tenantDomain, idpName, flow).record(error == null ? ERRORS.length : error.ordinal(),
+                System.nanoTime() - startNanos);
+    }
+
+    @Override
+    public boolean isEnabled() {
+
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+
+        this.enabled = enabled;
+    }
+
+    @Override
+    public long getWindowSeconds() {
+
+        return TimeUnit.MILLISECONDS.toSeconds(slotMillis * slotCount);
+    }
+
+    @Override
+    public String[] getTrackedIdentityProviders() {
+
+        return new TreeSet<>(windows.keySet()).toArray(new String[0]);
+    }
+
+    @Override
+    public long getRequestCount(String tenantDomain, String idpName, String flow) {
+
+        WindowSnapshot snapshot = getSnapshot(getKey(tenantDomain, idpName, flow));
+        return snapshot == null ? 0 : snapshot.getRequestCount();
+    }
+
+    @Override
+    public double getSuccessRate(String tenantDomain, String idpName, String flow) {
+
+        WindowSnapshot snapshot = getSnapshot(getKey(tenantDomain, idpName, flow));
+        return snapshot == null ? 100 : snapshot.getSuccessRate();
+    }
+
+    @Override
+    public String[] getErrorCounts(String tenantDomain, String idpName, String flow) {
+
+        WindowSnapshot snapshot = getSnapshot(getKey(tenantDomain, idpName, flow));
+        return snapshot == null ? new String[0] : snapshot.getErrorCounts().toArray(new String[0]);
+    }
+
+    @Override
+    public double getLatencyPercentileMillis(String tenantDomain, String idpName, String flow, double percentile) {
+
+        WindowSnapshot snapshot = getSnapshot(getKey(tenantDomain, idpName, flow));
+        return snapshot == null ? 0 : snapshot.getPercentileMillis(percentile);
+    }
+
+    @Override
+    public String[] getDegradedIdentityProviders(double successRateThreshold) {
+
+        List<String> degraded = new ArrayList<>();
+        for (String key : getTrackedIdentityProviders()) {
+            WindowSnapshot snapshot = getSnapshot(key);
+            if (snapshot != null && snapshot.getRequestCount() > 0
+                    && snapshot.getSuccessRate() < successRateThreshold) {
+                degraded.add(key);
+            }
+        }
+        return degraded.toArray(new String[0]);
+    }
+
+    @Override
+    public String[] getSummary() {
+
+        List<String> summary = new ArrayList<>();
+        for (String key : getTrackedIdentityProviders()) {
+            WindowSnapshot snapshot = getSnapshot(key);
+            if (snapshot == null || snapshot.getRequestCount() == 0) {
+                continue;
+            }
+            summary.add(String.format("%s requests=%d successRate=%.2f%% p50=%.3fms p99=%.3fms errors=%s", key,
+                    snapshot.getRequestCount(), snapshot.getSuccessRate(), snapshot.getPercentileMillis(50),
+                    snapshot.getPercentileMillis(99), snapshot.getErrorCounts()));
+        }
+        return summary.toArray(new String[0]);
+    }
+
+    @Override
+    public void reset() {
+
+        windows.clear();
+    }
+
+    private Slot getSlot(String tenantDomain, String idpName, Flow flow) {
+
+        String key = getKey(tenantDomain, idpName, flow.getFlowName());
+        Window window = windows.get(key);
+        if (window == null) {
+            if (windows.size() >= maxTrackedIdps) {
+                // A single key per flow, hence the number of tracked keys does not grow with the tenants.
+                key = getKey(PhaseLatencyMetrics.OTHER_IDPS, PhaseLatencyMetrics.OTHER_IDPS, flow.getFlowName());
+            }
+            window = windows.computeIfAbsent(key, k -> new Window(slotCount));
+        }
+        return window.getSlot(clock.getAsLong() / slotMillis);
+    }
+
+    private WindowSnapshot getSnapshot(String key) {
+
+        Window window = windows.get(key);
+        return window == null ? null : window.getSnapshot(clock.getAsLong() / slotMillis);
+    }
+
+    private static String getKey(String tenantDomain, String idpName, String flow) {
+
+        return StringUtils.defaultIfEmpty(tenantDomain, PhaseLatencyMetrics.UNKNOWN_IDP) + KEY_SEPARATOR +
+                StringUtils.defaultIfEmpty(idpName, PhaseLatencyMetrics.UNKNOWN_IDP) + KEY_SEPARATOR + flow;
+    }
+
+    static int slotBucketIndex(long micros) {
+
+        if (micros < SLOT_SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        if (exponent > SLOT_MAX_EXPONENT) {
+            return SLOT_BUCKETS - 1;
+        }
+        int subBucket = (int) (micros >>> (exponent - SLOT_SUB_BUCKET_BITS)) & (SLOT_SUB_BUCKETS - 1);
+        return (exponent - SLOT_SUB_BUCKET_BITS + 1) * SLOT_SUB_BUCKETS + subBucket;
+    }
+
+    static long slotBucketUpperBound(int index) {
+
+        if (index < SLOT_SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SLOT_SUB_BUCKETS + SLOT_SUB_BUCKET_BITS - 1;
+        long width = 1L << (exponent - SLOT_SUB_BUCKET_BITS);
+        return ((long) (SLOT_SUB_BUCKETS + (index % SLOT_SUB_BUCKETS)) << (exponent - SLOT_SUB_BUCKET_BITS)) +
+                width - 1;
+    }
+
+    /**
+     * Ring of time slots of a tracked IdP. A slot is allocated when a request is first recorded in it.
+     */
+    private static class Window {
+
+        private final AtomicReferenceArray<Slot> slots;
+
+        private Window(int slotCount) {
+
+            slots = new AtomicReferenceArray<>(slotCount);
+        }
+
+        private Slot getSlot(long epoch) {
+
+            int index = (int) (epoch % slots.length());
+            Slot slot = slots.get(index);
+            if (slot == null) {
+                Slot newSlot = new Slot(epoch);
+                if (slots.compareAndSet(index, null, newSlot)) {
+                    return newSlot;
+                }
+                slot = slots.get(index);
+            }
+            if (slot.epoch != epoch) {
+                synchronized (slot) {
+                    if (slot.epoch != epoch) {
+                        slot.clear();
+                        slot.epoch = epoch;
+                    }
+                }
+            }
+            return slot;
+        }
+
+        private WindowSnapshot getSnapshot(long currentEpoch) {
+
+            WindowSnapshot snapshot = new WindowSnapshot();
+            for (int i = 0; i < slots.length(); i++) {
+                Slot slot = slots.get(i);
+                if (slot == null) {
+                    continue;
+                }
+                long epoch = slot.epoch;
+                if (epoch <= currentEpoch && epoch > currentEpoch - slots.length()) {
+                    slot.addTo(snapshot);
+                }
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * Outcomes of a time slot. Index {@code ERRORS.length} of the failure counters keeps the unclassified failures.
+     */
+    private static class Slot {
+
+        private volatile long epoch;
+        private final LongAdder successes = new LongAdder();
+        private final AtomicLongArray failures = new AtomicLongArray(ERRORS.length + 1);
+        private final AtomicLongArray latencyBuckets = new AtomicLongArray(SLOT_BUCKETS);
+        private final AtomicLong maxLatencyMicros = new AtomicLong();
+
+        private Slot(long epoch) {
+
+            this.epoch = epoch;
+        }
+
+        private void record(int errorIndex, long latencyNanos) {
+
+            if (errorIndex < 0) {
+                successes.increment();
+            } else {
+                failures.incrementAndGet(errorIndex);
+            }
+            long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+            latencyBuckets.incrementAndGet(slotBucketIndex(micros));
+            long max = maxLatencyMicros.get();
+            while (micros > max && !maxLatencyMicros.compareAndSet(max, micros)) {
+                max = maxLatencyMicros.get();
+            }
+        }
+
+        private void clear() {
+
+            successes.reset();
+            for (int i = 0; i < failures.length(); i++) {
+                failures.set(i, 0);
+            }
+            for (int i = 0; i < SLOT_BUCKETS; i++) {
+                latencyBuckets.set(i, 0);
+            }
+            maxLatencyMicros.set(0);
+        }
+
+        private void addTo(WindowSnapshot snapshot) {
+
+            snapshot.successes += successes.sum();
+            for (int i = 0; i < failures.length(); i++) {
+                snapshot.failures[i] += failures.get(i);
+            }
+            for (int i = 0; i < SLOT_BUCKETS; i++) {
+                snapshot.latencyBuckets[SLOT_TO_WINDOW_BUCKET[i]] += latencyBuckets.get(i);
+            }
+            snapshot.maxLatencyMicros = Math.max(snapshot.maxLatencyMicros, maxLatencyMicros.get());
+        }
+    }
+
+    /**
+     * Outcomes of a window, aggregated from its time slots.
+     */
+    private static class WindowSnapshot {
+
+        private long successes;
+        private final long[] failures = new long[ERRORS.length + 1];
+        private final long[] latencyBuckets = new long[LatencyHistogram.BUCKETS];
+        private long maxLatencyMicros;
+
+        private long getFailureCount() {
+
+            long failureCount = 0;
+            for (long failure : failures) {
+                failureCount += failure;
+            }
+            return failureCount;
+        }
+
+        private long getRequestCount() {
+
+            return successes + getFailureCount();
+        }
+
+        private double getSuccessRate() {
+
+            long requestCount = getRequestCount();
+            return requestCount == 0 ? 100 : successes * 100.0 / requestCount;
+        }
+
+        private double getPercentileMillis(double percentile) {
+
+            return LatencyHistogram.getPercentileMillis(latencyBuckets, maxLatencyMicros, percentile);
+        }
+
+        private List<String> getErrorCounts() {
+
+            List<String> errorCounts = new ArrayList<>();
+            for (int i = 0; i < failures.length; i++) {
+                if (failures[i] == 0) {
+                    continue;
+                }
+                String errorName = i == ERRORS.length ? UNCLASSIFIED :
+                        ERRORS[i].name() + "(" + ERRORS[i].getCode() + ")";
+                errorCounts.add(errorName + "=" + failures[i]);
+            }
+            return errorCounts;
+        }
+    }
+}
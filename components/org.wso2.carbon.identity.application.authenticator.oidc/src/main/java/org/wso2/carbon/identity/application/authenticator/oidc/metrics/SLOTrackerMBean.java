@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.metrics;
+
+/**
+ * JMX interface of the per IdP and per tenant outcomes of the federated logins and the back-channel logouts. The
+ * flow param of the operations is either "login" or "logout".
+ */
+public interface SLOTrackerMBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    /**
+     * Get the length of the rolling window the outcomes are kept for.
+     *
+     * @return Window length in seconds.
+     */
+    long getWindowSeconds();
+
+    /**
+     * Get the tracked IdPs as tenantDomain/idpName/flow entries.
+     *
+     * @return Tracked IdPs.
+     */
+    String[] getTrackedIdentityProviders();
+
+    long getRequestCount(String tenantDomain, String idpName, String flow);
+
+    /**
+     * Get the percentage of the successful requests within the window.
+     *
+     * @return Success rate percentage, or 100 if there were no requests within the window.
+     */
+    double getSuccessRate(String tenantDomain, String idpName, String flow);
+
+    /**
+     * Get the failure counts within the window, as errorName(errorCode)=count entries.
+     *
+     * @return Failure counts.
+     */
+    String[] getErrorCounts(String tenantDomain, String idpName, String flow);
+
+    double getLatencyPercentileMillis(String tenantDomain, String idpName, String flow, double percentile);
+
+    /**
+     * Get the tracked IdPs with a success rate below the given percentage within the window.
+     *
+     * @param successRateThreshold Minimum success rate percentage.
+     * @return Degraded IdPs as tenantDomain/idpName/flow entries.
+     */
+    String[] getDegradedIdentityProviders(double successRateThreshold);
+
+    /**
+     * Get a summary line per tracked IdP with the request count, success rate, p50 and p99 latencies and the
+     * failure counts within the window.
+     *
+     * @return Summary lines.
+     */
+    String[] getSummary();
+
+    /**
+     * Clear the recorded outcomes.
+     */
+    void reset();
+}
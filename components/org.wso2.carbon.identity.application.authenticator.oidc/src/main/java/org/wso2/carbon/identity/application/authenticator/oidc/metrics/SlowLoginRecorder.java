@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.metrics;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the phase timelines of the federated login callbacks which take longer than a threshold, in a bounded ring
+ * buffer, hence slow logins can be diagnosed after the fact. The timeline of a callback is collected from the
+ * {@link PhaseTimer}s stopped on the login thread while the callback is in progress. Recording is disabled by
+ * default.
+ * <p>
+ * Usage:
+ * <pre>
+ * LoginTimeline loginTimeline = SlowLoginRecorder.getInstance().begin(idpName, tenantDomain);
+ * try {
+ *     ...
+ * } finally {
+ *     SlowLoginRecorder.getInstance().end(loginTimeline, succeeded, errorCode);
+ * }
+ * </pre>
+ */
+public class SlowLoginRecorder implements SlowLoginRecorderMBean {
+
+    public static final String OBJECT_NAME =
+            "org.wso2.carbon.identity.application.authenticator.oidc:type=SlowLoginRecorder";
+    static final String SUCCESS = "success";
+    static final String FAILED = "failed";
+
+    private static final ThreadLocal<LoginTimeline> CURRENT = new ThreadLocal<>();
+    private static final long DEFAULT_THRESHOLD_MILLIS = 5000;
+    private static final int DEFAULT_CAPACITY = 100;
+
+    private static final SlowLoginRecorder instance = new SlowLoginRecorder(DEFAULT_THRESHOLD_MILLIS,
+            DEFAULT_CAPACITY);
+
+    private final LongAdder slowLoginCount = new LongAdder();
+    private volatile boolean enabled;
+    private volatile long thresholdNanos;
+    private LoginTimeline[] buffer;
+    private int next;
+    private int size;
+
+    SlowLoginRecorder(long thresholdMillis, int capacity) {
+
+        setThresholdMillis(thresholdMillis);
+        this.buffer = new LoginTimeline[capacity];
+    }
+
+    public static SlowLoginRecorder getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Set the threshold and the capacity of the recorder. Changing the capacity clears the kept slow logins.
+     *
+     * @param thresholdMillis Duration in milliseconds above which a callback is recorded. Recording is disabled if
+     *                        the threshold is not positive.
+     * @param capacity        Maximum number of slow logins kept.
+     */
+    public synchronized void configure(long thresholdMillis, int capacity) {
+
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Slow login buffer capacity should be a positive value.");
+        }
+        setThresholdMillis(thresholdMillis);
+        if (capacity != buffer.length) {
+            buffer = new LoginTimeline[capacity];
+            next = 0;
+            size = 0;
+        }
+    }
+
+    /**
+     * Start collecting the timeline of a login callback on the current thread.
+     *
+     * @param idpName      Name of the IdP.
+     * @param tenantDomain Tenant domain of the request.
+     * @return Timeline or null if recording is disabled.
+     */
+    public LoginTimeline begin(String idpName, String tenantDomain) {
+
+        if (!enabled || thresholdNanos <= 0) {
+            return null;
+        }
+        LoginTimeline loginTimeline = new LoginTimeline(idpName, tenantDomain, CURRENT.get());
+        CURRENT.set(loginTimeline);
+        return loginTimeline;
+    }
+
+    /**
+     * Stop collecting the timeline of a login callback and keep it if the callback took longer than the threshold.
+     *
+     * @param loginTimeline Timeline returned by {@link #begin(String, String)}, can be null.
+     * @param succeeded     Whether the callback succeeded.
+     * @param errorCode     Error code of the failure, if any.
+     */
+    public void end(LoginTimeline loginTimeline, boolean succeeded, String errorCode) {
+
+        if (loginTimeline == null) {
+            return;
+        }
+        if (CURRENT.get() == loginTimeline) {
+            if (loginTimeline.getPrevious() == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(loginTimeline.getPrevious());
+            }
+        }
+        loginTimeline.end(succeeded ? SUCCESS : StringUtils.defaultIfEmpty(errorCode, FAILED));
+        long threshold = thresholdNanos;
+        if (threshold > 0 && loginTimeline.getDurationNanos() >= threshold) {
+            keep(loginTimeline);
+        }
+    }
+
+    /**
+     * Add a stopped phase to the timeline of the login callback in progress on the current thread, if any.
+     *
+     * @param phaseTimer Stopped phase timer.
+     * @param endNanos   Stop time of the phase, taken with {@link System#nanoTime()}.
+     */
+    static void addPhase(PhaseTimer phaseTimer, long endNanos) {
+
+        LoginTimeline loginTimeline = CURRENT.get();
+        if (loginTimeline != null) {
+            loginTimeline.addPhase(phaseTimer, endNanos);
+        }
+    }
+
+    /**
+     * Get the kept slow logins, oldest first.
+     *
+     * @return Timelines of the slow logins.
+     */
+    public synchronized List<LoginTimeline> getLoginTimelines() {
+
+        List<LoginTimeline> loginTimelines = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            loginTimelines.add(buffer[(next - size + i + buffer.length) % buffer.length]);
+        }
+        return loginTimelines;
+    }
+
+    @Override
+    public boolean isEnabled() {
+
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+
+        this.enabled = enabled;
+    }
+
+    @Override
+    public long getThresholdMillis() {
+
+        return TimeUnit.NANOSECONDS.toMillis(thresholdNanos);
+    }
+
+    @Override
+    public void setThresholdMillis(long thresholdMillis) {
+
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+    }
+
+    @Override
+    public synchronized int getCapacity() {
+
+        return buffer.length;
+    }
+
+    @Override
+    public long getSlowLoginCount() {
+
+        return slowLoginCount.sum();
+    }
+
+    @Override
+    public String[] getSlowLogins() {
+
+        List<LoginTimeline> loginTimelines = getLoginTimelines();
+        String[] slowLogins = new String[loginTimelines.size()];
+        for (int i = 0; i < slowLogins.length; i++) {
+            slowLogins[i] = loginTimelines.get(i).getSummary();
+        }
+        return slowLogins;
+    }
+
+    @Override
+    public String dumpSlowLogins() {
+
+        StringBuilder dump = new StringBuilder();
+        for (LoginTimeline loginTimeline : getLoginTimelines()) {
+            if (dump.length() > 0) {
+                dump.append("\n\n");
+            }
+            dump.append(loginTimeline.getBreakdown());
+        }
+        return dump.toString();
+    }
+
+    @Override
+    public synchronized void reset() {
+
+        for (int i = 0; i < buffer.length; i++) {
+            buffer[i] = null;
+        }
+        next = 0;
+        size = 0;
+        slowLoginCount.reset();
+    }
+
+    private synchronized void keep(LoginTimeline loginTimeline) {
+
+        buffer[next] = loginTimeline;
+        next = (next + 1) % buffer.length;
+        if (size < buffer.length) {
+            size++;
+        }
+        slowLoginCount.increment();
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.metrics;
+
+/**
+ * JMX interface of the slow federated login recorder of the OIDC authenticator.
+ */
+public interface SlowLoginRecorderMBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    /**
+     * Get the duration above which a login callback is recorded.
+     *
+     * @return Threshold in milliseconds. Recording is disabled if the threshold is not positive.
+     */
+    long getThresholdMillis();
+
+    void setThresholdMillis(long thresholdMillis);
+
+    /**
+     * Get the maximum number of slow logins kept.
+     *
+     * @return Capacity of the buffer.
+     */
+    int getCapacity();
+
+    /**
+     * Get the number of slow logins recorded, including the ones evicted from the buffer.
+     *
+     * @return Slow login count.
+     */
+    long getSlowLoginCount();
+
+    /**
+     * Get a summary line per kept slow login, oldest first.
+     *
+     * @return Summary lines.
+     */
+    String[] getSlowLogins();
+
+    /**
+     * Dump the phase breakdown of the kept slow logins, oldest first.
+     *
+     * @return Phase breakdowns.
+     */
+    String dumpSlowLogins();
+
+    /**
+     * Clear the kept slow logins.
+     */
+    void reset();
+}
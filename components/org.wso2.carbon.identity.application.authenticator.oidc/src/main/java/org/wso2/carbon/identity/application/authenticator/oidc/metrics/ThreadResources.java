@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.metrics;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Reads the CPU time and the allocated bytes of the current thread. The allocated bytes are only available on JVMs
+ * which provide the com.sun.management extension of the thread MX bean.
+ */
+final class ThreadResources {
+
+    private static final Log LOG = LogFactory.getLog(ThreadResources.class);
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_TIME_SUPPORTED = isCpuTimeAvailable();
+    private static final boolean ALLOCATED_BYTES_SUPPORTED = isAllocatedBytesAvailable();
+
+    private ThreadResources() {
+
+    }
+
+    static boolean isCpuTimeSupported() {
+
+        return CPU_TIME_SUPPORTED;
+    }
+
+    static boolean isAllocatedBytesSupported() {
+
+        return ALLOCATED_BYTES_SUPPORTED;
+    }
+
+    /**
+     * Get the CPU time of the current thread.
+     *
+     * @return CPU time in nanoseconds or -1 if not supported.
+     */
+    static long getCurrentThreadCpuTime() {
+
+        return CPU_TIME_SUPPORTED ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : -1;
+    }
+
+    /**
+     * Get the bytes allocated by the current thread.
+     *
+     * @return Allocated bytes or -1 if not supported.
+     */
+    static long getCurrentThreadAllocatedBytes() {
+
+        return ALLOCATED_BYTES_SUPPORTED ? HotSpotThreadMXBean.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    private static boolean isCpuTimeAvailable() {
+
+        try {
+            return THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported() && THREAD_MX_BEAN.isThreadCpuTimeEnabled();
+        } catch (UnsupportedOperationException e) {
+            return false;
+        }
+    }
+
+    private static boolean isAllocatedBytesAvailable() {
+
+        try {
+            return HotSpotThreadMXBean.isSupported();
+        } catch (LinkageError e) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Thread allocated bytes are not available in this JVM.", e);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Kept in a separate class, hence the com.sun.management classes are only loaded when available.
+     */
+    private static final class HotSpotThreadMXBean {
+
+        private static final com.sun.management.ThreadMXBean SUN_THREAD_MX_BEAN =
+                THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean ?
+                        (com.sun.management.ThreadMXBean) THREAD_MX_BEAN : null;
+
+        private HotSpotThreadMXBean() {
+
+        }
+
+        static boolean isSupported() {
+
+            return SUN_THREAD_MX_BEAN != null && SUN_THREAD_MX_BEAN.isThreadAllocatedMemorySupported() &&
+                    SUN_THREAD_MX_BEAN.isThreadAllocatedMemoryEnabled();
+        }
+
+        static long getCurrentThreadAllocatedBytes() {
+
+            return SUN_THREAD_MX_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects the shape of a single federated login callback or back-channel logout for the {@link TrafficRecorder}.
+ * The capture of the flow in progress on a thread is available via the static methods, hence the code which handles
+ * the tokens and the user info can attach their sizes to it. Only sizes and counts are kept, never the values.
+ */
+public class TrafficCapture {
+
+    private static final ThreadLocal<TrafficCapture> CURRENT = new ThreadLocal<>();
+
+    private final TrafficRecorder trafficRecorder;
+    private final TrafficCapture previous;
+    private final String tenantDomain;
+    private final long startNanos;
+    private final TrafficRecord.Builder builder;
+    private String idpName;
+    private String failedPhase;
+    private boolean stopped;
+
+    private TrafficCapture(TrafficRecorder trafficRecorder, SLOTracker.Flow flow, String idpName,
+                           String tenantDomain, TrafficCapture previous) {
+
+        this.trafficRecorder = trafficRecorder;
+        this.idpName = idpName;
+        this.tenantDomain = tenantDomain;
+        this.previous = previous;
+        this.builder = new TrafficRecord.Builder(flow).startMillis(System.currentTimeMillis());
+        this.startNanos = System.nanoTime();
+    }
+
+    static TrafficCapture start(TrafficRecorder trafficRecorder, SLOTracker.Flow flow, String idpName,
+                                String tenantDomain) {
+
+        TrafficCapture trafficCapture = new TrafficCapture(trafficRecorder, flow, idpName, tenantDomain,
+                CURRENT.get());
+        CURRENT.set(trafficCapture);
+        return trafficCapture;
+    }
+
+    /**
+     * Get the capture of the flow in progress on the current thread.
+     *
+     * @return Capture or null if no flow is captured.
+     */
+    public static TrafficCapture current() {
+
+        return CURRENT.get();
+    }
+
+    /**
+     * Record the tokens returned by the token endpoint in the capture of the current thread, if any.
+     *
+     * @param accessTokenBytes Byte size of the access token.
+     * @param idTokenBytes     Byte size of the ID token.
+     */
+    public static void recordTokens(int accessTokenBytes, int idTokenBytes) {
+
+        TrafficCapture trafficCapture = CURRENT.get();
+        if (trafficCapture != null) {
+            trafficCapture.builder.tokens(accessTokenBytes, idTokenBytes);
+        }
+    }
+
+    /**
+     * Record the number of claims of the ID token in the capture of the current thread, if any.
+     *
+     * @param claimCount Number of claims.
+     */
+    public static void recordIdTokenClaims(int claimCount) {
+
+        TrafficCapture trafficCapture = CURRENT.get();
+        if (trafficCapture != null) {
+            trafficCapture.builder.idTokenClaims(claimCount);
+        }
+    }
+
+    /**
+     * Record the user info response in the capture of the current thread, if any.
+     *
+     * @param userInfoBytes  Byte size of the user info response.
+     * @param userInfoClaims Number of claims of the user info response.
+     */
+    public static void recordUserInfo(int userInfoBytes, int userInfoClaims) {
+
+        TrafficCapture trafficCapture = CURRENT.get();
+        if (trafficCapture != null) {
+            trafficCapture.builder.userInfo(userInfoBytes, userInfoClaims);
+        }
+    }
+
+    /**
+     * Record the logout token of a back-channel logout in the capture of the current thread, if any.
+     *
+     * @param logoutTokenBytes  Byte size of the logout token.
+     * @param logoutTokenClaims Number of claims of the logout token.
+     * @param sessionClaim      Claim which identifies the sessions, i.e. sid or sub.
+     */
+    public static void recordLogoutToken(int logoutTokenBytes, int logoutTokenClaims, String sessionClaim) {
+
+        TrafficCapture trafficCapture = CURRENT.get();
+        if (trafficCapture != null) {
+            trafficCapture.builder.logoutToken(logoutTokenBytes, logoutTokenClaims, sessionClaim);
+        }
+    }
+
+    /**
+     * Add a stopped phase to the capture of the current thread, if any.
+     *
+     * @param phaseTimer Stopped phase timer.
+     * @param endNanos   Stop time of the phase, taken with {@link System#nanoTime()}.
+     */
+    static void addPhase(PhaseTimer phaseTimer, long endNanos) {
+
+        TrafficCapture trafficCapture = CURRENT.get();
+        if (trafficCapture == null) {
+            return;
+        }
+        String phaseName = phaseTimer.getPhase().getPhaseName();
+        trafficCapture.builder.addPhaseMicros(phaseName,
+                TimeUnit.NANOSECONDS.toMicros(endNanos - phaseTimer.getStartNanos()));
+        if (!phaseTimer.isSucceeded() && trafficCapture.failedPhase == null) {
+            trafficCapture.failedPhase = phaseName;
+        }
+    }
+
+    /**
+     * Detach the capture from the current thread, hence it can be stopped by another thread which completes the
+     * flow. The sizes and phases of the current thread are no longer added to it.
+     */
+    public void detach() {
+
+        if (CURRENT.get() == this) {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Attach a detached capture to the current thread again, e.g. once the flow is not handed over.
+     */
+    public void attach() {
+
+        if (!stopped) {
+            CURRENT.set(this);
+        }
+    }
+
+    void stop(String resolvedIdpName, String errorCode) {
+
+        if (stopped) {
+            return;
+        }
+        stopped = true;
+        long durationNanos = System.nanoTime() - startNanos;
+        detach();
+        if (resolvedIdpName != null) {
+            idpName = resolvedIdpName;
+        }
+        builder.tenant(trafficRecorder.pseudonymize(TrafficRecorder.TENANT_PREFIX, tenantDomain))
+                .idp(trafficRecorder.pseudonymize(TrafficRecorder.IDP_PREFIX, idpName))
+                .durationMicros(TimeUnit.NANOSECONDS.toMicros(durationNanos))
+                .failure(errorCode == null ? null : failedPhase, errorCode);
+        trafficRecorder.keep(builder.build());
+    }
+}
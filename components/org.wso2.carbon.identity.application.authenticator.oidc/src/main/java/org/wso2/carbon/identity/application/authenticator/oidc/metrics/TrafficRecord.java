@@ -0,0 +1,414 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.metrics;
+
+import net.minidev.json.JSONObject;
+import net.minidev.json.JSONValue;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Shape of a single federated login callback or back-channel logout, as captured by the {@link TrafficRecorder}.
+ * A record carries no secrets and no user identifiers: the IdP and the tenant are pseudonyms, and the tokens, the
+ * user info and the logout token are described by their byte sizes and claim counts only. Records are serialized as
+ * single line JSON objects, hence a capture is a JSON lines document.
+ */
+public class TrafficRecord {
+
+    private static final String FLOW = "flow";
+    private static final String START_MILLIS = "startMillis";
+    private static final String TENANT = "tenant";
+    private static final String IDP = "idp";
+    private static final String DURATION_MICROS = "durationMicros";
+    private static final String PHASE_MICROS = "phaseMicros";
+    private static final String FAILED_PHASE = "failedPhase";
+    private static final String ERROR_CODE = "errorCode";
+    private static final String ACCESS_TOKEN_BYTES = "accessTokenBytes";
+    private static final String ID_TOKEN_BYTES = "idTokenBytes";
+    private static final String ID_TOKEN_CLAIMS = "idTokenClaims";
+    private static final String USER_INFO_BYTES = "userInfoBytes";
+    private static final String USER_INFO_CLAIMS = "userInfoClaims";
+    private static final String LOGOUT_TOKEN_BYTES = "logoutTokenBytes";
+    private static final String LOGOUT_TOKEN_CLAIMS = "logoutTokenClaims";
+    private static final String SESSION_CLAIM = "sessionClaim";
+
+    private final SLOTracker.Flow flow;
+    private final long startMillis;
+    private final String tenant;
+    private final String idp;
+    private final long durationMicros;
+    private final Map<String, Long> phaseMicros;
+    private final String failedPhase;
+    private final String errorCode;
+    private final int accessTokenBytes;
+    private final int idTokenBytes;
+    private final int idTokenClaims;
+    private final int userInfoBytes;
+    private final int userInfoClaims;
+    private final int logoutTokenBytes;
+    private final int logoutTokenClaims;
+    private final String sessionClaim;
+
+    private TrafficRecord(Builder builder) {
+
+        this.flow = builder.flow;
+        this.startMillis = builder.startMillis;
+        this.tenant = builder.tenant;
+        this.idp = builder.idp;
+        this.durationMicros = builder.durationMicros;
+        this.phaseMicros = Collections.unmodifiableMap(new LinkedHashMap<>(builder.phaseMicros));
+        this.failedPhase = builder.failedPhase;
+        this.errorCode = builder.errorCode;
+        this.accessTokenBytes = builder.accessTokenBytes;
+        this.idTokenBytes = builder.idTokenBytes;
+        this.idTokenClaims = builder.idTokenClaims;
+        this.userInfoBytes = builder.userInfoBytes;
+        this.userInfoClaims = builder.userInfoClaims;
+        this.logoutTokenBytes = builder.logoutTokenBytes;
+        this.logoutTokenClaims = builder.logoutTokenClaims;
+        this.sessionClaim = builder.sessionClaim;
+    }
+
+    /**
+     * Parse a record serialized with {@link #toJson()}.
+     *
+     * @param json JSON object of the record.
+     * @return Record.
+     * @throws IllegalArgumentException If the JSON is not a record.
+     */
+    public static TrafficRecord fromJson(String json) {
+
+        Object parsed = JSONValue.parse(json);
+        if (!(parsed instanceof JSONObject)) {
+            throw new IllegalArgumentException("Traffic record is not a JSON object: " + json);
+        }
+        JSONObject object = (JSONObject) parsed;
+        SLOTracker.Flow flow = null;
+        for (SLOTracker.Flow value : SLOTracker.Flow.values()) {
+            if (value.getFlowName().equals(object.getAsString(FLOW))) {
+                flow = value;
+            }
+        }
+        if (flow == null) {
+            throw new IllegalArgumentException("Unknown flow of the traffic record: " + object.getAsString(FLOW));
+        }
+        Builder builder = new Builder(flow)
+                .startMillis(getLong(object, START_MILLIS))
+                .tenant(object.getAsString(TENANT))
+                .idp(object.getAsString(IDP))
+                .durationMicros(getLong(object, DURATION_MICROS))
+                .failure(object.getAsString(FAILED_PHASE), object.getAsString(ERROR_CODE))
+                .tokens((int) getLong(object, ACCESS_TOKEN_BYTES), (int) getLong(object, ID_TOKEN_BYTES))
+                .idTokenClaims((int) getLong(object, ID_TOKEN_CLAIMS))
+                .userInfo((int) getLong(object, USER_INFO_BYTES), (int) getLong(object, USER_INFO_CLAIMS))
+                .logoutToken((int) getLong(object, LOGOUT_TOKEN_BYTES), (int) getLong(object, LOGOUT_TOKEN_CLAIMS),
+                        object.getAsString(SESSION_CLAIM));
+        Object phases = object.get(PHASE_MICROS);
+        if (phases instanceof Map) {
+            for (Map.Entry<?, ?> phase : ((Map<?, ?>) phases).entrySet()) {
+                if (phase.getValue() instanceof Number) {
+                    builder.addPhaseMicros(String.valueOf(phase.getKey()), ((Number) phase.getValue()).longValue());
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Serialize the record as a single line JSON object. Sizes and counts which were not observed are omitted.
+     *
+     * @return JSON object of the record.
+     */
+    public String toJson() {
+
+        JSONObject object = new JSONObject();
+        object.put(FLOW, flow.getFlowName());
+        object.put(START_MILLIS, startMillis);
+        object.put(TENANT, tenant);
+        object.put(IDP, idp);
+        object.put(DURATION_MICROS, durationMicros);
+        object.put(PHASE_MICROS, new JSONObject(phaseMicros));
+        putIfPresent(object, FAILED_PHASE, failedPhase);
+        putIfPresent(object, ERROR_CODE, errorCode);
+        putIfPositive(object, ACCESS_TOKEN_BYTES, accessTokenBytes);
+        putIfPositive(object, ID_TOKEN_BYTES, idTokenBytes);
+        putIfPositive(object, ID_TOKEN_CLAIMS, idTokenClaims);
+        putIfPositive(object, USER_INFO_BYTES, userInfoBytes);
+        putIfPositive(object, USER_INFO_CLAIMS, userInfoClaims);
+        putIfPositive(object, LOGOUT_TOKEN_BYTES, logoutTokenBytes);
+        putIfPositive(object, LOGOUT_TOKEN_CLAIMS, logoutTokenClaims);
+        putIfPresent(object, SESSION_CLAIM, sessionClaim);
+        return object.toJSONString();
+    }
+
+    public SLOTracker.Flow getFlow() {
+
+        return flow;
+    }
+
+    public long getStartMillis() {
+
+        return startMillis;
+    }
+
+    /**
+     * Get the pseudonym of the tenant domain.
+     *
+     * @return Tenant pseudonym.
+     */
+    public String getTenant() {
+
+        return tenant;
+    }
+
+    /**
+     * Get the pseudonym of the IdP.
+     *
+     * @return IdP pseudonym.
+     */
+    public String getIdp() {
+
+        return idp;
+    }
+
+    public long getDurationMicros() {
+
+        return durationMicros;
+    }
+
+    /**
+     * Get the total duration of each phase of the flow, keyed by the phase name. The durations of the nested phases
+     * are included in the durations of their parents as well.
+     *
+     * @return Phase durations in microseconds.
+     */
+    public Map<String, Long> getPhaseMicros() {
+
+        return phaseMicros;
+    }
+
+    /**
+     * Get the total duration of a phase of the flow.
+     *
+     * @param phase Phase.
+     * @return Duration in microseconds or 0 if the phase did not run.
+     */
+    public long getPhaseMicros(AuthenticatorPhase phase) {
+
+        Long micros = phaseMicros.get(phase.getPhaseName());
+        return micros == null ? 0 : micros;
+    }
+
+    /**
+     * Get the first phase of the flow which failed.
+     *
+     * @return Phase name or null if no phase failed.
+     */
+    public String getFailedPhase() {
+
+        return failedPhase;
+    }
+
+    /**
+     * Get the error code of the flow.
+     *
+     * @return Error code, "failed" if the failure has no error code, or null if the flow succeeded.
+     */
+    public String getErrorCode() {
+
+        return errorCode;
+    }
+
+    public boolean isSucceeded() {
+
+        return errorCode == null;
+    }
+
+    public int getAccessTokenBytes() {
+
+        return accessTokenBytes;
+    }
+
+    public int getIdTokenBytes() {
+
+        return idTokenBytes;
+    }
+
+    public int getIdTokenClaims() {
+
+        return idTokenClaims;
+    }
+
+    public int getUserInfoBytes() {
+
+        return userInfoBytes;
+    }
+
+    public int getUserInfoClaims() {
+
+        return userInfoClaims;
+    }
+
+    public int getLogoutTokenBytes() {
+
+        return logoutTokenBytes;
+    }
+
+    public int getLogoutTokenClaims() {
+
+        return logoutTokenClaims;
+    }
+
+    /**
+     * Get the claim of the logout token which identified the sessions.
+     *
+     * @return "sid", "sub" or null for the login callbacks.
+     */
+    public String getSessionClaim() {
+
+        return sessionClaim;
+    }
+
+    private static long getLong(JSONObject object, String key) {
+
+        Object value = object.get(key);
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+
+    private static void putIfPresent(JSONObject object, String key, String value) {
+
+        if (value != null) {
+            object.put(key, value);
+        }
+    }
+
+    private static void putIfPositive(JSONObject object, String key, int value) {
+
+        if (value > 0) {
+            object.put(key, value);
+        }
+    }
+
+    /**
+     * Builder of the traffic records.
+     */
+    public static class Builder {
+
+        private final SLOTracker.Flow flow;
+        private final Map<String, Long> phaseMicros = new LinkedHashMap<>();
+        private long startMillis;
+        private String tenant;
+        private String idp;
+        private long durationMicros;
+        private String failedPhase;
+        private String errorCode;
+        private int accessTokenBytes;
+        private int idTokenBytes;
+        private int idTokenClaims;
+        private int userInfoBytes;
+        private int userInfoClaims;
+        private int logoutTokenBytes;
+        private int logoutTokenClaims;
+        private String sessionClaim;
+
+        public Builder(SLOTracker.Flow flow) {
+
+            this.flow = flow;
+        }
+
+        public Builder startMillis(long startMillis) {
+
+            this.startMillis = startMillis;
+            return this;
+        }
+
+        public Builder tenant(String tenant) {
+
+            this.tenant = tenant;
+            return this;
+        }
+
+        public Builder idp(String idp) {
+
+            this.idp = idp;
+            return this;
+        }
+
+        public Builder durationMicros(long durationMicros) {
+
+            this.durationMicros = durationMicros;
+            return this;
+        }
+
+        /**
+         * Add the duration of a phase execution. The durations of the repeated executions of a phase are summed.
+         *
+         * @param phaseName Name of the phase.
+         * @param micros    Duration in microseconds.
+         * @return This builder.
+         */
+        public Builder addPhaseMicros(String phaseName, long micros) {
+
+            phaseMicros.merge(phaseName, micros, Long::sum);
+            return this;
+        }
+
+        public Builder failure(String failedPhase, String errorCode) {
+
+            this.failedPhase = failedPhase;
+            this.errorCode = errorCode;
+            return this;
+        }
+
+        public Builder tokens(int accessTokenBytes, int idTokenBytes) {
+
+            this.accessTokenBytes = accessTokenBytes;
+            this.idTokenBytes = idTokenBytes;
+            return this;
+        }
+
+        public Builder idTokenClaims(int idTokenClaims) {
+
+            this.idTokenClaims = idTokenClaims;
+            return this;
+        }
+
+        public Builder userInfo(int userInfoBytes, int userInfoClaims) {
+
+            this.userInfoBytes = userInfoBytes;
+            this.userInfoClaims = userInfoClaims;
+            return this;
+        }
+
+        public Builder logoutToken(int logoutTokenBytes, int logoutTokenClaims, String sessionClaim) {
+
+            this.logoutTokenBytes = logoutTokenBytes;
+            this.logoutTokenClaims = logoutTokenClaims;
+            this.sessionClaim = sessionClaim;
+            return this;
+        }
+
+        public TrafficRecord build() {
+
+            return new TrafficRecord(this);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.metrics;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Captures the shape of the production traffic of the authenticator, i.e. a {@link TrafficRecord} per federated
+ * login callback and back-channel logout, in a bounded ring buffer. The records are exported as a JSON lines
+ * document which the traffic replay tool drives against a stub IdP, hence nodes can be sized from real traffic.
+ * <p>
+ * Recording is disabled by default. The records carry no tokens, claim values or user identifiers. The IdP names
+ * and the tenant domains are replaced by salted hashes, which are stable for the lifetime of the recorder, hence
+ * the records of an IdP can be correlated without revealing it.
+ * <p>
+ * Usage:
+ * <pre>
+ * TrafficCapture trafficCapture = TrafficRecorder.getInstance().begin(flow, idpName, tenantDomain);
+ * try {
+ *     ...
+ * } finally {
+ *     TrafficRecorder.getInstance().end(trafficCapture, resolvedIdpName, succeeded, errorCode);
+ * }
+ * </pre>
+ */
+public class TrafficRecorder implements TrafficRecorderMBean {
+
+    public static final String OBJECT_NAME =
+            "org.wso2.carbon.identity.application.authenticator.oidc:type=TrafficRecorder";
+    static final String TENANT_PREFIX = "tenant-";
+    static final String IDP_PREFIX = "idp-";
+    static final String FAILED = "failed";
+
+    private static final int DEFAULT_CAPACITY = 10000;
+    private static final int PSEUDONYM_BYTES = 6;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final TrafficRecorder instance = new TrafficRecorder(DEFAULT_CAPACITY);
+
+    private final LongAdder recordCount = new LongAdder();
+    private final byte[] salt = new byte[16];
+    private volatile boolean enabled;
+    private TrafficRecord[] buffer;
+    private int next;
+    private int size;
+
+    TrafficRecorder(int capacity) {
+
+        this.buffer = new TrafficRecord[capacity];
+        new SecureRandom().nextBytes(salt);
+    }
+
+    public static TrafficRecorder getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Enable or disable recording and set the capacity of the recorder. Changing the capacity clears the kept
+     * records.
+     *
+     * @param enabled  Whether the flows are recorded.
+     * @param capacity Maximum number of records kept.
+     */
+    public synchronized void configure(boolean enabled, int capacity) {
+
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Traffic record buffer capacity should be a positive value.");
+        }
+        this.enabled = enabled;
+        if (capacity != buffer.length) {
+            buffer = new TrafficRecord[capacity];
+            next = 0;
+            size = 0;
+        }
+    }
+
+    /**
+     * Start capturing a flow on the current thread.
+     *
+     * @param flow         Captured flow.
+     * @param idpName      Name of the IdP, if known.
+     * @param tenantDomain Tenant domain of the request.
+     * @return Capture or null if recording is disabled.
+     */
+    public TrafficCapture begin(SLOTracker.Flow flow, String idpName, String tenantDomain) {
+
+        return enabled ? TrafficCapture.start(this, flow, idpName, tenantDomain) : null;
+    }
+
+    /**
+     * Stop capturing a flow and keep its record.
+     *
+     * @param trafficCapture  Capture returned by {@link #begin(SLOTracker.Flow, String, String)}, can be null.
+     * @param resolvedIdpName Name of the IdP resolved during the flow, or null to keep the name given at the start.
+     * @param succeeded       Whether the flow succeeded.
+     * @param errorCode       Error code of the failure, if any.
+     */
+    public void end(TrafficCapture trafficCapture, String resolvedIdpName, boolean succeeded, String errorCode) {
+
+        if (trafficCapture != null) {
+            trafficCapture.stop(resolvedIdpName, succeeded ? null : StringUtils.defaultIfEmpty(errorCode, FAILED));
+        }
+    }
+
+    /**
+     * Get the kept records, oldest first.
+     *
+     * @return Records.
+     */
+    public synchronized List<TrafficRecord> getRecords() {
+
+        List<TrafficRecord> records = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            records.add(buffer[(next - size + i + buffer.length) % buffer.length]);
+        }
+        return records;
+    }
+
+    @Override
+    public boolean isEnabled() {
+
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+
+        this.enabled = enabled;
+    }
+
+    @Override
+    public synchronized int getCapacity() {
+
+        return buffer.length;
+    }
+
+    @Override
+    public long getRecordCount() {
+
+        return recordCount.sum();
+    }
+
+    @Override
+    public String exportCapture() {
+
+        StringBuilder capture = new StringBuilder();
+        for (TrafficRecord trafficRecord : getRecords()) {
+            capture.append(trafficRecord.toJson()).append('\n');
+        }
+        return capture.toString();
+    }
+
+    @Override
+    public synchronized void reset() {
+
+        for (int i = 0; i < buffer.length; i++) {
+            buffer[i] = null;
+        }
+        next = 0;
+        size = 0;
+        recordCount.reset();
+    }
+
+    synchronized void keep(TrafficRecord trafficRecord) {
+
+        buffer[next] = trafficRecord;
+        next = (next + 1) % buffer.length;
+        if (size < buffer.length) {
+            size++;
+        }
+        recordCount.increment();
+    }
+
+    /**
+     * Replace a value with a salted hash of it.
+     *
+     * @param prefix Prefix of the pseudonym, i.e. the kind of the value.
+     * @param value  Value, can be null.
+     * @return Pseudonym or null if the value is null.
+     */
+    String pseudonymize(String prefix, String value) {
+
+        if (value == null) {
+            return null;
+        }
+        byte[] digest;
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            messageDigest.update(salt);
+            digest = messageDigest.digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is a mandatory algorithm of the Java platform.
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+        char[] pseudonym = new char[PSEUDONYM_BYTES * 2];
+        for (int i = 0; i < PSEUDONYM_BYTES; i++) {
+            pseudonym[2 * i] = HEX[(digest[i] >> 4) & 0xf];
+            pseudonym[2 * i + 1] = HEX[digest[i] & 0xf];
+        }
+        return prefix + new String(pseudonym);
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.metrics;
+
+/**
+ * JMX interface of the traffic recorder of the OIDC authenticator.
+ */
+public interface TrafficRecorderMBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    /**
+     * Get the maximum number of records kept.
+     *
+     * @return Capacity of the buffer.
+     */
+    int getCapacity();
+
+    /**
+     * Get the number of flows recorded, including the ones evicted from the buffer.
+     *
+     * @return Record count.
+     */
+    long getRecordCount();
+
+    /**
+     * Export the kept records as a JSON lines document, oldest first. The document is the input of the traffic
+     * replay tool.
+     *
+     * @return One JSON object per line.
+     */
+    String exportCapture();
+
+    /**
+     * Clear the kept records.
+     */
+    void reset();
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.model;
+
+import org.apache.commons.lang.ArrayUtils;
+import org.apache.commons.lang.StringUtils;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class holds the federated token sharing parameters of an authentication request. The share_federated_token
+ * and federated_token_scope query parameters are parsed once per authentication request and the
+ * federated_token_scope value is indexed by the IdP name. The adaptive script values resolved for a step are kept
+ * as well, hence every federated step only does a single lookup.
+ */
+public class FederatedTokenSharingParams implements Serializable {
+
+    private static final long serialVersionUID = -3584061392716540375L;
+
+    private static final String SEMI_COLON_DELIMITER = ";";
+    private static final String COMMA_DELIMITER = ",";
+
+    private final String shareFederatedToken;
+    private final String federatedTokenScope;
+    private final Map<String, String> requestedScopes = new HashMap<>();
+    private final Map<String, Boolean> resolvedShareFederatedToken = new HashMap<>();
+    private final Map<String, String> resolvedRequestedScopes = new HashMap<>();
+
+    /**
+     * Parse the federated token sharing query parameters.
+     * The requested scopes for a particular IdP should come with the IdP name separated by a semicolon.
+     * i.e. federated_token_scope=Google Calender;read write,Microsoft Authenticator;https://googleapis.calender
+     *
+     * @param shareFederatedToken Value of the share_federated_token query parameter.
+     * @param federatedTokenScope Value of the federated_token_scope query parameter.
+     */
+    public FederatedTokenSharingParams(String shareFederatedToken, String federatedTokenScope) {
+
+        this.shareFederatedToken = shareFederatedToken;
+        this.federatedTokenScope = federatedTokenScope;
+        if (StringUtils.isBlank(federatedTokenScope) || !federatedTokenScope.contains(SEMI_COLON_DELIMITER)) {
+            return;
+        }
+        for (String scopesFollowedByIdP : StringUtils.split(federatedTokenScope, COMMA_DELIMITER)) {
+            String[] scopes = StringUtils.split(scopesFollowedByIdP, SEMI_COLON_DELIMITER);
+            if (ArrayUtils.getLength(scopes) == 2) {
+                String idpName = StringUtils.trim(scopes[0]);
+                String idpScopes = StringUtils.trim(scopes[1]);
+                String existingScopes = requestedScopes.get(idpName);
+                requestedScopes.put(idpName, existingScopes == null ? idpScopes : existingScopes + " " + idpScopes);
+            }
+        }
+    }
+
+    /**
+     * Get the value of the share_federated_token query parameter.
+     *
+     * @return Query parameter value.
+     */
+    public String getShareFederatedToken() {
+
+        return shareFederatedToken;
+    }
+
+    /**
+     * Get the value of the federated_token_scope query parameter.
+     *
+     * @return Query parameter value.
+     */
+    public String getFederatedTokenScope() {
+
+        return federatedTokenScope;
+    }
+
+    /**
+     * Get the scopes requested for the given IdP via the federated_token_scope query parameter.
+     *
+     * @param idpName Name of the IdP.
+     * @return Space separated scopes or null if no scopes are requested for the IdP.
+     */
+    public String getRequestedScopes(String idpName) {
+
+        return requestedScopes.get(idpName);
+    }
+
+    public Boolean getResolvedShareFederatedToken(String stepKey) {
+
+        return resolvedShareFederatedToken.get(stepKey);
+    }
+
+    public void setResolvedShareFederatedToken(String stepKey, boolean shareFederatedToken) {
+
+        resolvedShareFederatedToken.put(stepKey, shareFederatedToken);
+    }
+
+    public String getResolvedRequestedScopes(String stepKey) {
+
+        return resolvedRequestedScopes.get(stepKey);
+    }
+
+    public boolean isRequestedScopesResolved(String stepKey) {
+
+        return resolvedRequestedScopes.containsKey(stepKey);
+    }
+
+    public void setResolvedRequestedScopes(String stepKey, String scopes) {
+
+        resolvedRequestedScopes.put(stepKey, scopes);
+    }
+}
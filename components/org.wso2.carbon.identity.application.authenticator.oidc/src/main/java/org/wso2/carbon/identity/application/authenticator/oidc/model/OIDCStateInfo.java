@@ -24,6 +24,9 @@ import org.wso2.carbon.identity.application.authentication.framework.Authenticat
 public class OIDCStateInfo extends AuthenticatorStateInfo {
 
     private String idTokenHint;
+    private String idTokenHintReference;
+    private String sid;
+    private String issuer;
 
     public void setIdTokenHint(String idTokenHint) {
 
@@ -34,4 +37,40 @@ public class OIDCStateInfo extends AuthenticatorStateInfo {
 
         return idTokenHint;
     }
+
+    public String getIdTokenHintReference() {
+
+        return idTokenHintReference;
+    }
+
+    /**
+     * Set the reference to the ID token kept in the ID token hint store. The ID token itself is not kept in the state
+     * when a reference is set.
+     *
+     * @param idTokenHintReference Reference to the stored ID token.
+     */
+    public void setIdTokenHintReference(String idTokenHintReference) {
+
+        this.idTokenHintReference = idTokenHintReference;
+    }
+
+    public String getSid() {
+
+        return sid;
+    }
+
+    public void setSid(String sid) {
+
+        this.sid = sid;
+    }
+
+    public String getIssuer() {
+
+        return issuer;
+    }
+
+    public void setIssuer(String issuer) {
+
+        this.issuer = issuer;
+    }
 }
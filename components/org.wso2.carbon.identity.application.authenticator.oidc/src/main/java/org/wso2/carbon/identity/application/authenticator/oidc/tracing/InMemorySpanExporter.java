@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.tracing;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Keeps the latest ended spans in memory. This is the default exporter, which allows inspecting the spans without a
+ * tracing backend.
+ */
+public class InMemorySpanExporter implements SpanExporter {
+
+    private final Deque<Span> spans = new ArrayDeque<>();
+    private final int capacity;
+
+    /**
+     * Create an exporter which keeps the given number of latest spans.
+     *
+     * @param capacity Maximum number of spans kept.
+     */
+    public InMemorySpanExporter(int capacity) {
+
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Span capacity should be a positive value.");
+        }
+        this.capacity = capacity;
+    }
+
+    @Override
+    public synchronized void export(Span span) {
+
+        if (spans.size() >= capacity) {
+            spans.removeFirst();
+        }
+        spans.addLast(span);
+    }
+
+    /**
+     * Get the kept spans, oldest first.
+     *
+     * @return Spans.
+     */
+    public synchronized List<Span> getSpans() {
+
+        return new ArrayList<>(spans);
+    }
+
+    /**
+     * Get the kept spans of a trace, oldest first.
+     *
+     * @param traceId Trace id.
+     * @return Spans of the trace.
+     */
+    public synchronized List<Span> getSpans(String traceId) {
+
+        List<Span> traceSpans = new ArrayList<>();
+        for (Span span : spans) {
+            if (span.getTraceId().equals(traceId)) {
+                traceSpans.add(span);
+            }
+        }
+        return traceSpans;
+    }
+
+    public synchronized void clear() {
+
+        spans.clear();
+    }
+}
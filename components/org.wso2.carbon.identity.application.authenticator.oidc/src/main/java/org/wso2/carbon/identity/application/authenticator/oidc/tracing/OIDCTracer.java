@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.tracing;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Creates the spans of the authenticator. Tracing is disabled by default. The trace id of a span is derived from the
+ * correlation id of the request, hence the spans of a request can be matched with its logs, and child spans share
+ * the trace id of their parent.
+ */
+public class OIDCTracer {
+
+    private static final Log LOG = LogFactory.getLog(OIDCTracer.class);
+    private static final int DEFAULT_SPAN_CAPACITY = 1000;
+    private static final int TRACE_ID_LENGTH = 32;
+    private static final String INVALID_TRACE_ID = "00000000000000000000000000000000";
+
+    private static volatile boolean enabled;
+    private static volatile SpanExporter spanExporter = new InMemorySpanExporter(DEFAULT_SPAN_CAPACITY);
+
+    private OIDCTracer() {
+
+    }
+
+    public static boolean isEnabled() {
+
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+
+        OIDCTracer.enabled = enabled;
+    }
+
+    public static SpanExporter getSpanExporter() {
+
+        return spanExporter;
+    }
+
+    /**
+     * Set the span exporter. The in-memory exporter is used if the given exporter is null.
+     *
+     * @param spanExporter Span exporter.
+     */
+    public static void setSpanExporter(SpanExporter spanExporter) {
+
+        OIDCTracer.spanExporter = spanExporter != null ? spanExporter :
+                new InMemorySpanExporter(DEFAULT_SPAN_CAPACITY);
+    }
+
+    /**
+     * Start a span.
+     *
+     * @param name         Name of the span.
+     * @param idpName      Name of the IdP.
+     * @param tenantDomain Tenant domain of the request.
+     * @param parent       Parent span, or null to start a span of the trace of the current request.
+     * @return Started span or null if tracing is disabled.
+     */
+    public static Span startSpan(String name, String idpName, String tenantDomain, Span parent) {
+
+        if (!enabled) {
+            return null;
+        }
+        String traceId = parent != null ? parent.getTraceId() : getTraceId(FrameworkUtils.getCorrelation());
+        return new Span(traceId, newSpanId(), parent != null ? parent.getSpanId() : null, name, idpName,
+                tenantDomain);
+    }
+
+    /**
+     * End a span and export it.
+     *
+     * @param span      Started span, can be null.
+     * @param idpName   Name of the IdP.
+     * @param succeeded Whether the operation succeeded.
+     * @param bytes     Byte size handled in the operation.
+     */
+    public static void endSpan(Span span, String idpName, boolean succeeded, long bytes) {
+
+        if (span == null) {
+            return;
+        }
+        span.end(idpName, succeeded, bytes);
+        try {
+            spanExporter.export(span);
+        } catch (RuntimeException e) {
+            LOG.error("Error while exporting the span: " + span.getName(), e);
+        }
+    }
+
+    /**
+     * Derive a W3C trace id from a correlation id. UUID correlation ids are used as they are, other correlation ids
+     * are hashed. A random trace id is used if there is no correlation id.
+     *
+     * @param correlationId Correlation id.
+     * @return 32 hex character trace id.
+     */
+    static String getTraceId(String correlationId) {
+
+        if (StringUtils.isBlank(correlationId)) {
+            return randomTraceId();
+        }
+        String traceId = StringUtils.remove(correlationId, '-').toLowerCase(Locale.ENGLISH);
+        if (traceId.length() != TRACE_ID_LENGTH || !isHex(traceId)) {
+            traceId = StringUtils.remove(UUID.nameUUIDFromBytes(
+                    correlationId.getBytes(StandardCharsets.UTF_8)).toString(), '-');
+        }
+        return INVALID_TRACE_ID.equals(traceId) ? randomTraceId() : traceId;
+    }
+
+    private static String randomTraceId() {
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return toHex(random.nextLong() | 1L) + toHex(random.nextLong());
+    }
+
+    private static String newSpanId() {
+
+        return toHex(ThreadLocalRandom.current().nextLong() | 1L);
+    }
+
+    private static String toHex(long value) {
+
+        String hex = Long.toHexString(value);
+        return hex.length() == 16 ? hex : StringUtils.leftPad(hex, 16, '0');
+    }
+
+    private static boolean isHex(String value) {
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.tracing;
+
+/**
+ * A timed operation of the authenticator within a trace. The trace id and span ids follow the W3C trace context
+ * format, hence a span can be propagated to the IdP with the traceparent header.
+ */
+public class Span {
+
+    private static final String TRACEPARENT_VERSION = "00";
+    private static final String SAMPLED_FLAG = "01";
+
+    private final String traceId;
+    private final String spanId;
+    private final String parentSpanId;
+    private final String name;
+    private final String tenantDomain;
+    private final long startEpochMillis;
+    private final long startNanos;
+    private String idpName;
+    private long durationNanos = -1;
+    private long bytes;
+    private boolean succeeded;
+
+    Span(String traceId, String spanId, String parentSpanId, String name, String idpName, String tenantDomain) {
+
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.name = name;
+        this.idpName = idpName;
+        this.tenantDomain = tenantDomain;
+        this.startEpochMillis = System.currentTimeMillis();
+        this.startNanos = System.nanoTime();
+    }
+
+    void end(String idpName, boolean succeeded, long bytes) {
+
+        this.durationNanos = System.nanoTime() - startNanos;
+        this.idpName = idpName;
+        this.succeeded = succeeded;
+        this.bytes = bytes;
+    }
+
+    /**
+     * Get the W3C traceparent header value of this span.
+     *
+     * @return Traceparent header value.
+     */
+    public String getTraceparent() {
+
+        return TRACEPARENT_VERSION + "-" + traceId + "-" + spanId + "-" + SAMPLED_FLAG;
+    }
+
+    public String getTraceId() {
+
+        return traceId;
+    }
+
+    public String getSpanId() {
+
+        return spanId;
+    }
+
+    /**
+     * Get the span id of the parent span.
+     *
+     * @return Parent span id or null if this is a root span.
+     */
+    public String getParentSpanId() {
+
+        return parentSpanId;
+    }
+
+    public String getName() {
+
+        return name;
+    }
+
+    public String getIdpName() {
+
+        return idpName;
+    }
+
+    public String getTenantDomain() {
+
+        return tenantDomain;
+    }
+
+    public long getStartEpochMillis() {
+
+        return startEpochMillis;
+    }
+
+    /**
+     * Get the duration of the span.
+     *
+     * @return Duration in nanoseconds or -1 if the span has not ended.
+     */
+    public long getDurationNanos() {
+
+        return durationNanos;
+    }
+
+    public long getBytes() {
+
+        return bytes;
+    }
+
+    public boolean isSucceeded() {
+
+        return succeeded;
+    }
+
+    @Override
+    public String toString() {
+
+        return "Span{traceId=" + traceId + ", spanId=" + spanId + ", parentSpanId=" + parentSpanId + ", name=" +
+                name + ", idp=" + idpName + ", tenant=" + tenantDomain + ", durationNanos=" + durationNanos +
+                ", bytes=" + bytes + ", succeeded=" + succeeded + "}";
+    }
+}
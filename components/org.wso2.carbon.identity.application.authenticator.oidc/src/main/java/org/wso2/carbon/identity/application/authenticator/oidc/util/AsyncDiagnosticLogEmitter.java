@@ -0,0 +1,337 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.slf4j.MDC;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.central.log.mgt.utils.LoggerUtils;
+import org.wso2.carbon.utils.DiagnosticLog;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Emits the diagnostic log events of the authenticator from a background worker, hence publishing the events does
+ * not add latency to the login requests. The events are kept in a bounded lock-free queue and published in batches.
+ * When the queue is full, the events are either dropped or the caller is blocked for a bounded time, based on the
+ * configured overflow policy. The tenant and the correlation id of the login thread are restored on the worker
+ * while publishing an event. Events submitted while the emitter is stopping are published from the caller, as are
+ * the queued events left when the worker does not stop in time.
+ */
+public class AsyncDiagnosticLogEmitter implements AsyncDiagnosticLogEmitterMBean {
+
+    public static final String OBJECT_NAME =
+            "org.wso2.carbon.identity.application.authenticator.oidc:type=AsyncDiagnosticLogEmitter";
+
+    private static final Log LOG = LogFactory.getLog(AsyncDiagnosticLogEmitter.class);
+    private static final String CORRELATION_ID_MDC = "Correlation-ID";
+    private static final long IDLE_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long BLOCK_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(5);
+
+    private static volatile AsyncDiagnosticLogEmitter instance;
+
+    private final ConcurrentLinkedQueue<PendingEvent> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queueSize = new AtomicInteger();
+    private final LongAdder droppedEvents = new LongAdder();
+    private final LongAdder publishedEvents = new LongAdder();
+    private final int capacity;
+    private final int batchSize;
+    private final OverflowPolicy overflowPolicy;
+    private final long blockTimeoutNanos;
+    private final Consumer<DiagnosticLog.DiagnosticLogBuilder> publisher;
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    /**
+     * Policy applied when the queue is full.
+     */
+    public enum OverflowPolicy {
+        // Drop the new event.
+        DROP,
+        // Block the caller until there is space in the queue or the block timeout is reached.
+        BLOCK
+    }
+
+    /**
+     * Create an emitter which publishes the events with the given publisher.
+     *
+     * @param capacity           Maximum number of events kept in the queue.
+     * @param batchSize          Maximum number of events published in a batch.
+     * @param overflowPolicy     Policy applied when the queue is full.
+     * @param blockTimeoutMillis Maximum time a caller is blocked with the BLOCK policy, before dropping the event.
+     * @param publisher          Publisher of the events.
+     */
+    public AsyncDiagnosticLogEmitter(int capacity, int batchSize, OverflowPolicy overflowPolicy,
+                                     long blockTimeoutMillis, Consumer<DiagnosticLog.DiagnosticLogBuilder> publisher) {
+
+        if (capacity <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("Queue capacity and batch size should be positive values.");
+        }
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(blockTimeoutMillis);
+        this.publisher = publisher;
+        this.worker = new Thread(this::publishEvents, "oidc-authenticator-diagnostic-log-emitter");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Start the emitter used for the diagnostic log events of the authenticator.
+     *
+     * @param capacity           Maximum number of events kept in the queue.
+     * @param batchSize          Maximum number of events published in a batch.
+     * @param overflowPolicy     Policy applied when the queue is full.
+     * @param blockTimeoutMillis Maximum time a caller is blocked with the BLOCK policy.
+     */
+    public static synchronized void start(int capacity, int batchSize, OverflowPolicy overflowPolicy,
+                                          long blockTimeoutMillis) {
+
+        if (instance == null) {
+            instance = new AsyncDiagnosticLogEmitter(capacity, batchSize, overflowPolicy, blockTimeoutMillis,
+                    LoggerUtils::triggerDiagnosticLogEvent);
+        }
+    }
+
+    /**
+     * Stop the emitter used for the diagnostic log events of the authenticator, after publishing the queued events.
+     */
+    public static synchronized void stop() {
+
+        if (instance != null) {
+            instance.shutdown();
+            instance = null;
+        }
+    }
+
+    /**
+     * Get the emitter used for the diagnostic log events of the authenticator.
+     *
+     * @return Emitter or null if the diagnostic log events are published synchronously.
+     */
+    public static AsyncDiagnosticLogEmitter getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Queue a diagnostic log event. The params of the event should already be evaluated, since the event is
+     * published from a different thread.
+     *
+     * @param diagnosticLogBuilder Diagnostic log event.
+     * @return True if the event is queued or published, false if the event is dropped.
+     */
+    public boolean submit(DiagnosticLog.DiagnosticLogBuilder diagnosticLogBuilder) {
+
+        if (!running) {
+            return publishFromCaller(diagnosticLogBuilder);
+        }
+        if (!reserveSlot()) {
+            if (!running) {
+                return publishFromCaller(diagnosticLogBuilder);
+            }
+            droppedEvents.increment();
+            return false;
+        }
+        PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+        PendingEvent pendingEvent = new PendingEvent(diagnosticLogBuilder, carbonContext.getTenantDomain(),
+                carbonContext.getTenantId(), MDC.get(CORRELATION_ID_MDC));
+        queue.offer(pendingEvent);
+        // The worker may have drained the queue and stopped after the running check. The event is only published
+        // from the caller if the worker did not take it.
+        if (!running && queue.remove(pendingEvent)) {
+            queueSize.decrementAndGet();
+            return publishFromCaller(diagnosticLogBuilder);
+        }
+        if (queueSize.get() >= batchSize) {
+            LockSupport.unpark(worker);
+        }
+        return true;
+    }
+
+    @Override
+    public long getDroppedEventCount() {
+
+        return droppedEvents.sum();
+    }
+
+    @Override
+    public long getPublishedEventCount() {
+
+        return publishedEvents.sum();
+    }
+
+    @Override
+    public int getQueueSize() {
+
+        return queueSize.get();
+    }
+
+    @Override
+    public int getCapacity() {
+
+        return capacity;
+    }
+
+    /**
+     * Stop accepting events and wait for the worker to publish the queued events.
+     */
+    public void shutdown() {
+
+        shutdown(SHUTDOWN_TIMEOUT_MILLIS);
+    }
+
+    void shutdown(long timeoutMillis) {
+
+        running = false;
+        LockSupport.unpark(worker);
+        try {
+            worker.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (worker.isAlive()) {
+            // The worker is still publishing, e.g. blocked in the publisher. The events left in the queue are
+            // published from the caller, hence they are not lost.
+            int remaining = publishRemainingFromCaller();
+            if (remaining > 0) {
+                LOG.warn("Diagnostic log emitter did not stop within " + timeoutMillis + "ms. Hence " + remaining +
+                        " queued events are published from the caller.");
+            }
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Diagnostic log emitter stopped. Published events: " + getPublishedEventCount() +
+                    ", dropped events: " + getDroppedEventCount() + ", pending events: " + getQueueSize());
+        }
+    }
+
+    private boolean reserveSlot() {
+
+        long deadline = System.nanoTime() + blockTimeoutNanos;
+        while (true) {
+            int size = queueSize.get();
+            if (size < capacity) {
+                if (queueSize.compareAndSet(size, size + 1)) {
+                    return true;
+                }
+                continue;
+            }
+            if (overflowPolicy != OverflowPolicy.BLOCK || System.nanoTime() >= deadline || !running) {
+                return false;
+            }
+            LockSupport.unpark(worker);
+            LockSupport.parkNanos(BLOCK_WAIT_NANOS);
+        }
+    }
+
+    private void publishEvents() {
+
+        List<PendingEvent> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            PendingEvent event;
+            while (batch.size() < batchSize && (event = queue.poll()) != null) {
+                batch.add(event);
+            }
+            if (batch.isEmpty()) {
+                LockSupport.parkNanos(IDLE_WAIT_NANOS);
+                continue;
+            }
+            queueSize.addAndGet(-batch.size());
+            for (PendingEvent pendingEvent : batch) {
+                publish(pendingEvent);
+            }
+            batch.clear();
+        }
+    }
+
+    private int publishRemainingFromCaller() {
+
+        int remaining = 0;
+        PendingEvent event;
+        while ((event = queue.poll()) != null) {
+            queueSize.decrementAndGet();
+            publish(event);
+            remaining++;
+        }
+        return remaining;
+    }
+
+    private boolean publishFromCaller(DiagnosticLog.DiagnosticLogBuilder diagnosticLogBuilder) {
+
+        try {
+            publisher.accept(diagnosticLogBuilder);
+            publishedEvents.increment();
+            return true;
+        } catch (RuntimeException e) {
+            droppedEvents.increment();
+            LOG.error("Error while publishing the diagnostic log event.", e);
+            return false;
+        }
+    }
+
+    private void publish(PendingEvent event) {
+
+        try {
+            PrivilegedCarbonContext.startTenantFlow();
+            if (event.tenantDomain != null) {
+                PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+                carbonContext.setTenantDomain(event.tenantDomain);
+                carbonContext.setTenantId(event.tenantId);
+            }
+            if (event.correlationId != null) {
+                MDC.put(CORRELATION_ID_MDC, event.correlationId);
+            }
+            publisher.accept(event.diagnosticLogBuilder);
+            publishedEvents.increment();
+        } catch (RuntimeException e) {
+            droppedEvents.increment();
+            LOG.error("Error while publishing the diagnostic log event.", e);
+        } finally {
+            MDC.remove(CORRELATION_ID_MDC);
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
+    private static class PendingEvent {
+
+        private final DiagnosticLog.DiagnosticLogBuilder diagnosticLogBuilder;
+        private final String tenantDomain;
+        private final int tenantId;
+        private final String correlationId;
+
+        private PendingEvent(DiagnosticLog.DiagnosticLogBuilder diagnosticLogBuilder, String tenantDomain,
+                             int tenantId, String correlationId) {
+
+            this.diagnosticLogBuilder = diagnosticLogBuilder;
+            this.tenantDomain = tenantDomain;
+            this.tenantId = tenantId;
+            this.correlationId = correlationId;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.util;
+
+/**
+ * Matches the request URIs of an endpoint without allocating. A URI matches if it contains the endpoint path and
+ * no line terminator, i.e. the same URIs matched by the regex (.*)&lt;path&gt;(.*), since "." of the regex does not
+ * match a line terminator. The URI is scanned once, looking for the path with the Knuth-Morris-Pratt algorithm.
+ */
+public final class EndpointUriMatcher {
+
+    private final char[] path;
+    // Length of the longest proper prefix of path[0..i] which is also a suffix of it.
+    private final int[] failure;
+
+    /**
+     * Create a matcher of the given endpoint path.
+     *
+     * @param path Endpoint path, which should not contain a line terminator.
+     */
+    public EndpointUriMatcher(String path) {
+
+        if (path == null || path.isEmpty()) {
+            throw new IllegalArgumentException("Endpoint path should not be empty.");
+        }
+        this.path = path.toCharArray();
+        this.failure = new int[this.path.length];
+        for (char c : this.path) {
+            if (isLineTerminator(c)) {
+                throw new IllegalArgumentException("Endpoint path should not contain a line terminator.");
+            }
+        }
+        for (int i = 1, border = 0; i < this.path.length; i++) {
+            while (border > 0 && this.path[i] != this.path[border]) {
+                border = failure[border - 1];
+            }
+            if (this.path[i] == this.path[border]) {
+                border++;
+            }
+            failure[i] = border;
+        }
+    }
+
+    /**
+     * Check whether the given URI matches the endpoint.
+     *
+     * @param uri Request URI.
+     * @return True if the URI contains the endpoint path and no line terminator.
+     */
+    public boolean matches(CharSequence uri) {
+
+        if (uri == null) {
+            return false;
+        }
+        boolean found = false;
+        int matched = 0;
+        for (int i = 0, length = uri.length(); i < length; i++) {
+            char c = uri.charAt(i);
+            if (isLineTerminator(c)) {
+                return false;
+            }
+            if (found) {
+                continue;
+            }
+            while (matched > 0 && c != path[matched]) {
+                matched = failure[matched - 1];
+            }
+            if (c == path[matched] && ++matched == path.length) {
+                found = true;
+            }
+        }
+        return found;
+    }
+
+    private static boolean isLineTerminator(char c) {
+
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.util;
+
+import org.wso2.carbon.identity.central.log.mgt.utils.LoggerUtils;
+import org.wso2.carbon.utils.DiagnosticLog;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Deferred diagnostic log event. The input params are kept as suppliers and evaluated only when the event is
+ * emitted, hence events which are never emitted (i.e. failed flows) do not pay for computing their params.
+ */
+public class LazyDiagnosticLogBuilder {
+
+    private final String componentId;
+    private final String actionId;
+    private final Map<String, Supplier<?>> inputParams = new LinkedHashMap<>();
+    private final List<Supplier<Map<String, String>>> inputParamMaps = new ArrayList<>();
+    private String resultMessage;
+    private DiagnosticLog.ResultStatus resultStatus;
+    private DiagnosticLog.LogDetailLevel logDetailLevel;
+
+    public LazyDiagnosticLogBuilder(String componentId, String actionId) {
+
+        this.componentId = componentId;
+        this.actionId = actionId;
+    }
+
+    /**
+     * Add an input param. The param is skipped if the supplier returns null.
+     *
+     * @param key   Name of the input param.
+     * @param value Supplier of the input param value.
+     * @return This builder.
+     */
+    public LazyDiagnosticLogBuilder inputParam(String key, Supplier<?> value) {
+
+        inputParams.put(key, value);
+        return this;
+    }
+
+    /**
+     * Add a set of input params.
+     *
+     * @param values Supplier of the input params.
+     * @return This builder.
+     */
+    public LazyDiagnosticLogBuilder inputParams(Supplier<Map<String, String>> values) {
+
+        inputParamMaps.add(values);
+        return this;
+    }
+
+    public LazyDiagnosticLogBuilder resultMessage(String resultMessage) {
+
+        this.resultMessage = resultMessage;
+        return this;
+    }
+
+    public LazyDiagnosticLogBuilder resultStatus(DiagnosticLog.ResultStatus resultStatus) {
+
+        this.resultStatus = resultStatus;
+        return this;
+    }
+
+    public LazyDiagnosticLogBuilder logDetailLevel(DiagnosticLog.LogDetailLevel logDetailLevel) {
+
+        this.logDetailLevel = logDetailLevel;
+        return this;
+    }
+
+    /**
+     * Evaluate the input params and build the diagnostic log builder.
+     *
+     * @return Diagnostic log builder.
+     */
+    public DiagnosticLog.DiagnosticLogBuilder toDiagnosticLogBuilder() {
+
+        DiagnosticLog.DiagnosticLogBuilder diagnosticLogBuilder =
+                new DiagnosticLog.DiagnosticLogBuilder(componentId, actionId);
+        for (Map.Entry<String, Supplier<?>> inputParam : inputParams.entrySet()) {
+            Object value = inputParam.getValue().get();
+            if (value != null) {
+                diagnosticLogBuilder.inputParam(inputParam.getKey(), value);
+            }
+        }
+        for (Supplier<Map<String, String>> inputParamMap : inputParamMaps) {
+            Map<String, String> values = inputParamMap.get();
+            if (values != null) {
+                diagnosticLogBuilder.inputParams(values);
+            }
+        }
+        if (resultMessage != null) {
+            diagnosticLogBuilder.resultMessage(resultMessage);
+        }
+        if (resultStatus != null) {
+            diagnosticLogBuilder.resultStatus(resultStatus);
+        }
+        if (logDetailLevel != null) {
+            diagnosticLogBuilder.logDetailLevel(logDetailLevel);
+        }
+        return diagnosticLogBuilder;
+    }
+
+    /**
+     * Emit the diagnostic log event if diagnostic logs are enabled. The input params are evaluated on the calling
+     * thread. The event is published asynchronously if the asynchronous emitter is enabled.
+     */
+    public void emit() {
+
+        if (!LoggerUtils.isDiagnosticLogsEnabled()) {
+            return;
+        }
+        AsyncDiagnosticLogEmitter emitter = AsyncDiagnosticLogEmitter.getInstance();
+        if (emitter != null) {
+            emitter.submit(toDiagnosticLogBuilder());
+        } else {
+            LoggerUtils.triggerDiagnosticLogEvent(toDiagnosticLogBuilder());
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.util;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.application.authentication.framework.config.builder.FileBasedConfigurationBuilder;
+import org.wso2.carbon.identity.application.authentication.framework.config.model.AuthenticatorConfig;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.wso2.carbon.identity.application.authenticator.oidc.OIDCAuthenticatorConstants.AUTHENTICATOR_NAME;
+
+/**
+ * This class holds utilities to read the OIDC authenticator parameters configured in
+ * application-authentication.xml.
+ */
+public class OIDCAuthenticatorConfigUtil {
+
+    private static final Log log = LogFactory.getLog(OIDCAuthenticatorConfigUtil.class);
+
+    private OIDCAuthenticatorConfigUtil() {
+
+    }
+
+    /**
+     * Get the parameters configured for the OIDC authenticator.
+     *
+     * @return Parameter map. An empty map is returned if the authenticator is not configured.
+     */
+    public static Map<String, String> getParameterMap() {
+
+        AuthenticatorConfig authConfig = FileBasedConfigurationBuilder.getInstance()
+                .getAuthenticatorBean(AUTHENTICATOR_NAME);
+        if (authConfig == null || authConfig.getParameterMap() == null) {
+            return Collections.emptyMap();
+        }
+        return authConfig.getParameterMap();
+    }
+
+    /**
+     * Get a string parameter of the OIDC authenticator.
+     *
+     * @param name         Name of the parameter.
+     * @param defaultValue Value to be returned if the parameter is not configured.
+     * @return Configured value or the default value.
+     */
+    public static String getParameter(String name, String defaultValue) {
+
+        String value = getParameterMap().get(name);
+        return StringUtils.isBlank(value) ? defaultValue : value.trim();
+    }
+
+    /**
+     * Get a boolean parameter of the OIDC authenticator.
+     *
+     * @param name         Name of the parameter.
+     * @param defaultValue Value to be returned if the parameter is not configured.
+     * @return Configured value or the default value.
+     */
+    public static boolean getBooleanParameter(String name, boolean defaultValue) {
+
+        String value = getParameterMap().get(name);
+        return StringUtils.isBlank(value) ? defaultValue : Boolean.parseBoolean(value.trim());
+    }
+
+    /**
+     * Get a numeric parameter of the OIDC authenticator.
+     *
+     * @param name         Name of the parameter.
+     * @param defaultValue Value to be returned if the parameter is not configured or is not a valid number.
+     * @return Configured value or the default value.
+     */
+    public static long getLongParameter(String name, long defaultValue) {
+
+        String value = getParameterMap().get(name);
+        if (StringUtils.isBlank(value)) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Invalid value: " + value + " is configured for the parameter: " + name +
+                        ". Hence using the default value: " + defaultValue);
+            }
+            return defaultValue;
+        }
+    }
+}
@@ -64,6 +64,7 @@ public class OIDCErrorConstants {
         LOGOUT_TOKEN_ISS_CLAIM_VALIDATION_FAILED("OID-60014",
                 "Error while validating the iss claim in the logout token"),
         LOGOUT_CLIENT_EXCEPTION("OID-60015", "Back channel logout failed due to client error"),
+        LOGOUT_RATE_LIMITED("OID-60019", "Back channel logout rate limit of the issuer exceeded"),
 
         RETRIEVING_AUTHENTICATOR_PROPERTIES_FAILED("OID-65001",
                 "Error while retrieving properties. Authenticator Properties cannot be null"),
@@ -100,7 +101,8 @@ public class OIDCErrorConstants {
         JWT_TOKEN_SIGNATURE_VALIDATION_FAILED("OID-65017",
                 "Error while validating the JWT token signature"),
         JWT_TOKEN_PARSING_FAILED("OID-65018",
-                                                      "Error occurred while parsing JWT provided by federated IDP.");
+                                                      "Error occurred while parsing JWT provided by federated IDP."),
+        LOGOUT_SERVER_BUSY("OID-65019", "Server is handling the maximum number of back channel logout requests");
 
         private final String code;
         private final String message;
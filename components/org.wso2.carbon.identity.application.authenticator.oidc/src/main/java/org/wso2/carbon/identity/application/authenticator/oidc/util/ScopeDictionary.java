@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.util;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Indexed dictionary of the scopes configured for an IdP (Scopes) and the scopes allowed for federated token sharing
+ * (FederatedTokenAllowedScope). The configured scopes take the first indexes in their configured order, followed by
+ * the allowed scopes, hence the scope strings resolved with the dictionary have a stable order.
+ * Dictionaries and the resolved scope strings are cached, keyed by the raw scope strings. Both caches are concurrent
+ * maps which evict the eldest entries once full, hence lookups do not serialize on a lock. The requested scope strings
+ * come from the client, hence long ones are resolved without being cached.
+ */
+public class ScopeDictionary {
+
+    private static final int MAX_CACHED_DICTIONARIES = 16384;
+    private static final int MAX_CACHED_RESOLUTIONS = 256;
+    private static final int MAX_CACHED_REQUESTED_SCOPES_LENGTH = 256;
+    private static final char KEY_SEPARATOR = '\u0000';
+
+    private static final BoundedCache<ScopeDictionary> DICTIONARIES = new BoundedCache<>(MAX_CACHED_DICTIONARIES);
+
+    private final String[] scopes;
+    private final Map<String, Integer> indexes;
+    private final BitSet configuredScopes;
+    private final BitSet allowedScopes;
+    private final String configuredScopeString;
+    private final BoundedCache<String> resolvedScopes = new BoundedCache<>(MAX_CACHED_RESOLUTIONS);
+
+    private ScopeDictionary(String configuredScopeString, String allowedScopeString) {
+
+        List<String> scopeList = new ArrayList<>();
+        this.indexes = new HashMap<>();
+        this.configuredScopes = index(configuredScopeString, scopeList);
+        this.allowedScopes = index(allowedScopeString, scopeList);
+        this.scopes = scopeList.toArray(new String[0]);
+        this.configuredScopeString = configuredScopeString;
+    }
+
+    /**
+     * Get the dictionary for the given configured and allowed scopes.
+     *
+     * @param configuredScopes Space separated scopes configured for the IdP.
+     * @param allowedScopes    Space separated scopes allowed for federated token sharing.
+     * @return Scope dictionary.
+     */
+    public static ScopeDictionary getInstance(String configuredScopes, String allowedScopes) {
+
+        String key = (configuredScopes == null ? "" : configuredScopes) + KEY_SEPARATOR +
+                (allowedScopes == null ? "" : allowedScopes);
+        ScopeDictionary scopeDictionary = DICTIONARIES.get(key);
+        if (scopeDictionary == null) {
+            scopeDictionary = DICTIONARIES.putIfAbsent(key, new ScopeDictionary(configuredScopes, allowedScopes));
+        }
+        return scopeDictionary;
+    }
+
+    /**
+     * Get the requested scopes which are allowed for federated token sharing.
+     *
+     * @param requestedScopes Space separated scopes requested by the application.
+     * @return Bit set of the dictionary indexes of the valid scopes.
+     */
+    public BitSet getValidScopes(String requestedScopes) {
+
+        BitSet validScopes = new BitSet(scopes.length);
+        if (requestedScopes == null || allowedScopes.isEmpty()) {
+            return validScopes;
+        }
+        forEachScope(requestedScopes, scope -> {
+            Integer index = indexes.get(scope);
+            if (index != null) {
+                validScopes.set(index);
+            }
+        });
+        validScopes.and(allowedScopes);
+        return validScopes;
+    }
+
+    /**
+     * Get the scope string to be sent to the IdP, i.e. the union of the configured scopes and the requested scopes
+     * which are allowed for federated token sharing. The configured scope string is returned as it is if none of the
+     * requested scopes are allowed.
+     *
+     * @param requestedScopes Space separated scopes requested by the application.
+     * @return Space separated scopes.
+     */
+    public String resolveScopes(String requestedScopes) {
+
+        String key = requestedScopes == null ? "" : requestedScopes;
+        String resolved = resolvedScopes.get(key);
+        if (resolved != null) {
+            return resolved;
+        }
+        BitSet validScopes = getValidScopes(requestedScopes);
+        if (validScopes.isEmpty()) {
+            resolved = configuredScopeString;
+        } else {
+            validScopes.or(configuredScopes);
+            resolved = toScopeString(validScopes);
+        }
+        if (resolved == null || key.length() > MAX_CACHED_REQUESTED_SCOPES_LENGTH) {
+            return resolved;
+        }
+        return resolvedScopes.putIfAbsent(key, resolved);
+    }
+
+    int getResolvedScopesCacheSize() {
+
+        return resolvedScopes.size();
+    }
+
+    /**
+     * Get the space separated scope string of the given dictionary indexes, in the dictionary order.
+     *
+     * @param scopeIndexes Bit set of dictionary indexes.
+     * @return Space separated scopes.
+     */
+    public String toScopeString(BitSet scopeIndexes) {
+
+        StringBuilder scopeString = new StringBuilder();
+        for (int i = scopeIndexes.nextSetBit(0); i >= 0; i = scopeIndexes.nextSetBit(i + 1)) {
+            if (scopeString.length() > 0) {
+                scopeString.append(' ');
+            }
+            scopeString.append(scopes[i]);
+        }
+        return scopeString.toString();
+    }
+
+    private BitSet index(String scopeString, List<String> scopeList) {
+
+        BitSet bits = new BitSet();
+        if (scopeString == null) {
+            return bits;
+        }
+        forEachScope(scopeString, scope -> {
+            Integer index = indexes.get(scope);
+            if (index == null) {
+                index = scopeList.size();
+                scopeList.add(scope);
+                indexes.put(scope, index);
+            }
+            bits.set(index);
+        });
+        return bits;
+    }
+
+
+    /**
+     * Tokenize a space separated scope string without compiling a regex per call.
+     */
+    private static void forEachScope(String scopeString, Consumer<String> consumer) {
+
+        int length = scopeString.length();
+        int start = 0;
+        while (start < length) {
+            while (start < length && Character.isWhitespace(scopeString.charAt(start))) {
+                start++;
+            }
+            int end = start;
+            while (end < length && !Character.isWhitespace(scopeString.charAt(end))) {
+                end++;
+            }
+            if (end > start) {
+                consumer.accept(scopeString.substring(start, end));
+            }
+            start = end;
+        }
+    }
+
+    /**
+     * Concurrent map which evicts the eldest entries once it holds more than the given number of entries. The keys
+     * are queued in insertion order. The cached values are derived from their keys, hence an entry is never replaced.
+     */
+    private static final class BoundedCache<V> {
+
+        private final Map<String, V> entries = new ConcurrentHashMap<>();
+        private final Queue<String> insertionOrder = new ConcurrentLinkedQueue<>();
+        private final int maxEntries;
+
+        private BoundedCache(int maxEntries) {
+
+            this.maxEntries = maxEntries;
+        }
+
+        private V get(String key) {
+
+            return entries.get(key);
+        }
+
+        /**
+         * Cache the value unless the key is already cached.
+         *
+         * @return Cached value of the key.
+         */
+        private V putIfAbsent(String key, V value) {
+
+            V existing = entries.putIfAbsent(key, value);
+            if (existing != null) {
+                return existing;
+            }
+            insertionOrder.offer(key);
+            String eldest;
+            while (entries.size() > maxEntries && (eldest = insertionOrder.poll()) != null) {
+                entries.remove(eldest);
+            }
+            return value;
+        }
+
+        private int size() {
+
+            return entries.size();
+        }
+    }
+}
@@ -50,12 +50,19 @@ import org.wso2.carbon.identity.application.authentication.framework.config.mode
 import org.wso2.carbon.identity.application.authentication.framework.context.AuthenticationContext;
 import org.wso2.carbon.identity.application.authentication.framework.exception.AuthenticationFailedException;
 import org.wso2.carbon.identity.application.authentication.framework.exception.FrameworkException;
+import org.wso2.carbon.identity.application.authentication.framework.exception.LogoutFailedException;
 import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticationRequest;
 import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatorData;
 import org.wso2.carbon.identity.application.authentication.framework.model.FederatedToken;
 import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkConstants;
 import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkUtils;
 import org.wso2.carbon.identity.application.authenticator.oidc.internal.OpenIDConnectAuthenticatorDataHolder;
+import org.wso2.carbon.identity.application.authenticator.oidc.logout.hint.InMemoryIdTokenHintStore;
+import org.wso2.carbon.identity.application.authenticator.oidc.metrics.AuthenticatorPhase;
+import org.wso2.carbon.identity.application.authenticator.oidc.metrics.LoginTimeline;
+import org.wso2.carbon.identity.application.authenticator.oidc.metrics.SlowLoginRecorder;
+import org.wso2.carbon.identity.application.authenticator.oidc.model.FederatedTokenSharingParams;
+import org.wso2.carbon.identity.application.authenticator.oidc.model.OIDCStateInfo;
 import org.wso2.carbon.identity.application.authenticator.oidc.util.OIDCTokenValidationUtil;
 import org.wso2.carbon.identity.application.common.model.ClaimMapping;
 import org.wso2.carbon.identity.application.common.model.IdentityProvider;
@@ -69,6 +76,7 @@ import org.wso2.carbon.identity.core.ServiceURLBuilder;
 import org.wso2.carbon.identity.core.URLBuilderException;
 import org.wso2.carbon.identity.core.util.IdentityCoreConstants;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth.common.OAuthConstants;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
 import org.wso2.carbon.idp.mgt.IdentityProviderManager;
 import org.wso2.carbon.idp.mgt.util.IdPManagementConstants;
@@ -83,6 +91,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -104,13 +113,17 @@ import static org.powermock.api.mockito.PowerMockito.mockStatic;
 import static org.powermock.api.mockito.PowerMockito.when;
 import static org.powermock.api.mockito.PowerMockito.whenNew;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 import static org.wso2.carbon.identity.application.authenticator.oidc.OIDCAuthenticatorConstants.AUTHENTICATOR_FRIENDLY_NAME;
 import static org.wso2.carbon.identity.application.authenticator.oidc.OIDCAuthenticatorConstants.AUTHENTICATOR_NAME;
 import static org.wso2.carbon.identity.application.authenticator.oidc.OIDCAuthenticatorConstants.AUTHENTICATOR_OIDC;
 import static org.wso2.carbon.identity.application.authenticator.oidc.OIDCAuthenticatorConstants.Claim.NONCE;
+import static org.wso2.carbon.identity.application.authenticator.oidc.OIDCAuthenticatorConstants.FEDERATED_TOKEN_SCOPE;
 import static org.wso2.carbon.identity.application.authenticator.oidc.OIDCAuthenticatorConstants.SHARE_FEDERATED_TOKEN_CONFIG;
 import static org.wso2.carbon.identity.application.authenticator.oidc.OIDCAuthenticatorConstants.OIDC_FEDERATION_NONCE;
 import static org.wso2.carbon.identity.application.authenticator.oidc.OIDCAuthenticatorConstants.SHARE_FEDERATED_TOKEN_PARAM;
@@ -399,6 +412,45 @@ public class OpenIDConnectAuthenticatorTest extends PowerMockTestCase {
         assertTrue(result.isEmpty(), "result is not Empty.");
     }
 
+    @Test
+    public void testUserInfoRequestOutcomeIsRecorded() throws Exception {
+
+        String failingUserInfoUrl = "https://localhost:9444/oauth2/userinfo/failing";
+        String userInfoUrl = "https://localhost:9444/oauth2/userinfo";
+        OpenIDConnectAuthenticator authenticator = spy(OpenIDConnectAuthenticator.class);
+        doThrow(new IOException("Connection refused")).when(authenticator).sendRequest(eq(failingUserInfoUrl),
+                any());
+        doReturn("{\"email\":\"example@wso2.com\"}").when(authenticator).sendRequest(eq(userInfoUrl), any());
+        when(mockOAuthClientResponse.getParam(OIDCAuthenticatorConstants.ACCESS_TOKEN)).thenReturn(accessToken);
+        Map<String, String> userInfoProperties = new HashMap<>();
+
+        SlowLoginRecorder.getInstance().setEnabled(true);
+        LoginTimeline loginTimeline = SlowLoginRecorder.getInstance().begin("Google", superTenantDomain);
+        try {
+            // The IOException of the user info request is not thrown, but the phase is recorded as failed.
+            userInfoProperties.put(IdentityApplicationConstants.Authenticator.OIDC.USER_INFO_URL, failingUserInfoUrl);
+            assertTrue(authenticator.getSubjectAttributes(mockOAuthClientResponse, userInfoProperties).isEmpty());
+
+            userInfoProperties.put(IdentityApplicationConstants.Authenticator.OIDC.USER_INFO_URL, userInfoUrl);
+            assertEquals(authenticator.getSubjectAttributes(mockOAuthClientResponse, userInfoProperties).size(), 1);
+
+            // Without a user info endpoint no request is sent, hence no phase is recorded.
+            userInfoProperties.remove(IdentityApplicationConstants.Authenticator.OIDC.USER_INFO_URL);
+            assertTrue(authenticator.getSubjectAttributes(mockOAuthClientResponse, userInfoProperties).isEmpty());
+        } finally {
+            SlowLoginRecorder.getInstance().end(loginTimeline, false, null);
+            SlowLoginRecorder.getInstance().setEnabled(false);
+        }
+
+        assertNotNull(loginTimeline);
+        List<LoginTimeline.PhaseEntry> phases = loginTimeline.getPhases();
+        assertEquals(phases.size(), 2);
+        assertEquals(phases.get(0).getPhaseName(), AuthenticatorPhase.SEND_REQUEST.getPhaseName());
+        assertFalse(phases.get(0).isSucceeded());
+        assertEquals(phases.get(1).getPhaseName(), AuthenticatorPhase.SEND_REQUEST.getPhaseName());
+        assertTrue(phases.get(1).isSucceeded());
+    }
+
     @DataProvider(name = "commonAuthParamProvider")
     public Object[][] getCommonAuthParams() {
 
@@ -1265,6 +1317,116 @@ public class OpenIDConnectAuthenticatorTest extends PowerMockTestCase {
         }
     }
 
+    @Test
+    public void testFederatedTokenSharingParamsAreResolvedPerStepAndIdP() throws Exception {
+
+        OpenIDConnectAuthenticator authenticator = new OpenIDConnectAuthenticator();
+        AuthenticationRequest authenticationRequest = new AuthenticationRequest();
+        mapQueryParamsToAuthenticationRequest(authenticationRequest, SHARE_FEDERATED_TOKEN_PARAM, "true");
+        mapQueryParamsToAuthenticationRequest(authenticationRequest, FEDERATED_TOKEN_SCOPE,
+                "Google Calender;read write,Microsoft Authenticator;mail.read");
+        AuthenticationContext authenticationContext = new AuthenticationContext();
+        authenticationContext.setAuthenticationRequest(authenticationRequest);
+        addAdaptiveScriptParams(authenticationContext, SHARE_FEDERATED_TOKEN_PARAM, null);
+
+        // Step 1 federates to Google Calender.
+        authenticationContext.setCurrentStep(1);
+        authenticationContext.setExternalIdP(getExternalIdPConfig("Google Calender"));
+        assertTrue((boolean) Whitebox.invokeMethod(authenticator, "requestedToShareFederatedToken",
+                authenticationContext));
+        assertEquals(Whitebox.invokeMethod(authenticator, "getRequestedScopesForTokenSharing",
+                authenticationContext), "read write");
+        Object parsedParams = authenticationContext.getProperty(
+                OIDCAuthenticatorConstants.FEDERATED_TOKEN_SHARING_PARAMS_PROPERTY_KEY);
+        assertTrue(parsedParams instanceof FederatedTokenSharingParams);
+
+        // Step 2 federates to Microsoft Authenticator and the adaptive script disables token sharing for it.
+        authenticationContext.setCurrentStep(2);
+        authenticationContext.setExternalIdP(getExternalIdPConfig("Microsoft Authenticator"));
+        addAdaptiveScriptParams(authenticationContext, SHARE_FEDERATED_TOKEN_PARAM, "false");
+        assertFalse((boolean) Whitebox.invokeMethod(authenticator, "requestedToShareFederatedToken",
+                authenticationContext));
+        assertEquals(Whitebox.invokeMethod(authenticator, "getRequestedScopesForTokenSharing",
+                authenticationContext), "mail.read");
+
+        // Going back to step 1 should return the values resolved for that step and IdP.
+        authenticationContext.setCurrentStep(1);
+        authenticationContext.setExternalIdP(getExternalIdPConfig("Google Calender"));
+        assertTrue((boolean) Whitebox.invokeMethod(authenticator, "requestedToShareFederatedToken",
+                authenticationContext));
+        assertEquals(Whitebox.invokeMethod(authenticator, "getRequestedScopesForTokenSharing",
+                authenticationContext), "read write");
+
+        // The same IdP in a different step is resolved again, hence the adaptive script value of that step is used.
+        authenticationContext.setCurrentStep(3);
+        assertFalse((boolean) Whitebox.invokeMethod(authenticator, "requestedToShareFederatedToken",
+                authenticationContext));
+
+        // The query parameters are parsed only once per authentication request.
+        assertSame(authenticationContext.getProperty(
+                OIDCAuthenticatorConstants.FEDERATED_TOKEN_SHARING_PARAMS_PROPERTY_KEY), parsedParams);
+    }
+
+    @Test
+    public void testIdTokenHintIsKeptUntilLogoutCompletes() throws Exception {
+
+        InMemoryIdTokenHintStore idTokenHintStore = new InMemoryIdTokenHintStore(10, 60000);
+        idTokenHintStore.store("id-token-hint-reference", idToken);
+        mockStatic(OpenIDConnectAuthenticatorDataHolder.class);
+        when(OpenIDConnectAuthenticatorDataHolder.getInstance()).thenReturn(openIDConnectAuthenticatorDataHolder);
+        when(openIDConnectAuthenticatorDataHolder.getIdTokenHintStore()).thenReturn(idTokenHintStore);
+        mockStatic(FrameworkUtils.class);
+        List<Map<String, String>> logoutRequestParams = new ArrayList<>();
+        when(FrameworkUtils.buildURLWithQueryParams(anyString(), any())).thenAnswer(invocation -> {
+            Map<String, String> paramMap = invocation.getArgument(1);
+            logoutRequestParams.add(new HashMap<>(paramMap));
+            return invocation.getArgument(0);
+        });
+
+        Map<String, String> logoutAuthenticatorProperties = new HashMap<>();
+        logoutAuthenticatorProperties.put(OIDCAuthenticatorConstants.IdPConfParams.OIDC_LOGOUT_URL,
+                "https://localhost:9444/oidc/logout");
+        logoutAuthenticatorProperties.put(OIDCAuthenticatorConstants.CLIENT_ID, clientId);
+        logoutAuthenticatorProperties.put(IdentityApplicationConstants.OAuth2.CALLBACK_URL,
+                "https://localhost:9443/commonauth");
+        OIDCStateInfo stateInfo = new OIDCStateInfo();
+        stateInfo.setIdTokenHintReference("id-token-hint-reference");
+        AuthenticationContext logoutContext = new AuthenticationContext();
+        logoutContext.setAuthenticatorProperties(logoutAuthenticatorProperties);
+        logoutContext.setStateInfo(stateInfo);
+        logoutContext.setExternalIdP(getExternalIdPConfig("Google"));
+        logoutContext.setContextIdentifier("logout-context");
+        OpenIDConnectAuthenticator authenticator = new OpenIDConnectAuthenticator();
+
+        // The first logout request fails before reaching the IdP.
+        HttpServletResponse failingResponse = mock(HttpServletResponse.class);
+        doThrow(new IOException("Connection reset")).when(failingResponse).sendRedirect(anyString());
+        try {
+            authenticator.initiateLogoutRequest(mockServletRequest, failingResponse, logoutContext);
+            fail("Logout request should fail when the redirect fails.");
+        } catch (LogoutFailedException e) {
+            // Expected.
+        }
+        // The retried logout request still has the ID token hint.
+        authenticator.initiateLogoutRequest(mockServletRequest, mockServletResponse, logoutContext);
+        assertEquals(logoutRequestParams.size(), 2);
+        for (Map<String, String> paramMap : logoutRequestParams) {
+            assertEquals(paramMap.get(OIDCAuthenticatorConstants.ID_TOKEN_HINT), idToken);
+            assertNull(paramMap.get(OAuthConstants.OAuth20Params.CLIENT_ID));
+        }
+        assertEquals(idTokenHintStore.size(), 1);
+
+        // The ID token is removed once the IdP responds to the logout request.
+        authenticator.processLogoutResponse(mockServletRequest, mockServletResponse, logoutContext);
+        assertEquals(idTokenHintStore.size(), 0);
+
+        // Without the stored ID token, the client_id is sent instead of the ID token hint.
+        authenticator.initiateLogoutRequest(mockServletRequest, mockServletResponse, logoutContext);
+        assertEquals(logoutRequestParams.size(), 3);
+        assertNull(logoutRequestParams.get(2).get(OIDCAuthenticatorConstants.ID_TOKEN_HINT));
+        assertEquals(logoutRequestParams.get(2).get(OAuthConstants.OAuth20Params.CLIENT_ID), clientId);
+    }
+
     @Test
     public void testGetApplicationDetails() throws Exception {
 
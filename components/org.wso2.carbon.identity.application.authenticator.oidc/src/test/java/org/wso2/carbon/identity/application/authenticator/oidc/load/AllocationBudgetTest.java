@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.load;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.testng.PowerMockTestCase;
+import org.testng.IObjectFactory;
+import org.testng.SkipException;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.ObjectFactory;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.authentication.framework.context.AuthenticationContext;
+import org.wso2.carbon.identity.application.authentication.framework.inbound.IdentityRequest;
+import org.wso2.carbon.identity.central.log.mgt.utils.LoggerUtils;
+import org.wso2.carbon.identity.core.ServiceURLBuilder;
+import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
+import org.wso2.carbon.idp.mgt.IdentityProviderManager;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Allocation budget of the federated login and back-channel logout requests. The bytes allocated by the request
+ * thread are measured with the thread MX bean for every phase, i.e. the initial request which redirects to the IdP,
+ * the callback request which redeems the code against the stub OIDC provider and the back-channel logout request
+ * which terminates a session of the H2 session store. The test fails if the mean allocation of a phase exceeds its
+ * budget, hence a change which adds allocation churn to the login path has to update the budget consciously.
+ * <p>
+ * The budget of a phase is its baseline in allocation-baseline.properties, which includes the allocations of the
+ * mocked framework services, plus a margin of oidc.allocation.budget.margin percent. The measured means are written
+ * to oidc.allocation.reportFile on every run to record the baselines from. The committed baselines are provisional
+ * until they are recorded on the reference JDK, hence the test only runs with the load-test profile
+ * (mvn test -Pload-test) and is not part of the default suite yet. A budget can be overridden in
+ * bytes with the oidc.allocation.budget.initiate, oidc.allocation.budget.callback and oidc.allocation.budget.logout
+ * system properties. Use the benchmarks with the JMH GC profiler (-prof gc) to find where a phase allocates.
+ */
+@PrepareForTest({LoggerUtils.class, ServiceURLBuilder.class, IdentityDatabaseUtil.class,
+        IdentityProviderManager.class})
+@PowerMockIgnore({"jdk.internal.reflect.*", "javax.net.ssl.*", "javax.management.*", "com.sun.net.httpserver.*",
+        "com.sun.management.*", "sun.net.*", "jdk.jfr.*"})
+public class AllocationBudgetTest extends PowerMockTestCase {
+
+    private static final Log LOG = LogFactory.getLog(AllocationBudgetTest.class);
+
+    private static final String BASELINE_RESOURCE = "allocation-baseline.properties";
+    private static final String INITIATE_PHASE = "initiate";
+    private static final String CALLBACK_PHASE = "callback";
+    private static final String LOGOUT_PHASE = "logout";
+    private static final int WARMUP_OPERATIONS = 200;
+    private static final int MEASURED_OPERATIONS = 500;
+
+    private final int marginPercent = Integer.getInteger("oidc.allocation.budget.margin", 10);
+    private final String reportFile = System.getProperty("oidc.allocation.reportFile",
+            "target/oidc-allocation-report.properties");
+    private final Properties baseline = new Properties();
+    private final Properties report = new Properties();
+
+    private com.sun.management.ThreadMXBean threadMXBean;
+    private StubOIDCProvider stubProvider;
+    private FederatedLoginLoadHarness harness;
+    private final BackChannelLogoutFixture logoutFixture = new BackChannelLogoutFixture("oidcAllocationBudget");
+
+    @BeforeClass
+    public void setUp() throws Exception {
+
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) {
+            throw new SkipException("Thread allocated bytes are not available on this JVM.");
+        }
+        threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threadMXBean.isThreadAllocatedMemorySupported()) {
+            throw new SkipException("Thread allocated bytes are not available on this JVM.");
+        }
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+        try (InputStream inputStream = AllocationBudgetTest.class.getClassLoader()
+                .getResourceAsStream(BASELINE_RESOURCE)) {
+            if (inputStream == null) {
+                throw new IllegalStateException("Allocation baseline " + BASELINE_RESOURCE + " is not found.");
+            }
+            baseline.load(inputStream);
+        }
+
+        stubProvider = new StubOIDCProvider(2);
+        stubProvider.start();
+        LoadTestSupport.mockFrameworkServices();
+        harness = LoadTestSupport.newHarness(stubProvider, true);
+        logoutFixture.setUp();
+    }
+
+    @AfterClass
+    public void tearDown() throws Exception {
+
+        writeReport();
+        LoadTestSupport.resetFrameworkServices();
+        logoutFixture.tearDown();
+        if (stubProvider != null) {
+            stubProvider.stop();
+        }
+    }
+
+    @Test
+    public void testLoginAllocationBudget() throws Exception {
+
+        measureLogins(WARMUP_OPERATIONS);
+        long[] allocatedBytes = measureLogins(MEASURED_OPERATIONS);
+        assertWithinBudget(INITIATE_PHASE, allocatedBytes[0]);
+        assertWithinBudget(CALLBACK_PHASE, allocatedBytes[1]);
+    }
+
+    @Test
+    public void testBackChannelLogoutAllocationBudget() throws Exception {
+
+        measureLogouts(WARMUP_OPERATIONS);
+        assertWithinBudget(LOGOUT_PHASE, measureLogouts(MEASURED_OPERATIONS));
+    }
+
+    @ObjectFactory
+    public IObjectFactory getObjectFactory() {
+
+        return new org.powermock.modules.testng.PowerMockObjectFactory();
+    }
+
+    /**
+     * Run the given number of logins and get the mean bytes allocated by the initial and the callback requests. The
+     * authorize requests to the IdP, which the browser would send, are not measured.
+     */
+    private long[] measureLogins(int logins) throws Exception {
+
+        List<AuthenticationContext> contexts = new ArrayList<>(logins);
+        for (int i = 0; i < logins; i++) {
+            contexts.add(harness.newContext());
+        }
+        String[] authorizeUrls = new String[logins];
+        long start = getAllocatedBytes();
+        for (int i = 0; i < logins; i++) {
+            authorizeUrls[i] = harness.initiate(contexts.get(i));
+        }
+        long initiateBytes = getAllocatedBytes() - start;
+
+        String[] callbackUrls = new String[logins];
+        for (int i = 0; i < logins; i++) {
+            callbackUrls[i] = FederatedLoginLoadHarness.authorize(authorizeUrls[i]);
+        }
+        start = getAllocatedBytes();
+        for (int i = 0; i < logins; i++) {
+            harness.complete(contexts.get(i), callbackUrls[i]);
+        }
+        long callbackBytes = getAllocatedBytes() - start;
+        return new long[]{initiateBytes / logins, callbackBytes / logins};
+    }
+
+    /**
+     * Run the given number of back-channel logouts, each terminating a different session, and get the mean bytes
+     * allocated by a logout request. Creating the sessions and the logout tokens is not measured.
+     */
+    private long measureLogouts(int logouts) throws Exception {
+
+        String[] sids = logoutFixture.addSessions(logouts);
+        IdentityRequest[] logoutRequests = new IdentityRequest[logouts];
+        for (int i = 0; i < logouts; i++) {
+            logoutRequests[i] = logoutFixture.buildLogoutRequest(sids[i]);
+        }
+
+        long start = getAllocatedBytes();
+        for (IdentityRequest logoutRequest : logoutRequests) {
+            logoutFixture.logout(logoutRequest);
+        }
+        return (getAllocatedBytes() - start) / logouts;
+    }
+
+    private void assertWithinBudget(String phase, long allocatedBytes) {
+
+        report.setProperty(phase, String.valueOf(allocatedBytes));
+        long budgetBytes = getBudgetBytes(phase);
+        LOG.info(String.format("Mean allocation of the %s phase: %d bytes, budget: %d bytes.", phase,
+                allocatedBytes, budgetBytes));
+        assertTrue(allocatedBytes <= budgetBytes, String.format("The %s phase allocates %d bytes per request, " +
+                "which exceeds its budget of %d bytes.", phase, allocatedBytes, budgetBytes));
+    }
+
+    /**
+     * Get the budget of a phase, i.e. the baseline of the phase plus the margin, unless overridden by the
+     * oidc.allocation.budget.{phase} system property.
+     */
+    private long getBudgetBytes(String phase) {
+
+        Long budgetBytes = Long.getLong("oidc.allocation.budget." + phase);
+        if (budgetBytes != null) {
+            return budgetBytes;
+        }
+        String baselineBytes = baseline.getProperty(phase);
+        if (baselineBytes == null) {
+            throw new IllegalStateException("No allocation baseline found for the " + phase + " phase in " +
+                    BASELINE_RESOURCE);
+        }
+        return Long.parseLong(baselineBytes.trim()) * (100 + marginPercent) / 100;
+    }
+
+    private void writeReport() throws IOException {
+
+        if (report.isEmpty()) {
+            return;
+        }
+        report.put("java.version", System.getProperty("java.version"));
+        File file = new File(reportFile);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        try (OutputStream outputStream = new FileOutputStream(file)) {
+            report.store(outputStream, "Mean bytes allocated per request of each phase");
+        }
+    }
+
+    private long getAllocatedBytes() {
+
+        return threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.load;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import net.minidev.json.JSONObject;
+import org.apache.commons.dbcp.BasicDataSource;
+import org.apache.commons.lang.StringUtils;
+import org.mockito.Mockito;
+import org.powermock.api.mockito.PowerMockito;
+import org.wso2.carbon.identity.application.authentication.framework.ServerSessionManagementService;
+import org.wso2.carbon.identity.application.authentication.framework.config.model.AuthenticatorConfig;
+import org.wso2.carbon.identity.application.authentication.framework.inbound.IdentityRequest;
+import org.wso2.carbon.identity.application.authentication.framework.inbound.IdentityResponse;
+import org.wso2.carbon.identity.application.authenticator.oidc.OIDCAuthenticatorConstants;
+import org.wso2.carbon.identity.application.authenticator.oidc.internal.OpenIDConnectAuthenticatorDataHolder;
+import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.exception.LogoutClientException;
+import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.exception.LogoutException;
+import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.model.LogoutRequest;
+import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.processor.FederatedIdpInitLogoutProcessor;
+import org.wso2.carbon.identity.application.common.model.FederatedAuthenticatorConfig;
+import org.wso2.carbon.identity.application.common.model.IdentityProvider;
+import org.wso2.carbon.identity.application.common.model.Property;
+import org.wso2.carbon.identity.application.common.util.IdentityApplicationConstants;
+import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
+import org.wso2.carbon.idp.mgt.IdentityProviderManager;
+
+import java.nio.file.Paths;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.RSAPublicKey;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.wso2.carbon.identity.application.authenticator.oidc.util.OIDCErrorConstants.ErrorMessages;
+
+/**
+ * Back-channel logouts against an H2 session store, shared by the tests which drive logout requests through the
+ * {@link FederatedIdpInitLogoutProcessor}. The tests should prepare IdentityDatabaseUtil and IdentityProviderManager
+ * for PowerMock. Logout tokens are signed with a generated key, which the logout processor of the fixture trusts.
+ */
+final class BackChannelLogoutFixture {
+
+    static final String ISSUER = "https://stub-idp.example.com/oauth2/token";
+    static final String IDP_NAME = "Federated-IdP";
+
+    private static final long TOKEN_VALIDITY_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    private static final String ADD_SESSION_MAPPING_SQL = "INSERT INTO IDN_FED_AUTH_SESSION_MAPPING " +
+            "(IDP_SESSION_ID, SESSION_ID, IDP_NAME, AUTHENTICATOR_ID, PROTOCOL_TYPE) VALUES (?, ?, ?, ?, ?)";
+
+    private final String dbName;
+    private final FixtureLogoutProcessor logoutProcessor = new FixtureLogoutProcessor();
+    private BasicDataSource dataSource;
+    private JWSSigner logoutTokenSigner;
+    private JWSSigner untrustedSigner;
+
+    /**
+     * Create a fixture.
+     *
+     * @param dbName Name of the in-memory session store database.
+     */
+    BackChannelLogoutFixture(String dbName) {
+
+        this.dbName = dbName;
+    }
+
+    /**
+     * Create the session store, mock the static framework utilities and generate the signing keys.
+     */
+    void setUp() throws Exception {
+
+        dataSource = new BasicDataSource();
+        dataSource.setDriverClassName("org.h2.Driver");
+        dataSource.setUsername("username");
+        dataSource.setPassword("password");
+        dataSource.setUrl("jdbc:h2:mem:test" + dbName);
+        String scriptPath = Paths.get(System.getProperty("user.dir"), "src", "test", "resources", "dbscripts",
+                "h2.sql").toString();
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.executeUpdate("RUNSCRIPT FROM '" + scriptPath + "'");
+        }
+
+        // Connections are closed by the real methods, hence they return to the pool.
+        mockStatic(IdentityDatabaseUtil.class, Mockito.CALLS_REAL_METHODS);
+        PowerMockito.doReturn(dataSource).when(IdentityDatabaseUtil.class, "getDataSource");
+        PowerMockito.doAnswer(invocation -> getConnection(invocation.getArgument(0)))
+                .when(IdentityDatabaseUtil.class, "getDBConnection", anyBoolean());
+        PowerMockito.doAnswer(invocation -> getConnection(invocation.getArgument(0)))
+                .when(IdentityDatabaseUtil.class, "getSessionDBConnection", anyBoolean());
+
+        IdentityProviderManager identityProviderManager = Mockito.mock(IdentityProviderManager.class,
+                Mockito.withSettings().stubOnly());
+        when(identityProviderManager.getIdPByMetadataProperty(IdentityApplicationConstants.IDP_ISSUER_NAME, ISSUER,
+                LoadTestSupport.TENANT_DOMAIN, false)).thenReturn(buildIdentityProvider());
+        mockStatic(IdentityProviderManager.class);
+        when(IdentityProviderManager.getInstance()).thenReturn(identityProviderManager);
+        OpenIDConnectAuthenticatorDataHolder.getInstance().setServerSessionManagementService(
+                Mockito.mock(ServerSessionManagementService.class, Mockito.withSettings().stubOnly()));
+
+        KeyPair keyPair = generateKeyPair();
+        logoutTokenSigner = new RSASSASigner(keyPair.getPrivate());
+        logoutProcessor.verifier = new RSASSAVerifier((RSAPublicKey) keyPair.getPublic());
+        untrustedSigner = new RSASSASigner(generateKeyPair().getPrivate());
+    }
+
+    /**
+     * Reset the services set by {@link #setUp()} and close the session store.
+     */
+    void tearDown() throws SQLException {
+
+        OpenIDConnectAuthenticatorDataHolder.getInstance().setServerSessionManagementService(null);
+        if (dataSource != null) {
+            dataSource.close();
+        }
+    }
+
+    /**
+     * Add federated sessions to the session store.
+     *
+     * @param count Number of sessions.
+     * @return IdP session ids of the sessions, i.e. the sid claims of their logout tokens.
+     */
+    String[] addSessions(int count) throws SQLException {
+
+        String[] sids = new String[count];
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(ADD_SESSION_MAPPING_SQL)) {
+            for (int i = 0; i < count; i++) {
+                sids[i] = UUID.randomUUID().toString();
+                statement.setString(1, sids[i]);
+                statement.setString(2, UUID.randomUUID().toString());
+                statement.setString(3, IDP_NAME);
+                statement.setString(4, OIDCAuthenticatorConstants.AUTHENTICATOR_NAME);
+                statement.setString(5, "oidc");
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+        return sids;
+    }
+
+    /**
+     * Build a logout request which terminates the session of the given sid.
+     *
+     * @param sid IdP session id.
+     * @return Logout request.
+     */
+    IdentityRequest buildLogoutRequest(String sid) throws JOSEException {
+
+        return buildLogoutRequest(sid, 0, 0, true);
+    }
+
+    /**
+     * Build a logout request of the given shape, which terminates the session of the given sid.
+     *
+     * @param sid        IdP session id.
+     * @param claimCount Minimum number of claims of the logout token.
+     * @param tokenBytes Minimum size of the logout token.
+     * @param trusted    Whether the logout token is signed with the trusted key, i.e. whether the signature is valid.
+     * @return Logout request.
+     */
+    IdentityRequest buildLogoutRequest(String sid, int claimCount, int tokenBytes, boolean trusted)
+            throws JOSEException {
+
+        long now = System.currentTimeMillis();
+        JWTClaimsSet.Builder claims = new JWTClaimsSet.Builder()
+                .issuer(ISSUER)
+                .subject("federated-user")
+                .audience(StubOIDCProvider.CLIENT_ID)
+                .issueTime(new Date(now))
+                .expirationTime(new Date(now + TOKEN_VALIDITY_MILLIS))
+                .jwtID(UUID.randomUUID().toString())
+                .claim(OIDCAuthenticatorConstants.Claim.EVENTS, new JSONObject().appendField(
+                        OIDCAuthenticatorConstants.Claim.BACKCHANNEL_LOGOUT_EVENT, new JSONObject()))
+                .claim(OIDCAuthenticatorConstants.Claim.SID, sid);
+        for (int i = claims.build().getClaims().size(); i < claimCount; i++) {
+            claims.claim("claim_" + i, "value_" + i);
+        }
+        JWSSigner signer = trusted ? logoutTokenSigner : untrustedSigner;
+        String logoutToken = sign(claims.build(), signer);
+        if (logoutToken.length() < tokenBytes) {
+            // The claims are base64url encoded, i.e. 3 bytes of padding add 4 bytes to the token.
+            logoutToken = sign(claims.claim("padding", StringUtils.repeat("x",
+                    (tokenBytes - logoutToken.length()) * 3 / 4)).build(), signer);
+        }
+        LogoutRequest.LogoutRequestBuilder builder = new LogoutRequest.LogoutRequestBuilder(null, null);
+        builder.addParameter(OIDCAuthenticatorConstants.LOGOUT_TOKEN, new String[]{logoutToken});
+        builder.setTenantDomain(LoadTestSupport.TENANT_DOMAIN);
+        return builder.build();
+    }
+
+    /**
+     * Process a back-channel logout request.
+     *
+     * @param logoutRequest Logout request.
+     */
+    void logout(IdentityRequest logoutRequest) throws LogoutException {
+
+        logoutProcessor.handleOIDCFederatedLogoutRequest(logoutRequest);
+    }
+
+    private static String sign(JWTClaimsSet claimsSet, JWSSigner signer) throws JOSEException {
+
+        SignedJWT jwt = new SignedJWT(new JWSHeader(JWSAlgorithm.RS256), claimsSet);
+        jwt.sign(signer);
+        return jwt.serialize();
+    }
+
+    private static KeyPair generateKeyPair() throws NoSuchAlgorithmException {
+
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        return keyPairGenerator.generateKeyPair();
+    }
+
+    private Connection getConnection(boolean shouldApplyTransaction) throws SQLException {
+
+        Connection connection = dataSource.getConnection();
+        connection.setAutoCommit(!shouldApplyTransaction);
+        return connection;
+    }
+
+    private static IdentityProvider buildIdentityProvider() {
+
+        Property clientId = new Property();
+        clientId.setName(OIDCAuthenticatorConstants.IdPConfParams.CLIENT_ID);
+        clientId.setValue(StubOIDCProvider.CLIENT_ID);
+        FederatedAuthenticatorConfig authenticatorConfig = new FederatedAuthenticatorConfig();
+        authenticatorConfig.setName(OIDCAuthenticatorConstants.AUTHENTICATOR_NAME);
+        authenticatorConfig.setProperties(new Property[]{clientId});
+
+        IdentityProvider identityProvider = new IdentityProvider();
+        identityProvider.setIdentityProviderName(IDP_NAME);
+        identityProvider.setId("1");
+        identityProvider.setDefaultAuthenticatorConfig(authenticatorConfig);
+        return identityProvider;
+    }
+
+    /**
+     * Logout processor which verifies the signature with the generated key and reads the authenticator config from
+     * memory, since the signature validation of the server resolves the IdP certificate from the registry.
+     */
+    private static class FixtureLogoutProcessor extends FederatedIdpInitLogoutProcessor {
+
+        private final AuthenticatorConfig authenticatorConfig = new AuthenticatorConfig();
+        private JWSVerifier verifier;
+
+        FixtureLogoutProcessor() {
+
+            authenticatorConfig.setParameterMap(Collections.singletonMap(
+                    OIDCAuthenticatorConstants.BackchannelLogout.ENABLE_IAT_VALIDATION, "false"));
+        }
+
+        @Override
+        public IdentityResponse.IdentityResponseBuilder handleOIDCFederatedLogoutRequest(
+                IdentityRequest logoutRequest) throws LogoutException {
+
+            return super.handleOIDCFederatedLogoutRequest(logoutRequest);
+        }
+
+        @Override
+        protected void validateSignature(SignedJWT signedJWT, IdentityProvider identityProvider)
+                throws JOSEException, LogoutClientException {
+
+            if (!signedJWT.verify(verifier)) {
+                throw new LogoutClientException(ErrorMessages.LOGOUT_TOKEN_SIGNATURE_VALIDATION_FAILED.getCode(),
+                        ErrorMessages.LOGOUT_TOKEN_SIGNATURE_VALIDATION_FAILED.getMessage());
+            }
+        }
+
+        @Override
+        protected AuthenticatorConfig getAuthenticatorConfig() {
+
+            return authenticatorConfig;
+        }
+    }
+}
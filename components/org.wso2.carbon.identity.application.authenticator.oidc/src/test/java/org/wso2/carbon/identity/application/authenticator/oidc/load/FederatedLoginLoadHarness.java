@@ -0,0 +1,362 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.load;
+
+import org.mockito.Mockito;
+import org.wso2.carbon.identity.application.authentication.framework.AuthenticatorFlowStatus;
+import org.wso2.carbon.identity.application.authentication.framework.config.model.ExternalIdPConfig;
+import org.wso2.carbon.identity.application.authentication.framework.context.AuthenticationContext;
+import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticationRequest;
+import org.wso2.carbon.identity.application.authenticator.oidc.OpenIDConnectAuthenticator;
+import org.wso2.carbon.identity.application.authenticator.oidc.metrics.LatencyHistogram;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Drives federated logins through {@link OpenIDConnectAuthenticator#process} at a given concurrency, i.e. the
+ * initial request which redirects to the IdP, the authorize request to the IdP and the callback request carrying the
+ * authorization code. A login succeeds only if the callback completes the step with an authenticated subject.
+ */
+public class FederatedLoginLoadHarness {
+
+    private static final String TENANT_DOMAIN = "carbon.super";
+
+    private final OpenIDConnectAuthenticator authenticator;
+    private final Map<String, String> authenticatorProperties;
+    private final ExternalIdPConfig externalIdPConfig;
+    // Servlet methods which are not overridden by the wrappers are delegated to these stubs.
+    private final HttpServletRequest requestDelegate =
+            Mockito.mock(HttpServletRequest.class, Mockito.withSettings().stubOnly());
+    private final HttpServletResponse responseDelegate =
+            Mockito.mock(HttpServletResponse.class, Mockito.withSettings().stubOnly());
+
+    /**
+     * Create a harness.
+     *
+     * @param authenticator           Authenticator under test.
+     * @param authenticatorProperties Authenticator properties of the IdP.
+     * @param externalIdPConfig       IdP of the logins.
+     */
+    public FederatedLoginLoadHarness(OpenIDConnectAuthenticator authenticator,
+                                     Map<String, String> authenticatorProperties,
+                                     ExternalIdPConfig externalIdPConfig) {
+
+        this.authenticator = authenticator;
+        this.authenticatorProperties = authenticatorProperties;
+        this.externalIdPConfig = externalIdPConfig;
+    }
+
+    /**
+     * Run the given number of logins.
+     *
+     * @param logins      Number of logins.
+     * @param concurrency Number of concurrent logins.
+     * @return Report of the run.
+     */
+    public LoadReport run(int logins, int concurrency) throws InterruptedException {
+
+        LoadReport report = new LoadReport(concurrency);
+        AtomicInteger remaining = new AtomicInteger(logins);
+        CountDownLatch startGate = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            executor.execute(() -> {
+                try {
+                    startGate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                while (remaining.getAndDecrement() > 0) {
+                    long start = System.nanoTime();
+                    try {
+                        login();
+                        report.latencies.record(System.nanoTime() - start);
+                    } catch (Exception e) {
+                        report.failures.increment();
+                        report.firstFailure.compareAndSet(null, e);
+                    }
+                }
+            });
+        }
+        long start = System.nanoTime();
+        startGate.countDown();
+        executor.shutdown();
+        if (!executor.awaitTermination(1, TimeUnit.HOURS)) {
+            executor.shutdownNow();
+        }
+        report.elapsedNanos = System.nanoTime() - start;
+        return report;
+    }
+
+    /**
+     * Run a single federated login.
+     */
+    public void login() throws Exception {
+
+        AuthenticationContext context = newContext();
+        complete(context, authorize(initiate(context)));
+    }
+
+    /**
+     * Create the authentication context of a new login.
+     *
+     * @return Authentication context.
+     */
+    public AuthenticationContext newContext() {
+
+        AuthenticationContext context = new AuthenticationContext();
+        context.setContextIdentifier(UUID.randomUUID().toString());
+        context.setTenantDomain(TENANT_DOMAIN);
+        context.setAuthenticatorProperties(new HashMap<>(authenticatorProperties));
+        context.setExternalIdP(externalIdPConfig);
+        context.setAuthenticationRequest(new AuthenticationRequest());
+        context.setCurrentStep(1);
+        return context;
+    }
+
+    /**
+     * Process the initial request of a login.
+     *
+     * @param context Authentication context of the login.
+     * @return Authorize URL the user is redirected to.
+     */
+    public String initiate(AuthenticationContext context) throws Exception {
+
+        RedirectCapturingResponse response = new RedirectCapturingResponse(responseDelegate);
+        AuthenticatorFlowStatus status = authenticator.process(new ParameterRequest(requestDelegate,
+                Collections.emptyMap()), response, context);
+        if (status != AuthenticatorFlowStatus.INCOMPLETE || response.location == null) {
+            throw new IllegalStateException("Initial request did not redirect to the IdP. Status: " + status);
+        }
+        return response.location;
+    }
+
+    /**
+     * Process the callback request of a login.
+     *
+     * @param context     Authentication context of the login.
+     * @param callbackUrl Callback URL the IdP redirected the user to.
+     */
+    public void complete(AuthenticationContext context, String callbackUrl) throws Exception {
+
+        AuthenticatorFlowStatus status = authenticator.process(newCallbackRequest(callbackUrl),
+                new RedirectCapturingResponse(responseDelegate), context);
+        if (status != AuthenticatorFlowStatus.SUCCESS_COMPLETED || context.getSubject() == null) {
+            throw new IllegalStateException("Callback request did not complete the login. Status: " + status);
+        }
+    }
+
+    /**
+     * Create the callback request of a login.
+     *
+     * @param callbackUrl Callback URL the IdP redirected the user to.
+     * @return Request carrying the query params of the callback URL.
+     */
+    public HttpServletRequest newCallbackRequest(String callbackUrl) throws IOException {
+
+        Map<String, String[]> callbackParams = new HashMap<>();
+        StubOIDCProvider.parseQuery(URI.create(callbackUrl).getRawQuery())
+                .forEach((name, value) -> callbackParams.put(name, new String[]{value}));
+        return new ParameterRequest(requestDelegate, callbackParams);
+    }
+
+    /**
+     * Send the authorize request to the IdP, as the browser would do.
+     *
+     * @param authorizeUrl Authorize URL.
+     * @return Callback URL the IdP redirected to.
+     */
+    public static String authorize(String authorizeUrl) throws IOException {
+
+        HttpURLConnection connection = (HttpURLConnection) new URL(authorizeUrl).openConnection();
+        connection.setInstanceFollowRedirects(false);
+        try {
+            String location = connection.getHeaderField("Location");
+            if (connection.getResponseCode() != HttpURLConnection.HTTP_MOVED_TEMP || location == null) {
+                throw new IOException("Authorize request failed with status: " + connection.getResponseCode());
+            }
+            return location;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Throughput and latency of a run.
+     */
+    public static class LoadReport {
+
+        private final int concurrency;
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private final LongAdder failures = new LongAdder();
+        private final AtomicReference<Exception> firstFailure = new AtomicReference<>();
+        private long elapsedNanos;
+
+        private LoadReport(int concurrency) {
+
+            this.concurrency = concurrency;
+        }
+
+        public long getSuccessCount() {
+
+            return latencies.getCount();
+        }
+
+        public long getFailureCount() {
+
+            return failures.sum();
+        }
+
+        public Exception getFirstFailure() {
+
+            return firstFailure.get();
+        }
+
+        public double getThroughput() {
+
+            return elapsedNanos == 0 ? 0 : getSuccessCount() * 1e9 / elapsedNanos;
+        }
+
+        public double getPercentileMillis(double percentile) {
+
+            return latencies.getPercentileMillis(percentile);
+        }
+
+        /**
+         * Get the report as properties, i.e. to keep the numbers of a release for comparison.
+         *
+         * @return Report properties.
+         */
+        public Map<String, String> toProperties() {
+
+            Map<String, String> properties = new HashMap<>();
+            properties.put("concurrency", String.valueOf(concurrency));
+            properties.put("logins", String.valueOf(getSuccessCount()));
+            properties.put("failures", String.valueOf(getFailureCount()));
+            properties.put("elapsedMillis", String.valueOf(TimeUnit.NANOSECONDS.toMillis(elapsedNanos)));
+            properties.put("throughputPerSecond", String.format("%.1f", getThroughput()));
+            properties.put("meanMillis", String.format("%.3f", latencies.getMeanMillis()));
+            properties.put("p50Millis", String.format("%.3f", getPercentileMillis(50)));
+            properties.put("p99Millis", String.format("%.3f", getPercentileMillis(99)));
+            properties.put("p999Millis", String.format("%.3f", getPercentileMillis(99.9)));
+            properties.put("maxMillis", String.format("%.3f", latencies.getMaxMillis()));
+            return properties;
+        }
+
+        @Override
+        public String toString() {
+
+            return String.format("logins: %d, failures: %d, concurrency: %d, throughput: %.1f/s, " +
+                            "p50: %.2f ms, p99: %.2f ms, p999: %.2f ms, max: %.2f ms", getSuccessCount(),
+                    getFailureCount(), concurrency, getThroughput(), getPercentileMillis(50),
+                    getPercentileMillis(99), getPercentileMillis(99.9), latencies.getMaxMillis());
+        }
+    }
+
+    /**
+     * Request with the given parameters and attributes kept in memory.
+     */
+    private static class ParameterRequest extends HttpServletRequestWrapper {
+
+        private final Map<String, String[]> parameters;
+        private final Map<String, Object> attributes = new HashMap<>();
+
+        private ParameterRequest(HttpServletRequest delegate, Map<String, String[]> parameters) {
+
+            super(delegate);
+            this.parameters = parameters;
+        }
+
+        @Override
+        public String getParameter(String name) {
+
+            String[] values = parameters.get(name);
+            return values == null || values.length == 0 ? null : values[0];
+        }
+
+        @Override
+        public String[] getParameterValues(String name) {
+
+            return parameters.get(name);
+        }
+
+        @Override
+        public Map<String, String[]> getParameterMap() {
+
+            return parameters;
+        }
+
+        @Override
+        public Object getAttribute(String name) {
+
+            return attributes.get(name);
+        }
+
+        @Override
+        public void setAttribute(String name, Object value) {
+
+            attributes.put(name, value);
+        }
+
+        @Override
+        public void removeAttribute(String name) {
+
+            attributes.remove(name);
+        }
+    }
+
+    /**
+     * Response which keeps the redirect location.
+     */
+    private static class RedirectCapturingResponse extends HttpServletResponseWrapper {
+
+        private String location;
+
+        private RedirectCapturingResponse(HttpServletResponse delegate) {
+
+            super(delegate);
+        }
+
+        @Override
+        public void sendRedirect(String location) {
+
+            this.location = location;
+        }
+    }
+}
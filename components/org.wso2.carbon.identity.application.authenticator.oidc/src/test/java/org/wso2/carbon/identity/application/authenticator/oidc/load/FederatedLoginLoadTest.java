@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.load;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.testng.PowerMockTestCase;
+import org.testng.IObjectFactory;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.ObjectFactory;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.central.log.mgt.utils.LoggerUtils;
+import org.wso2.carbon.identity.core.ServiceURLBuilder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Load test of the federated login flow against the stub OIDC provider, which runs offline on the loopback
+ * interface. Run with: mvn test -Pload-test
+ * The load is configured with the system properties oidc.load.concurrency, oidc.load.logins,
+ * oidc.load.warmupLogins and oidc.load.pkce. The report is logged and written to oidc.load.reportFile.
+ */
+@PrepareForTest({LoggerUtils.class, ServiceURLBuilder.class})
+@PowerMockIgnore({"jdk.internal.reflect.*", "javax.net.ssl.*", "javax.management.*", "com.sun.net.httpserver.*",
+        "com.sun.management.*", "sun.net.*", "jdk.jfr.*"})
+public class FederatedLoginLoadTest extends PowerMockTestCase {
+
+    private static final Log LOG = LogFactory.getLog(FederatedLoginLoadTest.class);
+
+    private final int concurrency = Integer.getInteger("oidc.load.concurrency", 8);
+    private final int logins = Integer.getInteger("oidc.load.logins", 2000);
+    private final int warmupLogins = Integer.getInteger("oidc.load.warmupLogins", 500);
+    private final boolean pkce = Boolean.parseBoolean(System.getProperty("oidc.load.pkce", "true"));
+    private final String reportFile = System.getProperty("oidc.load.reportFile",
+            "target/oidc-load-report.properties");
+
+    private StubOIDCProvider stubProvider;
+    private FederatedLoginLoadHarness harness;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+
+        stubProvider = new StubOIDCProvider(concurrency);
+        stubProvider.start();
+
+        LoadTestSupport.mockFrameworkServices();
+        harness = LoadTestSupport.newHarness(stubProvider, pkce);
+    }
+
+    @AfterClass
+    public void tearDown() {
+
+        LoadTestSupport.resetFrameworkServices();
+        if (stubProvider != null) {
+            stubProvider.stop();
+        }
+    }
+
+    @Test
+    public void testFederatedLoginLoad() throws Exception {
+
+        FederatedLoginLoadHarness.LoadReport warmup = harness.run(warmupLogins, concurrency);
+        assertEquals(warmup.getFailureCount(), 0, "Warmup logins failed: " + warmup.getFirstFailure());
+
+        FederatedLoginLoadHarness.LoadReport report = harness.run(logins, concurrency);
+        LOG.info("Federated login load test: " + report);
+        writeReport(report);
+        assertEquals(report.getFailureCount(), 0, "Logins failed: " + report.getFirstFailure());
+        assertEquals(report.getSuccessCount(), logins);
+        assertEquals(stubProvider.getPendingGrantCount(), 0, "Authorization codes were not redeemed.");
+    }
+
+    @ObjectFactory
+    public IObjectFactory getObjectFactory() {
+
+        return new org.powermock.modules.testng.PowerMockObjectFactory();
+    }
+
+    private void writeReport(FederatedLoginLoadHarness.LoadReport report) throws IOException {
+
+        Properties properties = new Properties();
+        properties.putAll(new TreeMap<>(report.toProperties()));
+        properties.put("pkce", String.valueOf(pkce));
+        properties.put("java.version", System.getProperty("java.version"));
+        File file = new File(reportFile);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        try (OutputStream outputStream = new FileOutputStream(file)) {
+            properties.store(outputStream, "Federated login load test");
+        }
+    }
+}
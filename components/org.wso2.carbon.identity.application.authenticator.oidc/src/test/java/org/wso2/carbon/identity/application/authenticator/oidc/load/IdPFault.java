@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.load;
+
+import java.util.Random;
+
+/**
+ * Fault injected by the stub OIDC provider into the responses of an endpoint. A fault is applied to a request with
+ * its configured probability, hence faults with a probability below 1 model an IdP which fails intermittently.
+ */
+public final class IdPFault {
+
+    /**
+     * Fault types.
+     */
+    public enum Type {
+        // Delay the response by a duration drawn from a latency distribution.
+        LATENCY,
+        // Close the connection without sending a response.
+        CONNECTION_RESET,
+        // Send the response body in small chunks with a delay between the chunks.
+        SLOW_DRIP,
+        // Respond with an error status, i.e. 5xx or 429 with a Retry-After header.
+        ERROR_STATUS,
+        // Pad the JSON response body up to the given size.
+        OVERSIZED_PAYLOAD
+    }
+
+    private final Type type;
+    private final double probability;
+    private final LatencyDistribution latency;
+    private final int status;
+    private final long retryAfterSeconds;
+    private final int size;
+    private final long intervalMillis;
+
+    private IdPFault(Type type, double probability, LatencyDistribution latency, int status, long retryAfterSeconds,
+                     int size, long intervalMillis) {
+
+        this.type = type;
+        this.probability = probability;
+        this.latency = latency;
+        this.status = status;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.size = size;
+        this.intervalMillis = intervalMillis;
+    }
+
+    /**
+     * Delay the responses.
+     *
+     * @param latency Distribution of the delay.
+     * @return Fault.
+     */
+    public static IdPFault latency(LatencyDistribution latency) {
+
+        return new IdPFault(Type.LATENCY, 1, latency, 0, 0, 0, 0);
+    }
+
+    /**
+     * Close the connections without a response.
+     *
+     * @return Fault.
+     */
+    public static IdPFault connectionReset() {
+
+        return new IdPFault(Type.CONNECTION_RESET, 1, null, 0, 0, 0, 0);
+    }
+
+    /**
+     * Send the response bodies slowly.
+     *
+     * @param chunkSize      Bytes sent at once.
+     * @param intervalMillis Delay between the chunks.
+     * @return Fault.
+     */
+    public static IdPFault slowDrip(int chunkSize, long intervalMillis) {
+
+        return new IdPFault(Type.SLOW_DRIP, 1, null, 0, 0, chunkSize, intervalMillis);
+    }
+
+    /**
+     * Respond with a server error.
+     *
+     * @param status 5xx status code.
+     * @return Fault.
+     */
+    public static IdPFault serverError(int status) {
+
+        return new IdPFault(Type.ERROR_STATUS, 1, null, status, 0, 0, 0);
+    }
+
+    /**
+     * Respond with 429 Too Many Requests.
+     *
+     * @param retryAfterSeconds Value of the Retry-After header.
+     * @return Fault.
+     */
+    public static IdPFault tooManyRequests(long retryAfterSeconds) {
+
+        return new IdPFault(Type.ERROR_STATUS, 1, null, 429, retryAfterSeconds, 0, 0);
+    }
+
+    /**
+     * Pad the responses to the given size.
+     *
+     * @param size Minimum size of the response body in bytes.
+     * @return Fault.
+     */
+    public static IdPFault oversizedPayload(int size) {
+
+        return new IdPFault(Type.OVERSIZED_PAYLOAD, 1, null, 0, 0, size, 0);
+    }
+
+    /**
+     * Get a copy of this fault which is applied to the given share of the requests.
+     *
+     * @param probability Probability between 0 and 1.
+     * @return Fault.
+     */
+    public IdPFault withProbability(double probability) {
+
+        return new IdPFault(type, probability, latency, status, retryAfterSeconds, size, intervalMillis);
+    }
+
+    public Type getType() {
+
+        return type;
+    }
+
+    public int getStatus() {
+
+        return status;
+    }
+
+    public long getRetryAfterSeconds() {
+
+        return retryAfterSeconds;
+    }
+
+    public int getSize() {
+
+        return size;
+    }
+
+    public long getIntervalMillis() {
+
+        return intervalMillis;
+    }
+
+    boolean isTriggered(Random random) {
+
+        return probability >= 1 || random.nextDouble() < probability;
+    }
+
+    long nextLatencyMillis(Random random) {
+
+        return latency.nextMillis(random);
+    }
+
+    /**
+     * Distribution of an injected latency.
+     */
+    @FunctionalInterface
+    public interface LatencyDistribution {
+
+        long nextMillis(Random random);
+
+        /**
+         * Always the same latency.
+         */
+        static LatencyDistribution fixed(long millis) {
+
+            return random -> millis;
+        }
+
+        /**
+         * Latency uniformly distributed between the given bounds.
+         */
+        static LatencyDistribution uniform(long minMillis, long maxMillis) {
+
+            return random -> minMillis + (long) (random.nextDouble() * (maxMillis - minMillis));
+        }
+
+        /**
+         * Log-normal latency with the given median, i.e. a long tail as observed from IdPs under load. A sigma of 1
+         * puts the p99 at about ten times the median.
+         */
+        static LatencyDistribution logNormal(long medianMillis, double sigma) {
+
+            return random -> Math.round(medianMillis * Math.exp(sigma * random.nextGaussian()));
+        }
+    }
+}
@@ -0,0 +1,376 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.load;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.oltu.oauth2.client.response.OAuthClientResponse;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.testng.PowerMockTestCase;
+import org.testng.IObjectFactory;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.ObjectFactory;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.authentication.framework.context.AuthenticationContext;
+import org.wso2.carbon.identity.application.authentication.framework.exception.AuthenticationFailedException;
+import org.wso2.carbon.identity.application.authenticator.oidc.OpenIDConnectAuthenticator;
+import org.wso2.carbon.identity.application.authenticator.oidc.metrics.LatencyHistogram;
+import org.wso2.carbon.identity.application.common.model.ClaimMapping;
+import org.wso2.carbon.identity.central.log.mgt.utils.LoggerUtils;
+import org.wso2.carbon.identity.core.ServiceURLBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.servlet.http.HttpServletRequest;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Behaviour of requestAccessToken and getSubjectAttributes when the IdP is slow or failing. Every scenario calls the
+ * method under test from {@value #CONCURRENCY} threads and measures for how long a call occupies its thread, i.e.
+ * for how long a login request thread of the server would be blocked on the IdP. The occupancy is logged as
+ * p50/p99/max per scenario. Run with: mvn test -Pload-test
+ */
+@PrepareForTest({LoggerUtils.class, ServiceURLBuilder.class})
+@PowerMockIgnore({"jdk.internal.reflect.*", "javax.net.ssl.*", "javax.management.*", "com.sun.net.httpserver.*",
+        "com.sun.management.*", "sun.net.*", "jdk.jfr.*"})
+public class IdPFaultInjectionTest extends PowerMockTestCase {
+
+    private static final Log LOG = LogFactory.getLog(IdPFaultInjectionTest.class);
+    private static final int CONCURRENCY = 8;
+    private static final int CALLS = 32;
+    // Calls which fail at the IdP should not occupy the thread for longer than this.
+    private static final long FAIL_FAST_MILLIS = 1000;
+
+    private final FaultTestAuthenticator authenticator = new FaultTestAuthenticator();
+    private StubOIDCProvider stubProvider;
+    private FederatedLoginLoadHarness harness;
+    private ExecutorService executor;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+
+        // The stub workers are kept busy by the injected delays, hence there is a worker for every caller.
+        stubProvider = new StubOIDCProvider(CONCURRENCY * 2);
+        stubProvider.start();
+        LoadTestSupport.mockFrameworkServices();
+        harness = LoadTestSupport.newHarness(stubProvider, true, authenticator);
+        executor = Executors.newFixedThreadPool(CONCURRENCY);
+    }
+
+    @AfterMethod
+    public void clearFaults() {
+
+        stubProvider.clearFaults();
+    }
+
+    @AfterClass
+    public void tearDown() {
+
+        LoadTestSupport.resetFrameworkServices();
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        if (stubProvider != null) {
+            stubProvider.stop();
+        }
+    }
+
+    @Test
+    public void testTokenEndpointLatency() throws Exception {
+
+        stubProvider.injectFault(StubOIDCProvider.Endpoint.TOKEN,
+                IdPFault.latency(IdPFault.LatencyDistribution.fixed(200)));
+        Occupancy occupancy = requestAccessTokens("token latency 200 ms");
+        assertEquals(occupancy.getFailureCount(), 0);
+        // Nothing bounds the wait for the token response, hence the thread is held for the whole delay.
+        assertTrue(occupancy.histogram.getPercentileMillis(50) >= 175, occupancy.toString());
+    }
+
+    @Test
+    public void testTokenEndpointLatencyTail() throws Exception {
+
+        stubProvider.injectFault(StubOIDCProvider.Endpoint.TOKEN,
+                IdPFault.latency(IdPFault.LatencyDistribution.logNormal(20, 1)));
+        Occupancy occupancy = requestAccessTokens("token log-normal latency, median 20 ms");
+        assertEquals(occupancy.getFailureCount(), 0);
+        // The tail of the IdP latency reaches the request threads as it is.
+        assertTrue(occupancy.histogram.getMaxMillis() > occupancy.histogram.getPercentileMillis(50) * 2,
+                occupancy.toString());
+    }
+
+    @Test
+    public void testTokenEndpointServerError() throws Exception {
+
+        stubProvider.injectFault(StubOIDCProvider.Endpoint.TOKEN, IdPFault.serverError(503));
+        long requestsBefore = stubProvider.getRequestCount(StubOIDCProvider.Endpoint.TOKEN);
+        Occupancy occupancy = requestAccessTokens("token 503");
+        assertFailedFast(occupancy, AuthenticationFailedException.class);
+        // The token request is not retried.
+        assertEquals(stubProvider.getRequestCount(StubOIDCProvider.Endpoint.TOKEN) - requestsBefore, CALLS);
+    }
+
+    @Test
+    public void testTokenEndpointTooManyRequests() throws Exception {
+
+        stubProvider.injectFault(StubOIDCProvider.Endpoint.TOKEN, IdPFault.tooManyRequests(30));
+        long requestsBefore = stubProvider.getRequestCount(StubOIDCProvider.Endpoint.TOKEN);
+        Occupancy occupancy = requestAccessTokens("token 429");
+        // The login fails without waiting for the Retry-After period.
+        assertFailedFast(occupancy, AuthenticationFailedException.class);
+        assertEquals(stubProvider.getRequestCount(StubOIDCProvider.Endpoint.TOKEN) - requestsBefore, CALLS);
+    }
+
+    @Test
+    public void testTokenEndpointConnectionReset() throws Exception {
+
+        stubProvider.injectFault(StubOIDCProvider.Endpoint.TOKEN, IdPFault.connectionReset());
+        assertFailedFast(requestAccessTokens("token connection reset"), AuthenticationFailedException.class);
+    }
+
+    @Test
+    public void testTokenEndpointIntermittentFailure() throws Exception {
+
+        stubProvider.injectFault(StubOIDCProvider.Endpoint.TOKEN, IdPFault.serverError(500).withProbability(0.25));
+        Occupancy occupancy = requestAccessTokens("token 500 for 25% of the requests");
+        // Every failed login costs a token request, while the rest of the logins are not affected.
+        assertTrue(occupancy.getSuccessCount() > 0 && occupancy.getFailureCount() > 0, occupancy.toString());
+    }
+
+    @Test
+    public void testTokenEndpointOversizedPayload() throws Exception {
+
+        stubProvider.injectFault(StubOIDCProvider.Endpoint.TOKEN, IdPFault.oversizedPayload(256 * 1024));
+        Occupancy occupancy = requestAccessTokens("token 256 KB response");
+        assertEquals(occupancy.getFailureCount(), 0);
+    }
+
+    @Test
+    public void testUserInfoSlowDrip() throws Exception {
+
+        List<OAuthClientResponse> tokens = requestAccessTokens();
+        // The user info response of about 150 bytes is sent in 16 byte chunks, 50 ms apart.
+        stubProvider.injectFault(StubOIDCProvider.Endpoint.USER_INFO, IdPFault.slowDrip(16, 50));
+        Occupancy occupancy = getSubjectAttributes(tokens, "user info slow drip", 4);
+        assertEquals(occupancy.getFailureCount(), 0);
+        // A read timeout would not bound a slow drip, since every read gets a chunk in time.
+        assertTrue(occupancy.histogram.getPercentileMillis(50) >= 300, occupancy.toString());
+    }
+
+    @Test
+    public void testUserInfoServerError() throws Exception {
+
+        List<OAuthClientResponse> tokens = requestAccessTokens();
+        stubProvider.injectFault(StubOIDCProvider.Endpoint.USER_INFO, IdPFault.serverError(502));
+        // The communication error is logged and the login continues without the user info claims.
+        Occupancy occupancy = getSubjectAttributes(tokens, "user info 502", 0);
+        assertEquals(occupancy.getFailureCount(), 0);
+        assertTrue(occupancy.histogram.getMaxMillis() < FAIL_FAST_MILLIS, occupancy.toString());
+    }
+
+    @Test
+    public void testUserInfoConnectionReset() throws Exception {
+
+        List<OAuthClientResponse> tokens = requestAccessTokens();
+        stubProvider.injectFault(StubOIDCProvider.Endpoint.USER_INFO, IdPFault.connectionReset());
+        Occupancy occupancy = getSubjectAttributes(tokens, "user info connection reset", 0);
+        assertEquals(occupancy.getFailureCount(), 0);
+        assertTrue(occupancy.histogram.getMaxMillis() < FAIL_FAST_MILLIS, occupancy.toString());
+    }
+
+    @Test
+    public void testUserInfoOversizedPayload() throws Exception {
+
+        List<OAuthClientResponse> tokens = requestAccessTokens();
+        stubProvider.injectFault(StubOIDCProvider.Endpoint.USER_INFO, IdPFault.oversizedPayload(1024 * 1024));
+        // The whole response is buffered and every member, including the padding, becomes a claim.
+        Occupancy occupancy = getSubjectAttributes(tokens, "user info 1 MB response", 5);
+        assertEquals(occupancy.getFailureCount(), 0);
+    }
+
+    @ObjectFactory
+    public IObjectFactory getObjectFactory() {
+
+        return new org.powermock.modules.testng.PowerMockObjectFactory();
+    }
+
+    /**
+     * Request {@value #CALLS} access tokens concurrently with the injected faults. The authorization codes are
+     * obtained before measuring.
+     */
+    private Occupancy requestAccessTokens(String scenario) throws Exception {
+
+        List<AuthenticationContext> contexts = new ArrayList<>(CALLS);
+        List<HttpServletRequest> callbackRequests = new ArrayList<>(CALLS);
+        for (int i = 0; i < CALLS; i++) {
+            AuthenticationContext context = harness.newContext();
+            callbackRequests.add(harness.newCallbackRequest(
+                    FederatedLoginLoadHarness.authorize(harness.initiate(context))));
+            contexts.add(context);
+        }
+        Occupancy occupancy = new Occupancy(scenario);
+        List<Future<?>> futures = new ArrayList<>(CALLS);
+        for (int i = 0; i < CALLS; i++) {
+            int call = i;
+            futures.add(executor.submit(() -> occupancy.measure(() -> assertNotNull(
+                    authenticator.requestAccessToken(callbackRequests.get(call), contexts.get(call))))));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        LOG.info(occupancy);
+        return occupancy;
+    }
+
+    /**
+     * Request {@value #CALLS} access tokens without faults.
+     */
+    private List<OAuthClientResponse> requestAccessTokens() throws Exception {
+
+        List<OAuthClientResponse> tokens = new ArrayList<>(CALLS);
+        for (int i = 0; i < CALLS; i++) {
+            AuthenticationContext context = harness.newContext();
+            HttpServletRequest callbackRequest = harness.newCallbackRequest(
+                    FederatedLoginLoadHarness.authorize(harness.initiate(context)));
+            tokens.add(authenticator.requestAccessToken(callbackRequest, context));
+        }
+        return tokens;
+    }
+
+    /**
+     * Get the user info of the given tokens concurrently with the injected faults.
+     *
+     * @param expectedClaims Number of claims each call should return.
+     */
+    private Occupancy getSubjectAttributes(List<OAuthClientResponse> tokens, String scenario, int expectedClaims)
+            throws Exception {
+
+        Map<String, String> authenticatorProperties = harness.newContext().getAuthenticatorProperties();
+        Occupancy occupancy = new Occupancy(scenario);
+        List<Future<?>> futures = new ArrayList<>(tokens.size());
+        for (OAuthClientResponse token : tokens) {
+            futures.add(executor.submit(() -> occupancy.measure(() -> {
+                Map<ClaimMapping, String> claims = authenticator.getSubjectAttributes(token, authenticatorProperties);
+                assertEquals(claims.size(), expectedClaims);
+            })));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        LOG.info(occupancy);
+        return occupancy;
+    }
+
+    private static void assertFailedFast(Occupancy occupancy, Class<? extends Exception> expectedFailure) {
+
+        assertEquals(occupancy.getSuccessCount(), 0, occupancy.toString());
+        assertEquals(occupancy.failures.size(), 1, occupancy.toString());
+        assertEquals(occupancy.failures.keySet().iterator().next(), expectedFailure, occupancy.toString());
+        assertTrue(occupancy.histogram.getMaxMillis() < FAIL_FAST_MILLIS, occupancy.toString());
+    }
+
+    /**
+     * Thread occupancy of the calls of a scenario, including the failed calls.
+     */
+    private static class Occupancy {
+
+        private final String scenario;
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final LongAdder successes = new LongAdder();
+        private final Map<Class<?>, LongAdder> failures = new ConcurrentHashMap<>();
+
+        private Occupancy(String scenario) {
+
+            this.scenario = scenario;
+        }
+
+        private void measure(Call call) {
+
+            long start = System.nanoTime();
+            try {
+                call.run();
+                successes.increment();
+            } catch (Exception | AssertionError e) {
+                failures.computeIfAbsent(e.getClass(), k -> new LongAdder()).increment();
+            } finally {
+                histogram.record(System.nanoTime() - start);
+            }
+        }
+
+        private long getSuccessCount() {
+
+            return successes.sum();
+        }
+
+        private long getFailureCount() {
+
+            return failures.values().stream().mapToLong(LongAdder::sum).sum();
+        }
+
+        @Override
+        public String toString() {
+
+            StringBuilder failureSummary = new StringBuilder();
+            failures.forEach((type, count) -> failureSummary.append(' ').append(type.getSimpleName()).append(": ")
+                    .append(count.sum()));
+            return String.format("Thread occupancy of %s: calls: %d, successes: %d, p50: %.1f ms, p99: %.1f ms, " +
+                            "max: %.1f ms, failures:%s", scenario, histogram.getCount(), getSuccessCount(),
+                    histogram.getPercentileMillis(50), histogram.getPercentileMillis(99), histogram.getMaxMillis(),
+                    failureSummary.length() == 0 ? " none" : failureSummary);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Call {
+
+        void run() throws Exception;
+    }
+
+    /**
+     * Exposes the IdP calls of the authenticator.
+     */
+    private static class FaultTestAuthenticator extends OpenIDConnectAuthenticator {
+
+        @Override
+        public OAuthClientResponse requestAccessToken(HttpServletRequest request, AuthenticationContext context)
+                throws AuthenticationFailedException {
+
+            return super.requestAccessToken(request, context);
+        }
+
+        @Override
+        public Map<ClaimMapping, String> getSubjectAttributes(OAuthClientResponse token,
+                                                              Map<String, String> authenticatorProperties) {
+
+            return super.getSubjectAttributes(token, authenticatorProperties);
+        }
+    }
+}
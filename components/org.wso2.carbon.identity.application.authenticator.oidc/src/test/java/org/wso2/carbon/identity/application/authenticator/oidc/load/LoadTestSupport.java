@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.load;
+
+import org.mockito.Mockito;
+import org.wso2.carbon.identity.application.authentication.framework.config.model.ExternalIdPConfig;
+import org.wso2.carbon.identity.application.authenticator.oidc.OIDCAuthenticatorConstants;
+import org.wso2.carbon.identity.application.authenticator.oidc.OpenIDConnectAuthenticator;
+import org.wso2.carbon.identity.application.authenticator.oidc.internal.OpenIDConnectAuthenticatorDataHolder;
+import org.wso2.carbon.identity.application.common.model.IdentityProvider;
+import org.wso2.carbon.identity.application.common.util.IdentityApplicationConstants;
+import org.wso2.carbon.identity.central.log.mgt.utils.LoggerUtils;
+import org.wso2.carbon.identity.core.ServiceURL;
+import org.wso2.carbon.identity.core.ServiceURLBuilder;
+import org.wso2.carbon.identity.core.util.IdentityCoreConstants;
+import org.wso2.carbon.user.api.RealmConfiguration;
+import org.wso2.carbon.user.core.UserRealm;
+import org.wso2.carbon.user.core.UserStoreManager;
+import org.wso2.carbon.user.core.service.RealmService;
+import org.wso2.carbon.user.core.tenant.TenantManager;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+
+/**
+ * Framework services and IdP configuration shared by the tests which drive federated logins against the stub OIDC
+ * provider. The tests should prepare LoggerUtils and ServiceURLBuilder for PowerMock. The mocks do not record
+ * invocations, hence they do not add to the heap or the allocations under load.
+ */
+final class LoadTestSupport {
+
+    static final String TENANT_DOMAIN = "carbon.super";
+    static final int TENANT_ID = -1234;
+    static final String STUB_IDP_NAME = "StubOIDCProvider";
+    private static final String CALLBACK_URL = "https://localhost:9443/commonauth";
+
+    private LoadTestSupport() {
+
+    }
+
+    /**
+     * Mock the static framework utilities and set the realm service of the authenticator.
+     */
+    static void mockFrameworkServices() throws Exception {
+
+        mockStatic(LoggerUtils.class);
+        when(LoggerUtils.isDiagnosticLogsEnabled()).thenReturn(false);
+        ServiceURL serviceURL = Mockito.mock(ServiceURL.class, Mockito.withSettings().stubOnly());
+        when(serviceURL.getAbsolutePublicURL()).thenReturn("https://localhost:9443");
+        ServiceURLBuilder serviceURLBuilder = Mockito.mock(ServiceURLBuilder.class, Mockito.withSettings().stubOnly());
+        when(serviceURLBuilder.build()).thenReturn(serviceURL);
+        mockStatic(ServiceURLBuilder.class);
+        when(ServiceURLBuilder.create()).thenReturn(serviceURLBuilder);
+        OpenIDConnectAuthenticatorDataHolder.getInstance().setRealmService(mockRealmService());
+    }
+
+    /**
+     * Reset the services set by {@link #mockFrameworkServices()}.
+     */
+    static void resetFrameworkServices() {
+
+        OpenIDConnectAuthenticatorDataHolder.getInstance().setRealmService(null);
+    }
+
+    /**
+     * Create a harness which logs in via the given stub provider.
+     *
+     * @param stubProvider Stub OIDC provider.
+     * @param pkce         Whether PKCE is enabled for the IdP.
+     * @return Login harness.
+     */
+    static FederatedLoginLoadHarness newHarness(StubOIDCProvider stubProvider, boolean pkce) {
+
+        return newHarness(stubProvider, pkce, new OpenIDConnectAuthenticator());
+    }
+
+    /**
+     * Create a harness which logs in via the given stub provider with the given authenticator.
+     *
+     * @param stubProvider  Stub OIDC provider.
+     * @param pkce          Whether PKCE is enabled for the IdP.
+     * @param authenticator Authenticator under test.
+     * @return Login harness.
+     */
+    static FederatedLoginLoadHarness newHarness(StubOIDCProvider stubProvider, boolean pkce,
+                                                OpenIDConnectAuthenticator authenticator) {
+
+        Map<String, String> authenticatorProperties = new HashMap<>();
+        authenticatorProperties.put(OIDCAuthenticatorConstants.CLIENT_ID, StubOIDCProvider.CLIENT_ID);
+        authenticatorProperties.put(OIDCAuthenticatorConstants.CLIENT_SECRET, StubOIDCProvider.CLIENT_SECRET);
+        authenticatorProperties.put(OIDCAuthenticatorConstants.OAUTH2_AUTHZ_URL, stubProvider.getAuthorizeEndpoint());
+        authenticatorProperties.put(OIDCAuthenticatorConstants.OAUTH2_TOKEN_URL, stubProvider.getTokenEndpoint());
+        authenticatorProperties.put(IdentityApplicationConstants.Authenticator.OIDC.USER_INFO_URL,
+                stubProvider.getUserInfoEndpoint());
+        authenticatorProperties.put(IdentityApplicationConstants.OAuth2.CALLBACK_URL, CALLBACK_URL);
+        authenticatorProperties.put(IdentityApplicationConstants.Authenticator.OIDC.SCOPES, "openid email profile");
+        authenticatorProperties.put(OIDCAuthenticatorConstants.IS_PKCE_ENABLED, String.valueOf(pkce));
+
+        IdentityProvider identityProvider = new IdentityProvider();
+        identityProvider.setIdentityProviderName(STUB_IDP_NAME);
+        return new FederatedLoginLoadHarness(authenticator, authenticatorProperties,
+                new ExternalIdPConfig(identityProvider));
+    }
+
+    private static RealmService mockRealmService() throws Exception {
+
+        RealmConfiguration realmConfiguration = Mockito.mock(RealmConfiguration.class,
+                Mockito.withSettings().stubOnly());
+        when(realmConfiguration.getUserStoreProperty(IdentityCoreConstants.MULTI_ATTRIBUTE_SEPARATOR))
+                .thenReturn(",");
+        UserStoreManager userStoreManager = Mockito.mock(UserStoreManager.class, Mockito.withSettings().stubOnly());
+        when(userStoreManager.getRealmConfiguration()).thenReturn(realmConfiguration);
+        UserRealm userRealm = Mockito.mock(UserRealm.class, Mockito.withSettings().stubOnly());
+        when(userRealm.getUserStoreManager()).thenReturn(userStoreManager);
+        TenantManager tenantManager = Mockito.mock(TenantManager.class, Mockito.withSettings().stubOnly());
+        when(tenantManager.getTenantId(anyString())).thenReturn(TENANT_ID);
+        RealmService realmService = Mockito.mock(RealmService.class, Mockito.withSettings().stubOnly());
+        when(realmService.getTenantManager()).thenReturn(tenantManager);
+        when(realmService.getTenantUserRealm(anyInt())).thenReturn(userRealm);
+        return realmService;
+    }
+}
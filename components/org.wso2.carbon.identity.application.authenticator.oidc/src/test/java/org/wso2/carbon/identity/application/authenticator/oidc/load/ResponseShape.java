@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.load;
+
+import org.wso2.carbon.identity.application.authenticator.oidc.metrics.AuthenticatorPhase;
+import org.wso2.carbon.identity.application.authenticator.oidc.metrics.TrafficRecord;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shape of the token and user info responses the stub OIDC provider serves for a replayed login, derived from a
+ * captured {@link TrafficRecord}. The latency of an IdP call is taken from the duration of the authenticator phase
+ * which wraps the call, hence it includes the little work the authenticator does around the call.
+ */
+final class ResponseShape {
+
+    private final long tokenLatencyMillis;
+    private final long userInfoLatencyMillis;
+    private final int accessTokenBytes;
+    private final int idTokenBytes;
+    private final int idTokenClaims;
+    private final int userInfoBytes;
+    private final int userInfoClaims;
+    private final StubOIDCProvider.Endpoint failedEndpoint;
+
+    private ResponseShape(TrafficRecord record) {
+
+        this.tokenLatencyMillis = TimeUnit.MICROSECONDS.toMillis(
+                record.getPhaseMicros(AuthenticatorPhase.GET_OAUTH_RESPONSE));
+        this.userInfoLatencyMillis = TimeUnit.MICROSECONDS.toMillis(
+                record.getPhaseMicros(AuthenticatorPhase.SEND_REQUEST));
+        this.accessTokenBytes = record.getAccessTokenBytes();
+        this.idTokenBytes = record.getIdTokenBytes();
+        this.idTokenClaims = record.getIdTokenClaims();
+        this.userInfoBytes = record.getUserInfoBytes();
+        this.userInfoClaims = record.getUserInfoClaims();
+        this.failedEndpoint = toFailedEndpoint(record.getFailedPhase());
+    }
+
+    /**
+     * Get the response shape of a captured login.
+     *
+     * @param record Captured login.
+     * @return Response shape.
+     */
+    static ResponseShape of(TrafficRecord record) {
+
+        return new ResponseShape(record);
+    }
+
+    long getTokenLatencyMillis() {
+
+        return tokenLatencyMillis;
+    }
+
+    long getUserInfoLatencyMillis() {
+
+        return userInfoLatencyMillis;
+    }
+
+    int getAccessTokenBytes() {
+
+        return accessTokenBytes;
+    }
+
+    int getIdTokenBytes() {
+
+        return idTokenBytes;
+    }
+
+    int getIdTokenClaims() {
+
+        return idTokenClaims;
+    }
+
+    int getUserInfoBytes() {
+
+        return userInfoBytes;
+    }
+
+    int getUserInfoClaims() {
+
+        return userInfoClaims;
+    }
+
+    /**
+     * Get the endpoint which fails the replayed login.
+     *
+     * @return Endpoint or null if the captured login did not fail at the IdP.
+     */
+    StubOIDCProvider.Endpoint getFailedEndpoint() {
+
+        return failedEndpoint;
+    }
+
+    private static StubOIDCProvider.Endpoint toFailedEndpoint(String failedPhase) {
+
+        AuthenticatorPhase phase = AuthenticatorPhase.fromPhaseName(failedPhase);
+        if (phase == AuthenticatorPhase.GET_OAUTH_RESPONSE || phase == AuthenticatorPhase.REQUEST_ACCESS_TOKEN) {
+            return StubOIDCProvider.Endpoint.TOKEN;
+        }
+        if (phase == AuthenticatorPhase.SEND_REQUEST) {
+            return StubOIDCProvider.Endpoint.USER_INFO;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,572 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.load;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import net.minidev.json.JSONObject;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang.StringUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.RSAPublicKey;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Stub OIDC provider listening on the loopback interface, which serves the discovery, JWKS, authorize, token and
+ * user info endpoints of the authorization code flow. The authorize endpoint authenticates every request as a new
+ * user and redirects back with an authorization code, which can be redeemed once at the token endpoint for an RS256
+ * signed ID token carrying the nonce of the authorize request. PKCE is verified when a code challenge was sent.
+ * <p>
+ * Faults can be injected into the token and user info endpoints to reproduce slow or failing IdPs, see
+ * {@link IdPFault}. The faults which fail a request are applied before the request is processed, hence an
+ * authorization code survives a failed token request.
+ * <p>
+ * The responses of a login can also be shaped after a captured login, see {@link ResponseShape}. The shape is
+ * registered with the provider and referred by the {@value #SHAPE_PARAM} param of the authorize request.
+ */
+public class StubOIDCProvider {
+
+    static final String CLIENT_ID = "stub-client-id";
+    static final String CLIENT_SECRET = "stub-client-secret";
+    static final String SHAPE_PARAM = "stub_shape";
+
+    private static final String CONTENT_TYPE_JSON = "application/json";
+    private static final long TOKEN_VALIDITY_SECONDS = 3600;
+
+    /**
+     * Endpoints which faults can be injected into.
+     */
+    public enum Endpoint {
+        TOKEN,
+        USER_INFO
+    }
+
+    private final Map<String, AuthorizationGrant> grants = new ConcurrentHashMap<>();
+    private final Map<String, AuthorizationGrant> accessTokens = new ConcurrentHashMap<>();
+    private final Map<String, ResponseShape> shapes = new ConcurrentHashMap<>();
+    private final Map<Endpoint, List<IdPFault>> faults = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, LongAdder> requestCounts = new EnumMap<>(Endpoint.class);
+    private final KeyPair signingKey;
+    private final String keyId = UUID.randomUUID().toString();
+    private final int workerThreads;
+    private HttpServer server;
+    private ExecutorService executor;
+    private String baseUrl;
+
+    /**
+     * Create a stub provider.
+     *
+     * @param workerThreads Number of threads serving the requests.
+     */
+    public StubOIDCProvider(int workerThreads) throws NoSuchAlgorithmException {
+
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        this.signingKey = keyPairGenerator.generateKeyPair();
+        this.workerThreads = workerThreads;
+        for (Endpoint endpoint : Endpoint.values()) {
+            faults.put(endpoint, new CopyOnWriteArrayList<>());
+            requestCounts.put(endpoint, new LongAdder());
+        }
+    }
+
+    /**
+     * Start the provider on an ephemeral loopback port.
+     */
+    public void start() throws IOException {
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/.well-known/openid-configuration", this::handleDiscovery);
+        server.createContext("/jwks", this::handleJwks);
+        server.createContext("/authorize", this::handleAuthorize);
+        server.createContext("/token", this::handleToken);
+        server.createContext("/userinfo", this::handleUserInfo);
+        executor = Executors.newFixedThreadPool(workerThreads);
+        server.setExecutor(executor);
+        server.start();
+        baseUrl = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    /**
+     * Stop the provider.
+     */
+    public void stop() {
+
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+            server = null;
+        }
+    }
+
+    public String getIssuer() {
+
+        return baseUrl;
+    }
+
+    public String getAuthorizeEndpoint() {
+
+        return baseUrl + "/authorize";
+    }
+
+    public String getTokenEndpoint() {
+
+        return baseUrl + "/token";
+    }
+
+    public String getUserInfoEndpoint() {
+
+        return baseUrl + "/userinfo";
+    }
+
+    public String getJwksEndpoint() {
+
+        return baseUrl + "/jwks";
+    }
+
+    /**
+     * Inject a fault into the responses of an endpoint. The faults of an endpoint are applied in the order they are
+     * injected.
+     *
+     * @param endpoint Endpoint.
+     * @param fault    Fault.
+     */
+    public void injectFault(Endpoint endpoint, IdPFault fault) {
+
+        faults.get(endpoint).add(fault);
+    }
+
+    /**
+     * Register the shape of the responses of a login.
+     *
+     * @param shape Response shape.
+     * @return Value of the {@value #SHAPE_PARAM} param which applies the shape to the login.
+     */
+    public String registerShape(ResponseShape shape) {
+
+        String shapeKey = UUID.randomUUID().toString();
+        shapes.put(shapeKey, shape);
+        return shapeKey;
+    }
+
+    /**
+     * Remove the faults of all endpoints.
+     */
+    public void clearFaults() {
+
+        faults.values().forEach(List::clear);
+    }
+
+    /**
+     * Get the number of requests received by an endpoint.
+     *
+     * @param endpoint Endpoint.
+     * @return Number of requests.
+     */
+    public long getRequestCount(Endpoint endpoint) {
+
+        return requestCounts.get(endpoint).sum();
+    }
+
+    /**
+     * Get the number of authorization codes which are issued but not redeemed yet.
+     *
+     * @return Number of pending authorization codes.
+     */
+    public int getPendingGrantCount() {
+
+        return grants.size();
+    }
+
+    private void handleDiscovery(HttpExchange exchange) throws IOException {
+
+        JSONObject discovery = new JSONObject();
+        discovery.put("issuer", getIssuer());
+        discovery.put("authorization_endpoint", getAuthorizeEndpoint());
+        discovery.put("token_endpoint", getTokenEndpoint());
+        discovery.put("userinfo_endpoint", getUserInfoEndpoint());
+        discovery.put("jwks_uri", getJwksEndpoint());
+        discovery.put("response_types_supported", Collections.singletonList("code"));
+        discovery.put("subject_types_supported", Collections.singletonList("public"));
+        discovery.put("id_token_signing_alg_values_supported", Collections.singletonList("RS256"));
+        discovery.put("code_challenge_methods_supported", Collections.singletonList("S256"));
+        sendJson(exchange, 200, discovery.toJSONString());
+    }
+
+    private void handleJwks(HttpExchange exchange) throws IOException {
+
+        RSAKey jwk = new RSAKey.Builder((RSAPublicKey) signingKey.getPublic()).keyID(keyId).build();
+        sendJson(exchange, 200, new JWKSet(jwk).toJSONObject().toJSONString());
+    }
+
+    private void handleAuthorize(HttpExchange exchange) throws IOException {
+
+        Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+        String redirectUri = params.get("redirect_uri");
+        if (!CLIENT_ID.equals(params.get("client_id")) || StringUtils.isBlank(redirectUri)) {
+            sendJson(exchange, 400, error("invalid_request"));
+            return;
+        }
+        String code = UUID.randomUUID().toString();
+        String shapeKey = params.get(SHAPE_PARAM);
+        grants.put(code, new AuthorizationGrant(params.get("nonce"), params.get("code_challenge"),
+                "user-" + UUID.randomUUID(), shapeKey == null ? null : shapes.remove(shapeKey)));
+        String location = redirectUri + (redirectUri.contains("?") ? "&" : "?") + "code=" + encode(code) +
+                "&state=" + encode(StringUtils.defaultString(params.get("state")));
+        exchange.getResponseHeaders().set("Location", location);
+        exchange.sendResponseHeaders(302, -1);
+        exchange.close();
+    }
+
+    private void handleToken(HttpExchange exchange) throws IOException {
+
+        List<IdPFault> triggeredFaults = getTriggeredFaults(Endpoint.TOKEN);
+        if (applyFailureFaults(exchange, triggeredFaults)) {
+            return;
+        }
+        Map<String, String> params = parseQuery(readBody(exchange));
+        AuthorizationGrant grant = grants.remove(StringUtils.defaultString(params.get("code")));
+        if (!"authorization_code".equals(params.get("grant_type")) || grant == null) {
+            sendJson(exchange, 400, error("invalid_grant"));
+            return;
+        }
+        if (grant.codeChallenge != null && (params.get("code_verifier") == null || !grant.codeChallenge.equals(
+                Base64.encodeBase64URLSafeString(DigestUtils.sha256(params.get("code_verifier")))))) {
+            sendJson(exchange, 400, error("invalid_grant"));
+            return;
+        }
+        if (applyShape(exchange, grant.shape, Endpoint.TOKEN)) {
+            return;
+        }
+        String accessToken = UUID.randomUUID().toString();
+        if (grant.shape != null) {
+            accessToken = StringUtils.rightPad(accessToken, grant.shape.getAccessTokenBytes(), 'x');
+        }
+        accessTokens.put(accessToken, grant);
+        JSONObject tokenResponse = new JSONObject();
+        tokenResponse.put("access_token", accessToken);
+        tokenResponse.put("token_type", "Bearer");
+        tokenResponse.put("expires_in", TOKEN_VALIDITY_SECONDS);
+        tokenResponse.put("scope", "openid email profile");
+        try {
+            tokenResponse.put("id_token", buildIdToken(grant));
+        } catch (JOSEException e) {
+            throw new IOException("Error while signing the ID token.", e);
+        }
+        sendJson(exchange, 200, tokenResponse.toJSONString(), triggeredFaults);
+    }
+
+    private void handleUserInfo(HttpExchange exchange) throws IOException {
+
+        List<IdPFault> triggeredFaults = getTriggeredFaults(Endpoint.USER_INFO);
+        if (applyFailureFaults(exchange, triggeredFaults)) {
+            return;
+        }
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        AuthorizationGrant grant = authorization == null ? null :
+                accessTokens.remove(StringUtils.removeStart(authorization, "Bearer "));
+        if (grant == null) {
+            sendJson(exchange, 401, error("invalid_token"));
+            return;
+        }
+        if (applyShape(exchange, grant.shape, Endpoint.USER_INFO)) {
+            return;
+        }
+        JSONObject userInfo = new JSONObject();
+        userInfo.put("sub", grant.subject);
+        userInfo.put("email", grant.subject + "@example.com");
+        userInfo.put("given_name", "Load");
+        userInfo.put("family_name", "Test");
+        String body = userInfo.toJSONString();
+        if (grant.shape != null) {
+            addClaims(userInfo::put, grant.shape.getUserInfoClaims() - userInfo.size());
+            body = pad(userInfo.toJSONString(), grant.shape.getUserInfoBytes());
+        }
+        sendJson(exchange, 200, body, triggeredFaults);
+    }
+
+    private String buildIdToken(AuthorizationGrant grant) throws JOSEException {
+
+        long now = System.currentTimeMillis();
+        JWTClaimsSet.Builder claims = new JWTClaimsSet.Builder()
+                .issuer(getIssuer())
+                .subject(grant.subject)
+                .audience(CLIENT_ID)
+                .issueTime(new Date(now))
+                .expirationTime(new Date(now + TimeUnit.SECONDS.toMillis(TOKEN_VALIDITY_SECONDS)))
+                .claim("sid", UUID.randomUUID().toString())
+                .claim("email", grant.subject + "@example.com")
+                .claim("groups", Arrays.asList("employees", "load-testers"));
+        if (grant.nonce != null) {
+            claims.claim("nonce", grant.nonce);
+        }
+        if (grant.shape == null) {
+            return sign(claims.build());
+        }
+        addClaims(claims::claim, grant.shape.getIdTokenClaims() - claims.build().getClaims().size());
+        String idToken = sign(claims.build());
+        int missingBytes = grant.shape.getIdTokenBytes() - idToken.length();
+        if (missingBytes <= 0) {
+            return idToken;
+        }
+        // The claims are base64url encoded, i.e. 3 bytes of padding add 4 bytes to the token.
+        return sign(claims.claim("padding", StringUtils.repeat("x", missingBytes * 3 / 4)).build());
+    }
+
+    private String sign(JWTClaimsSet claimsSet) throws JOSEException {
+
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(keyId).build(), claimsSet);
+        jwt.sign(new RSASSASigner(signingKey.getPrivate()));
+        return jwt.serialize();
+    }
+
+    /**
+     * Apply the captured latency and failure of an endpoint.
+     *
+     * @return True if the request is failed as in the captured login.
+     */
+    private static boolean applyShape(HttpExchange exchange, ResponseShape shape, Endpoint endpoint)
+            throws IOException {
+
+        if (shape == null) {
+            return false;
+        }
+        sleep(endpoint == Endpoint.TOKEN ? shape.getTokenLatencyMillis() : shape.getUserInfoLatencyMillis());
+        if (shape.getFailedEndpoint() == endpoint) {
+            sendJson(exchange, 500, error("server_error"));
+            return true;
+        }
+        return false;
+    }
+
+    private static void addClaims(BiConsumer<String, Object> claims, int count) {
+
+        for (int i = 0; i < count; i++) {
+            claims.accept("claim_" + i, "value_" + i);
+        }
+    }
+
+    private static String error(String errorCode) {
+
+        JSONObject error = new JSONObject();
+        error.put("error", errorCode);
+        return error.toJSONString();
+    }
+
+    private List<IdPFault> getTriggeredFaults(Endpoint endpoint) {
+
+        requestCounts.get(endpoint).increment();
+        List<IdPFault> endpointFaults = faults.get(endpoint);
+        if (endpointFaults.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Random random = ThreadLocalRandom.current();
+        List<IdPFault> triggeredFaults = new ArrayList<>();
+        for (IdPFault fault : endpointFaults) {
+            if (fault.isTriggered(random)) {
+                triggeredFaults.add(fault);
+            }
+        }
+        return triggeredFaults;
+    }
+
+    /**
+     * Apply the latency faults and the faults which fail the request.
+     *
+     * @return True if the request is completed by a fault.
+     */
+    private static boolean applyFailureFaults(HttpExchange exchange, List<IdPFault> triggeredFaults)
+            throws IOException {
+
+        for (IdPFault fault : triggeredFaults) {
+            switch (fault.getType()) {
+                case LATENCY:
+                    sleep(fault.nextLatencyMillis(ThreadLocalRandom.current()));
+                    break;
+                case CONNECTION_RESET:
+                    // Closing the exchange before sending the headers closes the connection.
+                    exchange.close();
+                    return true;
+                case ERROR_STATUS:
+                    if (fault.getRetryAfterSeconds() > 0) {
+                        exchange.getResponseHeaders().set("Retry-After",
+                                String.valueOf(fault.getRetryAfterSeconds()));
+                    }
+                    sendJson(exchange, fault.getStatus(), error(fault.getStatus() == 429 ? "slow_down" :
+                            "temporarily_unavailable"));
+                    return true;
+                default:
+                    break;
+            }
+        }
+        return false;
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, String body, List<IdPFault> triggeredFaults)
+            throws IOException {
+
+        IdPFault slowDrip = null;
+        for (IdPFault fault : triggeredFaults) {
+            if (fault.getType() == IdPFault.Type.OVERSIZED_PAYLOAD) {
+                body = pad(body, fault.getSize());
+            } else if (fault.getType() == IdPFault.Type.SLOW_DRIP) {
+                slowDrip = fault;
+            }
+        }
+        if (slowDrip == null) {
+            sendJson(exchange, status, body);
+            return;
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE_JSON);
+        // Chunked encoding, hence every chunk reaches the client as it is written.
+        exchange.sendResponseHeaders(status, 0);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            for (int offset = 0; offset < bytes.length; offset += slowDrip.getSize()) {
+                if (offset > 0) {
+                    sleep(slowDrip.getIntervalMillis());
+                }
+                outputStream.write(bytes, offset, Math.min(slowDrip.getSize(), bytes.length - offset));
+                outputStream.flush();
+            }
+        }
+    }
+
+    /**
+     * Add a padding member to a JSON object, hence the object is at least of the given size.
+     */
+    private static String pad(String json, int size) {
+
+        int paddingLength = size - json.length();
+        if (paddingLength <= 0) {
+            return json;
+        }
+        return json.substring(0, json.lastIndexOf('}')) + ",\"padding\":\"" +
+                StringUtils.repeat("x", paddingLength) + "\"}";
+    }
+
+    private static void sleep(long millis) throws IOException {
+
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while injecting a delay.", e);
+        }
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, String body) throws IOException {
+
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE_JSON);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(bytes);
+        }
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (InputStream inputStream = exchange.getRequestBody()) {
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                body.write(buffer, 0, read);
+            }
+        }
+        return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    static Map<String, String> parseQuery(String query) throws UnsupportedEncodingException {
+
+        Map<String, String> params = new HashMap<>();
+        if (StringUtils.isBlank(query)) {
+            return params;
+        }
+        for (String param : StringUtils.split(query, '&')) {
+            int separator = param.indexOf('=');
+            if (separator > 0) {
+                params.put(URLDecoder.decode(param.substring(0, separator), StandardCharsets.UTF_8.name()),
+                        URLDecoder.decode(param.substring(separator + 1), StandardCharsets.UTF_8.name()));
+            }
+        }
+        return params;
+    }
+
+    private static String encode(String value) throws UnsupportedEncodingException {
+
+        return URLEncoder.encode(value, StandardCharsets.UTF_8.name());
+    }
+
+    private static class AuthorizationGrant {
+
+        private final String nonce;
+        private final String codeChallenge;
+        private final String subject;
+        private final ResponseShape shape;
+
+        private AuthorizationGrant(String nonce, String codeChallenge, String subject, ResponseShape shape) {
+
+            this.nonce = nonce;
+            this.codeChallenge = codeChallenge;
+            this.subject = subject;
+            this.shape = shape;
+        }
+    }
+}
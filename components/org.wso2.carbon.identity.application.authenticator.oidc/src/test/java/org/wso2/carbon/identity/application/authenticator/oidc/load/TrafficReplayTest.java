@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.load;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.testng.PowerMockTestCase;
+import org.testng.IObjectFactory;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.ObjectFactory;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.authentication.framework.exception.AuthenticationFailedException;
+import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.exception.LogoutException;
+import org.wso2.carbon.identity.application.authenticator.oidc.metrics.SLOTracker;
+import org.wso2.carbon.identity.application.authenticator.oidc.metrics.TrafficRecord;
+import org.wso2.carbon.identity.application.authenticator.oidc.metrics.TrafficRecorder;
+import org.wso2.carbon.identity.central.log.mgt.utils.LoggerUtils;
+import org.wso2.carbon.identity.core.ServiceURLBuilder;
+import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
+import org.wso2.carbon.idp.mgt.IdentityProviderManager;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Replay of a traffic capture against the stub OIDC provider and the H2 session store. Run with: mvn test -Pload-test
+ * The capture is read from the JSON lines file given with the oidc.replay.captureFile system property, i.e. the
+ * export of the TrafficRecorder MBean of a production node. Without a capture file, a capture of successful and
+ * failed logins and logouts is recorded first, and the replay is expected to reproduce the captured outcomes.
+ * The replay is configured with oidc.replay.concurrency and oidc.replay.speedup, and the report is logged and
+ * written to oidc.replay.reportFile.
+ */
+@PrepareForTest({LoggerUtils.class, ServiceURLBuilder.class, IdentityDatabaseUtil.class,
+        IdentityProviderManager.class})
+@PowerMockIgnore({"jdk.internal.reflect.*", "javax.net.ssl.*", "javax.management.*", "com.sun.net.httpserver.*",
+        "com.sun.management.*", "sun.net.*", "jdk.jfr.*"})
+public class TrafficReplayTest extends PowerMockTestCase {
+
+    private static final Log LOG = LogFactory.getLog(TrafficReplayTest.class);
+
+    private static final int CAPTURED_LOGINS = 200;
+    private static final int CAPTURED_FAILED_LOGINS = 20;
+    private static final int CAPTURED_LOGOUTS = 100;
+    private static final int CAPTURED_FAILED_LOGOUTS = 10;
+
+    private final String captureFile = System.getProperty("oidc.replay.captureFile");
+    private final int concurrency = Integer.getInteger("oidc.replay.concurrency", 8);
+    private final double speedup = Double.parseDouble(System.getProperty("oidc.replay.speedup", "0"));
+    private final String reportFile = System.getProperty("oidc.replay.reportFile",
+            "target/oidc-replay-report.properties");
+
+    private StubOIDCProvider stubProvider;
+    private FederatedLoginLoadHarness harness;
+    private final BackChannelLogoutFixture logoutFixture = new BackChannelLogoutFixture("oidcTrafficReplay");
+
+    @BeforeClass
+    public void setUp() throws Exception {
+
+        stubProvider = new StubOIDCProvider(concurrency);
+        stubProvider.start();
+        LoadTestSupport.mockFrameworkServices();
+        harness = LoadTestSupport.newHarness(stubProvider, true);
+        logoutFixture.setUp();
+    }
+
+    @AfterClass
+    public void tearDown() throws Exception {
+
+        TrafficRecorder.getInstance().setEnabled(false);
+        TrafficRecorder.getInstance().reset();
+        LoadTestSupport.resetFrameworkServices();
+        logoutFixture.tearDown();
+        if (stubProvider != null) {
+            stubProvider.stop();
+        }
+    }
+
+    @Test
+    public void testTrafficReplay() throws Exception {
+
+        List<TrafficRecord> records = StringUtils.isBlank(captureFile) ? recordCapture() :
+                parseCapture(new String(Files.readAllBytes(Paths.get(captureFile)), StandardCharsets.UTF_8));
+
+        TrafficReplayer.ReplayReport report = new TrafficReplayer(stubProvider, harness, logoutFixture)
+                .replay(records, concurrency, speedup);
+        LOG.info("Traffic replay of " + records.size() + " flows: " + report);
+        writeReport(report, records.size());
+        if (StringUtils.isBlank(captureFile)) {
+            assertEquals(report.getCount(SLOTracker.Flow.FEDERATED_LOGIN), CAPTURED_LOGINS + CAPTURED_FAILED_LOGINS);
+            assertEquals(report.getFailureCount(SLOTracker.Flow.FEDERATED_LOGIN), CAPTURED_FAILED_LOGINS);
+            assertEquals(report.getCount(SLOTracker.Flow.BACK_CHANNEL_LOGOUT),
+                    CAPTURED_LOGOUTS + CAPTURED_FAILED_LOGOUTS);
+            assertEquals(report.getFailureCount(SLOTracker.Flow.BACK_CHANNEL_LOGOUT), CAPTURED_FAILED_LOGOUTS);
+            assertEquals(report.getMismatchCount(SLOTracker.Flow.FEDERATED_LOGIN), 0);
+            assertEquals(report.getMismatchCount(SLOTracker.Flow.BACK_CHANNEL_LOGOUT), 0);
+        }
+    }
+
+    @ObjectFactory
+    public IObjectFactory getObjectFactory() {
+
+        return new org.powermock.modules.testng.PowerMockObjectFactory();
+    }
+
+    /**
+     * Record a capture of successful logins, logins failing at the token endpoint, successful logouts and logouts
+     * failing the signature validation, and get the records parsed from the exported capture.
+     */
+    private List<TrafficRecord> recordCapture() throws Exception {
+
+        TrafficRecorder recorder = TrafficRecorder.getInstance();
+        recorder.reset();
+        recorder.setEnabled(true);
+        try {
+            for (int i = 0; i < CAPTURED_LOGINS; i++) {
+                harness.login();
+            }
+            stubProvider.injectFault(StubOIDCProvider.Endpoint.TOKEN, IdPFault.serverError(500));
+            for (int i = 0; i < CAPTURED_FAILED_LOGINS; i++) {
+                try {
+                    harness.login();
+                    fail("Login should fail with the token endpoint failing.");
+                } catch (AuthenticationFailedException e) {
+                    // Expected, the callback request fails the login.
+                }
+            }
+            stubProvider.clearFaults();
+
+            String[] sids = logoutFixture.addSessions(CAPTURED_LOGOUTS + CAPTURED_FAILED_LOGOUTS);
+            for (int i = 0; i < sids.length; i++) {
+                boolean trusted = i < CAPTURED_LOGOUTS;
+                try {
+                    logoutFixture.logout(logoutFixture.buildLogoutRequest(sids[i], 0, 0, trusted));
+                    assertTrue(trusted, "Logout with an invalid signature should fail.");
+                } catch (LogoutException e) {
+                    assertFalse(trusted, "Logout failed: " + e.getMessage());
+                }
+            }
+            return parseCapture(recorder.exportCapture());
+        } finally {
+            recorder.setEnabled(false);
+            recorder.reset();
+        }
+    }
+
+    private static List<TrafficRecord> parseCapture(String capture) {
+
+        List<TrafficRecord> records = new ArrayList<>();
+        for (String line : StringUtils.split(capture, '\n')) {
+            if (StringUtils.isNotBlank(line)) {
+                records.add(TrafficRecord.fromJson(line));
+            }
+        }
+        return records;
+    }
+
+    private void writeReport(TrafficReplayer.ReplayReport report, int flows) throws IOException {
+
+        Properties properties = new Properties();
+        properties.putAll(new TreeMap<>(report.toProperties()));
+        properties.put("flows", String.valueOf(flows));
+        properties.put("speedup", String.valueOf(speedup));
+        properties.put("captureFile", StringUtils.defaultString(captureFile));
+        properties.put("java.version", System.getProperty("java.version"));
+        File file = new File(reportFile);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        try (OutputStream outputStream = new FileOutputStream(file)) {
+            properties.store(outputStream, "Traffic replay");
+        }
+    }
+}
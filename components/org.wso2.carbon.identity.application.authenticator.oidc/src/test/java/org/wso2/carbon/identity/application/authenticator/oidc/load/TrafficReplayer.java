@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.load;
+
+import org.wso2.carbon.identity.application.authentication.framework.context.AuthenticationContext;
+import org.wso2.carbon.identity.application.authentication.framework.inbound.IdentityRequest;
+import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkConstants;
+import org.wso2.carbon.identity.application.authenticator.oidc.metrics.LatencyHistogram;
+import org.wso2.carbon.identity.application.authenticator.oidc.metrics.SLOTracker;
+import org.wso2.carbon.identity.application.authenticator.oidc.metrics.TrafficRecord;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Replays a traffic capture of the {@link org.wso2.carbon.identity.application.authenticator.oidc.metrics
+ * .TrafficRecorder} against the authenticator and the back-channel logout processor. Every captured login is
+ * replayed as a login via the stub OIDC provider, which shapes its token and user info responses after the captured
+ * login, i.e. the IdP latency, the token sizes, the claim counts and the failing endpoint. Every captured logout is
+ * replayed as a logout token of the captured size and claim count, which terminates a session of the H2 session
+ * store. A failed logout is replayed as a logout token with an invalid signature.
+ * <p>
+ * The captured IdPs and tenants are pseudonyms, hence all flows are replayed against a single IdP. Logouts
+ * identifying the session by the sub claim are replayed with a sid claim, since the user sessions of the sub claim
+ * are not kept in the session store. The flows are started in the captured order, either at the captured arrival
+ * rate scaled by a speedup factor or back to back.
+ */
+public class TrafficReplayer {
+
+    private final StubOIDCProvider stubProvider;
+    private final FederatedLoginLoadHarness harness;
+    private final BackChannelLogoutFixture logoutFixture;
+
+    /**
+     * Create a replayer.
+     *
+     * @param stubProvider  Stub OIDC provider the harness logs in via.
+     * @param harness       Login harness.
+     * @param logoutFixture Back-channel logout fixture.
+     */
+    public TrafficReplayer(StubOIDCProvider stubProvider, FederatedLoginLoadHarness harness,
+                           BackChannelLogoutFixture logoutFixture) {
+
+        this.stubProvider = stubProvider;
+        this.harness = harness;
+        this.logoutFixture = logoutFixture;
+    }
+
+    /**
+     * Replay the given records.
+     *
+     * @param records     Captured records.
+     * @param concurrency Maximum number of concurrent flows.
+     * @param speedup     Factor the captured arrival rate is scaled by, or 0 to start every flow as soon as a thread
+     *                    is free.
+     * @return Report of the replay.
+     */
+    public ReplayReport replay(List<TrafficRecord> records, int concurrency, double speedup) throws Exception {
+
+        List<TrafficRecord> orderedRecords = new ArrayList<>(records);
+        orderedRecords.sort(Comparator.comparingLong(TrafficRecord::getStartMillis));
+        // Sessions and logout tokens are prepared up front, hence preparing them does not add to the replay.
+        IdentityRequest[] logoutRequests = prepareLogouts(orderedRecords);
+
+        ReplayReport report = new ReplayReport(concurrency);
+        if (orderedRecords.isEmpty()) {
+            return report;
+        }
+        long firstStartMillis = orderedRecords.get(0).getStartMillis();
+        AtomicInteger next = new AtomicInteger();
+        CountDownLatch startGate = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        // Set before the start gate is opened, hence visible to the replaying threads.
+        long[] replayStart = new long[1];
+        for (int i = 0; i < concurrency; i++) {
+            executor.execute(() -> {
+                try {
+                    startGate.await();
+                    int index;
+                    while ((index = next.getAndIncrement()) < orderedRecords.size()) {
+                        TrafficRecord record = orderedRecords.get(index);
+                        if (speedup > 0) {
+                            long dueNanos = replayStart[0] + TimeUnit.MILLISECONDS.toNanos(
+                                    (long) ((record.getStartMillis() - firstStartMillis) / speedup));
+                            long waitNanos = dueNanos - System.nanoTime();
+                            if (waitNanos > 0) {
+                                TimeUnit.NANOSECONDS.sleep(waitNanos);
+                            }
+                        }
+                        replay(record, logoutRequests[index], report);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        replayStart[0] = System.nanoTime();
+        startGate.countDown();
+        executor.shutdown();
+        if (!executor.awaitTermination(1, TimeUnit.HOURS)) {
+            executor.shutdownNow();
+        }
+        report.elapsedNanos = System.nanoTime() - replayStart[0];
+        return report;
+    }
+
+    private IdentityRequest[] prepareLogouts(List<TrafficRecord> records) throws Exception {
+
+        int logouts = 0;
+        for (TrafficRecord record : records) {
+            if (record.getFlow() == SLOTracker.Flow.BACK_CHANNEL_LOGOUT) {
+                logouts++;
+            }
+        }
+        String[] sids = logoutFixture.addSessions(logouts);
+        IdentityRequest[] logoutRequests = new IdentityRequest[records.size()];
+        int session = 0;
+        for (int i = 0; i < records.size(); i++) {
+            TrafficRecord record = records.get(i);
+            if (record.getFlow() == SLOTracker.Flow.BACK_CHANNEL_LOGOUT) {
+                logoutRequests[i] = logoutFixture.buildLogoutRequest(sids[session++], record.getLogoutTokenClaims(),
+                        record.getLogoutTokenBytes(), record.isSucceeded());
+            }
+        }
+        return logoutRequests;
+    }
+
+    private void replay(TrafficRecord record, IdentityRequest logoutRequest, ReplayReport report) {
+
+        long start = System.nanoTime();
+        boolean succeeded;
+        try {
+            if (record.getFlow() == SLOTracker.Flow.BACK_CHANNEL_LOGOUT) {
+                logoutFixture.logout(logoutRequest);
+            } else {
+                login(ResponseShape.of(record));
+            }
+            succeeded = true;
+        } catch (Exception e) {
+            // Failed logins and logouts, as well as failed authorize requests to the stub provider.
+            succeeded = false;
+        }
+        report.record(record, succeeded, System.nanoTime() - start);
+    }
+
+    private void login(ResponseShape shape) throws Exception {
+
+        AuthenticationContext context = harness.newContext();
+        context.getAuthenticatorProperties().put(FrameworkConstants.QUERY_PARAMS,
+                StubOIDCProvider.SHAPE_PARAM + "=" + stubProvider.registerShape(shape));
+        harness.complete(context, FederatedLoginLoadHarness.authorize(harness.initiate(context)));
+    }
+
+    /**
+     * Outcome and latency of the replayed flows. A replayed flow whose outcome differs from the captured outcome is
+     * counted as a mismatch, i.e. a failure which the stub provider could not reproduce or an unexpected failure.
+     */
+    public static class ReplayReport {
+
+        private final int concurrency;
+        private final Map<SLOTracker.Flow, LatencyHistogram> latencies = new EnumMap<>(SLOTracker.Flow.class);
+        private final Map<SLOTracker.Flow, LongAdder> failures = new EnumMap<>(SLOTracker.Flow.class);
+        private final Map<SLOTracker.Flow, LongAdder> mismatches = new EnumMap<>(SLOTracker.Flow.class);
+        private long elapsedNanos;
+
+        private ReplayReport(int concurrency) {
+
+            this.concurrency = concurrency;
+            for (SLOTracker.Flow flow : SLOTracker.Flow.values()) {
+                latencies.put(flow, new LatencyHistogram());
+                failures.put(flow, new LongAdder());
+                mismatches.put(flow, new LongAdder());
+            }
+        }
+
+        private void record(TrafficRecord record, boolean succeeded, long nanos) {
+
+            latencies.get(record.getFlow()).record(nanos);
+            if (!succeeded) {
+                failures.get(record.getFlow()).increment();
+            }
+            if (succeeded != record.isSucceeded()) {
+                mismatches.get(record.getFlow()).increment();
+            }
+        }
+
+        /**
+         * Get the number of replayed flows, including the failed flows.
+         *
+         * @param flow Flow.
+         * @return Number of flows.
+         */
+        public long getCount(SLOTracker.Flow flow) {
+
+            return latencies.get(flow).getCount();
+        }
+
+        public long getFailureCount(SLOTracker.Flow flow) {
+
+            return failures.get(flow).sum();
+        }
+
+        public long getMismatchCount(SLOTracker.Flow flow) {
+
+            return mismatches.get(flow).sum();
+        }
+
+        public double getThroughput(SLOTracker.Flow flow) {
+
+            return elapsedNanos == 0 ? 0 : getCount(flow) * 1e9 / elapsedNanos;
+        }
+
+        public double getPercentileMillis(SLOTracker.Flow flow, double percentile) {
+
+            return latencies.get(flow).getPercentileMillis(percentile);
+        }
+
+        /**
+         * Get the report as properties, keyed by the flow name, i.e. to size the nodes for the captured traffic.
+         *
+         * @return Report properties.
+         */
+        public Map<String, String> toProperties() {
+
+            Map<String, String> properties = new HashMap<>();
+            properties.put("concurrency", String.valueOf(concurrency));
+            properties.put("elapsedMillis", String.valueOf(TimeUnit.NANOSECONDS.toMillis(elapsedNanos)));
+            for (SLOTracker.Flow flow : SLOTracker.Flow.values()) {
+                String prefix = flow.getFlowName() + ".";
+                LatencyHistogram histogram = latencies.get(flow);
+                properties.put(prefix + "count", String.valueOf(getCount(flow)));
+                properties.put(prefix + "failures", String.valueOf(getFailureCount(flow)));
+                properties.put(prefix + "mismatches", String.valueOf(getMismatchCount(flow)));
+                properties.put(prefix + "throughputPerSecond", String.format("%.1f", getThroughput(flow)));
+                properties.put(prefix + "meanMillis", String.format("%.3f", histogram.getMeanMillis()));
+                properties.put(prefix + "p50Millis", String.format("%.3f", getPercentileMillis(flow, 50)));
+                properties.put(prefix + "p99Millis", String.format("%.3f", getPercentileMillis(flow, 99)));
+                properties.put(prefix + "maxMillis", String.format("%.3f", histogram.getMaxMillis()));
+            }
+            return properties;
+        }
+
+        @Override
+        public String toString() {
+
+            StringBuilder builder = new StringBuilder("concurrency: ").append(concurrency);
+            for (SLOTracker.Flow flow : SLOTracker.Flow.values()) {
+                builder.append(String.format(", %s: %d (failures: %d, mismatches: %d, %.1f/s, p50: %.2f ms, " +
+                                "p99: %.2f ms)", flow.getFlowName(), getCount(flow), getFailureCount(flow),
+                        getMismatchCount(flow), getThroughput(flow), getPercentileMillis(flow, 50),
+                        getPercentileMillis(flow, 99)));
+            }
+            return builder.toString();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.admission;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.exception.LogoutRejectedException;
+import org.wso2.carbon.identity.application.authenticator.oidc.util.OIDCErrorConstants.ErrorMessages;
+
+import javax.servlet.http.HttpServletResponse;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Unit test class for LogoutAdmissionController.
+ */
+public class LogoutAdmissionControllerTest {
+
+    private static final String TENANT_DOMAIN = "carbon.super";
+    private static final String IDP_NAME = "Federated-IdP";
+
+    @Test
+    public void testDisabledControllerAdmitsAllRequests() throws Exception {
+
+        LogoutAdmissionController controller = new LogoutAdmissionController();
+        controller.configure(false, 1, 1, 1, 1);
+        for (int i = 0; i < 10; i++) {
+            controller.admit();
+            controller.charge(TENANT_DOMAIN, IDP_NAME);
+        }
+        assertEquals(controller.getAdmittedCount(), 0);
+        assertEquals(controller.getInFlightCount(), 0);
+    }
+
+    @Test
+    public void testIdPRateLimit() throws Exception {
+
+        LogoutAdmissionController controller = new LogoutAdmissionController();
+        controller.configure(true, 1, 2, 10, 10);
+        controller.charge(TENANT_DOMAIN, IDP_NAME);
+        controller.charge(TENANT_DOMAIN, IDP_NAME);
+        try {
+            controller.charge(TENANT_DOMAIN, IDP_NAME);
+            fail("The request should be rate limited once the burst is used.");
+        } catch (LogoutRejectedException e) {
+            assertEquals(e.getStatusCode(), 429);
+            assertEquals(e.getErrorCode(), ErrorMessages.LOGOUT_RATE_LIMITED.getCode());
+            assertTrue(e.getRetryAfterSeconds() >= 1);
+        }
+        // The rate limit of an IdP does not affect the other IdPs.
+        controller.charge(TENANT_DOMAIN, "Other-IdP");
+        // The rate limit of an IdP is applied per tenant.
+        controller.charge("wso2.com", IDP_NAME);
+        // The rate limit does not affect the concurrency cap.
+        controller.admit().close();
+        assertEquals(controller.getAdmittedCount(), 1);
+        assertEquals(controller.getRateLimitedCount(), 1);
+        assertEquals(controller.getTrackedIssuerCount(), 3);
+    }
+
+    @Test
+    public void testCheckDoesNotChargeRateLimit() throws Exception {
+
+        LogoutAdmissionController controller = new LogoutAdmissionController();
+        controller.configure(true, 0.001, 1, 10, 10);
+        for (int i = 0; i < 5; i++) {
+            controller.check(TENANT_DOMAIN, IDP_NAME);
+        }
+        // Checking the rate limit of an IdP does not start tracking it.
+        assertEquals(controller.getTrackedIssuerCount(), 0);
+        controller.charge(TENANT_DOMAIN, IDP_NAME);
+        try {
+            controller.check(TENANT_DOMAIN, IDP_NAME);
+            fail("The request should be rejected once the rate limit of the IdP is used up.");
+        } catch (LogoutRejectedException e) {
+            assertEquals(e.getStatusCode(), 429);
+            assertEquals(e.getErrorCode(), ErrorMessages.LOGOUT_RATE_LIMITED.getCode());
+        }
+        controller.check(TENANT_DOMAIN, "Other-IdP");
+        assertEquals(controller.getRateLimitedCount(), 1);
+    }
+
+    @Test
+    public void testConcurrencyLimit() throws Exception {
+
+        LogoutAdmissionController controller = new LogoutAdmissionController();
+        controller.configure(true, 1000, 1000, 2, 10);
+        LogoutAdmissionController.Permit first = controller.admit();
+        LogoutAdmissionController.Permit second = controller.admit();
+        assertEquals(controller.getInFlightCount(), 2);
+        try {
+            controller.admit();
+            fail("The request should be rejected once the concurrency limit is reached.");
+        } catch (LogoutRejectedException e) {
+            assertEquals(e.getStatusCode(), HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            assertEquals(e.getErrorCode(), ErrorMessages.LOGOUT_SERVER_BUSY.getCode());
+            assertEquals(e.getRetryAfterSeconds(), 1);
+        }
+        first.close();
+        // Releasing a permit twice should not exceed the concurrency limit.
+        first.close();
+        assertEquals(controller.getInFlightCount(), 1);
+        controller.admit().close();
+        second.close();
+        assertEquals(controller.getInFlightCount(), 0);
+        assertEquals(controller.getConcurrencyRejectedCount(), 1);
+    }
+
+    @Test
+    public void testUntrackedIdPsShareABucket() throws Exception {
+
+        LogoutAdmissionController controller = new LogoutAdmissionController();
+        controller.configure(true, 1, 1, 10, 1);
+        controller.charge(TENANT_DOMAIN, IDP_NAME);
+        controller.charge(TENANT_DOMAIN, "IdP-1");
+        try {
+            controller.charge(TENANT_DOMAIN, "IdP-2");
+            fail("The IdPs beyond the tracked IdPs should share a single bucket.");
+        } catch (LogoutRejectedException e) {
+            assertEquals(e.getStatusCode(), 429);
+        }
+        assertEquals(controller.getTrackedIssuerCount(), 1);
+    }
+
+    @Test
+    public void testTokenBucketRefill() {
+
+        LogoutAdmissionController.TokenBucket bucket = new LogoutAdmissionController.TokenBucket(10, 1);
+        long now = System.nanoTime();
+        assertEquals(bucket.tryAcquire(now), 0);
+        long waitNanos = bucket.tryAcquire(now);
+        assertTrue(waitNanos > 0 && waitNanos <= 100000000L, "Unexpected wait time: " + waitNanos);
+        assertEquals(bucket.tryAcquire(now + waitNanos), 0);
+        assertTrue(bucket.isFull(now + 10 * waitNanos));
+    }
+}
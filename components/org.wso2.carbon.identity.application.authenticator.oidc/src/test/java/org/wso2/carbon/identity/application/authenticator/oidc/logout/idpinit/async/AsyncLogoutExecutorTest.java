@@ -0,0 +1,313 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.async;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.exception.LogoutClientException;
+import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.exception.LogoutServerException;
+import org.wso2.carbon.identity.application.authenticator.oidc.metrics.SLOTracker;
+import org.wso2.carbon.identity.application.common.model.IdentityProvider;
+import org.wso2.carbon.identity.common.testng.WithCarbonHome;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit test class for AsyncLogoutExecutor and LogoutTaskJournal.
+ */
+@WithCarbonHome
+public class AsyncLogoutExecutorTest {
+
+    private static final String TENANT_DOMAIN = "carbon.super";
+    private static final String IDP_NAME = "Google";
+
+    private Path journalDir;
+    private Path journalFile;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+
+        journalDir = Files.createTempDirectory("oidc-logout-journal");
+        journalFile = journalDir.resolve("logout.journal");
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+
+        try (Stream<Path> paths = Files.walk(journalDir)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    public void testAcceptedTasksAreExecuted() throws Exception {
+
+        List<String> terminatedSids = new CopyOnWriteArrayList<>();
+        AsyncLogoutExecutor executor = new AsyncLogoutExecutor(2, 100, 3, 10, newJournal(),
+                logoutTask -> terminatedSids.add(logoutTask.getClaimValue()));
+        for (int i = 0; i < 20; i++) {
+            assertTrue(executor.submit(LogoutTask.forSid(TENANT_DOMAIN, "sid-" + i, IDP_NAME)));
+        }
+        executor.shutdown(5000);
+
+        assertEquals(terminatedSids.size(), 20);
+        assertEquals(executor.getAcceptedCount(), 20);
+        assertEquals(executor.getCompletedCount(), 20);
+        assertEquals(executor.getPendingCount(), 0);
+        assertTrue(newJournal().open().isEmpty());
+    }
+
+    @Test
+    public void testServerErrorsAreRetried() throws Exception {
+
+        AtomicInteger attempts = new AtomicInteger();
+        CountDownLatch completed = new CountDownLatch(1);
+        AsyncLogoutExecutor executor = new AsyncLogoutExecutor(1, 10, 3, 10, newJournal(), logoutTask -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new LogoutServerException("OIDC-5001", "Session termination failed.");
+            }
+            completed.countDown();
+        });
+        assertTrue(executor.submit(LogoutTask.forSid(TENANT_DOMAIN, "sid", IDP_NAME)));
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+        executor.shutdown(5000);
+
+        assertEquals(attempts.get(), 3);
+        assertEquals(executor.getRetriedCount(), 2);
+        assertEquals(executor.getCompletedCount(), 1);
+        assertEquals(executor.getFailedCount(), 0);
+        assertEquals(executor.getPendingCount(), 0);
+    }
+
+    @Test
+    public void testTasksFailAfterMaxAttempts() throws Exception {
+
+        AtomicInteger attempts = new AtomicInteger();
+        AsyncLogoutExecutor executor = new AsyncLogoutExecutor(1, 10, 2, 10, newJournal(), logoutTask -> {
+            if (logoutTask.getType() == LogoutTask.Type.SUB) {
+                throw new LogoutClientException("OIDC-6001", "User not found.");
+            }
+            attempts.incrementAndGet();
+            throw new IllegalStateException("Session store is not available.");
+        });
+        assertTrue(executor.submit(LogoutTask.forSid(TENANT_DOMAIN, "sid", IDP_NAME)));
+        assertTrue(executor.submit(LogoutTask.forSub(TENANT_DOMAIN, "alice", newIdentityProvider())));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (executor.getFailedCount() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        executor.shutdown(5000);
+
+        // Client errors are not retried.
+        assertEquals(executor.getFailedCount(), 2);
+        assertEquals(attempts.get(), 2);
+        assertEquals(executor.getRetriedCount(), 1);
+        assertEquals(executor.getPendingCount(), 0);
+    }
+
+    @Test
+    public void testTasksAreRejectedWhenQueueIsFull() throws Exception {
+
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AsyncLogoutExecutor executor = new AsyncLogoutExecutor(1, 1, 1, 10, newJournal(), logoutTask -> {
+            running.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(executor.submit(LogoutTask.forSid(TENANT_DOMAIN, "sid-0", IDP_NAME)));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        assertTrue(executor.submit(LogoutTask.forSid(TENANT_DOMAIN, "sid-1", IDP_NAME)));
+        assertEquals(executor.getQueueDepth(), 1);
+        assertEquals(executor.getActiveCount(), 1);
+
+        // The caller terminates the sessions of a rejected task, hence it is not kept in the journal.
+        assertFalse(executor.submit(LogoutTask.forSid(TENANT_DOMAIN, "sid-2", IDP_NAME)));
+        assertEquals(executor.getRejectedCount(), 1);
+        assertEquals(executor.getPendingCount(), 2);
+
+        release.countDown();
+        executor.shutdown(5000);
+        assertEquals(executor.getCompletedCount(), 2);
+        assertFalse(executor.submit(LogoutTask.forSid(TENANT_DOMAIN, "sid-3", IDP_NAME)));
+    }
+
+    @Test
+    public void testPendingTasksAreResumed() throws Exception {
+
+        LogoutTaskJournal journal = newJournal();
+        assertTrue(journal.open().isEmpty());
+        LogoutTask sidTask = LogoutTask.forSid(TENANT_DOMAIN, "sid", IDP_NAME);
+        LogoutTask subTask = LogoutTask.forSub(TENANT_DOMAIN, "alice", newIdentityProvider());
+        LogoutTask finishedTask = LogoutTask.forSid(TENANT_DOMAIN, "finished-sid", IDP_NAME);
+        journal.accepted(sidTask);
+        journal.accepted(finishedTask);
+        journal.accepted(subTask);
+        journal.finished(finishedTask.getId());
+        journal.close();
+        // A line written partially before the node stopped is skipped.
+        Files.write(journalFile, "+{\"id\":".getBytes(), StandardOpenOption.APPEND);
+
+        List<LogoutTask> resumedTasks = new CopyOnWriteArrayList<>();
+        AsyncLogoutExecutor executor = new AsyncLogoutExecutor(1, 10, 1, 10, newJournal(), resumedTasks::add);
+        executor.shutdown(5000);
+
+        assertEquals(resumedTasks.size(), 2);
+        assertEquals(resumedTasks.get(0).getId(), sidTask.getId());
+        assertEquals(resumedTasks.get(0).getClaimValue(), "sid");
+        assertEquals(resumedTasks.get(1).getType(), LogoutTask.Type.SUB);
+        assertEquals(resumedTasks.get(1).getTenantDomain(), TENANT_DOMAIN);
+        assertEquals(resumedTasks.get(1).toIdentityProvider().getId(), "1");
+        assertEquals(resumedTasks.get(1).toIdentityProvider().getIdentityProviderName(), IDP_NAME);
+        assertTrue(newJournal().open().isEmpty());
+    }
+
+    @Test
+    public void testRetriesAreKeptInJournalAtShutdown() throws Exception {
+
+        CountDownLatch failed = new CountDownLatch(1);
+        AsyncLogoutExecutor executor = new AsyncLogoutExecutor(1, 10, 5, TimeUnit.MINUTES.toMillis(1),
+                newJournal(), logoutTask -> {
+                    failed.countDown();
+                    throw new LogoutServerException("OIDC-5001", "Session termination failed.");
+                });
+        assertTrue(executor.submit(LogoutTask.forSid(TENANT_DOMAIN, "sid", IDP_NAME)));
+        assertTrue(failed.await(5, TimeUnit.SECONDS));
+        executor.shutdown(5000);
+
+        assertEquals(executor.getFailedCount(), 0);
+        List<LogoutTask> pendingTasks = newJournal().open();
+        assertEquals(pendingTasks.size(), 1);
+        assertEquals(pendingTasks.get(0).getClaimValue(), "sid");
+        // The failed attempt is kept, hence the task does not get all its attempts again.
+        assertEquals(pendingTasks.get(0).getAttempt(), 1);
+    }
+
+    @Test
+    public void testAttemptIsSerialized() {
+
+        LogoutTask logoutTask = LogoutTask.forSid(TENANT_DOMAIN, "sid", IDP_NAME).nextAttempt().nextAttempt();
+        LogoutTask parsedTask = LogoutTask.fromJson(logoutTask.toJson());
+
+        assertEquals(parsedTask.getId(), logoutTask.getId());
+        assertEquals(parsedTask.getAttempt(), 2);
+        assertEquals(LogoutTask.fromJson(LogoutTask.forSid(TENANT_DOMAIN, "sid", IDP_NAME).toJson()).getAttempt(), 0);
+    }
+
+    @Test
+    public void testConcurrentAcceptedTasksAreSynced() throws Exception {
+
+        LogoutTaskJournal journal = new LogoutTaskJournal(journalFile, true, 1000, 1);
+        journal.open();
+        ExecutorService submitters = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                LogoutTask logoutTask = LogoutTask.forSid(TENANT_DOMAIN, "sid-" + i, IDP_NAME);
+                futures.add(submitters.submit(() -> {
+                    journal.accepted(logoutTask);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            submitters.shutdownNow();
+        }
+        assertEquals(journal.getPendingCount(), 200);
+        journal.close();
+
+        assertEquals(newJournal().open().size(), 200);
+    }
+
+    @Test
+    public void testOutcomeIsRecordedWhenTaskCompletes() throws Exception {
+
+        String idpName = "async-outcome-idp";
+        String flow = SLOTracker.Flow.BACK_CHANNEL_LOGOUT.getFlowName();
+        SLOTracker.getInstance().setEnabled(true);
+        try {
+            CountDownLatch release = new CountDownLatch(1);
+            AsyncLogoutExecutor executor = new AsyncLogoutExecutor(1, 10, 1, 10, newJournal(), logoutTask -> {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if ("failing-sid".equals(logoutTask.getClaimValue())) {
+                    throw new LogoutServerException("OIDC-5001", "Session termination failed.");
+                }
+            });
+            assertTrue(executor.submit(LogoutTask.forSid(TENANT_DOMAIN, "sid", idpName)));
+            assertTrue(executor.submit(LogoutTask.forSid(TENANT_DOMAIN, "failing-sid", idpName)));
+            // Nothing is recorded when the tasks are accepted.
+            assertEquals(SLOTracker.getInstance().getRequestCount(TENANT_DOMAIN, idpName, flow), 0);
+
+            release.countDown();
+            long deadline = System.currentTimeMillis() + 5000;
+            while (executor.getCompletedCount() + executor.getFailedCount() < 2 &&
+                    System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            executor.shutdown(5000);
+            assertEquals(SLOTracker.getInstance().getRequestCount(TENANT_DOMAIN, idpName, flow), 2);
+            assertEquals(SLOTracker.getInstance().getSuccessRate(TENANT_DOMAIN, idpName, flow), 50.0, 0.0001);
+        } finally {
+            SLOTracker.getInstance().setEnabled(false);
+        }
+    }
+
+    private LogoutTaskJournal newJournal() {
+
+        return new LogoutTaskJournal(journalFile, false, 4);
+    }
+
+    private static IdentityProvider newIdentityProvider() {
+
+        IdentityProvider identityProvider = new IdentityProvider();
+        identityProvider.setId("1");
+        identityProvider.setIdentityProviderName(IDP_NAME);
+        return identityProvider;
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.cache;
+
+import org.apache.commons.dbcp.BasicDataSource;
+import org.mockito.Mockito;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.testng.PowerMockTestCase;
+import org.testng.IObjectFactory;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.ObjectFactory;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.authentication.framework.exception.UserSessionException;
+import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.dao.FederatedSessionMappingDAO;
+import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
+
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit test class for FederatedSidIndex and BloomFilter.
+ */
+@PrepareForTest({IdentityDatabaseUtil.class})
+@PowerMockIgnore({"jdk.internal.reflect.*", "javax.management.*"})
+public class FederatedSidIndexTest extends PowerMockTestCase {
+
+    // Sids stored in the session mapping table.
+    private final List<String> storedSids = new CopyOnWriteArrayList<>();
+    private FederatedSessionMappingDAO federatedSessionMappingDAO;
+    private FederatedSidIndex federatedSidIndex;
+
+    @BeforeMethod
+    public void setUp() throws UserSessionException {
+
+        storedSids.clear();
+        federatedSessionMappingDAO = mock(FederatedSessionMappingDAO.class);
+        doAnswer(invocation -> {
+            Consumer<String> consumer = invocation.getArgument(1);
+            storedSids.forEach(consumer);
+            return null;
+        }).when(federatedSessionMappingDAO).forEachIdpSessionId(any(), any());
+        federatedSidIndex = new FederatedSidIndex(federatedSessionMappingDAO);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        federatedSidIndex.stop();
+    }
+
+    @Test
+    public void testUnknownSidsAreRejected() throws Exception {
+
+        storedSids.add("stored-sid");
+        startIndex();
+
+        assertTrue(federatedSidIndex.mightContain("stored-sid"));
+        assertFalse(federatedSidIndex.mightContain("unknown-sid"));
+        federatedSidIndex.record("recorded-sid");
+        assertTrue(federatedSidIndex.mightContain("recorded-sid"));
+        assertEquals(federatedSidIndex.getRejectedCount(), 1);
+        assertEquals(federatedSidIndex.getPassedCount(), 2);
+        assertEquals(federatedSidIndex.getSidCount(), 2);
+    }
+
+    @Test
+    public void testSidsOfOtherNodesAreAddedByRefresh() throws Exception {
+
+        storedSids.add("stored-sid");
+        startIndex();
+        // A login of another node is only visible in the database.
+        storedSids.add("other-node-sid");
+
+        // The logout request does not read the mappings, hence the sid is only known after the next refresh.
+        assertFalse(federatedSidIndex.mightContain("other-node-sid"));
+        federatedSidIndex.refresh();
+        assertTrue(federatedSidIndex.mightContain("other-node-sid"));
+        assertFalse(federatedSidIndex.mightContain("unknown-sid"));
+    }
+
+    @Test
+    public void testAllSidsPassUntilIndexIsLoaded() throws Exception {
+
+        assertTrue(federatedSidIndex.mightContain("unknown-sid"));
+        assertFalse(federatedSidIndex.isReady());
+
+        doThrow(new UserSessionException("Database is not available."))
+                .when(federatedSessionMappingDAO).forEachIdpSessionId(isNull(), any());
+        federatedSidIndex.start(1000, 60000);
+        try {
+            federatedSidIndex.refresh();
+        } catch (UserSessionException e) {
+            // Expected, the index is not loaded.
+        }
+        assertFalse(federatedSidIndex.isReady());
+        assertTrue(federatedSidIndex.mightContain("unknown-sid"));
+    }
+
+    @Test
+    public void testFailedRefreshUnloadsIndex() throws Exception {
+
+        storedSids.add("stored-sid");
+        startIndex();
+        assertFalse(federatedSidIndex.mightContain("unknown-sid"));
+
+        doThrow(new UserSessionException("Database is not available."))
+                .when(federatedSessionMappingDAO).forEachIdpSessionId(any(Timestamp.class), any());
+        try {
+            federatedSidIndex.refresh();
+        } catch (UserSessionException e) {
+            // Expected, the index is unloaded.
+        }
+        assertTrue(federatedSidIndex.mightContain("unknown-sid"));
+        assertFalse(federatedSidIndex.isReady());
+    }
+
+    @Test
+    public void testIndexWithoutMappingsFailsOpen() throws Exception {
+
+        federatedSidIndex.start(1000, 60000);
+        federatedSidIndex.refresh();
+        assertFalse(federatedSidIndex.isReady());
+        assertTrue(federatedSidIndex.mightContain("unknown-sid"));
+        assertEquals(federatedSidIndex.getRejectedCount(), 0);
+
+        storedSids.add("stored-sid");
+        federatedSidIndex.refresh();
+        assertTrue(federatedSidIndex.isReady());
+        assertFalse(federatedSidIndex.mightContain("unknown-sid"));
+    }
+
+    @Test
+    public void testSidsAreLoadedFromSessionDatabase() throws Exception {
+
+        // The mappings are only in the session database, which is separate from the identity database.
+        BasicDataSource identityDataSource = newDataSource("testSidIndexIdentityDB");
+        BasicDataSource sessionDataSource = newDataSource("testSidIndexSessionDB");
+        try {
+            String scriptPath = Paths.get(System.getProperty("user.dir"), "src", "test", "resources", "dbscripts",
+                    "h2.sql").toString();
+            try (Connection connection = sessionDataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.executeUpdate("RUNSCRIPT FROM '" + scriptPath + "'");
+                statement.executeUpdate("INSERT INTO IDN_FED_AUTH_SESSION_MAPPING (IDP_SESSION_ID, SESSION_ID, " +
+                        "IDP_NAME) VALUES ('session-db-sid', 'session-1', 'Federated-IdP')");
+            }
+            mockStatic(IdentityDatabaseUtil.class, Mockito.CALLS_REAL_METHODS);
+            PowerMockito.doAnswer(invocation -> identityDataSource.getConnection())
+                    .when(IdentityDatabaseUtil.class, "getDBConnection", anyBoolean());
+            PowerMockito.doAnswer(invocation -> sessionDataSource.getConnection())
+                    .when(IdentityDatabaseUtil.class, "getSessionDBConnection", anyBoolean());
+
+            FederatedSidIndex sessionDBSidIndex = new FederatedSidIndex(new FederatedSessionMappingDAO());
+            try {
+                sessionDBSidIndex.start(1000, 60000);
+                sessionDBSidIndex.refresh();
+                assertTrue(sessionDBSidIndex.isReady());
+                assertTrue(sessionDBSidIndex.mightContain("session-db-sid"));
+                assertFalse(sessionDBSidIndex.mightContain("unknown-sid"));
+            } finally {
+                sessionDBSidIndex.stop();
+            }
+        } finally {
+            identityDataSource.close();
+            sessionDataSource.close();
+        }
+    }
+
+    @Test
+    public void testFullIndexIsResized() throws Exception {
+
+        federatedSidIndex.start(10, 60000);
+        for (int i = 0; i < 50; i++) {
+            storedSids.add("sid-" + i);
+        }
+        federatedSidIndex.refresh();
+        federatedSidIndex.refresh();
+        assertTrue(federatedSidIndex.getExpectedSidCount() > 50);
+        for (int i = 0; i < 50; i++) {
+            assertTrue(federatedSidIndex.mightContain("sid-" + i));
+        }
+    }
+
+    @Test
+    public void testBloomFilterFalsePositiveRate() {
+
+        BloomFilter bloomFilter = new BloomFilter(10000, 0.01);
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(bloomFilter.add("sid-" + i));
+        }
+        assertFalse(bloomFilter.add("sid-0"));
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(bloomFilter.mightContain("sid-" + i));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100000; i++) {
+            if (bloomFilter.mightContain("unknown-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 2000, "False positives: " + falsePositives);
+        assertTrue(bloomFilter.getFalsePositiveRate() < 0.02);
+    }
+
+    @ObjectFactory
+    public IObjectFactory getObjectFactory() {
+
+        return new org.powermock.modules.testng.PowerMockObjectFactory();
+    }
+
+    private BasicDataSource newDataSource(String databaseName) {
+
+        BasicDataSource dataSource = new BasicDataSource();
+        dataSource.setDriverClassName("org.h2.Driver");
+        dataSource.setUsername("username");
+        dataSource.setPassword("password");
+        dataSource.setUrl("jdbc:h2:mem:" + databaseName);
+        return dataSource;
+    }
+
+    private void startIndex() throws Exception {
+
+        // A long refresh interval, hence the test drives the refreshes after the initial load.
+        federatedSidIndex.start(1000, 60000);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (federatedSidIndex.getRefreshCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(federatedSidIndex.isReady());
+    }
+}
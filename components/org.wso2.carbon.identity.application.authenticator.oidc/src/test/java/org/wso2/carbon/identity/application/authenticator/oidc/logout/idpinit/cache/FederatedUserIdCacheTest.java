@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.cache;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+/**
+ * Unit test class for FederatedUserIdCache.
+ */
+public class FederatedUserIdCacheTest {
+
+    private static final int TENANT_ID = -1234;
+    private static final String IDP_ID = "1";
+    private static final String SUB = "alice@idp.example.com";
+    private static final String USER_ID = "2c1b3a5e-8d2f-4b1e-9a6c-0f1e2d3c4b5a";
+
+    @Test
+    public void testUserIdIsCached() {
+
+        FederatedUserIdCache cache = newCache(10, 60000);
+        assertNull(cache.get(TENANT_ID, IDP_ID, SUB));
+        cache.put(TENANT_ID, IDP_ID, SUB, USER_ID);
+
+        assertEquals(cache.get(TENANT_ID, IDP_ID, SUB), USER_ID);
+        // The same sub of another IdP or tenant is a different user.
+        assertNull(cache.get(TENANT_ID, "2", SUB));
+        assertNull(cache.get(1, IDP_ID, SUB));
+        assertEquals(cache.getHitCount(), 1);
+        assertEquals(cache.getMissCount(), 3);
+    }
+
+    @Test
+    public void testDeletedUserIsInvalidated() {
+
+        FederatedUserIdCache cache = newCache(10, 60000);
+        cache.put(TENANT_ID, IDP_ID, SUB, USER_ID);
+        cache.put(TENANT_ID, "2", SUB, USER_ID);
+        cache.put(TENANT_ID, IDP_ID, "bob", "other-user-id");
+
+        cache.invalidateUserId(USER_ID);
+        assertNull(cache.get(TENANT_ID, IDP_ID, SUB));
+        assertNull(cache.get(TENANT_ID, "2", SUB));
+        assertEquals(cache.get(TENANT_ID, IDP_ID, "bob"), "other-user-id");
+    }
+
+    @Test
+    public void testReprovisionedUserIsInvalidatedByNewUserId() {
+
+        FederatedUserIdCache cache = newCache(2, 60000);
+        cache.put(TENANT_ID, IDP_ID, SUB, USER_ID);
+        // The federated user is provisioned again with a new user id.
+        cache.put(TENANT_ID, IDP_ID, SUB, "new-user-id");
+        cache.put(TENANT_ID, IDP_ID, "bob", "bob-user-id");
+        cache.put(TENANT_ID, IDP_ID, "carol", "carol-user-id");
+
+        // The old user id no longer owns the entry, and the evicted entry is not invalidated again.
+        cache.invalidateUserId(USER_ID);
+        cache.invalidateUserId("new-user-id");
+        assertEquals(cache.getSize(), 2);
+        cache.invalidateUserId("bob-user-id");
+        assertNull(cache.get(TENANT_ID, IDP_ID, "bob"));
+        assertEquals(cache.get(TENANT_ID, IDP_ID, "carol"), "carol-user-id");
+        assertEquals(cache.getSize(), 1);
+    }
+
+    @Test
+    public void testEntriesExpireAndAreBounded() throws InterruptedException {
+
+        FederatedUserIdCache cache = newCache(2, 50);
+        cache.put(TENANT_ID, IDP_ID, "user-0", "id-0");
+        cache.put(TENANT_ID, IDP_ID, "user-1", "id-1");
+        // Accessing user-0 makes user-1 the least recently used entry.
+        assertEquals(cache.get(TENANT_ID, IDP_ID, "user-0"), "id-0");
+        cache.put(TENANT_ID, IDP_ID, "user-2", "id-2");
+        assertEquals(cache.getSize(), 2);
+        assertNull(cache.get(TENANT_ID, IDP_ID, "user-1"));
+
+        Thread.sleep(100);
+        assertNull(cache.get(TENANT_ID, IDP_ID, "user-0"));
+    }
+
+    @Test
+    public void testDisabledCacheKeepsNothing() {
+
+        FederatedUserIdCache cache = new FederatedUserIdCache();
+        cache.put(TENANT_ID, IDP_ID, SUB, USER_ID);
+
+        assertNull(cache.get(TENANT_ID, IDP_ID, SUB));
+        assertEquals(cache.getSize(), 0);
+    }
+
+    private static FederatedUserIdCache newCache(int maxEntries, long timeToLiveMillis) {
+
+        FederatedUserIdCache cache = new FederatedUserIdCache();
+        cache.configure(true, maxEntries, timeToLiveMillis);
+        return cache;
+    }
+}
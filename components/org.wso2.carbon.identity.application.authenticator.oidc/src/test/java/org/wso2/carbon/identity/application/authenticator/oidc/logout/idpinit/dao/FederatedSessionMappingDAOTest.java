@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.dao;
+
+import org.apache.commons.dbcp.BasicDataSource;
+import org.mockito.Mockito;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.testng.PowerMockTestCase;
+import org.testng.IObjectFactory;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.ObjectFactory;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
+
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Unit test class for FederatedSessionMappingDAO.
+ */
+@PrepareForTest({IdentityDatabaseUtil.class})
+@PowerMockIgnore({"jdk.internal.reflect.*", "javax.management.*"})
+public class FederatedSessionMappingDAOTest extends PowerMockTestCase {
+
+    private static final String ADD_SESSION_MAPPING_SQL = "INSERT INTO IDN_FED_AUTH_SESSION_MAPPING " +
+            "(IDP_SESSION_ID, SESSION_ID, IDP_NAME, AUTHENTICATOR_ID, PROTOCOL_TYPE) VALUES (?, ?, ?, ?, ?)";
+
+    private final FederatedSessionMappingDAO federatedSessionMappingDAO = new FederatedSessionMappingDAO();
+    private BasicDataSource dataSource;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+
+        dataSource = new BasicDataSource();
+        dataSource.setDriverClassName("org.h2.Driver");
+        dataSource.setUsername("username");
+        dataSource.setPassword("password");
+        dataSource.setUrl("jdbc:h2:mem:testFederatedSessionMapping");
+        String scriptPath = Paths.get(System.getProperty("user.dir"), "src", "test", "resources", "dbscripts",
+                "h2.sql").toString();
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.executeUpdate("RUNSCRIPT FROM '" + scriptPath + "'");
+        }
+    }
+
+    @AfterClass
+    public void tearDown() throws SQLException {
+
+        dataSource.close();
+    }
+
+    @BeforeMethod
+    public void setUpSessionMappings() throws Exception {
+
+        mockStatic(IdentityDatabaseUtil.class, Mockito.CALLS_REAL_METHODS);
+        PowerMockito.doAnswer(invocation -> {
+            Connection connection = dataSource.getConnection();
+            connection.setAutoCommit(!(Boolean) invocation.getArgument(0));
+            return connection;
+        }).when(IdentityDatabaseUtil.class, "getSessionDBConnection", anyBoolean());
+        // The mappings are kept in the session database, hence the identity database should not be used.
+        PowerMockito.doThrow(new AssertionError("The identity database should not be used."))
+                .when(IdentityDatabaseUtil.class, "getDBConnection", anyBoolean());
+
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate("DELETE FROM IDN_FED_AUTH_SESSION_MAPPING");
+        }
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(ADD_SESSION_MAPPING_SQL)) {
+            for (String sessionId : Arrays.asList("session-1", "session-2", "session-3")) {
+                statement.setString(1, "idp-" + sessionId);
+                statement.setString(2, sessionId);
+                statement.setString(3, "Federated-IdP");
+                statement.setString(4, "OpenIDConnectAuthenticator");
+                statement.setString(5, "oidc");
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    @Test
+    public void testRemoveFederatedAuthSessionInfo() throws Exception {
+
+        federatedSessionMappingDAO.removeFederatedAuthSessionInfo(
+                new HashSet<>(Arrays.asList("session-1", "session-3", "unknown-session")));
+        assertEquals(getSessionIds(), Collections.singleton("session-2"));
+    }
+
+    @Test
+    public void testRemoveNoSessions() throws Exception {
+
+        federatedSessionMappingDAO.removeFederatedAuthSessionInfo(Collections.emptySet());
+        assertEquals(getSessionIds().size(), 3);
+    }
+
+    @Test
+    public void testForEachIdpSessionId() throws Exception {
+
+        Set<String> idpSessionIds = new HashSet<>();
+        federatedSessionMappingDAO.forEachIdpSessionId(null, idpSessionIds::add);
+        assertEquals(idpSessionIds, new HashSet<>(Arrays.asList("idp-session-1", "idp-session-2", "idp-session-3")));
+    }
+
+    @ObjectFactory
+    public IObjectFactory getObjectFactory() {
+
+        return new org.powermock.modules.testng.PowerMockObjectFactory();
+    }
+
+    private Set<String> getSessionIds() throws SQLException {
+
+        Set<String> sessionIds = new HashSet<>();
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT SESSION_ID FROM IDN_FED_AUTH_SESSION_MAPPING")) {
+            while (resultSet.next()) {
+                sessionIds.add(resultSet.getString(1));
+            }
+        }
+        return sessionIds;
+    }
+}
@@ -72,7 +72,8 @@ public class LogoutRequestFactoryTest extends PowerMockTestCase {
     public Object[][] getHttpServletRequestURI() {
 
         return new String[][]{{"http://localhost:9443/identity/oidc/slo", "true"}, {"http://localhost:9443/identity" +
-                "/oidc/bclogout", "fasle"}};
+                "/oidc/bclogout", "fasle"}, {"http://localhost:9443/t/wso2.com/identity/oidc/slo", "true"},
+                {"http://localhost:9443/identity/oidc/slo\n", "false"}};
     }
 
     @Test(dataProvider = "canHandleDataProvider")
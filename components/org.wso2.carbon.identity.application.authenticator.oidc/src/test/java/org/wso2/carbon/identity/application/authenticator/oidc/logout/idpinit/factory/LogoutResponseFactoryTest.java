@@ -28,6 +28,7 @@ import org.testng.annotations.Test;
 import org.wso2.carbon.identity.application.authentication.framework.inbound.HttpIdentityResponse;
 import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.exception.LogoutClientException;
 import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.exception.LogoutException;
+import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.exception.LogoutRejectedException;
 import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.exception.LogoutServerException;
 import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.model.LogoutResponse;
 import org.wso2.carbon.identity.application.authenticator.oidc.util.OIDCErrorConstants.ErrorMessages;
@@ -97,4 +98,18 @@ public class LogoutResponseFactoryTest extends PowerMockTestCase {
         assertEquals(reponseBody.get("code"), (long) HttpServletResponse.SC_BAD_REQUEST);
         assertEquals(reponseBody.get("description"), ErrorMessages.LOGOUT_CLIENT_EXCEPTION.getMessage());
     }
+
+    @Test
+    public void testHandleRejectedException() throws ParseException {
+
+        HttpIdentityResponse response = logoutResponseFactory.handleException(new LogoutRejectedException(
+                ErrorMessages.LOGOUT_SERVER_BUSY.getCode(), ErrorMessages.LOGOUT_SERVER_BUSY.getMessage(),
+                HttpServletResponse.SC_SERVICE_UNAVAILABLE, 5)).build();
+        assertEquals(response.getStatusCode(), HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        assertEquals(response.getHeaders().get("Retry-After"), "5");
+        JSONParser parser = new JSONParser(JSONParser.MODE_JSON_SIMPLE);
+        JSONObject reponseBody = (JSONObject) parser.parse(response.getBody());
+        assertEquals(reponseBody.get("code"), (long) HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        assertEquals(reponseBody.get("description"), ErrorMessages.LOGOUT_SERVER_BUSY.getMessage());
+    }
 }
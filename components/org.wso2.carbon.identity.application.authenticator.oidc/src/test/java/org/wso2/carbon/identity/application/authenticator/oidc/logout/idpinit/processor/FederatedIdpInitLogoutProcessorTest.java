@@ -41,7 +41,9 @@ import org.wso2.carbon.identity.application.authentication.framework.store.UserS
 import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkUtils;
 import org.wso2.carbon.identity.application.authenticator.oidc.TestUtils;
 import org.wso2.carbon.identity.application.authenticator.oidc.internal.OpenIDConnectAuthenticatorDataHolder;
+import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.admission.LogoutAdmissionController;
 import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.exception.LogoutClientException;
+import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.exception.LogoutRejectedException;
 import org.wso2.carbon.identity.application.authenticator.oidc.logout.idpinit.model.LogoutRequest;
 import org.wso2.carbon.identity.application.authenticator.oidc.util.OIDCErrorConstants;
 import org.wso2.carbon.identity.application.common.model.FederatedAuthenticatorConfig;
@@ -487,6 +489,8 @@ public class FederatedIdpInitLogoutProcessorTest extends PowerMockTestCase {
         mockStatic(IdentityDatabaseUtil.class);
         when(IdentityDatabaseUtil.getDataSource()).thenReturn(dataSource);
         when(IdentityDatabaseUtil.getDBConnection(anyBoolean())).thenReturn(getConnection(DB_NAME));
+        when(IdentityDatabaseUtil.getSessionDBConnection(anyBoolean())).thenAnswer(
+                invocation -> getConnection(DB_NAME));
         when(dataSource.getConnection()).thenReturn(getConnection(DB_NAME));
 
         // Mock the server session management service.
@@ -563,4 +567,88 @@ public class FederatedIdpInitLogoutProcessorTest extends PowerMockTestCase {
         when(IdentityTenantUtil.getTenantId(anyString())).thenReturn(-1234);
         assertNotNull(logoutProcessor.handleOIDCFederatedLogoutRequest(mockLogoutRequest));
     }
+
+    @Test
+    public void testForgedTokensDoNotUseUpIdPRateLimit() throws Exception {
+
+        String USER_ID = UUID.randomUUID().toString();
+        String USER_NAME = "adminRateLimited";
+        String SESSION_CONTEXT_KEY = "02278824dfe9862d265e389365c0a71c365401672491b78c6ee7dd6fc44d7612";
+        String IDP_SESSION_INDEX = "15043ffc-877d-4205-af41-9b107f7da40c";
+        String forgedLogoutToken = "forged-logout-token";
+
+        // Mock a genuine logout token and an unsigned token carrying the issuer of the same IdP.
+        mockStatic(SignedJWT.class);
+        SignedJWT signedJWT = mock(SignedJWT.class);
+        SignedJWT forgedJWT = mock(SignedJWT.class);
+        when(SignedJWT.parse(logoutToken)).thenReturn(signedJWT);
+        when(signedJWT.getJWTClaimsSet()).thenReturn(generateLogoutToken(USER_NAME, true, IDP_SESSION_INDEX));
+        when(SignedJWT.parse(forgedLogoutToken)).thenReturn(forgedJWT);
+        when(forgedJWT.getJWTClaimsSet()).thenReturn(generateLogoutToken(USER_NAME, true, IDP_SESSION_INDEX));
+        when(mockLogoutRequest.getTenantDomain()).thenReturn("carbon.super");
+        mockStatic(IdentityProviderManager.class);
+        IdentityProviderManager identityProviderManager = mock(IdentityProviderManager.class);
+        when(IdentityProviderManager.getInstance()).thenReturn(identityProviderManager);
+        when(IdentityProviderManager.getInstance().getIdPByMetadataProperty(
+                IdentityApplicationConstants.IDP_ISSUER_NAME, "https://federatedwso2.com:9444/oauth2/token",
+                "carbon.super", false)).thenReturn(identityProvider);
+
+        // Only the signature of the genuine logout token is valid.
+        mockStatic(JWTSignatureValidationUtils.class);
+        when(JWTSignatureValidationUtils.validateSignature(signedJWT, identityProvider)).thenReturn(true);
+        when(JWTSignatureValidationUtils.validateSignature(forgedJWT, identityProvider)).thenReturn(false);
+
+        setupSessionStore(USER_ID, USER_NAME, SESSION_CONTEXT_KEY, IDP_SESSION_INDEX);
+        mockStatic(IdentityDatabaseUtil.class);
+        when(IdentityDatabaseUtil.getSessionDBConnection(anyBoolean())).thenAnswer(
+                invocation -> getConnection(DB_NAME));
+        mockStatic(OpenIDConnectAuthenticatorDataHolder.class);
+        OpenIDConnectAuthenticatorDataHolder openIDConnectAuthenticatorDataHolder =
+                mock(OpenIDConnectAuthenticatorDataHolder.class);
+        ServerSessionManagementService serverSessionManagementService = mock(ServerSessionManagementService.class);
+        when(OpenIDConnectAuthenticatorDataHolder.getInstance()).thenReturn(openIDConnectAuthenticatorDataHolder);
+        when(openIDConnectAuthenticatorDataHolder.getServerSessionManagementService())
+                .thenReturn(serverSessionManagementService);
+        when(serverSessionManagementService.removeSession(SESSION_CONTEXT_KEY)).thenReturn(true);
+        mockStatic(IdentityTenantUtil.class);
+        when(IdentityTenantUtil.getTenantId(anyString())).thenReturn(-1234);
+
+        // A single verified logout request of the IdP is admitted.
+        LogoutAdmissionController.getInstance().configure(true, 0.001, 1, 10, 10);
+        long rateLimited = LogoutAdmissionController.getInstance().getRateLimitedCount();
+        try {
+            when(mockLogoutRequest.getParameter("logout_token")).thenReturn(forgedLogoutToken);
+            for (int i = 0; i < 5; i++) {
+                try {
+                    logoutProcessor.handleOIDCFederatedLogoutRequest(mockLogoutRequest);
+                    fail("A logout token with an invalid signature should be rejected.");
+                } catch (LogoutClientException e) {
+                    assertEquals(e.getErrorCode(),
+                            OIDCErrorConstants.ErrorMessages.LOGOUT_TOKEN_SIGNATURE_VALIDATION_FAILED.getCode());
+                }
+            }
+
+            // The forged tokens did not use up the rate limit of the IdP.
+            when(mockLogoutRequest.getParameter("logout_token")).thenReturn(logoutToken);
+            assertNotNull(logoutProcessor.handleOIDCFederatedLogoutRequest(mockLogoutRequest));
+            try {
+                logoutProcessor.handleOIDCFederatedLogoutRequest(mockLogoutRequest);
+                fail("The verified logout requests beyond the rate limit of the IdP should be rejected.");
+            } catch (LogoutRejectedException e) {
+                assertEquals(e.getStatusCode(), 429);
+            }
+
+            // Once the rate limit of the IdP is used up, the requests are rejected before the signature verification.
+            when(mockLogoutRequest.getParameter("logout_token")).thenReturn(forgedLogoutToken);
+            try {
+                logoutProcessor.handleOIDCFederatedLogoutRequest(mockLogoutRequest);
+                fail("The logout requests of an IdP whose rate limit is used up should be rejected.");
+            } catch (LogoutRejectedException e) {
+                assertEquals(e.getStatusCode(), 429);
+            }
+            assertEquals(LogoutAdmissionController.getInstance().getRateLimitedCount(), rateLimited + 2);
+        } finally {
+            LogoutAdmissionController.getInstance().configure(false, 1, 1, 1, 1);
+        }
+    }
 }
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.metrics;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit test class for LatencyHistogram.
+ */
+public class LatencyHistogramTest {
+
+    @DataProvider(name = "latencyProvider")
+    public Object[][] latencyProvider() {
+
+        return new Object[][]{
+                {0L}, {1L}, {7L}, {8L}, {17L}, {1000L}, {123456L}, {(1L << 32) - 1}, {1L << 32}
+        };
+    }
+
+    @Test(dataProvider = "latencyProvider")
+    public void testBucketBounds(long micros) {
+
+        int index = LatencyHistogram.bucketIndex(micros);
+        assertTrue(micros <= LatencyHistogram.bucketUpperBound(index));
+        if (index > 0) {
+            assertTrue(micros > LatencyHistogram.bucketUpperBound(index - 1));
+        }
+    }
+
+    @Test
+    public void testPercentiles() {
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+
+        assertEquals(histogram.getCount(), 1000);
+        assertEquals(histogram.getMeanMillis(), 500.5, 0.001);
+        assertEquals(histogram.getMaxMillis(), 1000.0, 0.001);
+        assertWithinResolution(histogram.getPercentileMillis(50), 500);
+        assertWithinResolution(histogram.getPercentileMillis(90), 900);
+        assertWithinResolution(histogram.getPercentileMillis(99), 990);
+        assertEquals(histogram.getPercentileMillis(100), 1000.0, 0.001);
+    }
+
+    @Test
+    public void testLatencyBeyondLastBucket() {
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(TimeUnit.DAYS.toNanos(1));
+
+        assertEquals(histogram.getPercentileMillis(99), TimeUnit.DAYS.toMillis(1), 0.001);
+    }
+
+    @Test
+    public void testReset() {
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(10));
+        histogram.reset();
+
+        assertEquals(histogram.getCount(), 0);
+        assertEquals(histogram.getPercentileMillis(50), 0.0);
+        assertEquals(histogram.getMaxMillis(), 0.0);
+    }
+
+    @Test
+    public void testPhaseLatencyMetrics() {
+
+        PhaseLatencyMetrics metrics = new PhaseLatencyMetrics();
+        metrics.record("Google", AuthenticatorPhase.GET_OAUTH_RESPONSE, System.nanoTime());
+        assertEquals(metrics.getIdentityProviders().length, 0);
+
+        metrics.setEnabled(true);
+        metrics.record("Google", AuthenticatorPhase.GET_OAUTH_RESPONSE, System.nanoTime());
+        metrics.record(null, AuthenticatorPhase.SEND_REQUEST, System.nanoTime());
+
+        assertEquals(metrics.getCount("Google", AuthenticatorPhase.GET_OAUTH_RESPONSE.getPhaseName()), 1);
+        assertEquals(metrics.getCount("Google", AuthenticatorPhase.SEND_REQUEST.getPhaseName()), 0);
+        assertEquals(metrics.getCount(PhaseLatencyMetrics.UNKNOWN_IDP,
+                AuthenticatorPhase.SEND_REQUEST.getPhaseName()), 1);
+        assertEquals(metrics.getCount("Google", "invalidPhase"), 0);
+        assertEquals(metrics.getSummary().length, 2);
+        // Histograms are only allocated for the recorded phases.
+        assertNotNull(metrics.getHistogram("Google", AuthenticatorPhase.GET_OAUTH_RESPONSE));
+        assertNull(metrics.getHistogram("Google", AuthenticatorPhase.SEND_REQUEST));
+    }
+
+    private void assertWithinResolution(double actual, double expected) {
+
+        assertTrue(actual >= expected && actual <= expected * 1.125, "Unexpected percentile: " + actual);
+    }
+}
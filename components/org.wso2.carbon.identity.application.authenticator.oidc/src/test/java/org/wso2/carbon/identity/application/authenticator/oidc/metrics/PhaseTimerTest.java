@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.metrics;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit test class for PhaseTimer.
+ */
+public class PhaseTimerTest {
+
+    private static final String IDP_NAME = "PhaseTimerTestIdP";
+    private static final String TENANT_DOMAIN = "carbon.super";
+
+    @BeforeClass
+    public void setUp() {
+
+        PhaseLatencyMetrics.getInstance().setEnabled(true);
+    }
+
+    @AfterClass
+    public void tearDown() {
+
+        PhaseLatencyMetrics.getInstance().setEnabled(false);
+    }
+
+    @Test
+    public void testNestedPhases() {
+
+        PhaseTimer outer = PhaseTimer.start(AuthenticatorPhase.REQUEST_ACCESS_TOKEN, IDP_NAME, TENANT_DOMAIN);
+        PhaseTimer inner = PhaseTimer.start(AuthenticatorPhase.GET_OAUTH_RESPONSE, IDP_NAME, TENANT_DOMAIN);
+        assertSame(PhaseTimer.current(), inner);
+
+        PhaseTimer.addBytesToCurrent(10);
+        inner.stop();
+        assertSame(PhaseTimer.current(), outer);
+
+        PhaseTimer.addBytesToCurrent(20);
+        outer.succeeded();
+        outer.stop();
+        assertNull(PhaseTimer.current());
+
+        assertEquals(inner.getBytes(), 10);
+        assertFalse(inner.isSucceeded());
+        assertEquals(outer.getBytes(), 20);
+        assertTrue(outer.isSucceeded());
+    }
+
+    @Test
+    public void testLatencyIsRecordedOnce() {
+
+        PhaseTimer phaseTimer = PhaseTimer.start(AuthenticatorPhase.BUILD_CLAIM_MAPPINGS, IDP_NAME, TENANT_DOMAIN);
+        phaseTimer.stop();
+        phaseTimer.stop();
+
+        assertEquals(PhaseLatencyMetrics.getInstance().getHistogram(IDP_NAME, AuthenticatorPhase.BUILD_CLAIM_MAPPINGS)
+                .getCount(), 1);
+    }
+}
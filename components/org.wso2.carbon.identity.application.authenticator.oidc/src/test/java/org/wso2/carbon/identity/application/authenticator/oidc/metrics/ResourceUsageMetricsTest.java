@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.metrics;
+
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit test class for ResourceUsageMetrics.
+ */
+public class ResourceUsageMetricsTest {
+
+    private static final String IDP_NAME = "ResourceUsageTestIdP";
+    private static final String TENANT_DOMAIN = "carbon.super";
+    private static final String LOGIN = SLOTracker.Flow.FEDERATED_LOGIN.getFlowName();
+    private static final String LOGOUT = SLOTracker.Flow.BACK_CHANNEL_LOGOUT.getFlowName();
+
+    @Test
+    public void testLoginIsMetered() throws IOException {
+
+        ResourceUsageMetrics metrics = new ResourceUsageMetrics();
+        metrics.setEnabled(true);
+        ResourceMeter resourceMeter = metrics.begin(SLOTracker.Flow.FEDERATED_LOGIN, IDP_NAME, TENANT_DOMAIN);
+        assertSame(ResourceMeter.current(), resourceMeter);
+
+        ResourceMeter.addBytesSent(100);
+        byte[] response = "{\"sub\":\"user\"}".getBytes(StandardCharsets.UTF_8);
+        try (InputStream inputStream = ResourceMeter.countBytesReceived(new ByteArrayInputStream(response))) {
+            byte[] buffer = new byte[4];
+            while (inputStream.read(buffer) > 0) {
+                // Consume the stream.
+            }
+        }
+        StringBuilder allocations = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            allocations.append(i);
+        }
+        metrics.end(resourceMeter, null);
+        assertNull(ResourceMeter.current());
+
+        assertEquals(metrics.getCount(TENANT_DOMAIN, IDP_NAME, LOGIN), 1);
+        assertEquals(metrics.getMeanBytesSent(TENANT_DOMAIN, IDP_NAME, LOGIN), 100.0, 0.0);
+        assertEquals(metrics.getMeanBytesReceived(TENANT_DOMAIN, IDP_NAME, LOGIN), (double) response.length, 0.0);
+        if (metrics.isAllocatedBytesSupported()) {
+            assertTrue(metrics.getMeanAllocatedBytes(TENANT_DOMAIN, IDP_NAME, LOGIN) > allocations.length());
+            assertEquals((double) metrics.getMaxAllocatedBytes(TENANT_DOMAIN, IDP_NAME, LOGIN),
+                    metrics.getMeanAllocatedBytes(TENANT_DOMAIN, IDP_NAME, LOGIN), 0.0);
+        }
+        if (metrics.isCpuTimeSupported()) {
+            assertTrue(metrics.getMeanCpuMillis(TENANT_DOMAIN, IDP_NAME, LOGIN) >= 0);
+        }
+        assertEquals(metrics.getSummary().length, 1);
+        assertTrue(metrics.getSummary()[0].startsWith(TENANT_DOMAIN + "/" + IDP_NAME + "/" + LOGIN));
+    }
+
+    @Test
+    public void testResolvedIdpName() {
+
+        ResourceUsageMetrics metrics = new ResourceUsageMetrics();
+        metrics.setEnabled(true);
+        ResourceMeter resourceMeter = metrics.begin(SLOTracker.Flow.BACK_CHANNEL_LOGOUT, "issuer", TENANT_DOMAIN);
+        ResourceMeter.addBytesReceived(512);
+        metrics.end(resourceMeter, IDP_NAME);
+        // Ending a meter more than once should not record it again.
+        metrics.end(resourceMeter, IDP_NAME);
+
+        assertEquals(metrics.getCount(TENANT_DOMAIN, IDP_NAME, LOGOUT), 1);
+        assertEquals(metrics.getCount(TENANT_DOMAIN, "issuer", LOGOUT), 0);
+        assertEquals(metrics.getMeanBytesReceived(TENANT_DOMAIN, IDP_NAME, LOGOUT), 512.0, 0.0);
+    }
+
+    @Test
+    public void testDisabledMetering() {
+
+        ResourceUsageMetrics metrics = new ResourceUsageMetrics();
+        assertNull(metrics.begin(SLOTracker.Flow.FEDERATED_LOGIN, IDP_NAME, TENANT_DOMAIN));
+        // Bytes are ignored when no flow is metered.
+        ResourceMeter.addBytesSent(10);
+        InputStream inputStream = new ByteArrayInputStream(new byte[0]);
+        assertSame(ResourceMeter.countBytesReceived(inputStream), inputStream);
+        metrics.end(null, IDP_NAME);
+        assertEquals(metrics.getTrackedIdentityProviders().length, 0);
+    }
+
+    @Test
+    public void testTrackedIdpsAreBoundedAcrossTenants() {
+
+        ResourceUsageMetrics metrics = new ResourceUsageMetrics(10);
+        for (int i = 0; i < 100; i++) {
+            metrics.record("tenant" + i + ".com", IDP_NAME, SLOTracker.Flow.FEDERATED_LOGIN, 0, 0, 10, 0);
+        }
+        // The IdPs tracked after the limit share a single key per flow, whatever their tenant is.
+        assertEquals(metrics.getTrackedIdentityProviders().length, 11);
+        assertEquals(metrics.getCount(PhaseLatencyMetrics.OTHER_IDPS, PhaseLatencyMetrics.OTHER_IDPS, LOGIN), 90);
+        assertEquals(metrics.getCount("tenant0.com", IDP_NAME, LOGIN), 1);
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.metrics;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.authenticator.oidc.util.OIDCErrorConstants.ErrorMessages;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertEqualsNoOrder;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit test class for SLOTracker.
+ */
+public class SLOTrackerTest {
+
+    private static final String TENANT_DOMAIN = "carbon.super";
+    private static final String IDP_NAME = "Google";
+    private static final String LOGIN = SLOTracker.Flow.FEDERATED_LOGIN.getFlowName();
+    private static final String LOGOUT = SLOTracker.Flow.BACK_CHANNEL_LOGOUT.getFlowName();
+
+    private AtomicLong clock;
+    private SLOTracker sloTracker;
+
+    @BeforeMethod
+    public void setUp() {
+
+        clock = new AtomicLong(1000000L);
+        // 10 slots of 1 second.
+        sloTracker = new SLOTracker(1000, 10, 2, clock::get);
+        sloTracker.setEnabled(true);
+    }
+
+    @Test
+    public void testOutcomesAreClassified() {
+
+        sloTracker.recordSuccess(TENANT_DOMAIN, IDP_NAME, SLOTracker.Flow.FEDERATED_LOGIN, System.nanoTime());
+        sloTracker.recordSuccess(TENANT_DOMAIN, IDP_NAME, SLOTracker.Flow.FEDERATED_LOGIN, System.nanoTime());
+        sloTracker.recordFailure(TENANT_DOMAIN, IDP_NAME, SLOTracker.Flow.FEDERATED_LOGIN,
+                ErrorMessages.NONCE_MISMATCH.getCode(), System.nanoTime());
+        sloTracker.recordFailure(TENANT_DOMAIN, IDP_NAME, SLOTracker.Flow.FEDERATED_LOGIN, "unknown-code",
+                System.nanoTime());
+        sloTracker.recordFailure(TENANT_DOMAIN, IDP_NAME, SLOTracker.Flow.BACK_CHANNEL_LOGOUT,
+                ErrorMessages.LOGOUT_TOKEN_IAT_VALIDATION_FAILED.getCode(), System.nanoTime());
+
+        assertEquals(sloTracker.getRequestCount(TENANT_DOMAIN, IDP_NAME, LOGIN), 4);
+        assertEquals(sloTracker.getSuccessRate(TENANT_DOMAIN, IDP_NAME, LOGIN), 50.0, 0.001);
+        assertEqualsNoOrder(sloTracker.getErrorCounts(TENANT_DOMAIN, IDP_NAME, LOGIN), new String[]{
+                "NONCE_MISMATCH(" + ErrorMessages.NONCE_MISMATCH.getCode() + ")=1",
+                SLOTracker.UNCLASSIFIED + "=1"});
+        assertEquals(sloTracker.getSuccessRate(TENANT_DOMAIN, IDP_NAME, LOGOUT), 0.0, 0.001);
+        assertEquals(sloTracker.getDegradedIdentityProviders(60), new String[]{
+                TENANT_DOMAIN + "/" + IDP_NAME + "/" + LOGIN, TENANT_DOMAIN + "/" + IDP_NAME + "/" + LOGOUT});
+        assertEquals(sloTracker.getDegradedIdentityProviders(10), new String[]{
+                TENANT_DOMAIN + "/" + IDP_NAME + "/" + LOGOUT});
+    }
+
+    @Test
+    public void testOutcomesExpireWithWindow() {
+
+        sloTracker.recordFailure(TENANT_DOMAIN, IDP_NAME, SLOTracker.Flow.FEDERATED_LOGIN,
+                ErrorMessages.REQUESTING_ACCESS_TOKEN_FAILED.getCode(), System.nanoTime());
+        clock.addAndGet(5000);
+        sloTracker.recordSuccess(TENANT_DOMAIN, IDP_NAME, SLOTracker.Flow.FEDERATED_LOGIN, System.nanoTime());
+        assertEquals(sloTracker.getRequestCount(TENANT_DOMAIN, IDP_NAME, LOGIN), 2);
+
+        // The failure is older than the window now.
+        clock.addAndGet(6000);
+        assertEquals(sloTracker.getRequestCount(TENANT_DOMAIN, IDP_NAME, LOGIN), 1);
+        assertEquals(sloTracker.getSuccessRate(TENANT_DOMAIN, IDP_NAME, LOGIN), 100.0, 0.001);
+
+        // The slot of the failure is reused.
+        sloTracker.recordSuccess(TENANT_DOMAIN, IDP_NAME, SLOTracker.Flow.FEDERATED_LOGIN, System.nanoTime());
+        assertEquals(sloTracker.getRequestCount(TENANT_DOMAIN, IDP_NAME, LOGIN), 2);
+        assertEquals(sloTracker.getErrorCounts(TENANT_DOMAIN, IDP_NAME, LOGIN).length, 0);
+    }
+
+    @Test
+    public void testUntrackedIdentityProvider() {
+
+        assertEquals(sloTracker.getRequestCount(TENANT_DOMAIN, IDP_NAME, LOGIN), 0);
+        assertEquals(sloTracker.getSuccessRate(TENANT_DOMAIN, IDP_NAME, LOGIN), 100.0, 0.001);
+        assertEquals(sloTracker.getLatencyPercentileMillis(TENANT_DOMAIN, IDP_NAME, LOGIN, 99), 0.0);
+        assertEquals(sloTracker.getWindowSeconds(), 10);
+    }
+
+    @Test
+    public void testDisabledTrackerRecordsNothing() {
+
+        sloTracker.setEnabled(false);
+        sloTracker.recordSuccess(TENANT_DOMAIN, IDP_NAME, SLOTracker.Flow.FEDERATED_LOGIN, System.nanoTime());
+        sloTracker.recordFailure(TENANT_DOMAIN, IDP_NAME, SLOTracker.Flow.FEDERATED_LOGIN, null, System.nanoTime());
+        assertEquals(sloTracker.getRequestCount(TENANT_DOMAIN, IDP_NAME, LOGIN), 0);
+        assertEquals(sloTracker.getTrackedIdentityProviders().length, 0);
+    }
+
+    @Test
+    public void testUntrackedIdentityProvidersShareTenantAgnosticKey() {
+
+        sloTracker.recordSuccess(TENANT_DOMAIN, IDP_NAME, SLOTracker.Flow.FEDERATED_LOGIN, System.nanoTime());
+        sloTracker.recordSuccess(TENANT_DOMAIN, "Facebook", SLOTracker.Flow.FEDERATED_LOGIN, System.nanoTime());
+        for (int i = 0; i < 10; i++) {
+            sloTracker.recordSuccess("tenant-" + i + ".com", "IdP-" + i, SLOTracker.Flow.FEDERATED_LOGIN,
+                    System.nanoTime());
+        }
+        assertEquals(sloTracker.getTrackedIdentityProviders().length, 3);
+        assertEquals(sloTracker.getRequestCount(PhaseLatencyMetrics.OTHER_IDPS, PhaseLatencyMetrics.OTHER_IDPS,
+                LOGIN), 10);
+    }
+
+    @Test
+    public void testLatencyPercentiles() {
+
+        long now = System.nanoTime();
+        for (int i = 1; i <= 100; i++) {
+            sloTracker.recordSuccess(TENANT_DOMAIN, IDP_NAME, SLOTracker.Flow.FEDERATED_LOGIN,
+                    now - i * 1000000L);
+        }
+        double p50 = sloTracker.getLatencyPercentileMillis(TENANT_DOMAIN, IDP_NAME, LOGIN, 50);
+        double p99 = sloTracker.getLatencyPercentileMillis(TENANT_DOMAIN, IDP_NAME, LOGIN, 99);
+        // The slot histograms are accurate within 25%.
+        assertTrue(p50 >= 50 && p50 <= 50 * 1.25 + 1, "p50: " + p50);
+        assertTrue(p99 >= 99 && p99 <= 99 * 1.25 + 1, "p99: " + p99);
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.metrics;
+
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit test class for SlowLoginRecorder.
+ */
+public class SlowLoginRecorderTest {
+
+    private static final String IDP_NAME = "SlowLoginTestIdP";
+    private static final String TENANT_DOMAIN = "carbon.super";
+
+    @Test
+    public void testSlowLoginIsRecorded() throws InterruptedException {
+
+        SlowLoginRecorder recorder = new SlowLoginRecorder(1, 10);
+        recorder.setEnabled(true);
+        LoginTimeline loginTimeline = recorder.begin(IDP_NAME, TENANT_DOMAIN);
+        assertNotNull(loginTimeline);
+
+        PhaseTimer outer = PhaseTimer.start(AuthenticatorPhase.REQUEST_ACCESS_TOKEN, IDP_NAME, TENANT_DOMAIN);
+        PhaseTimer inner = PhaseTimer.start(AuthenticatorPhase.GET_OAUTH_RESPONSE, IDP_NAME, TENANT_DOMAIN);
+        Thread.sleep(5);
+        inner.addBytes(512).succeeded();
+        inner.stop();
+        outer.succeeded();
+        outer.stop();
+        PhaseTimer userInfo = PhaseTimer.start(AuthenticatorPhase.SEND_REQUEST, IDP_NAME, TENANT_DOMAIN);
+        userInfo.addBytes(128);
+        userInfo.stop();
+        recorder.end(loginTimeline, false, "OID-65001");
+
+        assertEquals(recorder.getSlowLoginCount(), 1);
+        List<LoginTimeline> loginTimelines = recorder.getLoginTimelines();
+        assertEquals(loginTimelines.size(), 1);
+        LoginTimeline recorded = loginTimelines.get(0);
+        assertEquals(recorded.getIdpName(), IDP_NAME);
+        assertEquals(recorded.getOutcome(), "OID-65001");
+        assertTrue(recorded.getDurationNanos() >= 5000000L);
+
+        List<LoginTimeline.PhaseEntry> phases = recorded.getPhases();
+        assertEquals(phases.size(), 3);
+        assertEquals(phases.get(0).getPhaseName(), AuthenticatorPhase.REQUEST_ACCESS_TOKEN.getPhaseName());
+        assertEquals(phases.get(0).getDepth(), 0);
+        assertEquals(phases.get(1).getPhaseName(), AuthenticatorPhase.GET_OAUTH_RESPONSE.getPhaseName());
+        assertEquals(phases.get(1).getDepth(), 1);
+        assertEquals(phases.get(1).getBytes(), 512);
+        assertTrue(phases.get(1).isSucceeded());
+        assertEquals(phases.get(2).getPhaseName(), AuthenticatorPhase.SEND_REQUEST.getPhaseName());
+        assertFalse(phases.get(2).isSucceeded());
+
+        String dump = recorder.dumpSlowLogins();
+        assertTrue(dump.contains("idp=" + IDP_NAME));
+        assertTrue(dump.contains("getOauthResponse"));
+        assertTrue(dump.contains("bytes=128 failed"));
+
+        // Phases stopped after the login are not added to its timeline.
+        PhaseTimer.start(AuthenticatorPhase.SEND_REQUEST, IDP_NAME, TENANT_DOMAIN).stop();
+        assertEquals(recorded.getPhases().size(), 3);
+    }
+
+    @Test
+    public void testFastLoginIsNotRecorded() {
+
+        SlowLoginRecorder recorder = new SlowLoginRecorder(60000, 10);
+        recorder.setEnabled(true);
+        LoginTimeline loginTimeline = recorder.begin(IDP_NAME, TENANT_DOMAIN);
+        PhaseTimer.start(AuthenticatorPhase.SEND_REQUEST, IDP_NAME, TENANT_DOMAIN).stop();
+        recorder.end(loginTimeline, true, null);
+
+        assertEquals(loginTimeline.getOutcome(), SlowLoginRecorder.SUCCESS);
+        assertEquals(recorder.getSlowLoginCount(), 0);
+        assertEquals(recorder.getSlowLogins().length, 0);
+    }
+
+    @Test
+    public void testDisabledRecorder() {
+
+        SlowLoginRecorder recorder = new SlowLoginRecorder(1, 10);
+        // Recording is disabled by default.
+        assertNull(recorder.begin(IDP_NAME, TENANT_DOMAIN));
+        recorder.setEnabled(true);
+        recorder.setThresholdMillis(0);
+        assertNull(recorder.begin(IDP_NAME, TENANT_DOMAIN));
+        recorder.end(null, true, null);
+        assertEquals(recorder.getSlowLoginCount(), 0);
+    }
+
+    @Test
+    public void testBufferIsBounded() throws InterruptedException {
+
+        SlowLoginRecorder recorder = new SlowLoginRecorder(1, 2);
+        recorder.setEnabled(true);
+        for (int i = 0; i < 3; i++) {
+            LoginTimeline loginTimeline = recorder.begin(IDP_NAME + i, TENANT_DOMAIN);
+            Thread.sleep(2);
+            recorder.end(loginTimeline, true, null);
+        }
+        assertEquals(recorder.getSlowLoginCount(), 3);
+        String[] slowLogins = recorder.getSlowLogins();
+        assertEquals(slowLogins.length, 2);
+        assertTrue(slowLogins[0].contains("idp=" + IDP_NAME + 1));
+        assertTrue(slowLogins[1].contains("idp=" + IDP_NAME + 2));
+
+        recorder.configure(1, 5);
+        assertEquals(recorder.getCapacity(), 5);
+        assertEquals(recorder.getSlowLogins().length, 0);
+
+        recorder.reset();
+        assertEquals(recorder.getSlowLoginCount(), 0);
+    }
+}
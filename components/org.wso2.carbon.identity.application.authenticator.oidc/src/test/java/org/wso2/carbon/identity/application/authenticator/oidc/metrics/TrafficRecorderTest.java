@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.metrics;
+
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit test class for TrafficRecorder.
+ */
+public class TrafficRecorderTest {
+
+    private static final String IDP_NAME = "TrafficTestIdP";
+    private static final String TENANT_DOMAIN = "traffic.example.com";
+
+    @Test
+    public void testLoginIsRecorded() throws InterruptedException {
+
+        TrafficRecorder recorder = new TrafficRecorder(10);
+        recorder.configure(true, 10);
+        TrafficCapture trafficCapture = recorder.begin(SLOTracker.Flow.FEDERATED_LOGIN, IDP_NAME, TENANT_DOMAIN);
+
+        PhaseTimer outer = PhaseTimer.start(AuthenticatorPhase.REQUEST_ACCESS_TOKEN, IDP_NAME, TENANT_DOMAIN);
+        PhaseTimer inner = PhaseTimer.start(AuthenticatorPhase.GET_OAUTH_RESPONSE, IDP_NAME, TENANT_DOMAIN);
+        Thread.sleep(5);
+        inner.succeeded();
+        inner.stop();
+        outer.succeeded();
+        outer.stop();
+        TrafficCapture.recordTokens(36, 900);
+        TrafficCapture.recordIdTokenClaims(12);
+        PhaseTimer userInfo = PhaseTimer.start(AuthenticatorPhase.SEND_REQUEST, IDP_NAME, TENANT_DOMAIN);
+        TrafficCapture.recordUserInfo(256, 6);
+        userInfo.succeeded();
+        userInfo.stop();
+        recorder.end(trafficCapture, null, true, null);
+
+        assertNull(TrafficCapture.current());
+        assertEquals(recorder.getRecordCount(), 1);
+        TrafficRecord record = recorder.getRecords().get(0);
+        assertEquals(record.getFlow(), SLOTracker.Flow.FEDERATED_LOGIN);
+        assertTrue(record.isSucceeded());
+        assertNull(record.getFailedPhase());
+        assertTrue(record.getPhaseMicros(AuthenticatorPhase.GET_OAUTH_RESPONSE) >= 5000);
+        assertTrue(record.getPhaseMicros(AuthenticatorPhase.REQUEST_ACCESS_TOKEN) >=
+                record.getPhaseMicros(AuthenticatorPhase.GET_OAUTH_RESPONSE));
+        assertTrue(record.getDurationMicros() >= record.getPhaseMicros(AuthenticatorPhase.REQUEST_ACCESS_TOKEN));
+        assertEquals(record.getAccessTokenBytes(), 36);
+        assertEquals(record.getIdTokenBytes(), 900);
+        assertEquals(record.getIdTokenClaims(), 12);
+        assertEquals(record.getUserInfoBytes(), 256);
+        assertEquals(record.getUserInfoClaims(), 6);
+
+        // The IdP and the tenant are pseudonyms, which are stable within the recorder.
+        assertTrue(record.getIdp().startsWith(TrafficRecorder.IDP_PREFIX));
+        assertTrue(record.getTenant().startsWith(TrafficRecorder.TENANT_PREFIX));
+        assertEquals(record.getIdp(), recorder.pseudonymize(TrafficRecorder.IDP_PREFIX, IDP_NAME));
+        assertNotEquals(record.getIdp(), new TrafficRecorder(10).pseudonymize(TrafficRecorder.IDP_PREFIX,
+                IDP_NAME));
+        String capture = recorder.exportCapture();
+        assertFalse(capture.contains(IDP_NAME));
+        assertFalse(capture.contains(TENANT_DOMAIN));
+    }
+
+    @Test
+    public void testFailedLogoutIsRecorded() {
+
+        TrafficRecorder recorder = new TrafficRecorder(10);
+        recorder.configure(true, 10);
+        TrafficCapture trafficCapture = recorder.begin(SLOTracker.Flow.BACK_CHANNEL_LOGOUT, "https://issuer",
+                TENANT_DOMAIN);
+        TrafficCapture.recordLogoutToken(640, 7, "sid");
+        PhaseTimer lookup = PhaseTimer.start(AuthenticatorPhase.LOGOUT_IDP_LOOKUP, IDP_NAME, TENANT_DOMAIN);
+        lookup.succeeded();
+        lookup.stop();
+        PhaseTimer.start(AuthenticatorPhase.LOGOUT_TOKEN_VALIDATION, IDP_NAME, TENANT_DOMAIN).stop();
+        recorder.end(trafficCapture, IDP_NAME, false, "OID-60005");
+
+        TrafficRecord record = recorder.getRecords().get(0);
+        assertEquals(record.getFlow(), SLOTracker.Flow.BACK_CHANNEL_LOGOUT);
+        assertEquals(record.getErrorCode(), "OID-60005");
+        assertEquals(record.getFailedPhase(), AuthenticatorPhase.LOGOUT_TOKEN_VALIDATION.getPhaseName());
+        assertEquals(record.getIdp(), recorder.pseudonymize(TrafficRecorder.IDP_PREFIX, IDP_NAME));
+        assertEquals(record.getLogoutTokenBytes(), 640);
+        assertEquals(record.getLogoutTokenClaims(), 7);
+        assertEquals(record.getSessionClaim(), "sid");
+    }
+
+    @Test
+    public void testRecordJsonRoundTrip() {
+
+        TrafficRecord record = new TrafficRecord.Builder(SLOTracker.Flow.FEDERATED_LOGIN)
+                .startMillis(1700000000000L)
+                .tenant("tenant-0a1b2c3d4e5f")
+                .idp("idp-0f1e2d3c4b5a")
+                .durationMicros(45000)
+                .addPhaseMicros(AuthenticatorPhase.GET_OAUTH_RESPONSE.getPhaseName(), 30000)
+                .addPhaseMicros(AuthenticatorPhase.SEND_REQUEST.getPhaseName(), 10000)
+                .addPhaseMicros(AuthenticatorPhase.SEND_REQUEST.getPhaseName(), 2000)
+                .failure(AuthenticatorPhase.SEND_REQUEST.getPhaseName(), "OID-65001")
+                .tokens(36, 1200)
+                .idTokenClaims(15)
+                .userInfo(300, 8)
+                .build();
+
+        String json = record.toJson();
+        assertFalse(json.contains("\n"));
+        TrafficRecord parsed = TrafficRecord.fromJson(json);
+        assertEquals(parsed.getFlow(), record.getFlow());
+        assertEquals(parsed.getStartMillis(), record.getStartMillis());
+        assertEquals(parsed.getTenant(), record.getTenant());
+        assertEquals(parsed.getIdp(), record.getIdp());
+        assertEquals(parsed.getDurationMicros(), 45000);
+        assertEquals(parsed.getPhaseMicros(AuthenticatorPhase.SEND_REQUEST), 12000);
+        assertEquals(parsed.getPhaseMicros(AuthenticatorPhase.GET_OAUTH_RESPONSE), 30000);
+        assertEquals(parsed.getFailedPhase(), AuthenticatorPhase.SEND_REQUEST.getPhaseName());
+        assertEquals(parsed.getErrorCode(), "OID-65001");
+        assertEquals(parsed.getIdTokenBytes(), 1200);
+        assertEquals(parsed.getIdTokenClaims(), 15);
+        assertEquals(parsed.getUserInfoClaims(), 8);
+        assertEquals(parsed.getLogoutTokenBytes(), 0);
+        assertNull(parsed.getSessionClaim());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidRecordJson() {
+
+        TrafficRecord.fromJson("{\"flow\":\"unknown\"}");
+    }
+
+    @Test
+    public void testDisabledRecorder() {
+
+        TrafficRecorder recorder = new TrafficRecorder(10);
+        assertNull(recorder.begin(SLOTracker.Flow.FEDERATED_LOGIN, IDP_NAME, TENANT_DOMAIN));
+        TrafficCapture.recordTokens(36, 900);
+        recorder.end(null, null, true, null);
+        assertEquals(recorder.getRecordCount(), 0);
+        assertEquals(recorder.exportCapture(), "");
+    }
+
+    @Test
+    public void testBufferIsBounded() {
+
+        TrafficRecorder recorder = new TrafficRecorder(2);
+        recorder.setEnabled(true);
+        for (int i = 0; i < 3; i++) {
+            recorder.end(recorder.begin(SLOTracker.Flow.FEDERATED_LOGIN, IDP_NAME + i, TENANT_DOMAIN), null,
+                    true, null);
+        }
+        assertEquals(recorder.getRecordCount(), 3);
+        List<TrafficRecord> records = recorder.getRecords();
+        assertEquals(records.size(), 2);
+        assertEquals(records.get(0).getIdp(), recorder.pseudonymize(TrafficRecorder.IDP_PREFIX, IDP_NAME + 1));
+        assertEquals(records.get(1).getIdp(), recorder.pseudonymize(TrafficRecorder.IDP_PREFIX, IDP_NAME + 2));
+        assertEquals(recorder.exportCapture().split("\n").length, 2);
+
+        recorder.configure(true, 5);
+        assertEquals(recorder.getCapacity(), 5);
+        assertTrue(recorder.getRecords().isEmpty());
+
+        recorder.reset();
+        assertEquals(recorder.getRecordCount(), 0);
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.model;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit test class for FederatedTokenSharingParams.
+ */
+public class FederatedTokenSharingParamsTest {
+
+    @DataProvider(name = "federatedTokenScopeProvider")
+    public Object[][] federatedTokenScopeProvider() {
+
+        return new Object[][]{
+                // federated_token_scope value, IdP name, expected scopes.
+                {"Google Calender;read write,Microsoft Authenticator;https://googleapis.calender",
+                        "Google Calender", "read write"},
+                {"Google Calender;read write,Microsoft Authenticator;https://googleapis.calender",
+                        "Microsoft Authenticator", "https://googleapis.calender"},
+                {" Google Calender ; read write ", "Google Calender", "read write"},
+                {"Google Calender;read,Google Calender;write", "Google Calender", "read write"},
+                {"Google Calender;read write", "Microsoft Authenticator", null},
+                {"Google Calender;read;write", "Google Calender", null},
+                {"Google Calender;,Microsoft Authenticator;mail", "Google Calender", null},
+                {"Google Calender read write", "Google Calender", null},
+                {"", "Google Calender", null},
+                {null, "Google Calender", null}
+        };
+    }
+
+    @Test(dataProvider = "federatedTokenScopeProvider")
+    public void testGetRequestedScopes(String federatedTokenScope, String idpName, String expectedScopes) {
+
+        FederatedTokenSharingParams params = new FederatedTokenSharingParams("true", federatedTokenScope);
+        assertEquals(params.getRequestedScopes(idpName), expectedScopes);
+        assertEquals(params.getFederatedTokenScope(), federatedTokenScope);
+        assertEquals(params.getShareFederatedToken(), "true");
+    }
+
+    @Test
+    public void testResolvedValuesAreKeptPerStepKey() {
+
+        FederatedTokenSharingParams params = new FederatedTokenSharingParams("true", "Google;read,Microsoft;mail");
+        assertNull(params.getResolvedShareFederatedToken("1:Google"));
+        assertFalse(params.isRequestedScopesResolved("1:Google"));
+
+        params.setResolvedShareFederatedToken("1:Google", true);
+        params.setResolvedShareFederatedToken("2:Microsoft", false);
+        params.setResolvedRequestedScopes("1:Google", "read");
+        // A step without any requested scopes is resolved as well, hence it is not looked up again.
+        params.setResolvedRequestedScopes("2:Microsoft", null);
+
+        assertEquals(params.getResolvedShareFederatedToken("1:Google"), Boolean.TRUE);
+        assertEquals(params.getResolvedShareFederatedToken("2:Microsoft"), Boolean.FALSE);
+        assertNull(params.getResolvedShareFederatedToken("2:Google"));
+        assertEquals(params.getResolvedRequestedScopes("1:Google"), "read");
+        assertTrue(params.isRequestedScopesResolved("2:Microsoft"));
+        assertNull(params.getResolvedRequestedScopes("2:Microsoft"));
+        assertFalse(params.isRequestedScopesResolved("1:Microsoft"));
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.tracing;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit test class for OIDCTracer.
+ */
+public class OIDCTracerTest {
+
+    private static final String IDP_NAME = "TracerTestIdP";
+    private static final String TENANT_DOMAIN = "carbon.super";
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+
+    @AfterMethod
+    public void tearDown() {
+
+        OIDCTracer.setEnabled(false);
+        OIDCTracer.setSpanExporter(null);
+    }
+
+    @Test
+    public void testGetTraceId() {
+
+        assertEquals(OIDCTracer.getTraceId("4bf92f35-77b3-4da6-a3ce-929d0e0e4736"), TRACE_ID);
+        assertEquals(OIDCTracer.getTraceId(TRACE_ID.toUpperCase()), TRACE_ID);
+
+        String hashedTraceId = OIDCTracer.getTraceId("request-1");
+        assertTrue(hashedTraceId.matches("[0-9a-f]{32}"));
+        assertEquals(OIDCTracer.getTraceId("request-1"), hashedTraceId);
+        assertNotEquals(OIDCTracer.getTraceId("request-2"), hashedTraceId);
+
+        assertTrue(OIDCTracer.getTraceId(null).matches("[0-9a-f]{32}"));
+        assertNotEquals(OIDCTracer.getTraceId("00000000-0000-0000-0000-000000000000"),
+                "00000000000000000000000000000000");
+    }
+
+    @Test
+    public void testChildSpanSharesTrace() {
+
+        InMemorySpanExporter exporter = new InMemorySpanExporter(10);
+        OIDCTracer.setSpanExporter(exporter);
+        OIDCTracer.setEnabled(true);
+
+        Span parent = new Span(TRACE_ID, "00f067aa0ba902b7", null, "parent", IDP_NAME, TENANT_DOMAIN);
+        Span child = OIDCTracer.startSpan("child", IDP_NAME, TENANT_DOMAIN, parent);
+        assertEquals(child.getTraceId(), TRACE_ID);
+        assertEquals(child.getParentSpanId(), parent.getSpanId());
+        assertTrue(child.getTraceparent().matches("00-" + TRACE_ID + "-[0-9a-f]{16}-01"));
+
+        OIDCTracer.endSpan(child, IDP_NAME, true, 42);
+        List<Span> spans = exporter.getSpans(TRACE_ID);
+        assertEquals(spans.size(), 1);
+        assertSame(spans.get(0), child);
+        assertTrue(child.isSucceeded());
+        assertEquals(child.getBytes(), 42);
+        assertTrue(child.getDurationNanos() >= 0);
+    }
+
+    @Test
+    public void testDisabledTracing() {
+
+        Span parent = new Span(TRACE_ID, "00f067aa0ba902b7", null, "parent", IDP_NAME, TENANT_DOMAIN);
+        assertFalse(OIDCTracer.isEnabled());
+        assertNull(OIDCTracer.startSpan("child", IDP_NAME, TENANT_DOMAIN, parent));
+        // Ending a span which was not started should be a no-op.
+        OIDCTracer.endSpan(null, IDP_NAME, true, 0);
+    }
+
+    @Test
+    public void testInMemoryExporterCapacity() {
+
+        InMemorySpanExporter exporter = new InMemorySpanExporter(2);
+        for (int i = 0; i < 3; i++) {
+            exporter.export(new Span(TRACE_ID, "00f067aa0ba902b" + i, null, "span-" + i, IDP_NAME,
+                    TENANT_DOMAIN));
+        }
+        List<Span> spans = exporter.getSpans();
+        assertEquals(spans.size(), 2);
+        assertEquals(spans.get(0).getName(), "span-1");
+        assertEquals(spans.get(1).getName(), "span-2");
+
+        exporter.clear();
+        assertTrue(exporter.getSpans().isEmpty());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidExporterCapacity() {
+
+        new InMemorySpanExporter(0);
+    }
+}
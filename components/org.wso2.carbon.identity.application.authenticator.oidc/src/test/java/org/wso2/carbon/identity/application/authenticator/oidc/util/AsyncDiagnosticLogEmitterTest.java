@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.util;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.common.testng.WithCarbonHome;
+import org.wso2.carbon.utils.DiagnosticLog;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit test class for AsyncDiagnosticLogEmitter.
+ */
+@WithCarbonHome
+public class AsyncDiagnosticLogEmitterTest {
+
+    private static final String COMPONENT_ID = "test-component";
+
+    @Test
+    public void testQueuedEventsArePublished() {
+
+        List<DiagnosticLog.DiagnosticLogBuilder> published = new CopyOnWriteArrayList<>();
+        AsyncDiagnosticLogEmitter emitter = new AsyncDiagnosticLogEmitter(100, 10,
+                AsyncDiagnosticLogEmitter.OverflowPolicy.DROP, 0, published::add);
+        for (int i = 0; i < 25; i++) {
+            assertTrue(emitter.submit(new DiagnosticLog.DiagnosticLogBuilder(COMPONENT_ID, "action-" + i)));
+        }
+        emitter.shutdown();
+
+        assertEquals(published.size(), 25);
+        assertEquals(emitter.getPublishedEventCount(), 25);
+        assertEquals(emitter.getDroppedEventCount(), 0);
+        assertEquals(emitter.getQueueSize(), 0);
+    }
+
+    @Test
+    public void testEventsAreDroppedWhenQueueIsFull() throws InterruptedException {
+
+        CountDownLatch publishing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AsyncDiagnosticLogEmitter emitter = new AsyncDiagnosticLogEmitter(2, 1,
+                AsyncDiagnosticLogEmitter.OverflowPolicy.DROP, 0, builder -> {
+            publishing.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        // The worker takes the first event and blocks while publishing it.
+        assertTrue(emitter.submit(new DiagnosticLog.DiagnosticLogBuilder(COMPONENT_ID, "action-0")));
+        assertTrue(publishing.await(5, TimeUnit.SECONDS));
+
+        assertTrue(emitter.submit(new DiagnosticLog.DiagnosticLogBuilder(COMPONENT_ID, "action-1")));
+        assertTrue(emitter.submit(new DiagnosticLog.DiagnosticLogBuilder(COMPONENT_ID, "action-2")));
+        assertFalse(emitter.submit(new DiagnosticLog.DiagnosticLogBuilder(COMPONENT_ID, "action-3")));
+        assertEquals(emitter.getDroppedEventCount(), 1);
+
+        release.countDown();
+        emitter.shutdown();
+        assertEquals(emitter.getPublishedEventCount(), 3);
+    }
+
+    @Test
+    public void testEventsSubmittedWhileStoppingArePublished() throws InterruptedException {
+
+        AtomicInteger published = new AtomicInteger();
+        AsyncDiagnosticLogEmitter emitter = new AsyncDiagnosticLogEmitter(100000, 10,
+                AsyncDiagnosticLogEmitter.OverflowPolicy.DROP, 0, builder -> published.incrementAndGet());
+        int threads = 4;
+        int eventsPerThread = 2000;
+        CountDownLatch started = new CountDownLatch(threads);
+        Thread[] submitters = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            submitters[i] = new Thread(() -> {
+                started.countDown();
+                for (int j = 0; j < eventsPerThread; j++) {
+                    emitter.submit(new DiagnosticLog.DiagnosticLogBuilder(COMPONENT_ID, "action-" + j));
+                }
+            });
+            submitters[i].start();
+        }
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        emitter.shutdown();
+        for (Thread submitter : submitters) {
+            submitter.join(TimeUnit.SECONDS.toMillis(10));
+        }
+
+        // Events submitted after the shutdown are published from the caller, hence no event is left in the queue.
+        assertTrue(emitter.submit(new DiagnosticLog.DiagnosticLogBuilder(COMPONENT_ID, "action-after-shutdown")));
+        assertEquals(published.get(), threads * eventsPerThread + 1);
+        assertEquals(emitter.getPublishedEventCount(), threads * eventsPerThread + 1);
+        assertEquals(emitter.getDroppedEventCount(), 0);
+        assertEquals(emitter.getQueueSize(), 0);
+    }
+
+    @Test
+    public void testQueuedEventsArePublishedWhenWorkerDoesNotStop() throws InterruptedException {
+
+        List<String> published = new CopyOnWriteArrayList<>();
+        CountDownLatch publishing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread caller = Thread.currentThread();
+        AsyncDiagnosticLogEmitter emitter = new AsyncDiagnosticLogEmitter(100, 1,
+                AsyncDiagnosticLogEmitter.OverflowPolicy.DROP, 0, builder -> {
+            if (Thread.currentThread() != caller) {
+                // The worker blocks while publishing the first event.
+                publishing.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            published.add(Thread.currentThread() == caller ? "caller" : "worker");
+        });
+        try {
+            assertTrue(emitter.submit(new DiagnosticLog.DiagnosticLogBuilder(COMPONENT_ID, "action-0")));
+            assertTrue(publishing.await(5, TimeUnit.SECONDS));
+            assertTrue(emitter.submit(new DiagnosticLog.DiagnosticLogBuilder(COMPONENT_ID, "action-1")));
+            assertTrue(emitter.submit(new DiagnosticLog.DiagnosticLogBuilder(COMPONENT_ID, "action-2")));
+
+            // The events left in the queue are published from the caller while the worker is blocked.
+            emitter.shutdown(10);
+            assertEquals(published.size(), 2);
+            assertFalse(published.contains("worker"));
+            assertEquals(emitter.getPublishedEventCount(), 2);
+            assertEquals(emitter.getQueueSize(), 0);
+        } finally {
+            release.countDown();
+        }
+        emitter.shutdown();
+        assertEquals(emitter.getPublishedEventCount(), 3);
+        assertEquals(emitter.getDroppedEventCount(), 0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidCapacity() {
+
+        new AsyncDiagnosticLogEmitter(0, 1, AsyncDiagnosticLogEmitter.OverflowPolicy.DROP, 0, builder -> {
+        });
+    }
+}
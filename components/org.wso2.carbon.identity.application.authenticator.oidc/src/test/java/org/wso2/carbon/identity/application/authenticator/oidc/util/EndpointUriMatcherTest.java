@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.util;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.wso2.carbon.identity.application.authenticator.oidc.OIDCAuthenticatorConstants.OIDC_BACKCHANNEL_LOGOUT_ENDPOINT_URL_MATCHER;
+import static org.wso2.carbon.identity.application.authenticator.oidc.OIDCAuthenticatorConstants.OIDC_BACKCHANNEL_LOGOUT_ENDPOINT_URL_PATTERN;
+
+/**
+ * Unit test class for EndpointUriMatcher. The matcher should match the same URIs as the back-channel logout
+ * endpoint regex.
+ */
+public class EndpointUriMatcherTest {
+
+    private static final String[] FRAGMENTS = {"/", "identity", "/identity", "/oidc", "oidc", "/slo", "slo", "s",
+            "/identity/oidc/sl", "?", "=", "\n", "\r", "\u0085", "\u2028", "\u2029", "\t", " ", "\u00e9"};
+
+    @DataProvider(name = "uriProvider")
+    public Object[][] uriProvider() {
+
+        return new Object[][]{
+                {"/identity/oidc/slo"},
+                {"https://localhost:9443/identity/oidc/slo"},
+                {"https://localhost:9443/t/wso2.com/identity/oidc/slo"},
+                {"https://localhost:9443/identity/oidc/slo/"},
+                {"https://localhost:9443/identity/oidc/slogout"},
+                {"https://localhost:9443/identity/oidc/bclogout"},
+                {"https://localhost:9443/identity/oidc/sl"},
+                {"https://localhost:9443/identity/identity/oidc/slo"},
+                {"https://localhost:9443/identity/oidc/identity/oidc/slo"},
+                {"//identity/oidc/slo"},
+                {"/IDENTITY/OIDC/SLO"},
+                {"identity/oidc/slo"},
+                {""},
+                {"/identity/oidc/slo\n"},
+                {"\r/identity/oidc/slo"},
+                {"/identity/oidc/slo?a=\u0085"},
+                {"/identity/oidc/slo\u2028"},
+                {"\u2029/identity/oidc/slo"},
+                {"/identity/oidc/slo\t"},
+                {"/identity/oidc/slo\u00e9"},
+        };
+    }
+
+    @Test(dataProvider = "uriProvider")
+    public void testMatchesSameUrisAsPattern(String uri) {
+
+        assertEquals(OIDC_BACKCHANNEL_LOGOUT_ENDPOINT_URL_MATCHER.matches(uri),
+                OIDC_BACKCHANNEL_LOGOUT_ENDPOINT_URL_PATTERN.matcher(uri).matches(), uri);
+    }
+
+    @Test
+    public void testMatchesSameRandomUrisAsPattern() {
+
+        Random random = new Random(42);
+        StringBuilder uri = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            uri.setLength(0);
+            int fragments = random.nextInt(8);
+            for (int j = 0; j < fragments; j++) {
+                uri.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+            }
+            assertEquals(OIDC_BACKCHANNEL_LOGOUT_ENDPOINT_URL_MATCHER.matches(uri),
+                    OIDC_BACKCHANNEL_LOGOUT_ENDPOINT_URL_PATTERN.matcher(uri).matches(), uri.toString());
+        }
+    }
+
+    @Test
+    public void testSelfOverlappingPath() {
+
+        EndpointUriMatcher matcher = new EndpointUriMatcher("abab");
+        assertEquals(matcher.matches("aababab"), true);
+        assertEquals(matcher.matches("abaab"), false);
+    }
+
+    @Test
+    public void testNullUri() {
+
+        assertFalse(OIDC_BACKCHANNEL_LOGOUT_ENDPOINT_URL_MATCHER.matches(null));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testPathWithLineTerminator() {
+
+        new EndpointUriMatcher("/slo\n");
+    }
+}
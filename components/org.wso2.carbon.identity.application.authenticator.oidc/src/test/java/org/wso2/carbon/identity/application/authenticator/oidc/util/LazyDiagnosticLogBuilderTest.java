@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.util;
+
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.testng.PowerMockTestCase;
+import org.testng.IObjectFactory;
+import org.testng.annotations.ObjectFactory;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.central.log.mgt.utils.LoggerUtils;
+import org.wso2.carbon.utils.DiagnosticLog;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.verifyStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+
+/**
+ * Unit test class for LazyDiagnosticLogBuilder.
+ */
+@PrepareForTest({LoggerUtils.class})
+@PowerMockIgnore({"jdk.internal.reflect.*", "javax.management.*"})
+public class LazyDiagnosticLogBuilderTest extends PowerMockTestCase {
+
+    private static final String COMPONENT_ID = "test-component";
+    private static final String ACTION_ID = "test-action";
+
+    @ObjectFactory
+    public IObjectFactory getObjectFactory() {
+
+        return new org.powermock.modules.testng.PowerMockObjectFactory();
+    }
+
+    @Test
+    public void testParamsAreNotEvaluatedWhenDiagnosticLogsAreDisabled() {
+
+        mockStatic(LoggerUtils.class);
+        when(LoggerUtils.isDiagnosticLogsEnabled()).thenReturn(false);
+        AtomicInteger evaluations = new AtomicInteger();
+
+        newBuilder(evaluations).emit();
+
+        assertEquals(evaluations.get(), 0);
+        verifyStatic(LoggerUtils.class, never());
+        LoggerUtils.triggerDiagnosticLogEvent(any(DiagnosticLog.DiagnosticLogBuilder.class));
+    }
+
+    @Test
+    public void testParamsAreEvaluatedWhenDiagnosticLogsAreEnabled() {
+
+        mockStatic(LoggerUtils.class);
+        when(LoggerUtils.isDiagnosticLogsEnabled()).thenReturn(true);
+        AtomicInteger evaluations = new AtomicInteger();
+
+        newBuilder(evaluations).emit();
+
+        // Every supplier is evaluated exactly once, including the one returning null.
+        assertEquals(evaluations.get(), 3);
+        verifyStatic(LoggerUtils.class, times(1));
+        LoggerUtils.triggerDiagnosticLogEvent(any(DiagnosticLog.DiagnosticLogBuilder.class));
+    }
+
+    @Test
+    public void testToDiagnosticLogBuilderEvaluatesParams() {
+
+        AtomicInteger evaluations = new AtomicInteger();
+
+        assertNotNull(newBuilder(evaluations).toDiagnosticLogBuilder());
+        assertEquals(evaluations.get(), 3);
+    }
+
+    private static LazyDiagnosticLogBuilder newBuilder(AtomicInteger evaluations) {
+
+        return new LazyDiagnosticLogBuilder(COMPONENT_ID, ACTION_ID)
+                .resultMessage("Test message.")
+                .resultStatus(DiagnosticLog.ResultStatus.SUCCESS)
+                .logDetailLevel(DiagnosticLog.LogDetailLevel.APPLICATION)
+                .inputParam("step", () -> evaluations.incrementAndGet())
+                .inputParam("skipped", () -> {
+                    evaluations.incrementAndGet();
+                    return null;
+                })
+                .inputParams(() -> {
+                    evaluations.incrementAndGet();
+                    return Collections.singletonMap("application name", "test-app");
+                });
+    }
+}
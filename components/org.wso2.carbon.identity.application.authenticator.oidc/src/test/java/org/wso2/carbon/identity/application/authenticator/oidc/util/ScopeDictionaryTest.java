@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authenticator.oidc.util;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit test class for ScopeDictionary.
+ */
+public class ScopeDictionaryTest {
+
+    @DataProvider(name = "scopeProvider")
+    public Object[][] scopeProvider() {
+
+        return new Object[][]{
+                // Configured scopes, allowed scopes, requested scopes, expected scopes.
+                {"openid email", "read write", "write read", "openid email read write"},
+                {"openid email", "read write", "read  unknown", "openid email read"},
+                {"openid email", "read write email", "email write", "openid email write"},
+                {"openid email", "read write", "unknown", "openid email"},
+                {"openid email", null, "read", "openid email"},
+                {"openid email", "read", null, "openid email"},
+                {null, "read write", "write", "write"},
+                {" openid  email ", "read", "read", "openid email read"},
+        };
+    }
+
+    @Test(dataProvider = "scopeProvider")
+    public void testResolveScopes(String configuredScopes, String allowedScopes, String requestedScopes,
+                                  String expectedScopes) {
+
+        ScopeDictionary scopeDictionary = ScopeDictionary.getInstance(configuredScopes, allowedScopes);
+        assertEquals(scopeDictionary.resolveScopes(requestedScopes), expectedScopes);
+        // The cached result should be the same.
+        assertEquals(scopeDictionary.resolveScopes(requestedScopes), expectedScopes);
+    }
+
+    @Test
+    public void testGetValidScopes() {
+
+        ScopeDictionary scopeDictionary = ScopeDictionary.getInstance("openid", "read write");
+        assertEquals(scopeDictionary.toScopeString(scopeDictionary.getValidScopes("write openid read")),
+                "read write");
+        assertTrue(scopeDictionary.getValidScopes("openid").isEmpty());
+        assertTrue(scopeDictionary.getValidScopes(null).isEmpty());
+    }
+
+    @Test
+    public void testDictionaryIsCached() {
+
+        assertSame(ScopeDictionary.getInstance("openid", "read"), ScopeDictionary.getInstance("openid", "read"));
+    }
+
+    @Test
+    public void testResolvedScopesCacheIsBounded() {
+
+        ScopeDictionary scopeDictionary = ScopeDictionary.getInstance("openid", "read write");
+        StringBuilder longRequestedScopes = new StringBuilder("write");
+        for (int i = 0; i < 100; i++) {
+            longRequestedScopes.append(" unknown").append(i);
+        }
+        // Long requested scope strings are resolved, but not cached.
+        assertEquals(scopeDictionary.resolveScopes(longRequestedScopes.toString()), "openid write");
+        assertEquals(scopeDictionary.getResolvedScopesCacheSize(), 0);
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(scopeDictionary.resolveScopes("read unknown" + i), "openid read");
+        }
+        assertTrue(scopeDictionary.getResolvedScopesCacheSize() <= 256);
+    }
+}